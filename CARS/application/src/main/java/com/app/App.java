@@ -1,11 +1,88 @@
 package com.app;
 
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+
+import com.app.server.CarQueryServer;
+import com.app.service.BatchService;
+import com.app.service.CarFileWatcher;
+import com.app.service.CarService;
 import com.app.service.MenuService;
+import com.app.service.enums.BatchFormat;
 
 public class App {
 
+  private static final String CARS_FILENAME = "Cars.json";
+  private static final String SNAPSHOT_FILENAME = "Cars.snapshot";
+  private static final String PARTITIONS_DIRECTORY = "cars";
+  private static final int PORT = 8080;
+
   public static void main(String[] args) {
-    MenuService menuService = new MenuService("Cars.json");
+    List<String> arguments = List.of(args);
+    // with --partitions[=directory or glob] every matching JSON file is loaded in parallel as one partition
+    Optional<String> partitions = option(arguments, "--partitions");
+    CarService carService = partitions.isPresent()
+        ? CarService.fromPartitions(partitions.get().contains("=") ? value(partitions.get()) : PARTITIONS_DIRECTORY)
+        : createCarService(arguments.contains("--snapshot"));
+    // latency histograms and load statistics are readable from jconsole or any other JMX client
+    carService.getMetrics().registerMBeans(CARS_FILENAME);
+    if (arguments.contains("--watch") && partitions.isEmpty()) {
+      new CarFileWatcher(carService, CARS_FILENAME, System.out::println).start();
+    }
+
+    // with --server[=port] the queries are served over HTTP instead of the menu
+    Optional<String> server = option(arguments, "--server");
+    if (server.isPresent()) {
+      startServer(carService, server.get());
+      return;
+    }
+
+    // with --batch[=script] the script, or the standard input, is run instead of the menu
+    Optional<String> batch = option(arguments, "--batch");
+    if (batch.isPresent()) {
+      String format = option(arguments, "--format").map(App::value).orElse("text");
+      BatchService batchService = new BatchService(carService, BatchFormat.valueOf(format.toUpperCase()));
+      int failures = batchService.run(value(batch.get()), option(arguments, "--output").map(App::value).orElse("-"));
+      System.exit(failures == 0 ? 0 : 1);
+    }
+
+    MenuService menuService = new MenuService(carService);
     menuService.mainMenu();
   }
-}
\ No newline at end of file
+
+  private static Optional<String> option(List<String> arguments, String name) {
+    return arguments.stream().filter(argument -> argument.equals(name) || argument.startsWith(name + "=")).findFirst();
+  }
+
+  // the value after "=", or "-" for the standard streams when there is none
+  private static String value(String argument) {
+    int separator = argument.indexOf('=');
+    return separator < 0 ? "-" : argument.substring(separator + 1);
+  }
+
+  private static void startServer(CarService carService, String argument) {
+    int port = argument.contains("=") ? Integer.parseInt(value(argument)) : PORT;
+    CarQueryServer server = CarQueryServer.builder()
+        .carService(carService)
+        .port(port)
+        .build();
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+    System.out.println("Serving cars on http://localhost:" + server.getPort() + "/cars");
+  }
+
+  // with --snapshot the validated cars are kept in a binary snapshot, which is rebuilt when the JSON file is newer
+  private static CarService createCarService(boolean useSnapshot) {
+    if (!useSnapshot) {
+      return new CarService(CARS_FILENAME);
+    }
+    File snapshot = new File(SNAPSHOT_FILENAME);
+    if (snapshot.exists() && snapshot.lastModified() >= new File(CARS_FILENAME).lastModified()) {
+      return CarService.fromSnapshot(SNAPSHOT_FILENAME, CARS_FILENAME);
+    }
+    CarService carService = new CarService(CARS_FILENAME);
+    carService.writeSnapshot(SNAPSHOT_FILENAME);
+    return carService;
+  }
+}
@@ -0,0 +1,421 @@
+package com.app.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.app.converter.CarJsonExporter;
+import com.app.converter.enums.ExportFormat;
+import com.app.model.enums.Color;
+import com.app.service.CarService;
+import com.app.service.aggregate.CarAggregate;
+import com.app.service.cache.ResultCache;
+import com.app.service.enums.GroupBy;
+import com.app.service.metrics.CarServiceMetrics;
+import com.app.service.metrics.OperationMetrics;
+import com.app.service.query.CarPage;
+import com.app.service.query.CarQuery;
+import com.app.service.query.CarQueryParameters;
+import com.app.service.query.QueryPlan;
+import com.app.service.query.StaleContinuationTokenException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the queries of one {@link CarService} as JSON over HTTP, so any number of clients share the loaded
+ * cars. Every request runs on a virtual thread when the JVM has them and on a pooled thread otherwise; at most
+ * {@code maxInFlight} requests are handled at once and any further ones are answered with 503 right away.
+ * Parameters which are not valid are answered with 400, a continuation token of cars which changed since with
+ * 409 and any other failure with 500. Endpoints, all GET:
+ * <ul>
+ *   <li>{@code /cars} with the parameters of {@link CarQueryParameters}, {@code format=json|ndjson} and optionally
+ *   {@code pageSize} and {@code token}; a page returns the token of the next one in the
+ *   {@code X-Continuation-Token} header</li>
+ *   <li>{@code /cars/explain} with the same parameters returns the plan of the query</li>
+ *   <li>{@code /colors} returns the number of cars per color</li>
+ *   <li>{@code /aggregates?groupBy=model|color|component} returns count, price and mileage per group</li>
+ *   <li>{@code /metrics} returns request latencies per endpoint, operation latencies of the service and the
+ *   hit rate of its result cache</li>
+ * </ul>
+ */
+public class CarQueryServer {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+  private final CarService carService;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Semaphore inFlight;
+  private final int maxInFlight;
+  private final LongAdder rejected = new LongAdder();
+  private final Map<String, EndpointMetrics> endpoints = new LinkedHashMap<>();
+
+  private CarQueryServer(CarQueryServerBuilder builder) {
+    this.carService = Optional.ofNullable(builder.carService)
+        .orElseThrow(() -> new NullPointerException("Car service is null"));
+    this.maxInFlight = builder.maxInFlight;
+    this.inFlight = new Semaphore(builder.maxInFlight);
+    try {
+      this.server = HttpServer.create(new InetSocketAddress(builder.port), builder.backlog);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to listen on port " + builder.port, e);
+    }
+    this.executor = newRequestExecutor();
+    server.setExecutor(executor);
+    addEndpoint("/cars", this::cars);
+    addEndpoint("/cars/explain", this::explain);
+    addEndpoint("/colors", this::colors);
+    addEndpoint("/aggregates", this::aggregates);
+    addEndpoint("/metrics", this::metrics);
+    server.createContext("/", exchange -> {
+      try (exchange) {
+        sendError(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+      }
+    });
+  }
+
+  public static CarQueryServerBuilder builder() {
+    return new CarQueryServerBuilder();
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests and waits up to the given number of seconds for the running ones.
+   */
+  public void stop(int delaySeconds) {
+    server.stop(delaySeconds);
+    executor.shutdown();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  // virtual threads are looked up reflectively, as the code is compiled for a release which has none
+  private static ExecutorService newRequestExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  private void addEndpoint(String path, Endpoint endpoint) {
+    EndpointMetrics metrics = new EndpointMetrics();
+    endpoints.put(path, metrics);
+    server.createContext(path, exchange -> handle(exchange, path, endpoint, metrics));
+  }
+
+  private void handle(HttpExchange exchange, String path, Endpoint endpoint, EndpointMetrics metrics) {
+    long start = System.nanoTime();
+    try (exchange) {
+      if (!inFlight.tryAcquire()) {
+        rejected.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Too many requests, at most " + maxInFlight + " are handled at once");
+        return;
+      }
+      try {
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+          sendError(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+        } else if (!"GET".equals(exchange.getRequestMethod())) {
+          exchange.getResponseHeaders().set("Allow", "GET");
+          sendError(exchange, 405, "Method is not allowed: " + exchange.getRequestMethod());
+        } else {
+          endpoint.respond(exchange, parameters(exchange.getRequestURI()));
+        }
+      } catch (BadRequestException e) {
+        sendError(exchange, 400, e.getMessage());
+      } catch (StaleContinuationTokenException e) {
+        sendError(exchange, 409, e.getMessage());
+      } catch (RuntimeException e) {
+        sendError(exchange, 500, String.valueOf(e));
+      } finally {
+        inFlight.release();
+        metrics.record(System.nanoTime() - start, exchange.getResponseCode());
+      }
+    } catch (IOException e) {
+      // the client went away, there is nobody to answer
+    }
+  }
+
+  private void cars(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    ExportFormat format = toFormat(parameters.remove("format"));
+    String pageSize = parameters.remove("pageSize");
+    String token = parameters.remove("token");
+    CarQuery query = toQuery(parameters);
+    exchange.getResponseHeaders().set("Content-Type", contentType(format));
+    if (pageSize == null && token == null) {
+      // the cars are written while the cursor produces them, so the length of the response is not known
+      exchange.sendResponseHeaders(200, 0);
+      carService.exportCars(query, format, Channels.newChannel(exchange.getResponseBody()));
+      return;
+    }
+
+    int size = pageSize == null ? DEFAULT_PAGE_SIZE : toInt("pageSize", pageSize);
+    if (size <= 0) {
+      throw new BadRequestException("Page size must be positive: " + size);
+    }
+    CarPage page;
+    try {
+      page = carService.getPage(query, size, token);
+    } catch (IllegalArgumentException e) {
+      // the query and page size are valid, so only the token can be
+      throw new BadRequestException(e.getMessage(), e);
+    }
+    if (page.hasNextPage()) {
+      exchange.getResponseHeaders().set(CONTINUATION_TOKEN_HEADER, page.getContinuationToken());
+    }
+    exchange.sendResponseHeaders(200, 0);
+    new CarJsonExporter(format).export(page.getCars().iterator(), Channels.newChannel(exchange.getResponseBody()));
+  }
+
+  private void explain(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    QueryPlan plan = carService.explain(toQuery(parameters));
+    sendJson(exchange, 200, json -> json.beginObject()
+        .name("accessPath").value(plan.getAccessPath().name())
+        .name("estimatedRows").value(plan.getEstimatedRows())
+        .endObject());
+  }
+
+  private void colors(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    requireNone(parameters);
+    Map<Color, Long> counts = carService.getCarCountsByColor();
+    sendJson(exchange, 200, json -> {
+      json.beginObject();
+      for (Map.Entry<Color, Long> count : counts.entrySet()) {
+        json.name(count.getKey().name()).value(count.getValue());
+      }
+      json.endObject();
+    });
+  }
+
+  private void aggregates(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    String groupBy = Optional.ofNullable(parameters.remove("groupBy")).orElse(GroupBy.MODEL.name());
+    requireNone(parameters);
+    Map<String, CarAggregate> aggregates = carService.aggregate(toGroupBy(groupBy));
+    sendJson(exchange, 200, json -> {
+      json.beginObject();
+      for (Map.Entry<String, CarAggregate> group : aggregates.entrySet()) {
+        CarAggregate aggregate = group.getValue();
+        json.name(group.getKey()).beginObject()
+            .name("count").value(aggregate.getCount())
+            .name("averagePrice").value(aggregate.getAveragePrice())
+            .name("minPrice").value(aggregate.getMinPrice())
+            .name("maxPrice").value(aggregate.getMaxPrice())
+            .name("averageMileage").value(aggregate.getAverageMileage())
+            .name("minMileage").value(aggregate.getMinMileage())
+            .name("maxMileage").value(aggregate.getMaxMileage())
+            .endObject();
+      }
+      json.endObject();
+    });
+  }
+
+  private void metrics(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+    requireNone(parameters);
+    CarServiceMetrics serviceMetrics = carService.getMetrics();
+    sendJson(exchange, 200, json -> {
+      json.beginObject();
+      json.name("cars").value(serviceMetrics.getCars());
+      json.name("version").value(serviceMetrics.getVersion());
+      json.name("inFlight").value(maxInFlight - inFlight.availablePermits());
+      json.name("maxInFlight").value(maxInFlight);
+      json.name("rejected").value(rejected.sum());
+      json.name("endpoints").beginObject();
+      for (Map.Entry<String, EndpointMetrics> endpoint : endpoints.entrySet()) {
+        json.name(endpoint.getKey());
+        endpoint.getValue().write(json);
+      }
+      json.endObject();
+      ResultCache resultCache = carService.getResultCache();
+      json.name("resultCache").beginObject()
+          .name("hits").value(resultCache.getHits())
+          .name("misses").value(resultCache.getMisses())
+          .name("hitRate").value(resultCache.getHitRate())
+          .name("evictions").value(resultCache.getEvictions())
+          .name("invalidations").value(resultCache.getInvalidations())
+          .name("size").value(resultCache.getSize())
+          .name("weight").value(resultCache.getWeight())
+          .endObject();
+      json.name("operations").beginObject();
+      for (OperationMetrics operation : serviceMetrics.getOperations()) {
+        if (operation.getCount() > 0) {
+          json.name(operation.getName());
+          EndpointMetrics.write(json, operation.getLatencies(), operation.getFailures());
+        }
+      }
+      json.endObject();
+      json.endObject();
+    });
+  }
+
+  private static void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, 0);
+    BufferedWriter writer = new BufferedWriter(
+        new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE);
+    JsonWriter json = new JsonWriter(writer);
+    body.write(json);
+    json.flush();
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    // once the status line is out, a failure can only cut the response short
+    if (exchange.getResponseCode() == -1) {
+      sendJson(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+    }
+  }
+
+  // repeated parameters are joined into one comma separated list
+  private static Map<String, String> parameters(URI uri) {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    if (uri.getRawQuery() == null) {
+      return parameters;
+    }
+    for (String parameter : uri.getRawQuery().split("&")) {
+      if (parameter.isEmpty()) {
+        continue;
+      }
+      String[] nameAndValue = parameter.split("=", 2);
+      String name = URLDecoder.decode(nameAndValue[0], StandardCharsets.UTF_8);
+      String value = nameAndValue.length == 2 ? URLDecoder.decode(nameAndValue[1], StandardCharsets.UTF_8) : "";
+      parameters.merge(name, value, (first, second) -> first + "," + second);
+    }
+    return parameters;
+  }
+
+  private static void requireNone(Map<String, String> parameters) {
+    if (!parameters.isEmpty()) {
+      throw new BadRequestException("Parameter is not supported: " + parameters.keySet().iterator().next());
+    }
+  }
+
+  private static CarQuery toQuery(Map<String, String> parameters) {
+    try {
+      return CarQueryParameters.toQuery(parameters);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(e.getMessage(), e);
+    }
+  }
+
+  private static ExportFormat toFormat(String format) {
+    if (format == null) {
+      return ExportFormat.JSON;
+    }
+    try {
+      return ExportFormat.valueOf(format.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Format is not valid: " + format, e);
+    }
+  }
+
+  private static GroupBy toGroupBy(String groupBy) {
+    try {
+      return GroupBy.valueOf(groupBy.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Group is not valid: " + groupBy, e);
+    }
+  }
+
+  private static int toInt(String name, String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("Parameter " + name + " is not a number: " + value, e);
+    }
+  }
+
+  private static String contentType(ExportFormat format) {
+    return format == ExportFormat.JSON ? "application/json; charset=utf-8" : "application/x-ndjson; charset=utf-8";
+  }
+
+  private interface Endpoint {
+
+    void respond(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+  }
+
+  private interface JsonBody {
+
+    void write(JsonWriter json) throws IOException;
+  }
+
+  // a request whose parameters are not valid, answered with 400; any other failure is answered with 500
+  private static final class BadRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private BadRequestException(String message) {
+      super(message);
+    }
+
+    private BadRequestException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  public static class CarQueryServerBuilder {
+
+    private CarService carService;
+    private int port = 8080;
+    private int backlog;
+    private int maxInFlight = 1024;
+
+    public CarQueryServer build() {
+      return new CarQueryServer(this);
+    }
+
+    public CarQueryServerBuilder carService(CarService carService) {
+      this.carService = carService;
+      return this;
+    }
+
+    /**
+     * Sets the port to listen on; 0 picks a free one, see {@link CarQueryServer#getPort()}.
+     */
+    public CarQueryServerBuilder port(int port) {
+      if (port < 0 || port > 0xFFFF) {
+        throw new IllegalArgumentException("Port is not valid: " + port);
+      }
+      this.port = port;
+      return this;
+    }
+
+    /**
+     * Sets how many connections the operating system queues before they are accepted; 0 uses its default.
+     */
+    public CarQueryServerBuilder backlog(int backlog) {
+      if (backlog < 0) {
+        throw new IllegalArgumentException("Backlog must not be negative: " + backlog);
+      }
+      this.backlog = backlog;
+      return this;
+    }
+
+    public CarQueryServerBuilder maxInFlight(int maxInFlight) {
+      if (maxInFlight < 1) {
+        throw new IllegalArgumentException("Number of requests in flight must be positive: " + maxInFlight);
+      }
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.app.server;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.app.service.metrics.LatencyHistogram;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Latencies of the requests answered by one endpoint, from accepting the request until the response was
+ * written, and the number of them answered with an error status.
+ */
+class EndpointMetrics {
+
+  private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+
+  void record(long nanos, int status) {
+    latencies.record(nanos);
+    if (status >= 400) {
+      errors.increment();
+    }
+  }
+
+  static void write(JsonWriter json, LatencyHistogram latencies, long errors) throws IOException {
+    json.beginObject();
+    json.name("count").value(latencies.getCount());
+    json.name("errors").value(errors);
+    json.name("meanMicros").value(latencies.getMeanNanos() / NANOS_PER_MICRO);
+    json.name("medianMicros").value(latencies.getValueAtPercentile(50) / NANOS_PER_MICRO);
+    json.name("p99Micros").value(latencies.getValueAtPercentile(99) / NANOS_PER_MICRO);
+    json.name("p999Micros").value(latencies.getValueAtPercentile(99.9) / NANOS_PER_MICRO);
+    json.name("maxMicros").value(latencies.getMaxNanos() / NANOS_PER_MICRO);
+    json.endObject();
+  }
+
+  void write(JsonWriter json) throws IOException {
+    write(json, latencies, errors.sum());
+  }
+}
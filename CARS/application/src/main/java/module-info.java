@@ -1,3 +1,7 @@
 module application {
   requires service;
+  requires model;
+  requires converter;
+  requires gson;
+  requires jdk.httpserver;
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.app.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.CarService;
+import com.app.service.aggregate.CarAggregate;
+import com.app.service.enums.GroupBy;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarQueryServerTest {
+
+  private static final String CARS = "["
+      + "{\"model\": \"BMW\", \"price\": 160, \"color\": \"BLACK\", \"mileage\": 1500, \"components\": [\"ABS\"]},"
+      + "{\"model\": \"MAZDA\", \"price\": 120, \"color\": \"GREEN\", \"mileage\": 2000, \"components\": [\"ESP\"]},"
+      + "{\"model\": \"MAZDA\", \"price\": 300, \"color\": \"RED\", \"mileage\": 500, \"components\": [\"ABS\"]},"
+      + "{\"model\": \"AUDI\", \"price\": 200, \"color\": \"WHITE\", \"mileage\": 100, \"components\": [\"ESP\"]},"
+      + "{\"model\": \"BMW\", \"price\": 250, \"color\": \"BLACK\", \"mileage\": 900, \"components\": [\"ABS\"]}"
+      + "]";
+
+  private final CountDownLatch colorsEntered = new CountDownLatch(1);
+  private final CountDownLatch colorsReleased = new CountDownLatch(1);
+  private volatile boolean blockColors;
+  private CarService carService;
+  private CarQueryServer server;
+
+  @BeforeEach
+  void setUp(@TempDir Path directory) throws IOException {
+    Path carsFile = directory.resolve("Cars.json");
+    Files.writeString(carsFile, CARS);
+    carService = new CarService(carsFile.toString()) {
+      @Override
+      public EnumMap<Color, Long> getCarCountsByColor() {
+        if (blockColors) {
+          colorsEntered.countDown();
+          await(colorsReleased);
+        }
+        return super.getCarCountsByColor();
+      }
+
+      @Override
+      public Map<String, CarAggregate> aggregate(GroupBy groupBy) {
+        if (groupBy == GroupBy.COMPONENT) {
+          throw new IllegalStateException("Aggregation failed");
+        }
+        return super.aggregate(groupBy);
+      }
+    };
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  void should_stream_all_cars_of_a_query_without_a_page_size() throws IOException {
+    // given
+    start(16);
+
+    // when
+    Response all = get("/cars");
+    Response mazdas = get("/cars?models=MAZDA&format=ndjson");
+
+    // then
+    assertEquals(200, all.status);
+    assertEquals(5, parse(all.body).getAsJsonArray().size());
+    assertNull(all.continuationToken);
+    assertEquals(200, mazdas.status);
+    assertTrue(mazdas.contentType.startsWith("application/x-ndjson"));
+    assertEquals(2, mazdas.body.strip().split("\n").length);
+  }
+
+  @Test
+  void should_page_through_the_cars_with_continuation_tokens() throws IOException {
+    // given
+    start(16);
+
+    // when
+    Response first = get("/cars?sort=price&pageSize=2");
+    Response second = get("/cars?sort=price&pageSize=2&token=" + first.continuationToken);
+    Response last = get("/cars?sort=price&pageSize=2&token=" + second.continuationToken);
+
+    // then
+    assertEquals(200, first.status);
+    assertEquals(2, parse(first.body).getAsJsonArray().size());
+    assertEquals(new BigDecimal("200"), prices(second).get(0).getAsBigDecimal());
+    assertEquals(1, prices(last).size());
+    assertNull(last.continuationToken);
+  }
+
+  @Test
+  void should_answer_a_token_of_changed_cars_with_conflict() throws IOException {
+    // given
+    start(16);
+    String token = get("/cars?pageSize=2").continuationToken;
+
+    // when
+    carService.addCar(Car.builder()
+        .model("FIAT")
+        .price(BigDecimal.TEN)
+        .color(Color.BLUE)
+        .mileage(10L)
+        .components(Set.of("ABS"))
+        .build());
+    Response stale = get("/cars?pageSize=2&token=" + token);
+    Response malformed = get("/cars?pageSize=2&token=abc");
+
+    // then
+    assertEquals(409, stale.status);
+    assertEquals(400, malformed.status);
+  }
+
+  @Test
+  void should_answer_parameters_which_are_not_valid_with_bad_request() throws IOException {
+    // given
+    start(16);
+
+    // when + then
+    assertEquals(400, get("/cars?minPrice=300&maxPrice=100").status);
+    assertEquals(400, get("/cars?pageSize=0").status);
+    assertEquals(400, get("/cars?format=xml").status);
+    assertEquals(400, get("/cars/explain?wheels=4").status);
+    assertEquals(400, get("/aggregates?groupBy=wheels").status);
+    assertEquals(400, get("/colors?models=BMW").status);
+  }
+
+  @Test
+  void should_answer_failures_of_the_service_with_server_error() throws IOException {
+    // given
+    start(16);
+
+    // when
+    Response failed = get("/aggregates?groupBy=component");
+    Response aggregates = get("/aggregates?groupBy=model");
+
+    // then
+    assertEquals(500, failed.status);
+    assertTrue(failed.body.contains("Aggregation failed"));
+    assertEquals(200, aggregates.status);
+    assertEquals(2, parse(aggregates.body).getAsJsonObject()
+        .getAsJsonObject("BMW").get("count").getAsInt());
+  }
+
+  @Test
+  void should_answer_unknown_paths_and_other_methods_than_get() throws IOException {
+    // given
+    start(16);
+
+    // when
+    Response unknown = get("/trucks");
+    Response unknownBelowCars = get("/cars/unknown");
+    Response deleted = request("DELETE", "/colors");
+
+    // then
+    assertEquals(404, unknown.status);
+    assertEquals(404, unknownBelowCars.status);
+    assertEquals(405, deleted.status);
+    assertEquals("GET", deleted.allow);
+  }
+
+  @Test
+  void should_reject_requests_beyond_the_limit_in_flight() throws Exception {
+    // given
+    start(1);
+    blockColors = true;
+    CompletableFuture<Response> blocked = CompletableFuture.supplyAsync(() -> {
+      try {
+        return get("/colors");
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertTrue(colorsEntered.await(10, TimeUnit.SECONDS));
+
+    // when
+    Response rejected = get("/metrics");
+    colorsReleased.countDown();
+    Response answered = blocked.get(10, TimeUnit.SECONDS);
+
+    // then
+    assertEquals(503, rejected.status);
+    assertEquals("1", rejected.retryAfter);
+    assertEquals(200, answered.status);
+    assertEquals(2, parse(answered.body).getAsJsonObject().get("BLACK").getAsInt());
+    assertEquals(1, metrics().get("rejected").getAsInt());
+  }
+
+  @Test
+  void should_report_requests_per_endpoint_and_the_result_cache() throws IOException {
+    // given
+    start(16);
+    get("/colors");
+    get("/colors");
+    get("/trucks");
+    get("/aggregates?groupBy=wheels");
+
+    // when
+    JsonObject metrics = metrics();
+
+    // then
+    assertEquals(5, metrics.get("cars").getAsInt());
+    assertEquals(0, metrics.get("rejected").getAsInt());
+    JsonObject endpoints = metrics.getAsJsonObject("endpoints");
+    assertEquals(2, endpoints.getAsJsonObject("/colors").get("count").getAsLong());
+    assertEquals(0, endpoints.getAsJsonObject("/colors").get("errors").getAsLong());
+    assertEquals(1, endpoints.getAsJsonObject("/aggregates").get("errors").getAsLong());
+    assertEquals(1, metrics.getAsJsonObject("resultCache").get("hits").getAsLong());
+    assertTrue(metrics.getAsJsonObject("operations").has("getCarCountsByColor"));
+  }
+
+  private void start(int maxInFlight) {
+    server = CarQueryServer.builder()
+        .carService(carService)
+        .port(0)
+        .maxInFlight(maxInFlight)
+        .build();
+    server.start();
+  }
+
+  private JsonObject metrics() throws IOException {
+    Response metrics = get("/metrics");
+    assertEquals(200, metrics.status);
+    return parse(metrics.body).getAsJsonObject();
+  }
+
+  private static JsonArray prices(Response response) {
+    JsonArray prices = new JsonArray();
+    parse(response.body).getAsJsonArray()
+        .forEach(car -> prices.add(car.getAsJsonObject().get("price")));
+    return prices;
+  }
+
+  private static JsonElement parse(String json) {
+    return new JsonParser().parse(json);
+  }
+
+  private Response get(String pathAndQuery) throws IOException {
+    return request("GET", pathAndQuery);
+  }
+
+  private Response request(String method, String pathAndQuery) throws IOException {
+    URL url = new URL("http://localhost:" + server.getPort() + pathAndQuery);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try {
+      connection.setRequestMethod(method);
+      int status = connection.getResponseCode();
+      try (InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+        return new Response(status, body == null ? "" : new String(body.readAllBytes(), StandardCharsets.UTF_8),
+            connection);
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class Response {
+
+    private final int status;
+    private final String body;
+    private final String contentType;
+    private final String continuationToken;
+    private final String allow;
+    private final String retryAfter;
+
+    private Response(int status, String body, HttpURLConnection connection) {
+      this.status = status;
+      this.body = body;
+      this.contentType = connection.getHeaderField("Content-Type");
+      this.continuationToken = connection.getHeaderField("X-Continuation-Token");
+      this.allow = connection.getHeaderField("Allow");
+      this.retryAfter = connection.getHeaderField("Retry-After");
+    }
+  }
+}
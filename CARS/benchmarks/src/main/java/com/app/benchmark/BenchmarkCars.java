@@ -0,0 +1,53 @@
+package com.app.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.app.converter.CarGenerator;
+import com.app.model.Car;
+
+/**
+ * Deterministic, valid car datasets for the benchmarks, produced by {@link CarGenerator} with a fixed seed. The
+ * same size and component cardinality always give the same cars, so results of different runs and forks are
+ * comparable. Generated JSON files are kept in the temporary directory and reused by later runs.
+ */
+final class BenchmarkCars {
+
+  private static final long SEED = 42;
+  private static final int MODELS = 40;
+
+  private BenchmarkCars() {
+  }
+
+  static CarGenerator generator(int componentCardinality) {
+    return CarGenerator.builder()
+        .seed(SEED)
+        .models(MODELS)
+        .components(componentCardinality)
+        .invalidShare(0)
+        .build();
+  }
+
+  static List<Car> generate(int size, int componentCardinality) {
+    return generator(componentCardinality).generate(size).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns a JSON file with the cars {@link #generate} returns, writing it first if it does not exist yet.
+   */
+  static Path jsonFile(int size, int componentCardinality) throws IOException {
+    String filename = "cars-" + SEED + "-" + size + "-" + componentCardinality + ".json";
+    Path file = Path.of(System.getProperty("java.io.tmpdir"), filename);
+    if (Files.exists(file)) {
+      return file;
+    }
+    Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    generator(componentCardinality).write(temporary.toString(), size);
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return file;
+  }
+}
@@ -0,0 +1,25 @@
+package com.app.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so allocation rates are reported next to throughput and
+ * latency. Accepts the usual JMH command line, e.g. {@code java -jar benchmarks.jar CarServiceBenchmark
+ * -p size=1000000 -p componentCardinality=64}.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Options options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
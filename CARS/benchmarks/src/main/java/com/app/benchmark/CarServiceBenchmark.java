@@ -0,0 +1,189 @@
+package com.app.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.converter.CarGenerator;
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.CarService;
+import com.app.service.aggregate.CarAggregate;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.SortType;
+import com.app.service.query.CarPage;
+import com.app.service.query.CarQuery;
+
+/**
+ * Every query of {@link CarService} on one loaded dataset per parameter combination. Filters are chosen so
+ * that they select a small, a medium and a large part of the generated cars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class CarServiceBenchmark {
+
+  private static final BigDecimal MIN_PRICE = new BigDecimal("15000.00");
+  private static final BigDecimal MAX_PRICE = new BigDecimal("15500.00");
+  private static final int MODELS_IN_QUERY = 10;
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  private int size;
+
+  @Param({"8", "64", "1024"})
+  private int componentCardinality;
+
+  private CarService carService;
+  private Set<String> rareComponents;
+  private Set<String> commonComponents;
+  private CarQuery query;
+
+  @Setup(Level.Trial)
+  public void loadCars() throws IOException {
+    carService = new CarService(BenchmarkCars.jsonFile(size, componentCardinality).toString());
+    // every call is measured computing its result, not reading it from the cache
+    carService.getResultCache().setMaxWeight(0);
+    CarGenerator generator = BenchmarkCars.generator(componentCardinality);
+    List<String> components = generator.getComponents();
+    // the generator lists the most common values first
+    rareComponents = Set.of(components.get(components.size() - 1), components.get(components.size() - 2));
+    commonComponents = Set.of(components.get(0));
+    query = CarQuery.builder()
+        .models(generator.getModels().get(0), generator.getModels().get(MODELS_IN_QUERY))
+        .colors(Color.BLACK, Color.WHITE)
+        .withAnyComponent(components.get(1), components.get(components.size() / 2))
+        .sortBy(SortType.PRICE, true)
+        .limit(100)
+        .build();
+  }
+
+  @Benchmark
+  public List<Car> sortCarsByArgument() {
+    return carService.sortCarsByArgument(SortType.PRICE, true);
+  }
+
+  @Benchmark
+  public List<Car> sortCarsByArgumentPage() {
+    return carService.sortCarsByArgument(SortType.MILEAGE, false, size / 2, 20);
+  }
+
+  @Benchmark
+  public List<Car> sortCarsWithGreaterMileage() {
+    return carService.sortCarsWithGreaterMileage(300_000L);
+  }
+
+  @Benchmark
+  public Map<String, Long> countCarsByColor() {
+    return carService.countCarsByColor();
+  }
+
+  @Benchmark
+  public EnumMap<Color, Long> getCarCountsByColor() {
+    return carService.getCarCountsByColor();
+  }
+
+  @Benchmark
+  public Map<String, BigDecimal> getMaxPricesByModel() {
+    return carService.getMaxPricesByModel();
+  }
+
+  @Benchmark
+  public Map<String, Car> getTheMostExpensiveCarModels() {
+    return carService.getTheMostExpensiveCarModels();
+  }
+
+  @Benchmark
+  public Map<String, CarAggregate> aggregateByComponent() {
+    return carService.aggregate(GroupBy.COMPONENT);
+  }
+
+  @Benchmark
+  public Map<String, CarAggregate> aggregateByComponentInParallel() {
+    return carService.aggregate(GroupBy.COMPONENT, true);
+  }
+
+  @Benchmark
+  public String getCarsStatistics() {
+    return carService.getCarsStatistics();
+  }
+
+  @Benchmark
+  public List<Car> findTheMostExpensiveCars() {
+    return carService.findTheMostExpensiveCars();
+  }
+
+  @Benchmark
+  public List<Car> findTopCars() {
+    return carService.findTopCars(SortType.PRICE, true, 10);
+  }
+
+  @Benchmark
+  public Map<String, List<Car>> findTopCarsByModel() {
+    return carService.findTopCars(SortType.MILEAGE, false, 10, GroupBy.MODEL);
+  }
+
+  @Benchmark
+  public List<Car> getCarsWithSortedComponents() {
+    return carService.getCarsWithSortedComponents();
+  }
+
+  @Benchmark
+  public Map<String, Set<Car>> getCarsWithParticularComponent() {
+    return carService.getCarsWithParticularComponent();
+  }
+
+  @Benchmark
+  public List<Car> getCarsWithAllComponents() {
+    return carService.getCarsWithAllComponents(rareComponents);
+  }
+
+  @Benchmark
+  public List<Car> getCarsWithAnyComponent() {
+    return carService.getCarsWithAnyComponent(rareComponents);
+  }
+
+  @Benchmark
+  public List<Car> getCarsWithoutComponents() {
+    return carService.getCarsWithoutComponents(commonComponents);
+  }
+
+  @Benchmark
+  public List<Car> getCarsFromGivenPriceRange() {
+    return carService.getCarsFromGivenPriceRange(MIN_PRICE, MAX_PRICE);
+  }
+
+  @Benchmark
+  public List<Car> getCarsFromGivenRanges() {
+    return carService.getCarsFromGivenRanges(MIN_PRICE, MAX_PRICE, 1_000L, 100_000L);
+  }
+
+  @Benchmark
+  public List<Car> query() {
+    return carService.query(query);
+  }
+
+  @Benchmark
+  public CarPage getFirstPage() {
+    return carService.getPage(query, 20, null);
+  }
+}
@@ -0,0 +1,51 @@
+package com.app.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.model.Car;
+import com.app.validator.CarValidator;
+
+/**
+ * Validation of single cars, cycling through a generated dataset so that the branches see realistic input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarValidatorBenchmark {
+
+  @Param({"8", "64", "1024"})
+  private int componentCardinality;
+
+  private Car[] cars;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void generateCars() {
+    List<Car> generatedCars = BenchmarkCars.generate(1 << 16, componentCardinality);
+    cars = generatedCars.toArray(new Car[0]);
+  }
+
+  @Benchmark
+  public boolean isCarValid() {
+    Car car = cars[next];
+    next = (next + 1) & (cars.length - 1);
+    return CarValidator.isCarValid(car);
+  }
+}
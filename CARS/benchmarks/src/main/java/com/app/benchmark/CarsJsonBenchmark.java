@@ -0,0 +1,67 @@
+package com.app.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.converter.CarsJsonConverter;
+import com.app.model.Car;
+import com.app.service.CarService;
+
+/**
+ * Loading of a JSON file: the whole list at once, the lazy stream and a complete {@link CarService} start
+ * including validation and indexing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class CarsJsonBenchmark {
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  private int size;
+
+  @Param({"8", "64", "1024"})
+  private int componentCardinality;
+
+  private String jsonFilename;
+
+  @Setup(Level.Trial)
+  public void writeCars() throws IOException {
+    jsonFilename = BenchmarkCars.jsonFile(size, componentCardinality).toString();
+  }
+
+  @Benchmark
+  public Optional<List<Car>> fromJson() {
+    return new CarsJsonConverter(jsonFilename).fromJson();
+  }
+
+  @Benchmark
+  public long fromJsonStream() {
+    try (Stream<Car> cars = new CarsJsonConverter(jsonFilename).fromJsonStream()) {
+      return cars.count();
+    }
+  }
+
+  @Benchmark
+  public CarService loadCarService() {
+    return new CarService(jsonFilename);
+  }
+}
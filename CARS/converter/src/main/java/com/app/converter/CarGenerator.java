@@ -0,0 +1,307 @@
+package com.app.converter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Generates seeded, reproducible car inventories of any size. Models, colors and components follow Zipf-like
+ * distributions, so a few values are very common and most are rare, as in real inventories; a configurable
+ * share of the cars breaks one validation rule. Cars are produced one at a time and written through a
+ * streaming {@link JsonWriter}, so memory use does not depend on the number of cars.
+ */
+public class CarGenerator {
+
+  private static final int WRITER_BUFFER_SIZE = 1 << 16;
+  private static final List<String> MAKES = List.of(
+      "TOYOTA", "VOLKSWAGEN", "FORD", "HONDA", "BMW", "AUDI", "MERCEDES", "SKODA", "MAZDA", "OPEL", "RENAULT",
+      "PEUGEOT", "KIA", "HYUNDAI", "FIAT", "VOLVO", "NISSAN", "SEAT", "CITROEN", "DACIA", "SUZUKI", "LEXUS",
+      "PORSCHE", "TESLA", "JAGUAR", "MINI", "SUBARU", "JEEP", "ALFA ROMEO", "LAND ROVER");
+  private static final List<String> FEATURES = List.of(
+      "ABS", "AIR CONDITIONING", "ALLOY WHEELS", "BLUETOOTH", "ESP", "SUNROOF", "CRUISE CONTROL", "NAVIGATION",
+      "HEATED SEATS", "PARKING SENSORS", "REAR CAMERA", "LEATHER SEATS", "XENON LIGHTS", "TOW BAR", "KEYLESS ENTRY",
+      "LANE ASSIST", "RADIO", "ISOFIX", "START STOP", "SPORT PACKAGE");
+  private static final Color[] COLORS = Color.values();
+  // share of each color, most cars are black, grey or white
+  private static final double[] COLOR_WEIGHTS = {0.08, 0.04, 0.12, 0.25, 0.02, 0.22, 0.27};
+
+  private final long seed;
+  private final String[] models;
+  private final String[] components;
+  private final int maxComponentsPerCar;
+  private final double invalidShare;
+  private final double[] modelDistribution;
+  private final double[] colorDistribution;
+  private final double[] componentDistribution;
+
+  private CarGenerator(CarGeneratorBuilder builder) {
+    this.seed = builder.seed;
+    this.models = names(MAKES, builder.models);
+    this.components = names(FEATURES, builder.components);
+    this.maxComponentsPerCar = Math.min(builder.maxComponentsPerCar, components.length);
+    this.invalidShare = builder.invalidShare;
+    this.modelDistribution = cumulative(zipfWeights(models.length, builder.skew));
+    this.colorDistribution = cumulative(COLOR_WEIGHTS);
+    this.componentDistribution = cumulative(zipfWeights(components.length, builder.skew));
+  }
+
+  public static CarGeneratorBuilder builder() {
+    return new CarGeneratorBuilder();
+  }
+
+  /**
+   * Returns the model names, the most common one first.
+   */
+  public List<String> getModels() {
+    return List.of(models);
+  }
+
+  /**
+   * Returns the component vocabulary, the most common component first.
+   */
+  public List<String> getComponents() {
+    return List.of(components);
+  }
+
+  /**
+   * Command line entry: {@code <json file> <number of cars>} followed by any of {@code --seed=}, {@code --models=},
+   * {@code --components=}, {@code --max-components=}, {@code --skew=} and {@code --invalid=}.
+   */
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: CarGenerator <json file> <number of cars> [--option=value ...]");
+    }
+    CarGeneratorBuilder builder = builder();
+    for (int i = 2; i < args.length; i++) {
+      String[] option = args[i].split("=", 2);
+      if (option.length != 2) {
+        throw new IllegalArgumentException("Option is not valid: " + args[i]);
+      }
+      switch (option[0]) {
+        case "--seed":
+          builder.seed(Long.parseLong(option[1]));
+          break;
+        case "--models":
+          builder.models(Integer.parseInt(option[1]));
+          break;
+        case "--components":
+          builder.components(Integer.parseInt(option[1]));
+          break;
+        case "--max-components":
+          builder.maxComponentsPerCar(Integer.parseInt(option[1]));
+          break;
+        case "--skew":
+          builder.skew(Double.parseDouble(option[1]));
+          break;
+        case "--invalid":
+          builder.invalidShare(Double.parseDouble(option[1]));
+          break;
+        default:
+          throw new IllegalArgumentException("Option is not supported: " + option[0]);
+      }
+    }
+    builder.build().write(args[0], Long.parseLong(args[1]));
+  }
+
+  /**
+   * Writes {@code count} cars as a JSON array in the format read by {@link CarsJsonConverter}.
+   */
+  public void write(String jsonFilename, long count) {
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+        Files.newOutputStream(Path.of(jsonFilename)), StandardCharsets.UTF_8), WRITER_BUFFER_SIZE)) {
+      write(writer, count);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write " + jsonFilename, e);
+    }
+  }
+
+  public void write(Writer writer, long count) throws IOException {
+    JsonWriter jsonWriter = new JsonWriter(writer);
+    jsonWriter.beginArray();
+    Random random = new Random(seed);
+    for (long i = 0; i < count; i++) {
+      CarJsonExporter.writeCar(jsonWriter, nextCar(random));
+    }
+    jsonWriter.endArray();
+    jsonWriter.flush();
+  }
+
+  /**
+   * Returns the same cars {@link #write} writes for the same count, generated lazily.
+   */
+  public Stream<Car> generate(long count) {
+    Random random = new Random(seed);
+    return LongStream.range(0, count).mapToObj(i -> nextCar(random));
+  }
+
+  private Car nextCar(Random random) {
+    Set<String> carComponents = new LinkedHashSet<>();
+    int componentCount = 1 + random.nextInt(maxComponentsPerCar);
+    while (carComponents.size() < componentCount) {
+      carComponents.add(components[sample(componentDistribution, random)]);
+    }
+    // prices around 15 000 with a long tail of expensive cars, older cars have more mileage
+    double age = random.nextDouble() * 15;
+    BigDecimal price = BigDecimal.valueOf(Math.round(Math.exp(9.6 + random.nextGaussian() * 0.6) * 100), 2);
+    long mileage = 1 + (long) (age * (5_000 + random.nextInt(20_000)));
+    Car car = Car.builder()
+        .model(models[sample(modelDistribution, random)])
+        .price(price)
+        .color(COLORS[sample(colorDistribution, random)])
+        .mileage(mileage)
+        .components(carComponents)
+        .build();
+    if (random.nextDouble() < invalidShare) {
+      breakRule(car, random);
+    }
+    return car;
+  }
+
+  // every invalid car breaks exactly one rule of the validator
+  private static void breakRule(Car car, Random random) {
+    switch (random.nextInt(6)) {
+      case 0:
+        car.setModel(car.getModel().toLowerCase());
+        break;
+      case 1:
+        car.setPrice(car.getPrice().negate());
+        break;
+      case 2:
+        car.setColor(null);
+        break;
+      case 3:
+        car.setMileage(0L);
+        break;
+      case 4:
+        car.setComponents(Set.of());
+        break;
+      default:
+        Set<String> carComponents = new LinkedHashSet<>(car.getComponents());
+        carComponents.add("COMPONENT " + random.nextInt(100));
+        car.setComponents(carComponents);
+    }
+  }
+
+  private static int sample(double[] cumulativeDistribution, Random random) {
+    int index = Arrays.binarySearch(cumulativeDistribution, random.nextDouble());
+    return Math.min(index < 0 ? -index - 1 : index, cumulativeDistribution.length - 1);
+  }
+
+  private static double[] zipfWeights(int count, double skew) {
+    double[] weights = new double[count];
+    for (int rank = 0; rank < count; rank++) {
+      weights[rank] = 1 / Math.pow(rank + 1, skew);
+    }
+    return weights;
+  }
+
+  private static double[] cumulative(double[] weights) {
+    double total = Arrays.stream(weights).sum();
+    double[] distribution = new double[weights.length];
+    double sum = 0;
+    for (int i = 0; i < weights.length; i++) {
+      sum += weights[i];
+      distribution[i] = sum / total;
+    }
+    return distribution;
+  }
+
+  // the real names first, then made up ones which still pass validation
+  private static String[] names(List<String> realNames, int count) {
+    String[] names = new String[count];
+    for (int i = 0; i < count; i++) {
+      // made up names use only the first word, as a name may contain one space at most
+      names[i] = i < realNames.size()
+          ? realNames.get(i)
+          : realNames.get(i % realNames.size()).split(" ")[0] + " " + letters(i);
+    }
+    return names;
+  }
+
+  private static String letters(int n) {
+    StringBuilder letters = new StringBuilder();
+    for (; n > 0; n /= 26) {
+      letters.append((char) ('A' + n % 26));
+    }
+    return letters.toString();
+  }
+
+  public static class CarGeneratorBuilder {
+
+    private long seed = 1;
+    private int models = MAKES.size();
+    private int components = FEATURES.size();
+    private int maxComponentsPerCar = 6;
+    private double skew = 1.1;
+    private double invalidShare = 0.01;
+
+    public CarGenerator build() {
+      return new CarGenerator(this);
+    }
+
+    public CarGeneratorBuilder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public CarGeneratorBuilder models(int models) {
+      this.models = requirePositive(models, "Number of models");
+      return this;
+    }
+
+    /**
+     * Sets the size of the component vocabulary; names beyond the built-in ones are made up.
+     */
+    public CarGeneratorBuilder components(int components) {
+      this.components = requirePositive(components, "Number of components");
+      return this;
+    }
+
+    public CarGeneratorBuilder maxComponentsPerCar(int maxComponentsPerCar) {
+      this.maxComponentsPerCar = requirePositive(maxComponentsPerCar, "Number of components per car");
+      return this;
+    }
+
+    /**
+     * Sets the exponent of the Zipf distributions; 0 makes all models and components equally likely.
+     */
+    public CarGeneratorBuilder skew(double skew) {
+      if (skew < 0) {
+        throw new IllegalArgumentException("Skew must not be negative: " + skew);
+      }
+      this.skew = skew;
+      return this;
+    }
+
+    public CarGeneratorBuilder invalidShare(double invalidShare) {
+      if (invalidShare < 0 || invalidShare > 1) {
+        throw new IllegalArgumentException("Share of invalid cars must be between 0 and 1: " + invalidShare);
+      }
+      this.invalidShare = invalidShare;
+      return this;
+    }
+
+    private static int requirePositive(int value, String name) {
+      if (value < 1) {
+        throw new IllegalArgumentException(name + " must be positive: " + value);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+
+import com.app.converter.enums.ExportFormat;
+import com.app.model.Car;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streams cars to a channel as one JSON array or as newline delimited JSON, one car per line, in the order
+ * they are given. Every car is written field by field through a {@link JsonWriter} into one reusable buffer,
+ * which is handed to the channel whenever it is full, so no JSON string of the whole result is built.
+ */
+public class CarJsonExporter {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ExportFormat format;
+
+  public CarJsonExporter(ExportFormat format) {
+    this.format = Optional.ofNullable(format).orElseThrow(() -> new NullPointerException("Format is null"));
+  }
+
+  /**
+   * Writes the cars into the file, replacing its content, and returns the number of cars written.
+   */
+  public long export(Iterator<Car> cars, String filename) {
+    try (FileChannel channel = FileChannel.open(Path.of(filename),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      return export(cars, channel);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to export to " + filename, e);
+    }
+  }
+
+  /**
+   * Writes the cars to the channel, which is left open, and returns the number of cars written.
+   */
+  public long export(Iterator<Car> cars, WritableByteChannel channel) throws IOException {
+    // the writer is only flushed, closing it would close the channel
+    Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+    JsonWriter jsonWriter = new JsonWriter(writer);
+    long count = 0;
+    if (format == ExportFormat.JSON) {
+      jsonWriter.beginArray();
+      while (cars.hasNext()) {
+        writeCar(jsonWriter, cars.next());
+        count++;
+      }
+      jsonWriter.endArray();
+    } else {
+      // every line is a top level value of its own
+      jsonWriter.setLenient(true);
+      while (cars.hasNext()) {
+        writeCar(jsonWriter, cars.next());
+        writer.write('\n');
+        count++;
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  /**
+   * Writes one car as a JSON object with the fields read by {@link CarsJsonConverter}.
+   */
+  public static void writeCar(JsonWriter jsonWriter, Car car) throws IOException {
+    jsonWriter.beginObject();
+    jsonWriter.name("model").value(car.getModel());
+    jsonWriter.name("price").value(car.getPrice());
+    jsonWriter.name("color");
+    if (car.getColor() == null) {
+      jsonWriter.nullValue();
+    } else {
+      jsonWriter.value(car.getColor().name());
+    }
+    jsonWriter.name("mileage").value(car.getMileage());
+    jsonWriter.name("components");
+    if (car.getComponents() == null) {
+      jsonWriter.nullValue();
+    } else {
+      jsonWriter.beginArray();
+      for (String component : car.getComponents()) {
+        jsonWriter.value(component);
+      }
+      jsonWriter.endArray();
+    }
+    jsonWriter.endObject();
+  }
+}
@@ -0,0 +1,360 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+
+/**
+ * Read-only view of a binary car snapshot written by {@link CarSnapshotWriter}, mapped into memory with
+ * {@link FileChannel#map}. All numbers are little-endian. The rows are kept in sections of {@link #SECTION_ROWS}
+ * rows, each with one fixed-width column per attribute and a CRC32 of its own, and are described by an index
+ * at the end of the file:
+ * <pre>
+ * int magic, int format version
+ * per section: long[rows] prices scaled to the price scale, long[rows] mileages, int[rows] model ids,
+ *   int[rows + 1] component offsets, int[component entries] component ids, byte[rows] price scales,
+ *   byte[rows] color ordinals, int exact prices, per exact price int row, int length and UTF-8 bytes,
+ *   zero padding to a multiple of 8 bytes, long checksum
+ * index: int rows, int price scale, int section rows, int sections, long[sections + 1] section positions,
+ *   colors, models and components: int count, then per string int length and UTF-8 bytes
+ * long checksum of the index, long index position, int magic
+ * </pre>
+ * Opening a snapshot only verifies and reads the index. A section is verified when it is {@link #getSection(int)
+ * read}, and its columns are buffers over the mapping, so they are read by the operating system's page cache
+ * instead of being parsed or copied onto the heap. Colors are stored with the table of their names, so a
+ * snapshot stays readable when {@link Color} changes order.
+ * <p>
+ * A price with more fraction digits than the price scale, or too large for a long once scaled, is stored
+ * rounded down and clamped in the price column and written out exactly, as text, after the colors of its
+ * section; its price scale byte is 0.
+ */
+public class CarSnapshot {
+
+  static final int MAGIC = 0x43415253;
+  static final int FORMAT_VERSION = 3;
+  static final int TRAILER_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+  /**
+   * The number of rows of every section but the last one.
+   */
+  public static final int SECTION_ROWS = 1 << 12;
+
+  /**
+   * The number of fraction digits of the stored prices.
+   */
+  public static final int PRICE_SCALE = 4;
+
+  private static final Color[] COLORS = Color.values();
+
+  private final ByteBuffer buffer;
+  private final int size;
+  private final int priceScale;
+  private final int sectionRows;
+  private final long[] sectionPositions;
+  private final List<String> modelDictionary;
+  private final List<String> componentDictionary;
+  // the ordinal of the current color for every color ordinal of the file, or null when they are the same
+  private final byte[] colorOrdinals;
+
+  private CarSnapshot(ByteBuffer buffer) {
+    this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.limit() < 2 * Integer.BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC
+        || buffer.getInt(buffer.limit() - Integer.BYTES) != MAGIC) {
+      throw new IllegalStateException("File is not a car snapshot");
+    }
+    if (buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+      throw new IllegalStateException("Snapshot format version is not supported: " + buffer.getInt(Integer.BYTES));
+    }
+    long indexPosition = buffer.getLong(buffer.limit() - Integer.BYTES - Long.BYTES);
+    int checksumPosition = buffer.limit() - TRAILER_BYTES;
+    if (indexPosition < 2 * Integer.BYTES || indexPosition > checksumPosition) {
+      throw new IllegalStateException("Snapshot is corrupted, index position is out of range: " + indexPosition);
+    }
+    ByteBuffer index = verifiedSlice(buffer, (int) indexPosition, checksumPosition);
+
+    this.size = index.getInt();
+    this.priceScale = index.getInt();
+    this.sectionRows = index.getInt();
+    int sections = index.getInt();
+    this.sectionPositions = new long[sections + 1];
+    for (int section = 0; section <= sections; section++) {
+      sectionPositions[section] = index.getLong();
+    }
+    this.colorOrdinals = colorOrdinals(readDictionary(index));
+    this.modelDictionary = readDictionary(index);
+    this.componentDictionary = readDictionary(index);
+  }
+
+  public static CarSnapshot open(String snapshotFilename) {
+    try (FileChannel channel = FileChannel.open(Path.of(snapshotFilename), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Snapshot is too large to be mapped: " + snapshotFilename);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new CarSnapshot(buffer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read snapshot " + snapshotFilename, e);
+    }
+  }
+
+  // the bytes from the start to the checksum stored at the end, once the checksum matches
+  private static ByteBuffer verifiedSlice(ByteBuffer buffer, int start, int checksumPosition) {
+    ByteBuffer slice = slice(buffer, start, checksumPosition - start);
+    CRC32 checksum = new CRC32();
+    checksum.update(slice.duplicate());
+    if (checksum.getValue() != buffer.getLong(checksumPosition)) {
+      throw new IllegalStateException("Snapshot is corrupted, checksum does not match at " + start);
+    }
+    return slice;
+  }
+
+  private static byte[] colorOrdinals(List<String> colorNames) {
+    byte[] colorOrdinals = new byte[colorNames.size()];
+    boolean sameOrder = colorNames.size() <= COLORS.length;
+    for (int ordinal = 0; ordinal < colorOrdinals.length; ordinal++) {
+      try {
+        colorOrdinals[ordinal] = (byte) Color.valueOf(colorNames.get(ordinal)).ordinal();
+      } catch (IllegalArgumentException e) {
+        throw new IllegalStateException("Snapshot color is not known: " + colorNames.get(ordinal), e);
+      }
+      sameOrder &= colorOrdinals[ordinal] == ordinal;
+    }
+    return sameOrder ? null : colorOrdinals;
+  }
+
+  private static List<String> readDictionary(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      values.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return Collections.unmodifiableList(values);
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+    return buffer.slice(position, length).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of fraction digits of the {@link Section#getPrices() prices}.
+   */
+  public int getPriceScale() {
+    return priceScale;
+  }
+
+  /**
+   * Returns the number of rows of every section but the last one.
+   */
+  public int getSectionRows() {
+    return sectionRows;
+  }
+
+  public int getSectionCount() {
+    return sectionPositions.length - 1;
+  }
+
+  public List<String> getModelDictionary() {
+    return modelDictionary;
+  }
+
+  public List<String> getComponentDictionary() {
+    return componentDictionary;
+  }
+
+  /**
+   * Returns the columns of a section once its checksum matches. The checksum is verified on every call, so the
+   * section is meant to be kept by the caller.
+   */
+  public Section getSection(int section) {
+    if (section < 0 || section >= getSectionCount()) {
+      throw new IndexOutOfBoundsException("Section is out of range: " + section);
+    }
+    int rows = Math.min(sectionRows, size - section * sectionRows);
+    int checksumPosition = (int) sectionPositions[section + 1] - Long.BYTES;
+    ByteBuffer data = verifiedSlice(buffer, (int) sectionPositions[section], checksumPosition);
+
+    int offsetsPosition = rows * (2 * Long.BYTES + Integer.BYTES);
+    int componentCount = data.getInt(offsetsPosition + rows * Integer.BYTES);
+    int componentsPosition = offsetsPosition + (rows + 1) * Integer.BYTES;
+    int scalesPosition = componentsPosition + componentCount * Integer.BYTES;
+    int exactPricesPosition = scalesPosition + 2 * rows;
+    if (componentCount < 0 || exactPricesPosition + Integer.BYTES > data.limit()) {
+      throw new IllegalStateException("Snapshot is corrupted, section does not fit its rows: " + section);
+    }
+    return new Section(rows,
+        slice(data, 0, rows * Long.BYTES).asLongBuffer(),
+        slice(data, scalesPosition, rows),
+        slice(data, rows * Long.BYTES, rows * Long.BYTES).asLongBuffer(),
+        colors(slice(data, scalesPosition + rows, rows)),
+        slice(data, 2 * rows * Long.BYTES, rows * Integer.BYTES).asIntBuffer(),
+        slice(data, offsetsPosition, (rows + 1) * Integer.BYTES).asIntBuffer(),
+        slice(data, componentsPosition, componentCount * Integer.BYTES).asIntBuffer(),
+        exactPrices(slice(data, exactPricesPosition, data.limit() - exactPricesPosition), rows, section));
+  }
+
+  // the few prices the price column does not hold exactly, by row, or null when it holds all of them
+  private static BigDecimal[] exactPrices(ByteBuffer data, int rows, int section) {
+    int count = data.getInt();
+    if (count == 0) {
+      return null;
+    }
+    BigDecimal[] exactPrices = new BigDecimal[rows];
+    try {
+      for (int i = 0; i < count; i++) {
+        int row = data.getInt();
+        byte[] text = new byte[data.getInt()];
+        data.get(text);
+        exactPrices[row] = new BigDecimal(new String(text, StandardCharsets.UTF_8));
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalStateException("Snapshot is corrupted, exact prices do not fit section: " + section, e);
+    }
+    return exactPrices;
+  }
+
+  // colors stored in another order than the current one are translated into a copy
+  private ByteBuffer colors(ByteBuffer storedColors) {
+    if (colorOrdinals == null) {
+      return storedColors;
+    }
+    byte[] colors = new byte[storedColors.limit()];
+    for (int row = 0; row < colors.length; row++) {
+      colors[row] = colorOrdinals[storedColors.get(row)];
+    }
+    return ByteBuffer.wrap(colors).asReadOnlyBuffer();
+  }
+
+  public Stream<Car> stream() {
+    return IntStream.range(0, getSectionCount())
+        .mapToObj(this::getSection)
+        .flatMap(section -> IntStream.range(0, section.size()).mapToObj(section::getCar));
+  }
+
+  /**
+   * The columns of up to {@link #getSectionRows()} consecutive rows. Columns are shared, so they are only read
+   * with absolute gets.
+   */
+  public final class Section {
+
+    private final int size;
+    private final LongBuffer prices;
+    private final ByteBuffer priceScales;
+    private final LongBuffer mileages;
+    private final ByteBuffer colors;
+    private final IntBuffer models;
+    private final IntBuffer componentOffsets;
+    private final IntBuffer components;
+    private final BigDecimal[] exactPrices;
+
+    private Section(int size, LongBuffer prices, ByteBuffer priceScales, LongBuffer mileages, ByteBuffer colors,
+        IntBuffer models, IntBuffer componentOffsets, IntBuffer components, BigDecimal[] exactPrices) {
+      this.size = size;
+      this.prices = prices;
+      this.priceScales = priceScales;
+      this.mileages = mileages;
+      this.colors = colors;
+      this.models = models;
+      this.componentOffsets = componentOffsets;
+      this.components = components;
+      this.exactPrices = exactPrices;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns the prices scaled to {@link #getPriceScale()} fraction digits; the scale of each price as it was
+     * written is in {@link #getPriceScales()}. A price which has more digits is rounded down here and kept in
+     * {@link #getExactPrices()}.
+     */
+    public LongBuffer getPrices() {
+      return prices;
+    }
+
+    public ByteBuffer getPriceScales() {
+      return priceScales;
+    }
+
+    /**
+     * Returns the prices which the price column does not hold exactly, by row, or null when it holds all of them.
+     * Callers must not change the array.
+     */
+    public BigDecimal[] getExactPrices() {
+      return exactPrices;
+    }
+
+    public LongBuffer getMileages() {
+      return mileages;
+    }
+
+    /**
+     * Returns the ordinals of the colors in the current {@link Color} order.
+     */
+    public ByteBuffer getColors() {
+      return colors;
+    }
+
+    public IntBuffer getModels() {
+      return models;
+    }
+
+    /**
+     * Returns where the components of every row start in {@link #getComponents()}, followed by their end.
+     */
+    public IntBuffer getComponentOffsets() {
+      return componentOffsets;
+    }
+
+    public IntBuffer getComponents() {
+      return components;
+    }
+
+    public Car getCar(int row) {
+      Set<String> carComponents = new LinkedHashSet<>();
+      for (int i = componentOffsets.get(row); i < componentOffsets.get(row + 1); i++) {
+        carComponents.add(componentDictionary.get(components.get(i)));
+      }
+      return Car.builder()
+          .model(modelDictionary.get(models.get(row)))
+          .price(getPrice(row))
+          .color(COLORS[colors.get(row)])
+          .mileage(mileages.get(row))
+          .components(carComponents)
+          .build();
+    }
+
+    private BigDecimal getPrice(int row) {
+      if (exactPrices != null && exactPrices[row] != null) {
+        return exactPrices[row];
+      }
+      return BigDecimal.valueOf(prices.get(row), priceScale).setScale(priceScales.get(row), RoundingMode.UNNECESSARY);
+    }
+  }
+}
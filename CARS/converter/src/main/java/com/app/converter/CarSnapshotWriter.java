@@ -0,0 +1,233 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.app.model.Car;
+import com.app.model.dictionary.StringDictionary;
+import com.app.model.enums.Color;
+
+/**
+ * Writes cars into the binary snapshot format read by {@link CarSnapshot}. Every section is written as soon as
+ * it is full, so only one section of cars is held at a time. The file is written next to its final name and
+ * moved into place once complete, so readers never see a partial snapshot.
+ */
+public class CarSnapshotWriter {
+
+  private final String snapshotFilename;
+
+  public CarSnapshotWriter(String snapshotFilename) {
+    this.snapshotFilename = snapshotFilename;
+  }
+
+  /**
+   * Writes the given cars, which are expected to be valid already; snapshots are read without validation.
+   */
+  public void write(Iterable<Car> cars) {
+    Path target = Path.of(snapshotFilename);
+    Path temporary = Path.of(snapshotFilename + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      SnapshotOutput output = new SnapshotOutput(channel);
+      for (Car car : cars) {
+        output.add(car);
+      }
+      output.finish();
+      channel.force(false);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write snapshot " + snapshotFilename, e);
+    }
+
+    try {
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write snapshot " + snapshotFilename, e);
+    }
+  }
+
+  // the columns of the section being filled, and the positions of the sections written so far
+  private static class SnapshotOutput {
+
+    private static final int ROWS = CarSnapshot.SECTION_ROWS;
+
+    private final FileChannel channel;
+    private final long[] prices = new long[ROWS];
+    private final byte[] priceScales = new byte[ROWS];
+    // the text of every price the price column can not hold exactly, by row of the section
+    private final byte[][] exactPrices = new byte[ROWS][];
+    private int exactPriceCount;
+    private final long[] mileages = new long[ROWS];
+    private final byte[] colors = new byte[ROWS];
+    private final int[] models = new int[ROWS];
+    private final int[] componentOffsets = new int[ROWS + 1];
+    private int[] components = new int[ROWS];
+    private final StringDictionary modelDictionary = new StringDictionary();
+    private final StringDictionary componentDictionary = new StringDictionary();
+    private ByteBuffer buffer = allocate(0);
+    private long[] sectionPositions = new long[16];
+    private int sections;
+    private int sectionSize;
+    private int size;
+    private long position;
+
+    SnapshotOutput(FileChannel channel) throws IOException {
+      this.channel = channel;
+      ByteBuffer header = allocate(2 * Integer.BYTES);
+      header.putInt(CarSnapshot.MAGIC);
+      header.putInt(CarSnapshot.FORMAT_VERSION);
+      write(header);
+    }
+
+    void add(Car car) throws IOException {
+      BigDecimal price = car.getPrice();
+      BigInteger scaled = price.setScale(CarSnapshot.PRICE_SCALE, RoundingMode.FLOOR).unscaledValue();
+      boolean fitsLong = scaled.bitLength() < Long.SIZE;
+      prices[sectionSize] = fitsLong ? scaled.longValue() : scaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+      if (fitsLong && price.scale() >= Byte.MIN_VALUE && price.scale() <= Byte.MAX_VALUE
+          && price.compareTo(new BigDecimal(scaled, CarSnapshot.PRICE_SCALE)) == 0) {
+        priceScales[sectionSize] = (byte) price.scale();
+      } else {
+        priceScales[sectionSize] = 0;
+        exactPrices[sectionSize] = toBytes(price.toString());
+        exactPriceCount++;
+      }
+      mileages[sectionSize] = car.getMileage();
+      colors[sectionSize] = (byte) car.getColor().ordinal();
+      models[sectionSize] = modelDictionary.encode(car.getModel());
+      int componentCount = componentOffsets[sectionSize];
+      if (componentCount + car.getComponents().size() > components.length) {
+        components = Arrays.copyOf(components, Math.max(components.length * 2,
+            componentCount + car.getComponents().size()));
+      }
+      for (String component : car.getComponents()) {
+        components[componentCount++] = componentDictionary.encode(component);
+      }
+      componentOffsets[++sectionSize] = componentCount;
+      size++;
+      if (sectionSize == ROWS) {
+        writeSection();
+      }
+    }
+
+    void finish() throws IOException {
+      if (sectionSize > 0) {
+        writeSection();
+      }
+      byte[][] colorNames = Arrays.stream(Color.values()).map(color -> toBytes(color.name())).toArray(byte[][]::new);
+      byte[][] modelNames = toBytes(modelDictionary);
+      byte[][] componentNames = toBytes(componentDictionary);
+      long indexPosition = position;
+      ByteBuffer index = allocate(4 * Integer.BYTES + (sections + 1) * Long.BYTES + size(colorNames)
+          + size(modelNames) + size(componentNames) + CarSnapshot.TRAILER_BYTES);
+      index.putInt(size);
+      index.putInt(CarSnapshot.PRICE_SCALE);
+      index.putInt(ROWS);
+      index.putInt(sections);
+      for (int section = 0; section < sections; section++) {
+        index.putLong(sectionPositions[section]);
+      }
+      index.putLong(indexPosition);
+      put(colorNames, index);
+      put(modelNames, index);
+      put(componentNames, index);
+      putChecksum(index);
+      index.putLong(indexPosition);
+      index.putInt(CarSnapshot.MAGIC);
+      write(index);
+    }
+
+    private void writeSection() throws IOException {
+      int rows = sectionSize;
+      int componentCount = componentOffsets[rows];
+      int length = rows * (2 * Long.BYTES + Integer.BYTES + 2) + (rows + 2 + componentCount) * Integer.BYTES;
+      for (int row = 0; row < rows; row++) {
+        if (exactPrices[row] != null) {
+          length += 2 * Integer.BYTES + exactPrices[row].length;
+        }
+      }
+      int paddedLength = (length + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+      if (buffer.capacity() < paddedLength + Long.BYTES) {
+        buffer = allocate(paddedLength + Long.BYTES);
+      }
+      buffer.clear();
+      buffer.asLongBuffer().put(prices, 0, rows).put(mileages, 0, rows);
+      buffer.position(2 * rows * Long.BYTES);
+      buffer.asIntBuffer().put(models, 0, rows).put(componentOffsets, 0, rows + 1).put(components, 0, componentCount);
+      buffer.position(buffer.position() + (2 * rows + 1 + componentCount) * Integer.BYTES);
+      buffer.put(priceScales, 0, rows).put(colors, 0, rows);
+      buffer.putInt(exactPriceCount);
+      for (int row = 0; row < rows; row++) {
+        if (exactPrices[row] != null) {
+          buffer.putInt(row).putInt(exactPrices[row].length).put(exactPrices[row]);
+          exactPrices[row] = null;
+        }
+      }
+      exactPriceCount = 0;
+      while (buffer.position() < paddedLength) {
+        buffer.put((byte) 0);
+      }
+      putChecksum(buffer);
+
+      if (sections + 1 == sectionPositions.length) {
+        sectionPositions = Arrays.copyOf(sectionPositions, sectionPositions.length * 2);
+      }
+      sectionPositions[sections++] = position;
+      write(buffer);
+      sectionSize = 0;
+    }
+
+    // appends the checksum of everything put into the buffer so far
+    private static void putChecksum(ByteBuffer buffer) {
+      CRC32 checksum = new CRC32();
+      checksum.update(buffer.duplicate().flip());
+      buffer.putLong(checksum.getValue());
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+      bytes.flip();
+      while (bytes.hasRemaining()) {
+        position += channel.write(bytes);
+      }
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+      return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] toBytes(String value) {
+      return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] toBytes(StringDictionary dictionary) {
+      byte[][] values = new byte[dictionary.size()][];
+      for (int id = 0; id < values.length; id++) {
+        values[id] = toBytes(dictionary.decode(id));
+      }
+      return values;
+    }
+
+    private static int size(byte[][] values) {
+      return Integer.BYTES + Arrays.stream(values).mapToInt(value -> Integer.BYTES + value.length).sum();
+    }
+
+    private static void put(byte[][] values, ByteBuffer buffer) {
+      buffer.putInt(values.length);
+      for (byte[] value : values) {
+        buffer.putInt(value.length);
+        buffer.put(value);
+      }
+    }
+  }
+}
@@ -1,12 +1,28 @@
 package com.app.converter;
 
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import com.app.model.Car;
+import com.app.model.dictionary.CarDictionary;
 
 public class CarsJsonConverter extends JsonConverter<List<Car>> {
 
   public CarsJsonConverter(String jsonFilename) {
     super(jsonFilename);
   }
+
+  public Stream<Car> fromJsonStream() {
+    return fromJsonArray(Car.class);
+  }
+
+  /**
+   * Streams the cars accepted by the filter, with their model and component names interned through a dictionary
+   * of this read, so accepted cars share them while rejected ones leave nothing behind.
+   */
+  public Stream<Car> fromJsonStream(Predicate<Car> filter) {
+    CarDictionary dictionary = new CarDictionary();
+    return fromJsonStream().filter(filter).map(dictionary::intern);
+  }
 }
@@ -1,17 +1,27 @@
 package com.app.converter;
 
+import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 
 public abstract class JsonConverter<T> {
 
+  private static final int READER_BUFFER_SIZE = 1 << 16;
+
   private final String jsonFilename;
-  private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
   private final Type type = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
 
   public JsonConverter(String jsonFilename) {
@@ -20,9 +30,92 @@ public abstract class JsonConverter<T> {
 
   public Optional<T> fromJson() {
     try (FileReader fileReader = new FileReader(jsonFilename)) {
-      return Optional.of(gson.fromJson(fileReader, type));
+      return Optional.of(createGson().fromJson(fileReader, type));
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to JSON", e);
+    }
+  }
+
+  /**
+   * Lazily reads the top level JSON array element by element, so only the element currently being
+   * consumed is held in memory. The returned stream owns the underlying file and has to be closed.
+   */
+  protected <E> Stream<E> fromJsonArray(Class<E> elementType) {
+    JsonReader jsonReader = openJsonReader();
+    try {
+      jsonReader.beginArray();
+    } catch (Exception e) {
+      closeQuietly(jsonReader, e);
+      throw new IllegalStateException("Failed to JSON", e);
+    }
+
+    return StreamSupport
+        .stream(new JsonArraySpliterator<>(jsonReader, createGson(), elementType), false)
+        .onClose(() -> close(jsonReader));
+  }
+
+  private static Gson createGson() {
+    return new GsonBuilder().setPrettyPrinting().create();
+  }
+
+  private JsonReader openJsonReader() {
+    try {
+      Reader reader = new BufferedReader(new FileReader(jsonFilename), READER_BUFFER_SIZE);
+      return new JsonReader(reader);
     } catch (Exception e) {
       throw new IllegalStateException("Failed to JSON", e);
     }
   }
+
+  private static void close(JsonReader jsonReader) {
+    try {
+      jsonReader.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close JSON", e);
+    }
+  }
+
+  private static void closeQuietly(JsonReader jsonReader, Exception cause) {
+    try {
+      jsonReader.close();
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
+  private static final class JsonArraySpliterator<E> extends Spliterators.AbstractSpliterator<E> {
+
+    private final JsonReader jsonReader;
+    private final Gson gson;
+    private final Class<E> elementType;
+    private boolean finished;
+
+    private JsonArraySpliterator(JsonReader jsonReader, Gson gson, Class<E> elementType) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED);
+      this.jsonReader = jsonReader;
+      this.gson = gson;
+      this.elementType = elementType;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+      if (finished) {
+        return false;
+      }
+
+      E element;
+      try {
+        if (!jsonReader.hasNext()) {
+          finished = true;
+          jsonReader.endArray();
+          return false;
+        }
+        element = gson.fromJson(jsonReader, elementType);
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to JSON", e);
+      }
+      action.accept(element);
+      return true;
+    }
+  }
 }
@@ -0,0 +1,6 @@
+package com.app.converter.enums;
+
+public enum ExportFormat {
+  JSON,
+  NDJSON
+}
@@ -1,5 +1,6 @@
 module converter {
-  exports com.app.converter to service, validators;
+  exports com.app.converter to service, validators, application;
+  exports com.app.converter.enums to service, application;
 
   requires model;
   requires java.sql;
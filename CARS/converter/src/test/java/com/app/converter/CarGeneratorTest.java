@@ -0,0 +1,72 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.validator.CarValidationEngine;
+import com.app.validator.enums.ValidationRule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarGeneratorTest {
+
+  private final CarValidationEngine engine = new CarValidationEngine();
+
+  @Test
+  void should_generate_the_same_cars_for_the_same_seed() throws IOException {
+    // given
+    CarGenerator generator = CarGenerator.builder().seed(7).build();
+    StringWriter first = new StringWriter();
+    StringWriter second = new StringWriter();
+
+    // when
+    generator.write(first, 200);
+    generator.write(second, 200);
+    List<String> generated = generator.generate(200).map(Car::toString).collect(Collectors.toList());
+    List<String> otherSeed = CarGenerator.builder().seed(8).build().generate(200).map(Car::toString)
+        .collect(Collectors.toList());
+
+    // then
+    assertEquals(first.toString(), second.toString());
+    assertEquals(generated, generator.generate(200).map(Car::toString).collect(Collectors.toList()));
+    assertNotEquals(generated, otherSeed);
+  }
+
+  @Test
+  void should_generate_the_configured_share_of_invalid_cars() {
+    // given
+    CarGenerator generator = CarGenerator.builder().seed(3).invalidShare(0.2).build();
+
+    // when
+    long invalid = generator.generate(10_000).filter(car -> !engine.isValid(car)).count();
+
+    // then
+    assertEquals(2_000, invalid, 150);
+    assertEquals(0, CarGenerator.builder().invalidShare(0).build().generate(1_000)
+        .filter(car -> !engine.isValid(car)).count());
+  }
+
+  @Test
+  void should_break_exactly_one_rule_in_every_invalid_car() {
+    // given
+    CarGenerator generator = CarGenerator.builder().seed(5).invalidShare(1).build();
+    Map<ValidationRule, Integer> brokenRules = new EnumMap<>(ValidationRule.class);
+
+    // when
+    generator.generate(2_000).mapToInt(engine::validate).forEach(failedRules -> {
+      assertEquals(1, Integer.bitCount(failedRules));
+      ValidationRule rule = ValidationRule.values()[Integer.numberOfTrailingZeros(failedRules)];
+      brokenRules.merge(rule, 1, Integer::sum);
+    });
+
+    // then
+    assertEquals(ValidationRule.values().length, brokenRules.size());
+  }
+}
@@ -0,0 +1,141 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarSnapshotTest {
+
+  private final CarGenerator generator = CarGenerator.builder().seed(13).invalidShare(0).build();
+
+  @Test
+  void should_read_the_written_cars_section_by_section(@TempDir Path directory) {
+    // given
+    String snapshotFilename = directory.resolve("Cars.snapshot").toString();
+    List<Car> cars = generator.generate(10_000).collect(Collectors.toList());
+
+    // when
+    new CarSnapshotWriter(snapshotFilename).write(cars);
+    CarSnapshot snapshot = CarSnapshot.open(snapshotFilename);
+
+    // then
+    assertEquals(10_000, snapshot.size());
+    assertEquals(3, snapshot.getSectionCount());
+    assertEquals(10_000 - 2 * CarSnapshot.SECTION_ROWS, snapshot.getSection(2).size());
+    assertEquals(CarSnapshot.PRICE_SCALE, snapshot.getPriceScale());
+    assertEquals(toStrings(cars), snapshot.stream().map(Car::toString).collect(Collectors.toList()));
+  }
+
+  @Test
+  void should_verify_a_section_only_when_it_is_read(@TempDir Path directory) throws IOException {
+    // given
+    Path snapshotFile = directory.resolve("Cars.snapshot");
+    new CarSnapshotWriter(snapshotFile.toString()).write(generator.generate(5_000).collect(Collectors.toList()));
+    byte[] bytes = Files.readAllBytes(snapshotFile);
+    long secondSection = index(bytes).getLong(4 * Integer.BYTES + Long.BYTES);
+    bytes[(int) secondSection] ^= 1;
+    Files.write(snapshotFile, bytes);
+
+    // when
+    CarSnapshot snapshot = CarSnapshot.open(snapshotFile.toString());
+
+    // then
+    assertEquals(CarSnapshot.SECTION_ROWS, snapshot.getSection(0).size());
+    assertThrows(IllegalStateException.class, () -> snapshot.getSection(1));
+  }
+
+  @Test
+  void should_read_colors_by_their_stored_names(@TempDir Path directory) throws IOException {
+    // given
+    Path snapshotFile = directory.resolve("Cars.snapshot");
+    List<Car> cars = generator.generate(1_000).collect(Collectors.toList());
+    new CarSnapshotWriter(snapshotFile.toString()).write(cars);
+    byte[] bytes = Files.readAllBytes(snapshotFile);
+    // a file written while GREEN and BLACK had each other's ordinals
+    swap(bytes, "GREEN", "BLACK");
+    Files.write(snapshotFile, bytes);
+
+    // when
+    List<Color> colors = CarSnapshot.open(snapshotFile.toString()).stream().map(Car::getColor)
+        .collect(Collectors.toList());
+
+    // then
+    for (int row = 0; row < cars.size(); row++) {
+      Color color = cars.get(row).getColor();
+      Color expected = color == Color.GREEN ? Color.BLACK : color == Color.BLACK ? Color.GREEN : color;
+      assertEquals(expected, colors.get(row));
+    }
+  }
+
+  @Test
+  void should_keep_prices_which_the_price_column_can_not_hold_exactly(@TempDir Path directory) {
+    // given
+    String snapshotFilename = directory.resolve("Cars.snapshot").toString();
+    List<Car> cars = generator.generate(3).collect(Collectors.toList());
+    cars.get(0).setPrice(new BigDecimal("160.12345"));
+    cars.get(2).setPrice(new BigDecimal("1E+30"));
+
+    // when
+    new CarSnapshotWriter(snapshotFilename).write(cars);
+    CarSnapshot.Section section = CarSnapshot.open(snapshotFilename).getSection(0);
+
+    // then
+    assertEquals(toStrings(cars), CarSnapshot.open(snapshotFilename).stream().map(Car::toString)
+        .collect(Collectors.toList()));
+    assertEquals(1_601_234L, section.getPrices().get(0));
+    assertEquals(Long.MAX_VALUE, section.getPrices().get(2));
+    assertNull(section.getExactPrices()[1]);
+    assertEquals(new BigDecimal("1E+30"), section.getExactPrices()[2]);
+  }
+
+  @Test
+  void should_reject_a_file_which_is_not_a_snapshot(@TempDir Path directory) throws IOException {
+    // given
+    Path file = directory.resolve("Cars.json");
+    Files.writeString(file, "[{\"model\": \"BMW\"}, {\"model\": \"AUDI\"}]");
+
+    // when + then
+    assertThrows(IllegalStateException.class, () -> CarSnapshot.open(file.toString()));
+  }
+
+  private static ByteBuffer index(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    int indexPosition = (int) buffer.getLong(bytes.length - Integer.BYTES - Long.BYTES);
+    return buffer.slice(indexPosition, bytes.length - CarSnapshot.TRAILER_BYTES - indexPosition)
+        .order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // swaps two color names of the same length in the index and stores its new checksum
+  private static void swap(byte[] bytes, String first, String second) {
+    ByteBuffer index = index(bytes);
+    String content = new String(bytes, StandardCharsets.ISO_8859_1);
+    int firstPosition = content.indexOf(first, index.arrayOffset());
+    int secondPosition = content.indexOf(second, index.arrayOffset());
+    System.arraycopy(second.getBytes(StandardCharsets.US_ASCII), 0, bytes, firstPosition, second.length());
+    System.arraycopy(first.getBytes(StandardCharsets.US_ASCII), 0, bytes, secondPosition, first.length());
+
+    CRC32 checksum = new CRC32();
+    checksum.update(index.duplicate());
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+        .putLong(bytes.length - CarSnapshot.TRAILER_BYTES, checksum.getValue());
+  }
+
+  private static List<String> toStrings(List<Car> cars) {
+    return cars.stream().map(Car::toString).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,126 @@
+package com.app.converter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.model.Car;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarsJsonConverterTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void should_share_model_and_component_names_between_accepted_cars_only() throws IOException {
+    // given
+    CarsJsonConverter converter = converter("["
+        + "{\"model\": \"BMW\", \"price\": 120.5, \"color\": \"BLACK\", \"mileage\": 1500,"
+        + " \"components\": [\"ABS\", \"ESP\"]},"
+        + "{\"model\": \"AUDI\", \"price\": -1, \"color\": \"RED\", \"mileage\": 10, \"components\": [\"ESP\"]},"
+        + "{\"model\": \"BMW\", \"price\": 300, \"color\": \"WHITE\", \"mileage\": 200, \"components\": [\"ESP\"]}"
+        + "]");
+
+    // when
+    List<Car> cars;
+    try (Stream<Car> accepted = converter.fromJsonStream(car -> car.getPrice().signum() > 0)) {
+      cars = accepted.collect(Collectors.toList());
+    }
+
+    // then
+    assertEquals(2, cars.size());
+    Car first = cars.get(0);
+    Car second = cars.get(1);
+    assertSame(first.getModel(), second.getModel());
+    Iterator<String> components = first.getComponents().iterator();
+    components.next();
+    assertSame(components.next(), second.getComponents().iterator().next());
+    assertEquals(new BigDecimal("300"), second.getPrice());
+  }
+
+  @Test
+  void should_hand_out_each_car_before_the_following_ones_are_read() throws IOException {
+    // given
+    CarsJsonConverter converter = converter("[" + car("BMW") + "," + car("AUDI") + ", {\"model\": ]");
+
+    // when
+    try (Stream<Car> cars = converter.fromJsonStream()) {
+      Iterator<Car> iterator = cars.iterator();
+
+      // then
+      assertEquals("BMW", iterator.next().getModel());
+      assertEquals("AUDI", iterator.next().getModel());
+      assertThrows(IllegalStateException.class, iterator::hasNext);
+    }
+  }
+
+  @Test
+  void should_stream_no_cars_of_an_empty_array() throws IOException {
+    // given
+    CarsJsonConverter converter = converter(" [ ] ");
+
+    // when
+    long count;
+    try (Stream<Car> cars = converter.fromJsonStream()) {
+      count = cars.count();
+    }
+
+    // then
+    assertEquals(0, count);
+  }
+
+  @Test
+  void should_fail_on_a_malformed_car_in_the_middle_of_the_file() throws IOException {
+    // given
+    CarsJsonConverter converter = converter("[" + car("BMW") + ", {\"model\" \"AUDI\"}, " + car("MAZDA") + "]");
+    List<String> models = new ArrayList<>();
+
+    // when
+    IllegalStateException e;
+    try (Stream<Car> cars = converter.fromJsonStream()) {
+      e = assertThrows(IllegalStateException.class, () -> cars.forEach(car -> models.add(car.getModel())));
+    }
+
+    // then
+    assertEquals("Failed to JSON", e.getMessage());
+    assertEquals(List.of("BMW"), models);
+  }
+
+  @Test
+  void should_close_the_file_when_the_stream_is_closed() throws IOException {
+    // given
+    CarsJsonConverter converter = converter("[" + car("BMW") + "," + car("AUDI") + "]");
+    Stream<Car> cars = converter.fromJsonStream();
+    Iterator<Car> iterator = cars.iterator();
+    iterator.next();
+
+    // when
+    cars.close();
+
+    // then
+    IllegalStateException e = assertThrows(IllegalStateException.class, iterator::hasNext);
+    assertEquals("JsonReader is closed", e.getCause().getMessage());
+  }
+
+  private static String car(String model) {
+    return "{\"model\": \"" + model + "\", \"price\": 100, \"color\": \"BLACK\", \"mileage\": 10,"
+        + " \"components\": [\"ABS\"]}";
+  }
+
+  private CarsJsonConverter converter(String json) throws IOException {
+    Path file = directory.resolve("Cars.json");
+    Files.writeString(file, json);
+    return new CarsJsonConverter(file.toString());
+  }
+}
@@ -0,0 +1,101 @@
+package com.app.model;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.app.model.dictionary.CarDictionary;
+import com.app.model.enums.Color;
+
+/**
+ * Immutable, dictionary encoded variant of {@link Car}. The model and the components are held as ids of a shared
+ * {@link CarDictionary} instead of one string and one hash set per car, and are only resolved to strings when
+ * asked for.
+ */
+public final class CompactCar {
+
+  private final CarDictionary dictionary;
+  private final int model;
+  private final BigDecimal price;
+  private final Color color;
+  private final long mileage;
+  private final int[] components;
+
+  private CompactCar(CarDictionary dictionary, int model, BigDecimal price, Color color, long mileage,
+      int[] components) {
+    this.dictionary = dictionary;
+    this.model = model;
+    this.price = price;
+    this.color = color;
+    this.mileage = mileage;
+    this.components = components;
+  }
+
+  public static CompactCar of(Car car, CarDictionary dictionary) {
+    int[] components = new int[car.getComponents().size()];
+    int n = 0;
+    for (String component : car.getComponents()) {
+      components[n++] = dictionary.getComponents().encode(component);
+    }
+    return new CompactCar(dictionary, dictionary.getModels().encode(car.getModel()), car.getPrice(), car.getColor(),
+        car.getMileage(), components);
+  }
+
+  public int getModelId() {
+    return model;
+  }
+
+  public String getModel() {
+    return dictionary.getModels().decode(model);
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public Color getColor() {
+    return color;
+  }
+
+  public long getMileage() {
+    return mileage;
+  }
+
+  public int getComponentCount() {
+    return components.length;
+  }
+
+  /**
+   * Returns the id of the n-th component, in the order of the car the compact car was created from.
+   */
+  public int getComponentId(int n) {
+    return components[n];
+  }
+
+  public Set<String> getComponents() {
+    Set<String> carComponents = new LinkedHashSet<>();
+    for (int component : components) {
+      carComponents.add(dictionary.getComponents().decode(component));
+    }
+    return carComponents;
+  }
+
+  public Car toCar() {
+    return Car.builder()
+        .model(getModel())
+        .price(price)
+        .color(color)
+        .mileage(mileage)
+        .components(getComponents())
+        .build();
+  }
+
+  @Override
+  public String toString() {
+    return getModel() + " " +
+        price + " " +
+        color + " " +
+        mileage + " " +
+        getComponents();
+  }
+}
@@ -0,0 +1,40 @@
+package com.app.model.dictionary;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.app.model.Car;
+
+/**
+ * Dictionaries of model and component names shared by the {@link com.app.model.CompactCar}s created with it.
+ * Not thread safe.
+ */
+public class CarDictionary {
+
+  private final StringDictionary models = new StringDictionary();
+  private final StringDictionary components = new StringDictionary();
+
+  public StringDictionary getModels() {
+    return models;
+  }
+
+  public StringDictionary getComponents() {
+    return components;
+  }
+
+  /**
+   * Replaces the model and component names of the car by the instances held by this dictionary, so that all
+   * cars interned with it share one instance of every name. Returns the same car.
+   */
+  public Car intern(Car car) {
+    if (car.getModel() != null) {
+      car.setModel(models.intern(car.getModel()));
+    }
+    if (car.getComponents() != null) {
+      Set<String> interned = new LinkedHashSet<>();
+      car.getComponents().forEach(component -> interned.add(component == null ? null : components.intern(component)));
+      car.setComponents(interned);
+    }
+    return car;
+  }
+}
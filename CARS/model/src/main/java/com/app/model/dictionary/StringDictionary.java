@@ -0,0 +1,90 @@
+package com.app.model.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+/**
+ * Maps distinct strings to dense int ids in order of first appearance. Not thread safe.
+ */
+public class StringDictionary {
+
+  private static final int MISSING = -1;
+
+  private final ObjectIntHashMap<String> ids = new ObjectIntHashMap<>();
+  private final List<String> values = new ArrayList<>();
+
+  /**
+   * Creates a dictionary which assigns ids to the given distinct values in list order.
+   */
+  public static StringDictionary of(List<String> values) {
+    StringDictionary dictionary = new StringDictionary();
+    values.forEach(dictionary::encode);
+    if (dictionary.size() != values.size()) {
+      throw new IllegalArgumentException("Dictionary values are not distinct");
+    }
+    return dictionary;
+  }
+
+  /**
+   * Returns an independent dictionary with the same ids, which can take new values without changing this one.
+   */
+  public StringDictionary copy() {
+    StringDictionary copy = new StringDictionary();
+    copy.ids.putAll(ids);
+    copy.values.addAll(values);
+    return copy;
+  }
+
+  public int encode(String value) {
+    int id = ids.getIfAbsent(value, MISSING);
+    if (id == MISSING) {
+      id = values.size();
+      ids.put(value, id);
+      values.add(value);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the instance of the value held by the dictionary, encoding it first when needed, so that equal
+   * strings share one instance.
+   */
+  public String intern(String value) {
+    return values.get(encode(value));
+  }
+
+  /**
+   * Returns the id of the value or -1 when it has never been encoded.
+   */
+  public int find(String value) {
+    return ids.getIfAbsent(value, MISSING);
+  }
+
+  public String decode(int id) {
+    return values.get(id);
+  }
+
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Returns the lexicographic position of every id, so that strings can be compared by comparing ints.
+   */
+  public int[] ranks() {
+    Integer[] sortedIds = new Integer[values.size()];
+    for (int i = 0; i < sortedIds.length; i++) {
+      sortedIds[i] = i;
+    }
+    Arrays.sort(sortedIds, (first, second) -> values.get(first).compareTo(values.get(second)));
+
+    int[] ranks = new int[sortedIds.length];
+    for (int rank = 0; rank < sortedIds.length; rank++) {
+      ranks[sortedIds[rank]] = rank;
+    }
+    return ranks;
+  }
+}
@@ -1,6 +1,10 @@
 module model {
-  exports com.app.model to service, converter, validators;
-  exports com.app.model.enums to service, converter, validators;
+  exports com.app.model to service, converter, validators, application;
+  exports com.app.model.dictionary to service, converter;
+  exports com.app.model.enums to service, converter, validators, application;
+
+  requires org.eclipse.collections.impl;
+  requires org.eclipse.collections.api;
 
   opens com.app.model;
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.app.model;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.dictionary.CarDictionary;
+import com.app.model.enums.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCarTest {
+
+  private final CarDictionary dictionary = new CarDictionary();
+
+  @Test
+  void should_convert_back_to_equal_car() {
+    // given
+    Car car = Car.builder()
+        .model("BMW")
+        .price(new BigDecimal("120.50"))
+        .color(Color.BLACK)
+        .mileage(1500L)
+        .components(new LinkedHashSet<>(List.of("ESP", "ABS", "RADIO")))
+        .build();
+
+    // when
+    Car actual = CompactCar.of(car, dictionary).toCar();
+
+    // then
+    assertEquals(car.toString(), actual.toString());
+    assertEquals(new BigDecimal("120.50"), actual.getPrice());
+    assertEquals(List.of("ESP", "ABS", "RADIO"), List.copyOf(actual.getComponents()));
+  }
+
+  @Test
+  void should_share_names_and_ids_of_one_dictionary() {
+    // given
+    Car first = createCar("AUDI", "ABS", "ESP");
+    Car second = createCar(new String("AUDI"), new String("ESP"));
+
+    // when
+    CompactCar firstCompact = CompactCar.of(first, dictionary);
+    CompactCar secondCompact = CompactCar.of(second, dictionary);
+
+    // then
+    assertEquals(firstCompact.getModelId(), secondCompact.getModelId());
+    assertSame(firstCompact.getModel(), secondCompact.getModel());
+    assertEquals(firstCompact.getComponentId(1), secondCompact.getComponentId(0));
+    assertSame(firstCompact.getComponents().toArray()[1], secondCompact.getComponents().iterator().next());
+    assertEquals(1, dictionary.getModels().size());
+    assertEquals(2, dictionary.getComponents().size());
+  }
+
+  private static Car createCar(String model, String... components) {
+    return Car.builder()
+        .model(model)
+        .price(BigDecimal.TEN)
+        .color(Color.RED)
+        .mileage(10L)
+        .components(new LinkedHashSet<>(List.of(components)))
+        .build();
+  }
+}
@@ -0,0 +1,326 @@
+package com.app.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.app.converter.CarJsonExporter;
+import com.app.model.Car;
+import com.app.service.aggregate.CarAggregate;
+import com.app.service.aggregate.CarStatistics;
+import com.app.service.enums.BatchFormat;
+import com.app.service.enums.GroupBy;
+import com.app.service.query.CarQueryParameters;
+import com.app.service.query.QueryPlan;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Runs a script of queries back to back against one {@link CarService} and writes all results through one
+ * large buffered writer, as plain text or as a JSON array with one object per command. A script has one
+ * command per line followed by its {@code name=value} parameters; blank lines and lines starting with # are
+ * skipped:
+ * <pre>
+ * cars models=BMW,MAZDA withAny=AIR CONDITIONING sort=price:desc limit=10
+ * explain colors=black maxMileage=5000
+ * colors
+ * statistics
+ * aggregates groupBy=component
+ * most-expensive
+ * </pre>
+ * {@code cars} and {@code explain} take the parameters of {@link CarQueryParameters}. A failing command is
+ * reported in the output and the script goes on.
+ */
+public class BatchService {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final String STANDARD_STREAM = "-";
+
+  private final CarService carService;
+  private final BatchFormat format;
+
+  public BatchService(CarService carService, BatchFormat format) {
+    this.carService = Optional.ofNullable(carService)
+        .orElseThrow(() -> new NullPointerException("Car service is null"));
+    this.format = Optional.ofNullable(format).orElseThrow(() -> new NullPointerException("Format is null"));
+  }
+
+  /**
+   * Runs the script file and writes the results into the output file; "-" stands for the standard input or
+   * output. Returns the number of failed commands.
+   */
+  public int run(String scriptFilename, String outputFilename) {
+    try {
+      // the standard streams are left open
+      if (STANDARD_STREAM.equals(scriptFilename)) {
+        return run(new InputStreamReader(System.in, StandardCharsets.UTF_8), outputFilename);
+      }
+      try (Reader script = Files.newBufferedReader(Path.of(scriptFilename))) {
+        return run(script, outputFilename);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to run " + scriptFilename + " into " + outputFilename, e);
+    }
+  }
+
+  private int run(Reader script, String outputFilename) throws IOException {
+    if (STANDARD_STREAM.equals(outputFilename)) {
+      // written to the file descriptor directly, System.out would flush on every line
+      return run(script, new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8));
+    }
+    try (Writer output = Files.newBufferedWriter(Path.of(outputFilename))) {
+      return run(script, output);
+    }
+  }
+
+  /**
+   * Runs the script and writes the results to the output, which is flushed but left open. Returns the number
+   * of failed commands.
+   */
+  public int run(Reader script, Writer output) throws IOException {
+    BufferedReader lines = new BufferedReader(script);
+    BufferedWriter writer = new BufferedWriter(output, BUFFER_SIZE);
+    Report report = format == BatchFormat.JSON ? new JsonReport(writer) : new TextReport(writer);
+    int failures = 0;
+    report.begin();
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      String command = line.strip();
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+      if (!execute(command, report)) {
+        failures++;
+      }
+    }
+    report.end();
+    writer.flush();
+    return failures;
+  }
+
+  // commands are checked and queries planned before anything is written, so a failing command leaves no partial
+  // result; the cars of a query are then streamed from the version it was planned on while they are written
+  private boolean execute(String command, Report report) throws IOException {
+    String[] nameAndParameters = command.split("\\s+", 2);
+    try {
+      Map<String, String> parameters = parameters(nameAndParameters.length == 2 ? nameAndParameters[1] : "");
+      switch (nameAndParameters[0]) {
+        case "cars":
+          Iterator<Car> cars = carService.openCursor(CarQueryParameters.toQuery(parameters));
+          report.cars(command, cars);
+          break;
+        case "explain":
+          QueryPlan plan = carService.explain(CarQueryParameters.toQuery(parameters));
+          Map<String, Object> planEntries = new LinkedHashMap<>();
+          planEntries.put("accessPath", plan.getAccessPath().name());
+          planEntries.put("estimatedRows", (long) plan.getEstimatedRows());
+          report.entries(command, planEntries);
+          break;
+        case "colors":
+          requireNone(parameters);
+          Map<String, Object> counts = new LinkedHashMap<>();
+          carService.getCarCountsByColor().forEach((color, count) -> counts.put(color.name(), count));
+          report.entries(command, counts);
+          break;
+        case "statistics":
+          requireNone(parameters);
+          report.entries(command, statistics(carService.getStatistics()));
+          break;
+        case "aggregates":
+          String groupBy = Optional.ofNullable(parameters.remove("groupBy")).orElse(GroupBy.MODEL.name());
+          requireNone(parameters);
+          report.entries(command, new LinkedHashMap<>(carService.aggregate(toGroupBy(groupBy))));
+          break;
+        case "most-expensive":
+          requireNone(parameters);
+          report.cars(command, carService.findTheMostExpensiveCars().iterator());
+          break;
+        default:
+          throw new IllegalArgumentException("Command is not supported: " + nameAndParameters[0]);
+      }
+      return true;
+    } catch (IllegalArgumentException | NoCarsException e) {
+      report.error(command, String.valueOf(e.getMessage()));
+      return false;
+    }
+  }
+
+  // a parameter runs until the next " name=", so values may contain spaces
+  private static Map<String, String> parameters(String text) {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    if (text.isBlank()) {
+      return parameters;
+    }
+    for (String parameter : text.strip().split("\\s+(?=\\w+=)")) {
+      String[] nameAndValue = parameter.split("=", 2);
+      if (nameAndValue.length != 2) {
+        throw new IllegalArgumentException("Parameter is not valid: " + parameter);
+      }
+      parameters.put(nameAndValue[0], nameAndValue[1]);
+    }
+    return parameters;
+  }
+
+  private static Map<String, Object> statistics(CarStatistics statistics) {
+    Map<String, Object> entries = new LinkedHashMap<>();
+    entries.put("count", statistics.getCount());
+    entries.put("averagePrice", statistics.getAveragePrice());
+    entries.put("minPrice", statistics.getMinPrice());
+    entries.put("maxPrice", statistics.getMaxPrice());
+    entries.put("averageMileage", statistics.getAverageMileage());
+    entries.put("minMileage", statistics.getMinMileage());
+    entries.put("maxMileage", statistics.getMaxMileage());
+    return entries;
+  }
+
+  private static void requireNone(Map<String, String> parameters) {
+    if (!parameters.isEmpty()) {
+      throw new IllegalArgumentException("Parameter is not supported: " + parameters.keySet().iterator().next());
+    }
+  }
+
+  private static GroupBy toGroupBy(String groupBy) {
+    try {
+      return GroupBy.valueOf(groupBy.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Group is not valid: " + groupBy, e);
+    }
+  }
+
+  private interface Report {
+
+    void begin() throws IOException;
+
+    void cars(String command, Iterator<Car> cars) throws IOException;
+
+    void entries(String command, Map<String, ?> entries) throws IOException;
+
+    void error(String command, String message) throws IOException;
+
+    void end() throws IOException;
+  }
+
+  // every command is echoed after "> " and followed by its result, one car or entry per line
+  private static class TextReport implements Report {
+
+    private final Writer writer;
+
+    TextReport(Writer writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void begin() {
+    }
+
+    @Override
+    public void cars(String command, Iterator<Car> cars) throws IOException {
+      writer.write("> " + command + "\n");
+      long count = 0;
+      while (cars.hasNext()) {
+        writer.write(cars.next() + "\n");
+        count++;
+      }
+      writer.write("(" + count + " cars)\n\n");
+    }
+
+    @Override
+    public void entries(String command, Map<String, ?> entries) throws IOException {
+      writer.write("> " + command + "\n");
+      for (Map.Entry<String, ?> entry : entries.entrySet()) {
+        writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+      }
+      writer.write("\n");
+    }
+
+    @Override
+    public void error(String command, String message) throws IOException {
+      writer.write("> " + command + "\n! " + message + "\n\n");
+    }
+
+    @Override
+    public void end() {
+    }
+  }
+
+  // one array with an object per command, holding the command and its result or error
+  private static class JsonReport implements Report {
+
+    private final JsonWriter json;
+
+    JsonReport(Writer writer) {
+      this.json = new JsonWriter(writer);
+    }
+
+    @Override
+    public void begin() throws IOException {
+      json.beginArray();
+    }
+
+    @Override
+    public void cars(String command, Iterator<Car> cars) throws IOException {
+      json.beginObject().name("command").value(command).name("result");
+      writeCars(cars);
+      json.endObject();
+    }
+
+    @Override
+    public void entries(String command, Map<String, ?> entries) throws IOException {
+      json.beginObject().name("command").value(command).name("result").beginObject();
+      for (Map.Entry<String, ?> entry : entries.entrySet()) {
+        json.name(entry.getKey());
+        writeValue(entry.getValue());
+      }
+      json.endObject().endObject();
+    }
+
+    @Override
+    public void error(String command, String message) throws IOException {
+      json.beginObject().name("command").value(command).name("error").value(message).endObject();
+    }
+
+    @Override
+    public void end() throws IOException {
+      json.endArray();
+      json.flush();
+    }
+
+    private void writeCars(Iterator<Car> cars) throws IOException {
+      json.beginArray();
+      while (cars.hasNext()) {
+        CarJsonExporter.writeCar(json, cars.next());
+      }
+      json.endArray();
+    }
+
+    private void writeValue(Object value) throws IOException {
+      if (value instanceof CarAggregate) {
+        CarAggregate aggregate = (CarAggregate) value;
+        json.beginObject()
+            .name("count").value(aggregate.getCount())
+            .name("averagePrice").value(aggregate.getAveragePrice())
+            .name("minPrice").value(aggregate.getMinPrice())
+            .name("maxPrice").value(aggregate.getMaxPrice())
+            .name("averageMileage").value(aggregate.getAverageMileage())
+            .name("minMileage").value(aggregate.getMinMileage())
+            .name("maxMileage").value(aggregate.getMaxMileage())
+            .endObject();
+      } else if (value instanceof Number) {
+        json.value((Number) value);
+      } else {
+        json.value(String.valueOf(value));
+      }
+    }
+  }
+}
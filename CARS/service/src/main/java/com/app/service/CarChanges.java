@@ -0,0 +1,102 @@
+package com.app.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import com.app.model.Car;
+
+/**
+ * A batch of inserts, updates and deletes applied to a {@link CarService} as one new version of its data.
+ * Cars to update or delete are matched by value against the cars currently in the service.
+ */
+public class CarChanges {
+
+  private final List<Car> insertedCars;
+  private final List<Car> removedCars;
+  private final List<Car> updatedCars;
+  private final List<Car> replacementCars;
+
+  private CarChanges(CarChangesBuilder builder) {
+    this.insertedCars = Collections.unmodifiableList(builder.insertedCars);
+    this.removedCars = Collections.unmodifiableList(builder.removedCars);
+    this.updatedCars = Collections.unmodifiableList(builder.updatedCars);
+    this.replacementCars = Collections.unmodifiableList(builder.replacementCars);
+  }
+
+  public static CarChangesBuilder builder() {
+    return new CarChangesBuilder();
+  }
+
+  public List<Car> getInsertedCars() {
+    return insertedCars;
+  }
+
+  public List<Car> getRemovedCars() {
+    return removedCars;
+  }
+
+  /**
+   * Returns the cars to update; the n-th of them is replaced with the n-th of {@link #getReplacementCars()}.
+   */
+  public List<Car> getUpdatedCars() {
+    return updatedCars;
+  }
+
+  public List<Car> getReplacementCars() {
+    return replacementCars;
+  }
+
+  public int size() {
+    return insertedCars.size() + removedCars.size() + updatedCars.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "inserted=" + insertedCars.size() + ", updated=" + updatedCars.size() + ", removed=" + removedCars.size();
+  }
+
+  public static class CarChangesBuilder {
+
+    private final List<Car> insertedCars = new ArrayList<>();
+    private final List<Car> removedCars = new ArrayList<>();
+    private final List<Car> updatedCars = new ArrayList<>();
+    private final List<Car> replacementCars = new ArrayList<>();
+
+    public CarChanges build() {
+      return new CarChanges(this);
+    }
+
+    public CarChangesBuilder insert(Car car) {
+      insertedCars.add(Optional.ofNullable(car).orElseThrow(() -> new NullPointerException("Car is null")));
+      return this;
+    }
+
+    public CarChangesBuilder remove(Car car) {
+      removedCars.add(Optional.ofNullable(car).orElseThrow(() -> new NullPointerException("Car is null")));
+      return this;
+    }
+
+    public CarChangesBuilder update(Car oldCar, Car newCar) {
+      Optional.ofNullable(oldCar).orElseThrow(() -> new NullPointerException("Car is null"));
+      Optional.ofNullable(newCar).orElseThrow(() -> new NullPointerException("Car is null"));
+      updatedCars.add(oldCar);
+      replacementCars.add(newCar);
+      return this;
+    }
+
+    public CarChangesBuilder addAll(CarChanges changes) {
+      Optional.ofNullable(changes).orElseThrow(() -> new NullPointerException("Changes are null"));
+      insertedCars.addAll(changes.insertedCars);
+      removedCars.addAll(changes.removedCars);
+      updatedCars.addAll(changes.updatedCars);
+      replacementCars.addAll(changes.replacementCars);
+      return this;
+    }
+  }
+}
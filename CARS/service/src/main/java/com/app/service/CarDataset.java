@@ -0,0 +1,270 @@
+package com.app.service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import com.app.model.Car;
+import com.app.service.aggregate.CarAggregator;
+import com.app.service.aggregate.CarStatistics;
+import com.app.service.index.AttributeIndex;
+import com.app.service.index.ComponentIndex;
+import com.app.service.index.ModelPriceIndex;
+import com.app.service.index.RangeIndex;
+import com.app.service.index.SortIndex;
+import com.app.service.query.QueryPlanner;
+import com.app.service.store.CarStore;
+import com.app.service.topk.TopKFinder;
+
+/**
+ * One immutable version of the cars of a {@link CarService} together with all of its indexes. Changes never
+ * modify a dataset; {@link #apply(CarChanges)} builds the next version next to it, so readers holding this one
+ * keep a consistent view for as long as they need it.
+ * <p>
+ * Indexes and statistics are built when first needed. The next version shares every chunk of the store without
+ * a changed row, and updates the indexes and statistics built so far with the changed rows only, so a change
+ * of {@code c} cars costs about O(c log n) instead of copying and indexing all cars again. Removed rows stay
+ * as gaps until they make up a quarter of the store, which is then compacted and indexed anew.
+ */
+class CarDataset {
+
+  // fewer removed rows than this are never worth compacting
+  private static final int MIN_ROWS_TO_COMPACT = 1024;
+
+  private final long version;
+  private final int appliedChanges;
+  private final CarStore cars;
+  private final Derived<CarStatistics> statistics;
+  private final Derived<AttributeIndex> modelIndex;
+  private final Derived<AttributeIndex> colorIndex;
+  private final Derived<ComponentIndex> componentIndex;
+  private final SortIndex sortIndex;
+  private final Derived<ModelPriceIndex> modelPriceIndex;
+  private final Derived<QueryPlanner> queryPlanner;
+  private final CarAggregator aggregator;
+  private final TopKFinder topKFinder;
+
+  CarDataset(CarStore cars) {
+    this(0, 0, cars, new Derived<>(() -> CarStatistics.of(cars)), new SortIndex(cars));
+  }
+
+  // a dataset whose indexes are all built when first needed
+  private CarDataset(long version, int appliedChanges, CarStore cars, Derived<CarStatistics> statistics,
+      SortIndex sortIndex) {
+    this(version, appliedChanges, cars, statistics,
+        new Derived<>(() -> AttributeIndex.byModel(cars)),
+        new Derived<>(() -> AttributeIndex.byColor(cars)),
+        new Derived<>(() -> new ComponentIndex(cars)),
+        sortIndex,
+        new Derived<>(() -> new ModelPriceIndex(cars, sortIndex)));
+  }
+
+  private CarDataset(long version, int appliedChanges, CarStore cars, Derived<CarStatistics> statistics,
+      Derived<AttributeIndex> modelIndex, Derived<AttributeIndex> colorIndex, Derived<ComponentIndex> componentIndex,
+      SortIndex sortIndex, Derived<ModelPriceIndex> modelPriceIndex) {
+    this.version = version;
+    this.appliedChanges = appliedChanges;
+    this.cars = cars;
+    this.statistics = statistics;
+    this.modelIndex = modelIndex;
+    this.colorIndex = colorIndex;
+    this.componentIndex = componentIndex;
+    this.sortIndex = sortIndex;
+    this.modelPriceIndex = modelPriceIndex;
+    this.queryPlanner = new Derived<>(() -> new QueryPlanner(cars, modelIndex.get(), colorIndex.get(),
+        componentIndex.get(), RangeIndex.byPrice(sortIndex), RangeIndex.byMileage(sortIndex), sortIndex));
+    this.aggregator = new CarAggregator(cars);
+    this.topKFinder = new TopKFinder(cars);
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the number of changes of the batch this version was created from which matched a car.
+   */
+  int getAppliedChanges() {
+    return appliedChanges;
+  }
+
+  CarStore getCars() {
+    return cars;
+  }
+
+  CarStatistics getStatistics() {
+    return statistics.get();
+  }
+
+  ComponentIndex getComponentIndex() {
+    return componentIndex.get();
+  }
+
+  SortIndex getSortIndex() {
+    return sortIndex;
+  }
+
+  RangeIndex getPriceIndex() {
+    return RangeIndex.byPrice(sortIndex);
+  }
+
+  RangeIndex getMileageIndex() {
+    return RangeIndex.byMileage(sortIndex);
+  }
+
+  ModelPriceIndex getModelPriceIndex() {
+    return modelPriceIndex.get();
+  }
+
+  CarAggregator getAggregator() {
+    return aggregator;
+  }
+
+  TopKFinder getTopKFinder() {
+    return topKFinder;
+  }
+
+  QueryPlanner getQueryPlanner() {
+    return queryPlanner.get();
+  }
+
+  /**
+   * Builds the next version. Every car to update or remove is matched with the first row holding an equal car
+   * which no other change of the batch took already; changes without a match are skipped. Updated cars keep
+   * their position and inserted cars are appended.
+   */
+  CarDataset apply(CarChanges changes) {
+    RowChanges rowChanges = new RowChanges();
+    IntHashSet matchedRows = new IntHashSet();
+    for (Car car : changes.getRemovedCars()) {
+      int row = findRow(car, matchedRows);
+      if (row != -1) {
+        rowChanges.remove(row);
+      }
+    }
+    List<Car> updatedCars = changes.getUpdatedCars();
+    for (int i = 0; i < updatedCars.size(); i++) {
+      int row = findRow(updatedCars.get(i), matchedRows);
+      if (row != -1) {
+        rowChanges.update(row, changes.getReplacementCars().get(i));
+      }
+    }
+    changes.getInsertedCars().forEach(car -> rowChanges.insert(car, 0));
+    return apply(rowChanges);
+  }
+
+  /**
+   * Builds the next version from changes addressed to rows of this one, each of which is changed at most once.
+   * Updated rows keep their position and partition, and inserted cars are appended.
+   */
+  CarDataset apply(RowChanges changes) {
+    CarStore.Builder builder = cars.toBuilder();
+    CarStatistics builtStatistics = statistics.getIfBuilt();
+    CarStatistics nextStatistics = builtStatistics == null ? null : builtStatistics.copy();
+
+    changes.getRemovedRows().forEach(row -> {
+      builder.remove(row);
+      if (nextStatistics != null) {
+        nextStatistics.remove(cars.getCar(row));
+      }
+    });
+
+    IntArrayList updatedRows = changes.getUpdatedRows();
+    for (int i = 0; i < updatedRows.size(); i++) {
+      int row = updatedRows.get(i);
+      Car replacement = changes.getReplacementCars().get(i);
+      builder.set(row, replacement);
+      if (nextStatistics != null) {
+        nextStatistics.update(cars.getCar(row), replacement);
+      }
+    }
+
+    List<Car> insertedCars = changes.getInsertedCars();
+    for (int i = 0; i < insertedCars.size(); i++) {
+      builder.add(insertedCars.get(i), changes.getInsertedPartitions().get(i));
+      if (nextStatistics != null) {
+        nextStatistics.add(insertedCars.get(i));
+      }
+    }
+
+    CarStore nextCars = builder.build();
+    int applied = changes.size();
+    Derived<CarStatistics> derivedStatistics = nextStatistics != null
+        ? Derived.of(nextStatistics)
+        : new Derived<>(() -> CarStatistics.of(nextCars));
+    if (nextCars.getRemovedCount() >= Math.max(MIN_ROWS_TO_COMPACT, nextCars.getRowCount() / 4)) {
+      CarStore compactedCars = nextCars.compact();
+      return new CarDataset(version + 1, applied, compactedCars, derivedStatistics, new SortIndex(compactedCars));
+    }
+
+    IntHashSet changedRows = new IntHashSet();
+    changedRows.addAll(changes.getRemovedRows());
+    changedRows.addAll(updatedRows);
+    for (int row = cars.getRowCount(); row < nextCars.getRowCount(); row++) {
+      changedRows.add(row);
+    }
+    int[] rows = changedRows.toSortedArray();
+    SortIndex nextSortIndex = sortIndex.update(nextCars, rows);
+    return new CarDataset(version + 1, applied, nextCars, derivedStatistics,
+        modelIndex.next(index -> index.update(nextCars, rows), () -> AttributeIndex.byModel(nextCars)),
+        colorIndex.next(index -> index.update(nextCars, rows), () -> AttributeIndex.byColor(nextCars)),
+        componentIndex.next(index -> index.update(nextCars, rows), () -> new ComponentIndex(nextCars)),
+        nextSortIndex,
+        modelPriceIndex.next(index -> index.update(nextCars, rows),
+            () -> new ModelPriceIndex(nextCars, nextSortIndex)));
+  }
+
+  private int findRow(Car car, IntHashSet matchedRows) {
+    // rows of equal mileage come in row order, so the first free match is the lowest row
+    for (int row : getMileageIndex().rows(car.getMileage(), car.getMileage())) {
+      if (!matchedRows.contains(row) && cars.matches(row, car)) {
+        matchedRows.add(row);
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  // a value of one version which is computed when first needed, unless it was carried over from the previous one
+  private static final class Derived<T> {
+
+    private final Supplier<T> supplier;
+    private volatile T value;
+
+    private Derived(Supplier<T> supplier) {
+      this.supplier = supplier;
+    }
+
+    static <T> Derived<T> of(T value) {
+      Derived<T> derived = new Derived<>(null);
+      derived.value = value;
+      return derived;
+    }
+
+    T get() {
+      T result = value;
+      if (result == null) {
+        synchronized (this) {
+          if (value == null) {
+            value = supplier.get();
+          }
+          result = value;
+        }
+      }
+      return result;
+    }
+
+    T getIfBuilt() {
+      return value;
+    }
+
+    // updates a built value for the next version, which otherwise builds its own when needed
+    Derived<T> next(Function<T, T> update, Supplier<T> supplier) {
+      T built = value;
+      return built != null ? of(update.apply(built)) : new Derived<>(supplier);
+    }
+  }
+}
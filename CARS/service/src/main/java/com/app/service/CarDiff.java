@@ -0,0 +1,149 @@
+package com.app.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.store.CarStore;
+
+/**
+ * Computes the changes which turn the cars of a store, or of one of its partitions, into a list of cars. Cars are
+ * compared by value and counted, so duplicates are handled. Every removed car is paired with an inserted one as
+ * an update for as long as both are left, which keeps the position of the replaced row; the rest become inserts
+ * or removes.
+ */
+final class CarDiff {
+
+  private CarDiff() {
+  }
+
+  static CarChanges between(CarStore cars, List<Car> newCars) {
+    int[] rows = cars.rows();
+    List<Car> insertedCars = new ArrayList<>();
+    IntArrayList removed = unmatched(rows.length, n -> CarKey.of(cars, rows[n]), newCars, insertedCars);
+
+    CarChanges.CarChangesBuilder changes = CarChanges.builder();
+    int updates = Math.min(removed.size(), insertedCars.size());
+    for (int i = 0; i < removed.size(); i++) {
+      Car removedCar = cars.getCar(rows[removed.get(i)]);
+      if (i < updates) {
+        changes.update(removedCar, insertedCars.get(i));
+      } else {
+        changes.remove(removedCar);
+      }
+    }
+    insertedCars.subList(updates, insertedCars.size()).forEach(changes::insert);
+    return changes.build();
+  }
+
+  /**
+   * Computes the changes which turn the rows of one partition into the given cars, addressed to these rows so
+   * that equal cars of other partitions are left alone.
+   */
+  static RowChanges between(CarStore cars, int partition, List<Car> newCars) {
+    int[] rows = cars.rows(partition);
+    List<Car> insertedCars = new ArrayList<>();
+    IntArrayList removed = unmatched(rows.length, n -> CarKey.of(cars, rows[n]), newCars, insertedCars);
+
+    RowChanges changes = new RowChanges();
+    int updates = Math.min(removed.size(), insertedCars.size());
+    for (int i = 0; i < removed.size(); i++) {
+      if (i < updates) {
+        changes.update(rows[removed.get(i)], insertedCars.get(i));
+      } else {
+        changes.remove(rows[removed.get(i)]);
+      }
+    }
+    insertedCars.subList(updates, insertedCars.size()).forEach(car -> changes.insert(car, partition));
+    return changes;
+  }
+
+  // returns the positions of the old cars left without an equal new car, and collects the new cars left
+  // without an equal old one
+  private static IntArrayList unmatched(int size, IntFunction<CarKey> keys, List<Car> newCars,
+      List<Car> insertedCars) {
+    Map<CarKey, Integer> unmatchedCounts = new HashMap<>();
+    for (int n = 0; n < size; n++) {
+      unmatchedCounts.merge(keys.apply(n), 1, Integer::sum);
+    }
+
+    for (Car car : newCars) {
+      CarKey key = CarKey.of(car);
+      Integer count = unmatchedCounts.get(key);
+      if (count == null || count == 0) {
+        insertedCars.add(car);
+      } else {
+        unmatchedCounts.put(key, count - 1);
+      }
+    }
+
+    IntArrayList removed = new IntArrayList();
+    for (int n = 0; n < size; n++) {
+      CarKey key = keys.apply(n);
+      int count = unmatchedCounts.get(key);
+      if (count > 0) {
+        removed.add(n);
+        unmatchedCounts.put(key, count - 1);
+      }
+    }
+    return removed;
+  }
+
+  private static final class CarKey {
+
+    private final String model;
+    private final BigDecimal price;
+    private final Color color;
+    private final long mileage;
+    private final Set<String> components;
+
+    private CarKey(String model, BigDecimal price, Color color, long mileage, Set<String> components) {
+      this.model = model;
+      this.price = price.stripTrailingZeros();
+      this.color = color;
+      this.mileage = mileage;
+      this.components = components;
+    }
+
+    static CarKey of(Car car) {
+      return new CarKey(car.getModel(), car.getPrice(), car.getColor(), car.getMileage(),
+          new HashSet<>(car.getComponents()));
+    }
+
+    static CarKey of(CarStore cars, int row) {
+      Set<String> components = new HashSet<>();
+      for (int n = 0; n < cars.getComponentCount(row); n++) {
+        components.add(cars.getComponentDictionary().decode(cars.getComponentId(row, n)));
+      }
+      return new CarKey(cars.getModel(row), cars.getPrice(row), cars.getColor(row), cars.getMileage(row), components);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof CarKey)) {
+        return false;
+      }
+      CarKey key = (CarKey) other;
+      return mileage == key.mileage && model.equals(key.model) && price.equals(key.price) && color == key.color
+          && components.equals(key.components);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(model, price, color, mileage, components);
+    }
+  }
+}
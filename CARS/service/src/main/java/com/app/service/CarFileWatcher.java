@@ -0,0 +1,94 @@
+package com.app.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the JSON file of a {@link CarService} and {@link CarService#reload() reloads} it whenever it is
+ * written or replaced. Only the differences are applied, so queries keep running on warm indexes while the
+ * new version is built. Events are handled on a daemon thread and reported to the given log.
+ */
+public class CarFileWatcher implements AutoCloseable {
+
+  // writers and copy tools often produce several events for one change
+  private static final long SETTLE_MILLIS = 200;
+
+  private final CarService carService;
+  private final Path file;
+  private final Consumer<String> log;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  public CarFileWatcher(CarService carService, String jsonFilename, Consumer<String> log) {
+    this.carService = Optional.ofNullable(carService).orElseThrow(() -> new NullPointerException("Car service is null"));
+    this.file = Path.of(jsonFilename).toAbsolutePath();
+    this.log = Optional.ofNullable(log).orElseThrow(() -> new NullPointerException("Log is null"));
+    try {
+      this.watchService = file.getFileSystem().newWatchService();
+      file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to watch " + file, e);
+    }
+    this.thread = new Thread(this::watch, "car-file-watcher");
+    this.thread.setDaemon(true);
+  }
+
+  public CarFileWatcher start() {
+    thread.start();
+    return this;
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        if (isFileChanged(watchService.take())) {
+          settle();
+          reload();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // the watcher was closed
+    }
+  }
+
+  // lost events are reported as an overflow, after which the file may have changed without an event of its own
+  private boolean isFileChanged(WatchKey key) {
+    boolean changed = key.pollEvents().stream().anyMatch(event -> event.kind() == StandardWatchEventKinds.OVERFLOW
+        || file.getFileName().equals(event.context()));
+    key.reset();
+    return changed;
+  }
+
+  private void settle() throws InterruptedException {
+    WatchKey key;
+    while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+      key.pollEvents();
+      key.reset();
+    }
+  }
+
+  private void reload() {
+    try {
+      log.accept("Reloaded " + file + ": " + carService.reload());
+    } catch (RuntimeException e) {
+      log.accept("Failed to reload " + file + ": " + e.getMessage());
+    }
+  }
+
+  @Override
+  public void close() {
+    thread.interrupt();
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close watcher of " + file, e);
+    }
+  }
+}
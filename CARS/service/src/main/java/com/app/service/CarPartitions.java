@@ -0,0 +1,73 @@
+package com.app.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.app.service.load.CarPartitionLoader;
+import com.app.service.store.CarStore;
+
+/**
+ * The partitions a {@link CarService} was loaded from, by the name of their file. The rows of the store hold the
+ * id of their partition, so a partition is diffed against its reloaded file or removed by its rows, never by
+ * the value of its cars. An id is not given to another partition once it was dropped. Partitions are changed
+ * under the write lock of the service only; their names may be read at any time.
+ */
+final class CarPartitions {
+
+  private final CarPartitionLoader loader;
+  private final Map<String, Integer> ids = new ConcurrentSkipListMap<>();
+  private volatile int nextId;
+
+  CarPartitions(CarPartitionLoader loader) {
+    this.loader = loader;
+  }
+
+  CarPartitionLoader getLoader() {
+    return loader;
+  }
+
+  Set<String> getNames() {
+    return Collections.unmodifiableSet(ids.keySet());
+  }
+
+  boolean contains(String partition) {
+    return ids.containsKey(partition);
+  }
+
+  /**
+   * Returns the id of the partition, giving it the next one when it is not loaded yet.
+   */
+  int getId(String partition) {
+    return ids.computeIfAbsent(partition, name -> nextId++);
+  }
+
+  /**
+   * Returns the id of a loaded partition, or -1 for one which is not loaded.
+   */
+  int findId(String partition) {
+    return ids.getOrDefault(partition, -1);
+  }
+
+  void remove(String partition) {
+    ids.remove(partition);
+  }
+
+  /**
+   * Counts the cars of every loaded partition in one pass over the rows of the store.
+   */
+  Map<String, Integer> getSizes(CarStore cars) {
+    int[] counts = new int[nextId];
+    for (int row : cars.rows()) {
+      int partition = cars.getPartition(row);
+      if (partition < counts.length) {
+        counts[partition]++;
+      }
+    }
+    Map<String, Integer> sizes = new LinkedHashMap<>();
+    ids.forEach((partition, id) -> sizes.put(partition, counts[id]));
+    return sizes;
+  }
+}
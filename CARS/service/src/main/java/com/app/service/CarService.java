@@ -1,203 +1,811 @@
 package com.app.service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
 import java.text.MessageFormat;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
 
-import org.eclipse.collections.impl.collector.BigDecimalSummaryStatistics;
-import org.eclipse.collections.impl.collector.Collectors2;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
 
+import com.app.converter.CarSnapshot;
+import com.app.converter.CarSnapshotWriter;
+import com.app.converter.CarJsonExporter;
 import com.app.converter.CarsJsonConverter;
+import com.app.converter.enums.ExportFormat;
 import com.app.model.Car;
+import com.app.model.CompactCar;
+import com.app.model.dictionary.CarDictionary;
+import com.app.model.enums.Color;
+import com.app.service.aggregate.CarAggregate;
+import com.app.service.aggregate.CarStatistics;
+import com.app.service.cache.ResultCache;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.Operation;
 import com.app.service.enums.SortType;
-import com.app.validator.CarValidator;
+import com.app.service.index.ComponentIndex;
+import com.app.service.index.RangeIndex;
+import com.app.service.load.CarLoadPipeline;
+import com.app.service.load.CarPartitionLoader;
+import com.app.service.load.LoadStatistics;
+import com.app.service.metrics.CarServiceMetrics;
+import com.app.service.query.CarCursor;
+import com.app.service.query.CarPage;
+import com.app.service.query.CarQuery;
+import com.app.service.query.QueryPlan;
+import com.app.service.store.CarStore;
+import com.app.service.store.PriceRange;
+import com.app.service.store.RowSorter;
+import com.app.validator.CarValidationEngine;
 
-public class CarService {
+public class CarService implements AutoCloseable {
 
-  private final Set<Car> cars;
+  // results holding up to a million cars or groups in total are kept
+  private static final long RESULT_CACHE_WEIGHT = 1_000_000;
+
+  private final AtomicReference<CarDataset> dataset;
+  private final Lock writeLock = new ReentrantLock();
+  private final CarValidationEngine validationEngine = new CarValidationEngine();
+  private final String jsonFilename;
+  private final CarLoadPipeline loadPipeline;
+  private final LoadStatistics loadStatistics;
+  // the files the cars were loaded from, when they were loaded from partitions
+  private final CarPartitions partitions;
+  // the pool the partitions are loaded on, when the service created it and has to shut it down
+  private final ForkJoinPool partitionPool;
+  private final ResultCache resultCache = new ResultCache(RESULT_CACHE_WEIGHT);
+  private final CarServiceMetrics metrics;
 
   public CarService(String jsonFilename) {
-    this.cars = initializeCars(jsonFilename);
+    this(jsonFilename, new CarLoadPipeline());
   }
 
-  private Set<Car> initializeCars(String filename) {
-    return new CarsJsonConverter(filename)
-        .fromJson()
-        .orElseThrow(() -> new IllegalStateException("Unable to initialize cars from JSON file"))
-        .stream()
-        .filter(CarValidator::isCarValid)
-        .collect(Collectors.toCollection(LinkedHashSet::new));
+  public CarService(String jsonFilename, CarLoadPipeline loadPipeline) {
+    this.jsonFilename = jsonFilename;
+    this.loadPipeline = loadPipeline;
+    this.partitions = null;
+    this.partitionPool = null;
+    this.metrics = new CarServiceMetrics(this::countCars, this::getVersion, resultCache);
+    CarStore.Builder builder = CarStore.builder();
+    this.loadStatistics = initializeCars(builder::add);
+    this.dataset = new AtomicReference<>(new CarDataset(builder.build()));
   }
 
-  public List<Car> sortCarsByArgument(SortType sortType, boolean descending) {
-    Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+  private CarService(CarPartitionLoader partitionLoader, ForkJoinPool partitionPool) {
+    this.jsonFilename = null;
+    this.loadPipeline = null;
+    CarPartitions partitions = new CarPartitions(partitionLoader);
+    this.partitions = partitions;
+    this.partitionPool = partitionPool;
+    this.metrics = new CarServiceMetrics(this::countCars, this::getVersion, resultCache);
+    CarStore.Builder builder = CarStore.builder();
+    this.loadStatistics = partitionLoader.load(partitionLoader.listPartitions(), this::isValid, (partition, cars) -> {
+      int partitionId = partitions.getId(partition);
+      cars.forEach(car -> builder.add(car, partitionId));
+    });
+    metrics.recordLoad(loadStatistics);
+    this.dataset = new AtomicReference<>(new CarDataset(builder.build()));
+  }
+
+  private CarService(String jsonFilename, CarLoadPipeline loadPipeline, CarStore cars, LoadStatistics loadStatistics) {
+    this.jsonFilename = jsonFilename;
+    this.loadPipeline = loadPipeline;
+    this.partitions = null;
+    this.partitionPool = null;
+    this.loadStatistics = loadStatistics;
+    this.metrics = new CarServiceMetrics(this::countCars, this::getVersion, resultCache);
+    this.metrics.recordLoad(loadStatistics);
+    this.dataset = new AtomicReference<>(new CarDataset(cars));
+  }
+
+  /**
+   * Starts from a binary snapshot written by {@link #writeSnapshot(String)} instead of parsing and validating
+   * JSON. The JSON file stays the source of {@link #reload()}.
+   */
+  public static CarService fromSnapshot(String snapshotFilename, String jsonFilename) {
+    long start = System.nanoTime();
+    CarStore cars = CarStore.of(CarSnapshot.open(snapshotFilename));
+    LoadStatistics loadStatistics = LoadStatistics.of(cars.size(), System.nanoTime() - start);
+    return new CarService(jsonFilename, new CarLoadPipeline(), cars, loadStatistics);
+  }
+
+  /**
+   * Loads every JSON file of the directory, or every file matching the glob, as one partition of the cars. The
+   * files are parsed and validated in parallel and their cars are added in the order of the file names. A
+   * partition can then be reloaded or dropped on its own, and {@link #reload()} reloads all of them. The files
+   * are read on a pool of the service, which is shut down by {@link #close()}.
+   */
+  public static CarService fromPartitions(String directoryOrGlob) {
+    ForkJoinPool partitionPool = new ForkJoinPool();
+    try {
+      return new CarService(new CarPartitionLoader(directoryOrGlob, partitionPool), partitionPool);
+    } catch (RuntimeException e) {
+      partitionPool.shutdown();
+      throw e;
+    }
+  }
+
+  /**
+   * Loads the partitions with the given loader, whose pool stays owned by the caller.
+   */
+  public static CarService fromPartitions(CarPartitionLoader partitionLoader) {
+    return new CarService(Optional.ofNullable(partitionLoader)
+        .orElseThrow(() -> new NullPointerException("Partition loader is null")), null);
+  }
+
+  /**
+   * Shuts down the pool the partitions are loaded on when the service created it; partitions can not be
+   * reloaded afterwards. Queries keep working, and a service holding no pool has nothing to close.
+   */
+  @Override
+  public void close() {
+    if (partitionPool != null) {
+      partitionPool.shutdown();
+    }
+  }
+
+  private LoadStatistics initializeCars(Consumer<Car> sink) {
+    LoadStatistics loadStatistics = loadPipeline.load(
+        () -> new CarsJsonConverter(jsonFilename).fromJsonStream(),
+        this::isValid,
+        sink
+    );
+    metrics.recordLoad(loadStatistics);
+    return loadStatistics;
+  }
+
+  // counts the failed rules of every rejected car
+  private boolean isValid(Car car) {
+    int failedRules = validationEngine.validate(car);
+    if (failedRules != 0) {
+      metrics.recordRejection(failedRules);
+    }
+    return failedRules == 0;
+  }
+
+  public LoadStatistics getLoadStatistics() {
+    return loadStatistics;
+  }
+
+  /**
+   * Returns the version of the cars, which grows by one with every applied change.
+   */
+  public long getVersion() {
+    return dataset.get().getVersion();
+  }
+
+  private int countCars() {
+    return dataset.get().getCars().size();
+  }
+
+  public void addCar(Car car) {
+    applyChanges(CarChanges.builder().insert(car).build());
+  }
+
+  /**
+   * Replaces the first car equal to {@code oldCar}, keeping its position. Returns false when there is none.
+   */
+  public boolean updateCar(Car oldCar, Car newCar) {
+    return applyChanges(CarChanges.builder().update(oldCar, newCar).build()) > 0;
+  }
+
+  /**
+   * Removes the first car equal to the given one. Returns false when there is none.
+   */
+  public boolean removeCar(Car car) {
+    return applyChanges(CarChanges.builder().remove(car).build()) > 0;
+  }
+
+  /**
+   * Applies a batch of changes as one new version and returns how many of them matched. Writers are serialized,
+   * while readers keep working on the version they started with and see the new one once it is complete. Cars
+   * loaded from partitions are only changed through their files, so direct changes fail with an
+   * IllegalStateException.
+   */
+  public int applyChanges(CarChanges changes) {
+    return timed(Operation.APPLY_CHANGES, () -> apply(changes));
+  }
+
+  private int apply(CarChanges changes) {
+    Optional.ofNullable(changes).orElseThrow(() -> new NullPointerException("Changes are null"));
+    requireNotPartitioned();
+    changes.getInsertedCars().forEach(this::requireValid);
+    changes.getReplacementCars().forEach(this::requireValid);
+    if (changes.isEmpty()) {
+      return 0;
+    }
+
+    writeLock.lock();
+    try {
+      CarDataset next = dataset.get().apply(changes);
+      if (next.getAppliedChanges() > 0) {
+        publish(next);
+      }
+      return next.getAppliedChanges();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Writes the current cars into a binary snapshot, which {@link #fromSnapshot(String, String)} opens without
+   * validating the cars again.
+   */
+  public void writeSnapshot(String snapshotFilename) {
+    timed(Operation.WRITE_SNAPSHOT, () -> {
+      CarStore cars = dataset.get().getCars();
+      new CarSnapshotWriter(snapshotFilename)
+          .write(() -> Arrays.stream(cars.rows()).mapToObj(cars::getCar).iterator());
+      return null;
+    });
+  }
+
+  /**
+   * Reads the JSON file again and applies only the differences to the current cars, so the indexes of unchanged
+   * cars do not have to be rebuilt from parsed JSON. Cars loaded from partitions are reloaded from all files
+   * matching now, dropping the partitions whose files are gone. Returns the applied changes.
+   */
+  public CarChanges reload() {
+    return timed(Operation.RELOAD, this::reloadCars);
+  }
+
+  private CarChanges reloadCars() {
+    if (partitions != null) {
+      return reloadAllPartitions();
+    }
+    // the whole file is held until the diff is done, so it is kept dictionary encoded
+    CarDictionary dictionary = new CarDictionary();
+    List<CompactCar> loadedCars = new ArrayList<>();
+    initializeCars(car -> loadedCars.add(CompactCar.of(car, dictionary)));
+    return replace(decoded(loadedCars));
+  }
+
+  // the cars of the list, decoded on access
+  private static List<Car> decoded(List<CompactCar> cars) {
+    return new AbstractList<>() {
+      @Override
+      public Car get(int index) {
+        return cars.get(index).toCar();
+      }
+
+      @Override
+      public int size() {
+        return cars.size();
+      }
+    };
+  }
+
+  /**
+   * Returns the number of cars of every partition by the name of its file; there are none unless the cars were
+   * loaded from partitions.
+   */
+  public Map<String, Integer> getPartitions() {
+    return partitions == null ? Map.of() : partitions.getSizes(dataset.get().getCars());
+  }
 
-    Stream<Car> carStream = null;
-    switch (sortType) {
-      case COLOR:
-        carStream = cars.stream().sorted(Comparator.comparing(Car::getColor));
-        break;
-      case MODEL:
-        carStream = cars.stream().sorted(Comparator.comparing(Car::getModel));
-        break;
-      case PRICE:
-        carStream = cars.stream().sorted(Comparator.comparing(Car::getPrice));
-        break;
-      case MILEAGE:
-        carStream = cars.stream().sorted(Comparator.comparing(Car::getMileage));
+  /**
+   * Parses the file of the partition again and applies only its differences, leaving the cars of all other
+   * partitions alone; a partition which is not loaded yet is added. Returns the applied changes.
+   */
+  public CarChanges reloadPartition(String partition) {
+    return timed(Operation.RELOAD_PARTITION, () -> {
+      requirePartition(partition);
+      return reloadPartitions(List.of(partition), List.of());
+    });
+  }
+
+  /**
+   * Removes the cars of the partition. Its file is left as it is, so a later {@link #reload()} adds them again
+   * while it exists. Returns the applied changes.
+   */
+  public CarChanges dropPartition(String partition) {
+    return timed(Operation.DROP_PARTITION, () -> {
+      requirePartition(partition);
+      writeLock.lock();
+      try {
+        if (!partitions.contains(partition)) {
+          throw new IllegalArgumentException("Partition is not loaded: " + partition);
+        }
+        return reloadPartitions(List.of(), List.of(partition));
+      } finally {
+        writeLock.unlock();
+      }
+    });
+  }
+
+  private void requireNotPartitioned() {
+    if (partitions != null) {
+      throw new IllegalStateException("Cars loaded from partitions are only changed by reloading their files");
+    }
+  }
+
+  private void requirePartition(String partition) {
+    if (partitions == null) {
+      throw new IllegalStateException("Cars were not loaded from partitions");
+    }
+    Optional.ofNullable(partition).orElseThrow(() -> new NullPointerException("Partition is null"));
+  }
+
+  private CarChanges reloadAllPartitions() {
+    List<String> files = partitions.getLoader().listPartitions();
+    Map<String, List<CompactCar>> loadedPartitions = load(files);
+    writeLock.lock();
+    try {
+      List<String> droppedPartitions = new ArrayList<>(partitions.getNames());
+      droppedPartitions.removeAll(files);
+      return applyPartitions(loadedPartitions, droppedPartitions);
+    } finally {
+      writeLock.unlock();
     }
+  }
 
-    List<Car> sortedCars = carStream.collect(Collectors.toList());
-    if (descending) {
-      Collections.reverse(sortedCars);
+  private CarChanges reloadPartitions(List<String> reloadedPartitions, List<String> droppedPartitions) {
+    Map<String, List<CompactCar>> loadedPartitions = load(reloadedPartitions);
+    writeLock.lock();
+    try {
+      return applyPartitions(loadedPartitions, droppedPartitions);
+    } finally {
+      writeLock.unlock();
     }
+  }
 
-    return sortedCars;
+  // parses the files without holding the write lock, keeping their cars dictionary encoded until the diff
+  private Map<String, List<CompactCar>> load(List<String> reloadedPartitions) {
+    CarDictionary dictionary = new CarDictionary();
+    Map<String, List<CompactCar>> loadedPartitions = new LinkedHashMap<>();
+    partitions.getLoader().load(reloadedPartitions, this::isValid, (partition, cars) -> {
+      List<CompactCar> compactCars = new ArrayList<>(cars.size());
+      cars.forEach(car -> compactCars.add(CompactCar.of(car, dictionary)));
+      loadedPartitions.put(partition, compactCars);
+    });
+    return loadedPartitions;
+  }
+
+  // every partition is diffed against its own rows only, and all differences are applied as one version
+  private CarChanges applyPartitions(Map<String, List<CompactCar>> loadedPartitions,
+      List<String> droppedPartitions) {
+    CarDataset current = dataset.get();
+    CarStore cars = current.getCars();
+    RowChanges changes = new RowChanges();
+    loadedPartitions.forEach((partition, loadedCars) ->
+        changes.addAll(CarDiff.between(cars, partitions.getId(partition), decoded(loadedCars))));
+    for (String partition : droppedPartitions) {
+      int partitionId = partitions.findId(partition);
+      if (partitionId != -1) {
+        Arrays.stream(cars.rows(partitionId)).forEach(changes::remove);
+      }
+    }
+
+    CarChanges appliedChanges = changes.toCarChanges(cars);
+    if (changes.size() > 0) {
+      publish(current.apply(changes));
+    }
+    droppedPartitions.forEach(partitions::remove);
+    return appliedChanges;
+  }
+
+  /**
+   * Makes the given cars the content of the service by applying the inserts, updates and removes which
+   * differ from the current cars. Returns the applied changes.
+   */
+  public CarChanges replaceCars(List<Car> newCars) {
+    return timed(Operation.REPLACE_CARS, () -> replace(newCars));
+  }
+
+  private CarChanges replace(List<Car> newCars) {
+    Optional.ofNullable(newCars).orElseThrow(() -> new NullPointerException("Cars are null"));
+    requireNotPartitioned();
+    writeLock.lock();
+    try {
+      CarChanges changes = CarDiff.between(dataset.get().getCars(), newCars);
+      apply(changes);
+      return changes;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private void requireValid(Car car) {
+    if (!isValid(car)) {
+      throw new IllegalArgumentException("Car is not valid: " + car);
+    }
+  }
+
+  public List<Car> sortCarsByArgument(SortType sortType, boolean descending) {
+    return sortCarsByArgument(sortType, descending, 0, Integer.MAX_VALUE);
+  }
+
+  public List<Car> sortCarsByArgument(SortType sortType, boolean descending, int offset, int limit) {
+    return cachedCars(Operation.SORT_CARS_BY_ARGUMENT,
+        dataset -> sortedRows(dataset, sortType, descending, offset, limit), sortType, descending, offset, limit);
+  }
+
+  private static int[] sortedRows(CarDataset dataset, SortType sortType, boolean descending, int offset,
+      int limit) {
+    Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+    return dataset.getSortIndex().rows(sortType, descending, offset, limit);
   }
 
   public List<Car> sortCarsWithGreaterMileage(Long mileage) {
-    return cars
-        .stream()
-        .filter(car -> mileage <= car.getMileage())
-        .collect(Collectors.toList());
+    return cachedCars(Operation.SORT_CARS_WITH_GREATER_MILEAGE, dataset -> {
+      int[] rows = dataset.getMileageIndex().rows(mileage, Long.MAX_VALUE);
+      return RowSorter.sortRows(rows, dataset.getCars().getRowCount());
+    }, mileage);
   }
 
   public Map<String, Long> countCarsByColor() {
-    return groupAllColors()
-        .stream()
-        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    return cached(Operation.COUNT_CARS_BY_COLOR, LinkedHashMap::new, dataset -> {
+      Map<String, Long> carsByColor = new LinkedHashMap<>();
+      dataset.getStatistics().getCountsByColor()
+          .forEach((color, count) -> carsByColor.put(String.valueOf(color), count));
+      return carsByColor;
+    });
+  }
+
+  public EnumMap<Color, Long> getCarCountsByColor() {
+    return cached(Operation.GET_CAR_COUNTS_BY_COLOR, EnumMap::new,
+        dataset -> dataset.getStatistics().getCountsByColor());
   }
 
-  private List<String> groupAllColors() {
-    return cars
-        .stream()
-        .map(car -> String.valueOf(car.getColor()))
-        .collect(Collectors.toList());
+  public Map<String, BigDecimal> getMaxPricesByModel() {
+    return cached(Operation.GET_MAX_PRICES_BY_MODEL, LinkedHashMap::new,
+        dataset -> dataset.getStatistics().getMaxPricesByModel());
   }
 
   public Map<String, Car> getTheMostExpensiveCarModels() {
-    return cars
-        .stream()
-        .collect(Collectors.toMap(
-            Car::getModel,
-            this::findMostExpensiveCarModel,
-            (v1, v2) -> v1,
-            LinkedHashMap::new
-        ));
+    // the cached aggregates build a new car on every call
+    Map<String, CarAggregate> aggregates = cached(Operation.GET_THE_MOST_EXPENSIVE_CAR_MODELS,
+        UnaryOperator.identity(), dataset -> dataset.getAggregator().aggregate(GroupBy.MODEL));
+    Map<String, Car> mostExpensiveCarModels = new LinkedHashMap<>();
+    aggregates.forEach((model, aggregate) -> mostExpensiveCarModels.put(model, aggregate.getMostExpensiveCar()));
+    return mostExpensiveCarModels;
   }
 
-  private Car findMostExpensiveCarModel(Car mostExpensiveModel) {
-    return cars
-        .stream()
-        .filter(car -> mostExpensiveModel.getModel().equals(car.getModel()))
-        .max(Comparator.comparing(Car::getPrice))
-        .orElseThrow(() -> new NullPointerException("Missing the most expensive car model"));
+  public Map<String, CarAggregate> aggregate(GroupBy groupBy) {
+    return cached(Operation.AGGREGATE, LinkedHashMap::new,
+        dataset -> dataset.getAggregator().aggregate(groupBy), groupBy);
   }
 
-  public String getCarsStatistics() {
-    BigDecimalSummaryStatistics priceStats = createPriceStats();
-    LongSummaryStatistics mileageStats = createMileageStats();
-
-    return MessageFormat.format(
-        "Average price= {0}\n" +
-            "Minimum price= {1}\n" +
-            "Maximum price= {2}\n" +
-            "Average mileage= {3}\n" +
-            "Minimum mileage= {4}\n" +
-            "Maximum mileage= {5}\n",
-        priceStats.getAverage(), priceStats.getMin(), priceStats.getMax(),
-        mileageStats.getAverage(), mileageStats.getMin(), mileageStats.getMax()
-    );
+  public Map<String, CarAggregate> aggregate(GroupBy groupBy, boolean parallel) {
+    // parallel aggregation gives the same result, so both share the cached one
+    return cached(Operation.AGGREGATE, LinkedHashMap::new,
+        dataset -> dataset.getAggregator().aggregate(groupBy, parallel), groupBy);
   }
 
-  private BigDecimalSummaryStatistics createPriceStats() {
-    return cars
-        .stream()
-        .collect(Collectors2.summarizingBigDecimal(Car::getPrice));
+  public String getCarsStatistics() {
+    return cached(Operation.GET_CARS_STATISTICS, UnaryOperator.identity(), dataset -> {
+      CarStatistics statistics = dataset.getStatistics();
+
+      return MessageFormat.format(
+          "Average price= {0}\n" +
+              "Minimum price= {1}\n" +
+              "Maximum price= {2}\n" +
+              "Average mileage= {3}\n" +
+              "Minimum mileage= {4}\n" +
+              "Maximum mileage= {5}\n",
+          statistics.getAveragePrice(), statistics.getMinPrice(), statistics.getMaxPrice(),
+          statistics.getAverageMileage(), statistics.getMinMileage(), statistics.getMaxMileage()
+      );
+    });
   }
 
-  private LongSummaryStatistics createMileageStats() {
-    return cars
-        .stream()
-        .collect(Collectors.summarizingLong(Car::getMileage));
+  // the statistics of the current version, which are never changed once published; for the batch reports
+  CarStatistics getStatistics() {
+    return timed(Operation.GET_CARS_STATISTICS, () -> dataset.get().getStatistics());
   }
 
+  /**
+   * Returns the cars of the highest price; fails with a {@link NoCarsException} when there are no cars.
+   */
   public List<Car> findTheMostExpensiveCars() {
-    return cars
-        .stream()
-        .filter(car -> car.getPrice().equals(findHighestPrice()))
-        .collect(Collectors.toList());
+    return cachedCars(Operation.FIND_THE_MOST_EXPENSIVE_CARS, dataset -> {
+      CarStore cars = dataset.getCars();
+      if (cars.size() == 0) {
+        throw new NoCarsException("Missing car with the biggest price");
+      }
+
+      int[] rows = cars.rows();
+      long highestPrice = Long.MIN_VALUE;
+      for (int row : rows) {
+        highestPrice = Math.max(highestPrice, cars.getScaledPrice(row));
+      }
+
+      IntArrayList mostExpensiveRows = new IntArrayList();
+      for (int row : rows) {
+        if (cars.getScaledPrice(row) == highestPrice) {
+          mostExpensiveRows.add(row);
+        }
+      }
+      return mostExpensiveRows.toArray();
+    });
   }
 
-  private BigDecimal findHighestPrice() {
-    return cars
-        .stream()
-        .map(Car::getPrice)
-        .max(BigDecimal::compareTo)
-        .orElseThrow(() -> new NullPointerException("Missing car with the biggest price"));
+  /**
+   * Returns the first cars of the sorted listing. Unless the listing has been sorted already, they are found in
+   * one parallel pass with bounded heaps instead of sorting all cars.
+   */
+  public List<Car> findTopCars(SortType sortType, boolean descending, int limit) {
+    return cachedCars(Operation.FIND_TOP_CARS, dataset -> {
+      Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+      if (dataset.getSortIndex().isSorted(sortType)) {
+        return sortedRows(dataset, sortType, descending, 0, limit);
+      }
+      return dataset.getTopKFinder().findTop(sortType, descending, limit, true);
+    }, sortType, descending, limit);
   }
 
-  public List<Car> getCarsWithSortedComponents() {
-    System.out.println(cars);
-    return cars.stream()
-        .peek(car -> car.setComponents(sortCarComponents(car)))
-        .collect(Collectors.toList());
+  public Map<String, List<Car>> findTopCars(SortType sortType, boolean descending, int limit, GroupBy groupBy) {
+    return cachedGroups(Operation.FIND_TOP_CARS, ArrayList::new,
+        dataset -> dataset.getTopKFinder().findTopPerGroup(sortType, descending, limit, groupBy),
+        sortType, descending, limit, groupBy);
   }
 
-  private static Set<String> sortCarComponents(Car car) {
-    return car
-        .getComponents()
-        .stream()
-        .sorted()
-        .collect(Collectors.toCollection(LinkedHashSet::new));
+  public List<Car> getCarsWithSortedComponents() {
+    // every call builds new cars from the rows anyway, so there is nothing worth caching
+    return timed(Operation.GET_CARS_WITH_SORTED_COMPONENTS, () -> {
+      CarStore cars = dataset.get().getCars();
+      List<Car> carsWithSortedComponents = new ArrayList<>(cars.size());
+      for (int row : cars.rows()) {
+        carsWithSortedComponents.add(cars.getCarWithSortedComponents(row));
+      }
+      return carsWithSortedComponents;
+    });
   }
 
   public Map<String, Set<Car>> getCarsWithParticularComponent() {
-    return getAllComponents()
-        .stream()
-        .collect(Collectors.toMap(
-            Function.identity(),
-            this::collectCarsWithComponent));
+    return cachedGroups(Operation.GET_CARS_WITH_PARTICULAR_COMPONENT, LinkedHashSet::new,
+        CarService::rowsWithParticularComponent);
+  }
+
+  private static Map<String, int[]> rowsWithParticularComponent(CarDataset dataset) {
+    ComponentIndex componentIndex = dataset.getComponentIndex();
+    Map<String, int[]> rowsWithParticularComponent = new LinkedHashMap<>();
+    for (int component : componentIndex.getComponentIds()) {
+      rowsWithParticularComponent.put(componentIndex.getComponent(component),
+          componentIndex.rowsWith(component).toArray());
+    }
+    return rowsWithParticularComponent;
+  }
+
+  public List<Car> getCarsWithAllComponents(Set<String> components) {
+    return cachedCars(Operation.GET_CARS_WITH_ALL_COMPONENTS, dataset -> {
+      Optional.ofNullable(components).orElseThrow(() -> new NullPointerException("Components are null"));
+      return dataset.getComponentIndex().rowsWithAll(components).toArray();
+    }, components);
   }
 
-  private Set<Car> collectCarsWithComponent(String component) {
-    return cars
-        .stream()
-        .filter(car -> car.getComponents().contains(component))
-        .collect(Collectors.toSet());
+  public List<Car> getCarsWithAnyComponent(Set<String> components) {
+    return cachedCars(Operation.GET_CARS_WITH_ANY_COMPONENT, dataset -> {
+      Optional.ofNullable(components).orElseThrow(() -> new NullPointerException("Components are null"));
+      return dataset.getComponentIndex().rowsWithAny(components).toArray();
+    }, components);
   }
 
-  private Set<String> getAllComponents() {
-    return cars
-        .stream()
-        .flatMap(car -> car.getComponents().stream())
-        .collect(Collectors.toSet());
+  public List<Car> getCarsWithoutComponents(Set<String> components) {
+    return cachedCars(Operation.GET_CARS_WITHOUT_COMPONENTS, dataset -> {
+      Optional.ofNullable(components).orElseThrow(() -> new NullPointerException("Components are null"));
+      return dataset.getComponentIndex().rowsWithNone(components).toArray();
+    }, components);
   }
 
   public List<Car> getCarsFromGivenPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-    if (minPrice.compareTo(maxPrice) >= 0) {
-      throw new IllegalArgumentException("Min price is greater than max price");
+    return cachedCars(Operation.GET_CARS_FROM_GIVEN_PRICE_RANGE, dataset -> {
+      if (minPrice.compareTo(maxPrice) >= 0) {
+        throw new IllegalArgumentException("Min price is greater than max price");
+      }
+
+      PriceRange priceRange = PriceRange.of(minPrice, maxPrice);
+      CarStore cars = dataset.getCars();
+      return Arrays.stream(dataset.getModelPriceIndex().rows(priceRange.getMinScaledPrice(),
+          priceRange.getMaxScaledPrice())).filter(row -> priceRange.contains(cars, row)).toArray();
+    }, minPrice, maxPrice);
+  }
+
+  /**
+   * Returns cars with both price and mileage within the given closed ranges, in the order they were loaded.
+   */
+  public List<Car> getCarsFromGivenRanges(BigDecimal minPrice, BigDecimal maxPrice, Long minMileage, Long maxMileage) {
+    return cachedCars(Operation.GET_CARS_FROM_GIVEN_RANGES, dataset -> {
+      if (minPrice.compareTo(maxPrice) > 0) {
+        throw new IllegalArgumentException("Min price is greater than max price");
+      }
+      if (minMileage > maxMileage) {
+        throw new IllegalArgumentException("Min mileage is greater than max mileage");
+      }
+
+      PriceRange priceRange = PriceRange.of(minPrice, maxPrice);
+      long min = priceRange.getMinScaledPrice();
+      long max = priceRange.getMaxScaledPrice();
+      CarStore cars = dataset.getCars();
+      RangeIndex priceIndex = dataset.getPriceIndex();
+      RangeIndex mileageIndex = dataset.getMileageIndex();
+      IntArrayList matchingRows = new IntArrayList();
+      // scan the narrower of the two ranges and check the other column row by row
+      if (priceIndex.count(min, max) <= mileageIndex.count(minMileage, maxMileage)) {
+        for (int row : priceIndex.rows(min, max)) {
+          if (cars.getMileage(row) >= minMileage && cars.getMileage(row) <= maxMileage
+              && priceRange.contains(cars, row)) {
+            matchingRows.add(row);
+          }
+        }
+      } else {
+        for (int row : mileageIndex.rows(minMileage, maxMileage)) {
+          if (priceRange.contains(cars, row)) {
+            matchingRows.add(row);
+          }
+        }
+      }
+      return RowSorter.sortRows(matchingRows.toArray(), cars.getRowCount());
+    }, minPrice, maxPrice, minMileage, maxMileage);
+  }
+
+  /**
+   * Returns the cars matching all filters of the query, sorted by its sort keys and cut to its page.
+   */
+  public List<Car> query(CarQuery query) {
+    return cachedCars(Operation.QUERY, dataset -> {
+      Optional.ofNullable(query).orElseThrow(() -> new NullPointerException("Query is null"));
+      return dataset.getQueryPlanner().execute(query);
+    }, query);
+  }
+
+  /**
+   * Opens a cursor which produces the cars of the query lazily, on the cars as they are now.
+   */
+  public CarCursor openCursor(CarQuery query) {
+    return openCursor(query, null);
+  }
+
+  /**
+   * Opens a cursor continuing where the cursor which issued the token stopped; fails with a
+   * {@link com.app.service.query.StaleContinuationTokenException} when the cars changed since.
+   */
+  public CarCursor openCursor(CarQuery query, String continuationToken) {
+    return timed(Operation.OPEN_CURSOR, () -> cursor(query, continuationToken));
+  }
+
+  private CarCursor cursor(CarQuery query, String continuationToken) {
+    Optional.ofNullable(query).orElseThrow(() -> new NullPointerException("Query is null"));
+    CarDataset dataset = this.dataset.get();
+    return dataset.getQueryPlanner().cursor(query, dataset.getVersion(), continuationToken);
+  }
+
+  /**
+   * Returns one page of the query result; pass null as token for the first page and the token of the
+   * previous page for the following ones.
+   */
+  public CarPage getPage(CarQuery query, int pageSize, String continuationToken) {
+    return timed(Operation.GET_PAGE, () -> cursor(query, continuationToken).nextPage(pageSize));
+  }
+
+  /**
+   * Streams the query result to the file in the given format while it is produced by a cursor, so the result
+   * is never held in memory as a whole. Returns the number of cars written.
+   */
+  public long exportCars(CarQuery query, ExportFormat format, String filename) {
+    return timed(Operation.EXPORT_CARS, () -> new CarJsonExporter(format).export(cursor(query, null), filename));
+  }
+
+  /**
+   * Streams the query result to the channel, which is left open.
+   */
+  public long exportCars(CarQuery query, ExportFormat format, WritableByteChannel channel) throws IOException {
+    return timed(Operation.EXPORT_CARS, () -> new CarJsonExporter(format).export(cursor(query, null), channel));
+  }
+
+  /**
+   * Returns the index the query would be answered from, without running it.
+   */
+  public QueryPlan explain(CarQuery query) {
+    Optional.ofNullable(query).orElseThrow(() -> new NullPointerException("Query is null"));
+    return dataset.get().getQueryPlanner().plan(query);
+  }
+
+  public CarServiceMetrics getMetrics() {
+    return metrics;
+  }
+
+  public ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  // makes the dataset current; results of the previous one are dropped right away rather than on the next call,
+  // since they may hold the previous cars
+  private void publish(CarDataset next) {
+    dataset.set(next);
+    resultCache.invalidate(next.getVersion());
+  }
+
+  // answers from the result cache on the current version of the cars; the cached result holds no cars, only
+  // values nobody can change, and callers get their own copy of its collection
+  private <T> T cached(Operation operation, UnaryOperator<T> copy, Function<CarDataset, T> query, Object... arguments) {
+    return timed(operation, () -> {
+      CarDataset dataset = this.dataset.get();
+      return copy.apply(resultCache.get(operation, dataset.getVersion(), () -> query.apply(dataset), arguments));
+    });
+  }
+
+  // caches the rows of the current version, from which every caller gets cars of its own
+  private List<Car> cachedCars(Operation operation, Function<CarDataset, int[]> query, Object... arguments) {
+    return timed(operation, () -> {
+      CarDataset dataset = this.dataset.get();
+      int[] rows = resultCache.get(operation, dataset.getVersion(), () -> query.apply(dataset), arguments);
+      return toCars(dataset.getCars(), rows);
+    });
+  }
+
+  // caches the rows of every group; a car in several groups of one result is the same instance in all of them
+  private <C extends Collection<Car>> Map<String, C> cachedGroups(Operation operation, IntFunction<C> newGroup,
+      Function<CarDataset, Map<String, int[]>> query, Object... arguments) {
+    return timed(operation, () -> {
+      CarDataset dataset = this.dataset.get();
+      Map<String, int[]> groups = resultCache.get(operation, dataset.getVersion(), () -> query.apply(dataset),
+          arguments);
+      CarStore cars = dataset.getCars();
+      IntObjectHashMap<Car> materializedCars = new IntObjectHashMap<>();
+      Map<String, C> carGroups = new LinkedHashMap<>();
+      groups.forEach((group, rows) -> {
+        C carGroup = newGroup.apply(rows.length);
+        for (int row : rows) {
+          carGroup.add(materializedCars.getIfAbsentPutWithKey(row, cars::getCar));
+        }
+        carGroups.put(group, carGroup);
+      });
+      return carGroups;
+    });
+  }
+
+  // records the duration of the call, and whether it failed, unless metrics are disabled
+  private <T, E extends Exception> T timed(Operation operation, TimedCall<T, E> call) throws E {
+    if (!metrics.isEnabled()) {
+      return call.call();
+    }
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      T result = call.call();
+      failed = false;
+      return result;
+    } finally {
+      metrics.record(operation, System.nanoTime() - start, failed);
+    }
+  }
+
+  private interface TimedCall<T, E extends Exception> {
+
+    T call() throws E;
+  }
+
+  private static List<Car> toCars(CarStore cars, int[] rows) {
+    List<Car> result = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      result.add(cars.getCar(row));
     }
-    return cars
-        .stream()
-        .filter(car -> car.getPrice().compareTo(minPrice) >= 0 && car.getPrice().compareTo(maxPrice) <= 0)
-        .sorted(Comparator.comparing(Car::getModel))
-        .collect(Collectors.toList());
+    return result;
   }
 
   @Override
   public String toString() {
-    return String.valueOf(cars);
+    CarStore cars = dataset.get().getCars();
+    return String.valueOf(toCars(cars, cars.rows()));
   }
 }
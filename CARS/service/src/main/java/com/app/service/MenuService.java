@@ -6,7 +6,11 @@ public class MenuService {
   private final UserDataService USER_DATA_SERVICE;
 
   public MenuService(String filename) {
-    CAR_SERVICE = new CarService(filename);
+    this(new CarService(filename));
+  }
+
+  public MenuService(CarService carService) {
+    CAR_SERVICE = carService;
     USER_DATA_SERVICE = new UserDataService();
   }
 
@@ -0,0 +1,15 @@
+package com.app.service;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thrown when a result needs at least one car, such as the most expensive ones, but the service holds none.
+ */
+public class NoCarsException extends NoSuchElementException {
+
+  private static final long serialVersionUID = 1L;
+
+  public NoCarsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,89 @@
+package com.app.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.model.Car;
+import com.app.service.store.CarStore;
+
+/**
+ * A batch of changes addressed to rows of one version of the cars instead of matched by value. Partitions are
+ * changed with them, so a car equal to one of another partition never takes its place, and every inserted car
+ * comes with the partition it belongs to.
+ */
+final class RowChanges {
+
+  private final IntArrayList removedRows = new IntArrayList();
+  private final IntArrayList updatedRows = new IntArrayList();
+  private final List<Car> replacementCars = new ArrayList<>();
+  private final List<Car> insertedCars = new ArrayList<>();
+  private final IntArrayList insertedPartitions = new IntArrayList();
+
+  RowChanges remove(int row) {
+    removedRows.add(row);
+    return this;
+  }
+
+  RowChanges update(int row, Car car) {
+    updatedRows.add(row);
+    replacementCars.add(car);
+    return this;
+  }
+
+  RowChanges insert(Car car, int partition) {
+    insertedCars.add(car);
+    insertedPartitions.add(partition);
+    return this;
+  }
+
+  RowChanges addAll(RowChanges changes) {
+    removedRows.addAll(changes.removedRows);
+    updatedRows.addAll(changes.updatedRows);
+    replacementCars.addAll(changes.replacementCars);
+    insertedCars.addAll(changes.insertedCars);
+    insertedPartitions.addAll(changes.insertedPartitions);
+    return this;
+  }
+
+  IntArrayList getRemovedRows() {
+    return removedRows;
+  }
+
+  /**
+   * Returns the rows to update; the n-th of them gets the n-th of {@link #getReplacementCars()}.
+   */
+  IntArrayList getUpdatedRows() {
+    return updatedRows;
+  }
+
+  List<Car> getReplacementCars() {
+    return replacementCars;
+  }
+
+  List<Car> getInsertedCars() {
+    return insertedCars;
+  }
+
+  IntArrayList getInsertedPartitions() {
+    return insertedPartitions;
+  }
+
+  int size() {
+    return removedRows.size() + updatedRows.size() + insertedCars.size();
+  }
+
+  /**
+   * Describes the changes by value, with the cars the rows hold in the given version.
+   */
+  CarChanges toCarChanges(CarStore cars) {
+    CarChanges.CarChangesBuilder changes = CarChanges.builder();
+    removedRows.forEach(row -> changes.remove(cars.getCar(row)));
+    for (int i = 0; i < updatedRows.size(); i++) {
+      changes.update(cars.getCar(updatedRows.get(i)), replacementCars.get(i));
+    }
+    insertedCars.forEach(changes::insert);
+    return changes.build();
+  }
+}
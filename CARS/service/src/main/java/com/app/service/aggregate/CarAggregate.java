@@ -0,0 +1,133 @@
+package com.app.service.aggregate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import com.app.model.Car;
+import com.app.service.store.CarStore;
+import com.app.service.store.LongSum;
+
+/**
+ * Count, sum, minimum, maximum and average of price and mileage over a group of cars. Accumulators of
+ * neighbouring partitions are combined in row order, so on ties the first car wins just like in a sequential
+ * pass. Minimum and maximum mileage of an empty aggregate follow {@link java.util.LongSummaryStatistics}.
+ */
+public class CarAggregate {
+
+  private static final int NONE = -1;
+
+  private final CarStore cars;
+  private int firstRow = NONE;
+  private long count;
+  private final LongSum priceSum = new LongSum();
+  private final LongSum mileageSum = new LongSum();
+  private int minPriceRow = NONE;
+  private int maxPriceRow = NONE;
+  private long minMileage = Long.MAX_VALUE;
+  private long maxMileage = Long.MIN_VALUE;
+
+  CarAggregate(CarStore cars) {
+    this.cars = cars;
+  }
+
+  void accept(int row) {
+    if (count++ == 0) {
+      firstRow = row;
+    }
+    long price = cars.getScaledPrice(row);
+    priceSum.add(price);
+    if (minPriceRow == NONE || price < cars.getScaledPrice(minPriceRow)) {
+      minPriceRow = row;
+    }
+    if (maxPriceRow == NONE || price > cars.getScaledPrice(maxPriceRow)) {
+      maxPriceRow = row;
+    }
+
+    long mileage = cars.getMileage(row);
+    mileageSum.add(mileage);
+    minMileage = Math.min(minMileage, mileage);
+    maxMileage = Math.max(maxMileage, mileage);
+  }
+
+  /**
+   * Adds an aggregate of rows which all come after the rows of this one.
+   */
+  void combine(CarAggregate other) {
+    if (other.count == 0) {
+      return;
+    }
+    if (count == 0) {
+      firstRow = other.firstRow;
+    }
+    count += other.count;
+    priceSum.add(other.priceSum);
+    mileageSum.add(other.mileageSum);
+    if (minPriceRow == NONE || cars.getScaledPrice(other.minPriceRow) < cars.getScaledPrice(minPriceRow)) {
+      minPriceRow = other.minPriceRow;
+    }
+    if (maxPriceRow == NONE || cars.getScaledPrice(other.maxPriceRow) > cars.getScaledPrice(maxPriceRow)) {
+      maxPriceRow = other.maxPriceRow;
+    }
+    minMileage = Math.min(minMileage, other.minMileage);
+    maxMileage = Math.max(maxMileage, other.maxMileage);
+  }
+
+  // the first row of the group, which orders groups by first appearance
+  int getFirstRow() {
+    return firstRow;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public BigDecimal getPriceSum() {
+    return new BigDecimal(priceSum.toBigInteger(), CarStore.PRICE_SCALE);
+  }
+
+  public BigDecimal getAveragePrice() {
+    if (count == 0) {
+      return BigDecimal.ZERO;
+    }
+    return getPriceSum().divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+  }
+
+  public BigDecimal getMinPrice() {
+    return minPriceRow == NONE ? null : cars.getPrice(minPriceRow);
+  }
+
+  public BigDecimal getMaxPrice() {
+    return maxPriceRow == NONE ? null : cars.getPrice(maxPriceRow);
+  }
+
+  public Car getCheapestCar() {
+    return minPriceRow == NONE ? null : cars.getCar(minPriceRow);
+  }
+
+  public Car getMostExpensiveCar() {
+    return maxPriceRow == NONE ? null : cars.getCar(maxPriceRow);
+  }
+
+  public long getMileageSum() {
+    return mileageSum.toBigInteger().longValueExact();
+  }
+
+  public double getAverageMileage() {
+    return count == 0 ? 0 : mileageSum.toBigInteger().doubleValue() / count;
+  }
+
+  public long getMinMileage() {
+    return minMileage;
+  }
+
+  public long getMaxMileage() {
+    return maxMileage;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + count +
+        ", price min/avg/max=" + getMinPrice() + "/" + getAveragePrice() + "/" + getMaxPrice() +
+        ", mileage min/avg/max=" + minMileage + "/" + getAverageMileage() + "/" + maxMileage;
+  }
+}
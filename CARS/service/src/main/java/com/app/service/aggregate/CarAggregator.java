@@ -0,0 +1,150 @@
+package com.app.service.aggregate;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.store.CarStore;
+
+/**
+ * Single pass group-by over a {@link CarStore}. Groups are addressed by their dictionary id or color ordinal,
+ * so each row only updates an array slot. In parallel mode the rows are split into partitions which are
+ * aggregated independently and combined in row order.
+ */
+public class CarAggregator {
+
+  private static final int PARTITION_SIZE = 1 << 16;
+
+  private final CarStore cars;
+
+  public CarAggregator(CarStore cars) {
+    this.cars = cars;
+  }
+
+  public CarAggregate aggregateAll() {
+    CarAggregate aggregate = new CarAggregate(cars);
+    for (int row = 0; row < cars.getRowCount(); row++) {
+      if (!cars.isRemoved(row)) {
+        aggregate.accept(row);
+      }
+    }
+    return aggregate;
+  }
+
+  public Map<String, CarAggregate> aggregate(GroupBy groupBy) {
+    return aggregate(groupBy, false);
+  }
+
+  /**
+   * Returns the aggregate of every non-empty group. Models and components are ordered by first appearance,
+   * colors by their declaration order.
+   */
+  public Map<String, CarAggregate> aggregate(GroupBy groupBy, boolean parallel) {
+    Optional.ofNullable(groupBy).orElseThrow(() -> new NullPointerException("Group by is not valid"));
+
+    CarAggregate[] groups = parallel && cars.getRowCount() > PARTITION_SIZE
+        ? aggregateInParallel(groupBy)
+        : aggregateRows(groupBy, 0, cars.getRowCount());
+
+    // ids follow the first appearance of a string in the store, which may have been removed since
+    Map<String, CarAggregate> aggregates = new LinkedHashMap<>();
+    IntStream.range(0, groups.length)
+        .filter(group -> groups[group].getCount() > 0)
+        .boxed()
+        .sorted(Comparator.comparingLong(group -> firstAppearance(groupBy, group, groups[group].getFirstRow())))
+        .forEach(group -> aggregates.put(groupName(groupBy, group), groups[group]));
+    return aggregates;
+  }
+
+  // components first seen in the same row come in the order of that row
+  private long firstAppearance(GroupBy groupBy, int group, int firstRow) {
+    int position = groupBy == GroupBy.COMPONENT ? cars.getComponentPosition(firstRow, group) : 0;
+    return (long) firstRow << 32 | position;
+  }
+
+  private CarAggregate[] aggregateInParallel(GroupBy groupBy) {
+    int partitions = (cars.getRowCount() + PARTITION_SIZE - 1) / PARTITION_SIZE;
+    return IntStream
+        .range(0, partitions)
+        .parallel()
+        .mapToObj(partition -> aggregateRows(
+            groupBy, partition * PARTITION_SIZE, Math.min(cars.getRowCount(), (partition + 1) * PARTITION_SIZE)))
+        .reduce(CarAggregator::combine)
+        .orElseGet(() -> createGroups(groupBy));
+  }
+
+  private CarAggregate[] aggregateRows(GroupBy groupBy, int fromRow, int toRow) {
+    CarAggregate[] groups = createGroups(groupBy);
+    switch (groupBy) {
+      case MODEL:
+        for (int row = fromRow; row < toRow; row++) {
+          if (!cars.isRemoved(row)) {
+            groups[cars.getModelId(row)].accept(row);
+          }
+        }
+        break;
+      case COLOR:
+        for (int row = fromRow; row < toRow; row++) {
+          if (!cars.isRemoved(row)) {
+            groups[cars.getColorOrdinal(row)].accept(row);
+          }
+        }
+        break;
+      case COMPONENT:
+        for (int row = fromRow; row < toRow; row++) {
+          for (int n = 0; !cars.isRemoved(row) && n < cars.getComponentCount(row); n++) {
+            groups[cars.getComponentId(row, n)].accept(row);
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Group by is not supported: " + groupBy);
+    }
+    return groups;
+  }
+
+  private static CarAggregate[] combine(CarAggregate[] first, CarAggregate[] second) {
+    for (int group = 0; group < first.length; group++) {
+      first[group].combine(second[group]);
+    }
+    return first;
+  }
+
+  private CarAggregate[] createGroups(GroupBy groupBy) {
+    CarAggregate[] groups = new CarAggregate[groupCount(groupBy)];
+    for (int group = 0; group < groups.length; group++) {
+      groups[group] = new CarAggregate(cars);
+    }
+    return groups;
+  }
+
+  private int groupCount(GroupBy groupBy) {
+    switch (groupBy) {
+      case MODEL:
+        return cars.getModelDictionary().size();
+      case COLOR:
+        return Color.values().length;
+      case COMPONENT:
+        return cars.getComponentDictionary().size();
+      default:
+        throw new IllegalArgumentException("Group by is not supported: " + groupBy);
+    }
+  }
+
+  private String groupName(GroupBy groupBy, int group) {
+    switch (groupBy) {
+      case MODEL:
+        return cars.getModelDictionary().decode(group);
+      case COLOR:
+        return Color.values()[group].name();
+      case COMPONENT:
+        return cars.getComponentDictionary().decode(group);
+      default:
+        throw new IllegalArgumentException("Group by is not supported: " + groupBy);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.app.service.aggregate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.store.CarStore;
+import com.app.service.store.LongSum;
+
+/**
+ * Statistics of a changing set of cars, updated on every {@link #add(Car) insert}, {@link #remove(Car) delete}
+ * and {@link #update(Car, Car) update} instead of being recomputed. Prices and mileages are kept in sorted
+ * multisets, so minimum and maximum stay exact after deletes; every getter answers in O(1), apart from the
+ * maps which are copied per model or color. The multisets share their trees with their copies, so a
+ * {@link #copy()} costs O(models) and a change O(log n). Prices are kept as {@link CarStore#toScaledPrice(BigDecimal)
+ * scaled prices}, so a price with more fraction digits than the store holds counts rounded down. Not thread safe.
+ */
+public class CarStatistics {
+
+  private static final Color[] COLORS = Color.values();
+
+  private long count;
+  private final LongSum priceSum = new LongSum();
+  private final LongSum mileageSum = new LongSum();
+  private final LongMultiset prices;
+  private final LongMultiset mileages;
+  private final long[] colorCounts;
+  private final Map<String, LongMultiset> modelPrices = new LinkedHashMap<>();
+
+  public CarStatistics() {
+    this.prices = new LongMultiset();
+    this.mileages = new LongMultiset();
+    this.colorCounts = new long[COLORS.length];
+  }
+
+  private CarStatistics(CarStatistics other) {
+    this.count = other.count;
+    this.priceSum.add(other.priceSum);
+    this.mileageSum.add(other.mileageSum);
+    this.prices = other.prices.copy();
+    this.mileages = other.mileages.copy();
+    this.colorCounts = other.colorCounts.clone();
+    other.modelPrices.forEach((model, carsOfModel) -> modelPrices.put(model, carsOfModel.copy()));
+  }
+
+  public static CarStatistics of(CarStore cars) {
+    CarStatistics statistics = new CarStatistics();
+    for (int row = 0; row < cars.getRowCount(); row++) {
+      if (cars.isRemoved(row)) {
+        continue;
+      }
+      statistics.add(cars.getScaledPrice(row), cars.getMileage(row), cars.getColorOrdinal(row), cars.getModel(row));
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns an independent copy, so that changes can be applied without affecting readers of this instance.
+   * Sorted values are shared until either side changes them.
+   */
+  public CarStatistics copy() {
+    return new CarStatistics(this);
+  }
+
+  public void add(Car car) {
+    Optional.ofNullable(car).orElseThrow(() -> new NullPointerException("Car is null"));
+    add(CarStore.toScaledPrice(car.getPrice()), car.getMileage(), car.getColor().ordinal(), car.getModel());
+  }
+
+  public void remove(Car car) {
+    Optional.ofNullable(car).orElseThrow(() -> new NullPointerException("Car is null"));
+    long price = CarStore.toScaledPrice(car.getPrice());
+    LongMultiset carsOfModel = modelPrices.get(car.getModel());
+    if (carsOfModel == null) {
+      throw new IllegalArgumentException("Car is not present: " + car);
+    }
+    carsOfModel.remove(price);
+    if (carsOfModel.isEmpty()) {
+      modelPrices.remove(car.getModel());
+    }
+
+    count--;
+    priceSum.subtract(price);
+    prices.remove(price);
+    mileageSum.subtract(car.getMileage());
+    mileages.remove(car.getMileage());
+    colorCounts[car.getColor().ordinal()]--;
+  }
+
+  public void update(Car oldCar, Car newCar) {
+    remove(oldCar);
+    add(newCar);
+  }
+
+  private void add(long price, long mileage, int colorOrdinal, String model) {
+    count++;
+    priceSum.add(price);
+    prices.add(price);
+    mileageSum.add(mileage);
+    mileages.add(mileage);
+    colorCounts[colorOrdinal]++;
+    modelPrices.computeIfAbsent(model, key -> new LongMultiset()).add(price);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public BigDecimal getAveragePrice() {
+    if (count == 0) {
+      return BigDecimal.ZERO;
+    }
+    return new BigDecimal(priceSum.toBigInteger(), CarStore.PRICE_SCALE)
+        .divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+  }
+
+  public BigDecimal getMinPrice() {
+    return prices.isEmpty() ? null : toPrice(prices.min());
+  }
+
+  public BigDecimal getMaxPrice() {
+    return prices.isEmpty() ? null : toPrice(prices.max());
+  }
+
+  public double getAverageMileage() {
+    return count == 0 ? 0 : mileageSum.toBigInteger().doubleValue() / count;
+  }
+
+  /**
+   * Returns the minimum mileage, or {@link Long#MAX_VALUE} when there are no cars like
+   * {@link java.util.LongSummaryStatistics} does.
+   */
+  public long getMinMileage() {
+    return mileages.isEmpty() ? Long.MAX_VALUE : mileages.min();
+  }
+
+  public long getMaxMileage() {
+    return mileages.isEmpty() ? Long.MIN_VALUE : mileages.max();
+  }
+
+  public long getCount(Color color) {
+    Optional.ofNullable(color).orElseThrow(() -> new NullPointerException("Color is null"));
+    return colorCounts[color.ordinal()];
+  }
+
+  /**
+   * Returns the number of cars of every color which has at least one car.
+   */
+  public EnumMap<Color, Long> getCountsByColor() {
+    EnumMap<Color, Long> countsByColor = new EnumMap<>(Color.class);
+    for (Color color : COLORS) {
+      if (colorCounts[color.ordinal()] > 0) {
+        countsByColor.put(color, colorCounts[color.ordinal()]);
+      }
+    }
+    return countsByColor;
+  }
+
+  public BigDecimal getMaxPrice(String model) {
+    LongMultiset carsOfModel = modelPrices.get(model);
+    return carsOfModel == null ? null : toPrice(carsOfModel.max());
+  }
+
+  /**
+   * Returns the highest price of every model, with models in the order they first appeared.
+   */
+  public Map<String, BigDecimal> getMaxPricesByModel() {
+    Map<String, BigDecimal> maxPrices = new LinkedHashMap<>();
+    modelPrices.forEach((model, carsOfModel) -> maxPrices.put(model, toPrice(carsOfModel.max())));
+    return maxPrices;
+  }
+
+  private static BigDecimal toPrice(long scaledPrice) {
+    BigDecimal price = BigDecimal.valueOf(scaledPrice, CarStore.PRICE_SCALE).stripTrailingZeros();
+    return price.scale() < 0 ? price.setScale(0) : price;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + count +
+        ", price min/avg/max=" + getMinPrice() + "/" + getAveragePrice() + "/" + getMaxPrice() +
+        ", mileage min/avg/max=" + getMinMileage() + "/" + getAverageMileage() + "/" + getMaxMileage();
+  }
+}
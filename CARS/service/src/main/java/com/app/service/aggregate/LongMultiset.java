@@ -0,0 +1,162 @@
+package com.app.service.aggregate;
+
+/**
+ * Sorted multiset of longs which keeps its minimum and maximum at hand, so that they can be read in O(1) and
+ * stay correct when values are removed again. The values are held in a treap whose nodes are never changed:
+ * an add or remove copies the O(log n) nodes on its path and {@link #copy()} shares the whole tree, so a
+ * copy costs O(1) however many values there are.
+ */
+class LongMultiset {
+
+  private Node root;
+  private long size;
+  private long min;
+  private long max;
+
+  void add(long value) {
+    root = add(root, value);
+    if (size++ == 0) {
+      min = value;
+      max = value;
+    } else {
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+  }
+
+  void remove(long value) {
+    int count = count(value);
+    if (count == 0) {
+      throw new IllegalArgumentException("Value is not present: " + value);
+    }
+    root = remove(root, value);
+    if (--size > 0) {
+      // only the removal of the last copy of an extreme moves it
+      min = value == min && count == 1 ? first(root) : min;
+      max = value == max && count == 1 ? last(root) : max;
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  long min() {
+    return min;
+  }
+
+  long max() {
+    return max;
+  }
+
+  LongMultiset copy() {
+    LongMultiset copy = new LongMultiset();
+    copy.root = root;
+    copy.size = size;
+    copy.min = min;
+    copy.max = max;
+    return copy;
+  }
+
+  private int count(long value) {
+    Node node = root;
+    while (node != null && node.value != value) {
+      node = value < node.value ? node.left : node.right;
+    }
+    return node == null ? 0 : node.count;
+  }
+
+  private static Node add(Node node, long value) {
+    if (node == null) {
+      return new Node(value, 1, priority(value), null, null);
+    }
+    if (value == node.value) {
+      return new Node(value, node.count + 1, node.priority, node.left, node.right);
+    }
+    if (value < node.value) {
+      Node left = add(node.left, value);
+      return left.priority > node.priority
+          ? left.withRight(node.withLeft(left.right))
+          : node.withLeft(left);
+    }
+    Node right = add(node.right, value);
+    return right.priority > node.priority
+        ? right.withLeft(node.withRight(right.left))
+        : node.withRight(right);
+  }
+
+  private static Node remove(Node node, long value) {
+    if (value < node.value) {
+      return node.withLeft(remove(node.left, value));
+    }
+    if (value > node.value) {
+      return node.withRight(remove(node.right, value));
+    }
+    if (node.count > 1) {
+      return new Node(value, node.count - 1, node.priority, node.left, node.right);
+    }
+    return merge(node.left, node.right);
+  }
+
+  // joins two treaps of which all values of the first are smaller than those of the second
+  private static Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    return first.priority > second.priority
+        ? first.withRight(merge(first.right, second))
+        : second.withLeft(merge(first, second.left));
+  }
+
+  private static long first(Node node) {
+    while (node.left != null) {
+      node = node.left;
+    }
+    return node.value;
+  }
+
+  private static long last(Node node) {
+    while (node.right != null) {
+      node = node.right;
+    }
+    return node.value;
+  }
+
+  // a hash of the value instead of a random priority keeps the tree balanced and its shape reproducible
+  private static int priority(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ hash >>> 32);
+  }
+
+  private static final class Node {
+
+    private final long value;
+    private final int count;
+    private final int priority;
+    private final Node left;
+    private final Node right;
+
+    private Node(long value, int count, int priority, Node left, Node right) {
+      this.value = value;
+      this.count = count;
+      this.priority = priority;
+      this.left = left;
+      this.right = right;
+    }
+
+    private Node withLeft(Node left) {
+      return new Node(value, count, priority, left, right);
+    }
+
+    private Node withRight(Node right) {
+      return new Node(value, count, priority, left, right);
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package com.app.service.cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.app.service.enums.Operation;
+
+/**
+ * Results of repeated {@link com.app.service.CarService} calls, keyed by operation, arguments and the version of
+ * the cars they were computed on. Publishing a newer version, or the first result of one, drops all results of
+ * older ones, so a change of the cars invalidates the whole cache at once and stale results are never returned
+ * nor kept in memory. Entries are
+ * weighed by the number of rows, values or groups they hold and the least recently used ones are evicted once
+ * the total weight exceeds the bound; a result heavier than the bound is not cached at all.
+ * <p>
+ * Results are computed outside the lock, so concurrent misses of the same key may compute it twice; the
+ * first one stored wins. Cached results are shared by all callers, so they hold row numbers or values which
+ * are never changed rather than cars, and must not be changed themselves.
+ */
+public class ResultCache implements ResultCacheMBean {
+
+  private final Lock lock = new ReentrantLock();
+  private final LinkedHashMap<ResultKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+  private long version;
+  private long weight;
+  private volatile long maxWeight;
+
+  public ResultCache(long maxWeight) {
+    this.maxWeight = requireNotNegative(maxWeight);
+  }
+
+  /**
+   * Returns the cached result of the operation on the given version of the cars, or computes and caches it.
+   * Results of versions older than the newest one seen are computed but not cached.
+   */
+  public <T> T get(Operation operation, long version, Supplier<T> query, Object... arguments) {
+    if (maxWeight == 0) {
+      misses.increment();
+      return query.get();
+    }
+    ResultKey key = new ResultKey(operation, arguments, version);
+    lock.lock();
+    try {
+      dropOlderThan(version);
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        hits.increment();
+        @SuppressWarnings("unchecked")
+        T result = (T) entry.result;
+        return result;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    misses.increment();
+    T result = query.get();
+    put(key, result);
+    return result;
+  }
+
+  /**
+   * Drops the results of all versions older than the given one, which the cars were just changed to.
+   */
+  public void invalidate(long version) {
+    lock.lock();
+    try {
+      dropOlderThan(version);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void dropOlderThan(long version) {
+    if (version > this.version) {
+      invalidations.add(entries.size());
+      entries.clear();
+      weight = 0;
+      this.version = version;
+    }
+  }
+
+  private void put(ResultKey key, Object result) {
+    long resultWeight = weigh(result);
+    lock.lock();
+    try {
+      if (key.getVersion() != version || resultWeight > maxWeight || entries.containsKey(key)) {
+        return;
+      }
+      entries.put(key, new Entry(result, resultWeight));
+      weight += resultWeight;
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // the least recently used entries come first
+  private void evict() {
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > maxWeight && eldest.hasNext()) {
+      weight -= eldest.next().weight;
+      eldest.remove();
+      evictions.increment();
+    }
+  }
+
+  // rows and collections weigh their size, a map the weight of its values, anything else one
+  static long weigh(Object result) {
+    if (result instanceof int[]) {
+      return Math.max(1, ((int[]) result).length);
+    }
+    if (result instanceof Collection) {
+      return Math.max(1, ((Collection<?>) result).size());
+    }
+    if (result instanceof Map) {
+      long mapWeight = 1;
+      for (Object value : ((Map<?, ?>) result).values()) {
+        mapWeight += weigh(value);
+      }
+      return mapWeight;
+    }
+    return 1;
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long total = hitCount + misses.sum();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public long getInvalidations() {
+    return invalidations.sum();
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getWeight() {
+    lock.lock();
+    try {
+      return weight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Changes the bound of the total weight, evicting entries until they fit; 0 disables the cache.
+   */
+  @Override
+  public void setMaxWeight(long maxWeight) {
+    lock.lock();
+    try {
+      this.maxWeight = requireNotNegative(maxWeight);
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      weight = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("cache: hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d size=%d weight=%d/%d",
+        getHits(), getMisses(), getHitRate(), getEvictions(), getInvalidations(), getSize(), getWeight(),
+        getMaxWeight());
+  }
+
+  private static long requireNotNegative(long maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("Max weight must not be negative: " + maxWeight);
+    }
+    return maxWeight;
+  }
+
+  private static class Entry {
+
+    private final Object result;
+    private final long weight;
+
+    Entry(Object result, long weight) {
+      this.result = result;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.app.service.cache;
+
+/**
+ * JMX view of a {@link ResultCache}: its hit rate and content, with the weight bound adjustable at runtime.
+ */
+public interface ResultCacheMBean {
+
+  long getHits();
+
+  long getMisses();
+
+  double getHitRate();
+
+  long getEvictions();
+
+  /**
+   * Returns how many results were dropped because the cars changed.
+   */
+  long getInvalidations();
+
+  int getSize();
+
+  long getWeight();
+
+  long getMaxWeight();
+
+  void setMaxWeight(long maxWeight);
+
+  void clear();
+}
@@ -0,0 +1,55 @@
+package com.app.service.cache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.app.service.enums.Operation;
+
+// an operation with its arguments on one version of the cars
+final class ResultKey {
+
+  private final Operation operation;
+  private final List<Object> arguments;
+  private final long version;
+  private final int hash;
+
+  ResultKey(Operation operation, Object[] arguments, long version) {
+    this.operation = operation;
+    // sets are copied, so callers changing them afterwards do not change the key
+    this.arguments = Arrays.stream(arguments)
+        .map(argument -> argument instanceof Set ? new HashSet<>((Set<?>) argument) : argument)
+        .collect(Collectors.toList());
+    this.version = version;
+    this.hash = 31 * (31 * operation.hashCode() + this.arguments.hashCode()) + Long.hashCode(version);
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof ResultKey)) {
+      return false;
+    }
+    ResultKey key = (ResultKey) other;
+    return hash == key.hash && version == key.version && operation == key.operation
+        && arguments.equals(key.arguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return operation + arguments.toString() + "@" + version;
+  }
+}
@@ -0,0 +1,10 @@
+package com.app.service.enums;
+
+public enum AccessPath {
+  FULL_SCAN,
+  MODEL_INDEX,
+  COLOR_INDEX,
+  COMPONENT_INDEX,
+  PRICE_INDEX,
+  MILEAGE_INDEX
+}
@@ -0,0 +1,6 @@
+package com.app.service.enums;
+
+public enum BatchFormat {
+  TEXT,
+  JSON
+}
@@ -0,0 +1,7 @@
+package com.app.service.enums;
+
+public enum LoadStage {
+  PARSE,
+  VALIDATE,
+  INDEX
+}
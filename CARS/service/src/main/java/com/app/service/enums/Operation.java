@@ -0,0 +1,31 @@
+package com.app.service.enums;
+
+public enum Operation {
+  SORT_CARS_BY_ARGUMENT,
+  SORT_CARS_WITH_GREATER_MILEAGE,
+  COUNT_CARS_BY_COLOR,
+  GET_CAR_COUNTS_BY_COLOR,
+  GET_MAX_PRICES_BY_MODEL,
+  GET_THE_MOST_EXPENSIVE_CAR_MODELS,
+  AGGREGATE,
+  GET_CARS_STATISTICS,
+  FIND_THE_MOST_EXPENSIVE_CARS,
+  FIND_TOP_CARS,
+  GET_CARS_WITH_SORTED_COMPONENTS,
+  GET_CARS_WITH_PARTICULAR_COMPONENT,
+  GET_CARS_WITH_ALL_COMPONENTS,
+  GET_CARS_WITH_ANY_COMPONENT,
+  GET_CARS_WITHOUT_COMPONENTS,
+  GET_CARS_FROM_GIVEN_PRICE_RANGE,
+  GET_CARS_FROM_GIVEN_RANGES,
+  QUERY,
+  OPEN_CURSOR,
+  GET_PAGE,
+  EXPORT_CARS,
+  APPLY_CHANGES,
+  REPLACE_CARS,
+  RELOAD,
+  RELOAD_PARTITION,
+  DROP_PARTITION,
+  WRITE_SNAPSHOT
+}
@@ -0,0 +1,103 @@
+package com.app.service.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.model.enums.Color;
+import com.app.service.store.CarStore;
+
+/**
+ * Bitmaps of the rows holding each value of a low cardinality attribute, either the model id or the color
+ * ordinal, so that equality filters are answered without scanning the store.
+ */
+public class AttributeIndex {
+
+  private final CarStore cars;
+  private final boolean byModel;
+  private final CompressedBitmap[] rowsByValue;
+
+  private AttributeIndex(CarStore cars, boolean byModel, CompressedBitmap[] rowsByValue) {
+    this.cars = cars;
+    this.byModel = byModel;
+    this.rowsByValue = rowsByValue;
+  }
+
+  public static AttributeIndex byModel(CarStore cars) {
+    return build(cars, true);
+  }
+
+  public static AttributeIndex byColor(CarStore cars) {
+    return build(cars, false);
+  }
+
+  public CompressedBitmap rowsWith(int value) {
+    return rowsByValue[value];
+  }
+
+  public int count(int value) {
+    return rowsByValue[value].cardinality();
+  }
+
+  /**
+   * Returns the index of the next version of the store, in which only the given rows changed, sorted
+   * ascending. Only the bitmaps of values the changed rows had or got are rebuilt, and of these only the
+   * chunks holding changed rows.
+   */
+  public AttributeIndex update(CarStore nextCars, int[] changedRows) {
+    Map<Integer, IntArrayList> removedRows = new TreeMap<>();
+    Map<Integer, IntArrayList> insertedRows = new TreeMap<>();
+    for (int row : changedRows) {
+      int value = cars.contains(row) ? value(cars, row) : -1;
+      int nextValue = nextCars.contains(row) ? value(nextCars, row) : -1;
+      if (value != nextValue) {
+        if (value != -1) {
+          removedRows.computeIfAbsent(value, key -> new IntArrayList()).add(row);
+        }
+        if (nextValue != -1) {
+          insertedRows.computeIfAbsent(nextValue, key -> new IntArrayList()).add(row);
+        }
+      }
+    }
+
+    CompressedBitmap[] nextRowsByValue = Arrays.copyOf(rowsByValue, valueCount(nextCars));
+    Arrays.fill(nextRowsByValue, rowsByValue.length, nextRowsByValue.length, CompressedBitmap.empty());
+    removedRows.forEach((value, rows) ->
+        nextRowsByValue[value] = nextRowsByValue[value].andNot(CompressedBitmap.of(rows.toArray())));
+    insertedRows.forEach((value, rows) ->
+        nextRowsByValue[value] = nextRowsByValue[value].or(CompressedBitmap.of(rows.toArray())));
+    return new AttributeIndex(nextCars, byModel, nextRowsByValue);
+  }
+
+  private static AttributeIndex build(CarStore cars, boolean byModel) {
+    CompressedBitmap.Builder[] builders = new CompressedBitmap.Builder[valueCount(cars, byModel)];
+    for (int value = 0; value < builders.length; value++) {
+      builders[value] = CompressedBitmap.builder();
+    }
+    for (int row = 0; row < cars.getRowCount(); row++) {
+      if (!cars.isRemoved(row)) {
+        builders[byModel ? cars.getModelId(row) : cars.getColorOrdinal(row)].add(row);
+      }
+    }
+
+    CompressedBitmap[] bitmaps = new CompressedBitmap[builders.length];
+    for (int value = 0; value < builders.length; value++) {
+      bitmaps[value] = builders[value].build();
+    }
+    return new AttributeIndex(cars, byModel, bitmaps);
+  }
+
+  private int value(CarStore store, int row) {
+    return byModel ? store.getModelId(row) : store.getColorOrdinal(row);
+  }
+
+  private int valueCount(CarStore store) {
+    return valueCount(store, byModel);
+  }
+
+  private static int valueCount(CarStore store, boolean byModel) {
+    return byModel ? store.getModelDictionary().size() : Color.values().length;
+  }
+}
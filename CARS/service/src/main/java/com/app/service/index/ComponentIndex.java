@@ -0,0 +1,161 @@
+package com.app.service.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.service.store.CarStore;
+import com.app.model.dictionary.StringDictionary;
+
+/**
+ * Inverted index from component to the bitmap of rows having it, built in a single pass over a
+ * {@link CarStore} and updated with the changed rows only for its next versions. Queries over several
+ * components are answered with bitmap AND / OR / ANDNOT.
+ */
+public class ComponentIndex {
+
+  private final CarStore cars;
+  private final StringDictionary components;
+  private final CompressedBitmap[] rowsByComponent;
+  private final CompressedBitmap allRows;
+
+  private ComponentIndex(CarStore cars, CompressedBitmap[] rowsByComponent, CompressedBitmap allRows) {
+    this.cars = cars;
+    this.components = cars.getComponentDictionary();
+    this.rowsByComponent = rowsByComponent;
+    this.allRows = allRows;
+  }
+
+  public ComponentIndex(CarStore cars) {
+    this.cars = cars;
+    this.components = cars.getComponentDictionary();
+
+    CompressedBitmap.Builder allRowsBuilder = CompressedBitmap.builder();
+    CompressedBitmap.Builder[] builders = new CompressedBitmap.Builder[components.size()];
+    for (int component = 0; component < builders.length; component++) {
+      builders[component] = CompressedBitmap.builder();
+    }
+    // rows are visited in ascending order, which is what the bitmap builders expect
+    for (int row = 0; row < cars.getRowCount(); row++) {
+      if (cars.isRemoved(row)) {
+        continue;
+      }
+      allRowsBuilder.add(row);
+      for (int n = 0; n < cars.getComponentCount(row); n++) {
+        builders[cars.getComponentId(row, n)].add(row);
+      }
+    }
+
+    this.allRows = allRowsBuilder.build();
+    this.rowsByComponent = new CompressedBitmap[builders.length];
+    for (int component = 0; component < builders.length; component++) {
+      rowsByComponent[component] = builders[component].build();
+    }
+  }
+
+  /**
+   * Returns the index of the next version of the store, in which only the given rows changed, sorted
+   * ascending. Only the bitmaps of components the changed rows had or got are rebuilt.
+   */
+  public ComponentIndex update(CarStore nextCars, int[] changedRows) {
+    Map<Integer, IntArrayList> removedRows = new TreeMap<>();
+    Map<Integer, IntArrayList> insertedRows = new TreeMap<>();
+    IntArrayList removedCars = new IntArrayList();
+    IntArrayList insertedCars = new IntArrayList();
+    for (int row : changedRows) {
+      boolean present = cars.contains(row);
+      boolean nextPresent = nextCars.contains(row);
+      for (int n = 0; present && n < cars.getComponentCount(row); n++) {
+        int componentId = cars.getComponentId(row, n);
+        if (!nextPresent || !nextCars.hasComponent(row, componentId)) {
+          removedRows.computeIfAbsent(componentId, key -> new IntArrayList()).add(row);
+        }
+      }
+      for (int n = 0; nextPresent && n < nextCars.getComponentCount(row); n++) {
+        int componentId = nextCars.getComponentId(row, n);
+        if (!present || !cars.hasComponent(row, componentId)) {
+          insertedRows.computeIfAbsent(componentId, key -> new IntArrayList()).add(row);
+        }
+      }
+      if (present && !nextPresent) {
+        removedCars.add(row);
+      } else if (!present && nextPresent) {
+        insertedCars.add(row);
+      }
+    }
+
+    CompressedBitmap[] nextRowsByComponent = Arrays.copyOf(rowsByComponent,
+        nextCars.getComponentDictionary().size());
+    Arrays.fill(nextRowsByComponent, rowsByComponent.length, nextRowsByComponent.length, CompressedBitmap.empty());
+    removedRows.forEach((componentId, rows) -> nextRowsByComponent[componentId] =
+        nextRowsByComponent[componentId].andNot(CompressedBitmap.of(rows.toArray())));
+    insertedRows.forEach((componentId, rows) -> nextRowsByComponent[componentId] =
+        nextRowsByComponent[componentId].or(CompressedBitmap.of(rows.toArray())));
+    CompressedBitmap nextAllRows = allRows
+        .andNot(CompressedBitmap.of(removedCars.toArray()))
+        .or(CompressedBitmap.of(insertedCars.toArray()));
+    return new ComponentIndex(nextCars, nextRowsByComponent, nextAllRows);
+  }
+
+  /**
+   * Returns the ids of the components which at least one car has, in the order of their first car.
+   */
+  public int[] getComponentIds() {
+    return IntStream.range(0, rowsByComponent.length)
+        .filter(componentId -> !rowsByComponent[componentId].isEmpty())
+        .boxed()
+        .sorted(Comparator.comparingInt(componentId -> rowsByComponent[componentId].first()))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  public String getComponent(int componentId) {
+    return components.decode(componentId);
+  }
+
+  public CompressedBitmap rowsWith(int componentId) {
+    return rowsByComponent[componentId];
+  }
+
+  public CompressedBitmap rowsWith(String component) {
+    int componentId = components.find(component);
+    return componentId == -1 ? CompressedBitmap.empty() : rowsByComponent[componentId];
+  }
+
+  public CompressedBitmap rowsWithAll(Collection<String> requiredComponents) {
+    // intersecting the rarest components first keeps intermediate results small
+    List<CompressedBitmap> bitmaps = requiredComponents
+        .stream()
+        .map(this::rowsWith)
+        .sorted(Comparator.comparingInt(CompressedBitmap::cardinality))
+        .collect(Collectors.toList());
+
+    CompressedBitmap rows = allRows;
+    for (CompressedBitmap bitmap : bitmaps) {
+      rows = rows.and(bitmap);
+      if (rows.isEmpty()) {
+        break;
+      }
+    }
+    return rows;
+  }
+
+  public CompressedBitmap rowsWithAny(Collection<String> wantedComponents) {
+    CompressedBitmap rows = CompressedBitmap.empty();
+    for (String component : wantedComponents) {
+      rows = rows.or(rowsWith(component));
+    }
+    return rows;
+  }
+
+  public CompressedBitmap rowsWithNone(Collection<String> excludedComponents) {
+    return allRows.andNot(rowsWithAny(excludedComponents));
+  }
+}
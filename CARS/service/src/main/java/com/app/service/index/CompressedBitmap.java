@@ -0,0 +1,460 @@
+package com.app.service.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed set of non-negative ints in the spirit of Roaring bitmaps. Values are partitioned by
+ * their upper 16 bits into chunks of 65536; a chunk holding few values keeps them as a sorted array, a dense
+ * chunk switches to a plain 8 KB bitmap. Set operations work chunk by chunk and never expand sparse chunks.
+ */
+public final class CompressedBitmap {
+
+  private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0]);
+
+  private final char[] keys;
+  private final Container[] containers;
+
+  private CompressedBitmap(char[] keys, Container[] containers) {
+    this.keys = keys;
+    this.containers = containers;
+  }
+
+  public static CompressedBitmap empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a bitmap with all values from {@code 0} (inclusive) to {@code end} (exclusive).
+   */
+  public static CompressedBitmap range(int end) {
+    Builder builder = builder();
+    for (int value = 0; value < end; value++) {
+      builder.add(value);
+    }
+    return builder.build();
+  }
+
+  public static CompressedBitmap of(int... sortedValues) {
+    Builder builder = builder();
+    for (int value : sortedValues) {
+      builder.add(value);
+    }
+    return builder.build();
+  }
+
+  public boolean contains(int value) {
+    int index = Arrays.binarySearch(keys, highBits(value));
+    return index >= 0 && containers[index].contains(lowBits(value));
+  }
+
+  public int cardinality() {
+    int cardinality = 0;
+    for (Container container : containers) {
+      cardinality += container.cardinality();
+    }
+    return cardinality;
+  }
+
+  public boolean isEmpty() {
+    return containers.length == 0;
+  }
+
+  /**
+   * Returns the smallest value, or -1 when the bitmap is empty.
+   */
+  public int first() {
+    return containers.length == 0 ? -1 : keys[0] << 16 | containers[0].first();
+  }
+
+  public void forEach(IntConsumer action) {
+    for (int i = 0; i < containers.length; i++) {
+      containers[i].forEach(keys[i] << 16, action);
+    }
+  }
+
+  public int[] toArray() {
+    int[] values = new int[cardinality()];
+    int[] position = new int[1];
+    forEach(value -> values[position[0]++] = value);
+    return values;
+  }
+
+  public CompressedBitmap and(CompressedBitmap other) {
+    ResultBuilder result = new ResultBuilder(Math.min(keys.length, other.keys.length));
+    int i = 0;
+    int j = 0;
+    while (i < keys.length && j < other.keys.length) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        result.add(keys[i], containers[i].and(other.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result.build();
+  }
+
+  public CompressedBitmap or(CompressedBitmap other) {
+    ResultBuilder result = new ResultBuilder(keys.length + other.keys.length);
+    int i = 0;
+    int j = 0;
+    while (i < keys.length || j < other.keys.length) {
+      if (j == other.keys.length || i < keys.length && keys[i] < other.keys[j]) {
+        result.add(keys[i], containers[i]);
+        i++;
+      } else if (i == keys.length || keys[i] > other.keys[j]) {
+        result.add(other.keys[j], other.containers[j]);
+        j++;
+      } else {
+        result.add(keys[i], containers[i].or(other.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result.build();
+  }
+
+  public CompressedBitmap andNot(CompressedBitmap other) {
+    ResultBuilder result = new ResultBuilder(keys.length);
+    int j = 0;
+    for (int i = 0; i < keys.length; i++) {
+      while (j < other.keys.length && other.keys[j] < keys[i]) {
+        j++;
+      }
+      if (j < other.keys.length && other.keys[j] == keys[i]) {
+        result.add(keys[i], containers[i].andNot(other.containers[j]));
+      } else {
+        result.add(keys[i], containers[i]);
+      }
+    }
+    return result.build();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CompressedBitmap)) {
+      return false;
+    }
+    return Arrays.equals(toArray(), ((CompressedBitmap) o).toArray());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(toArray());
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private static char highBits(int value) {
+    return (char) (value >>> 16);
+  }
+
+  private static char lowBits(int value) {
+    return (char) value;
+  }
+
+  /**
+   * Collects values added in ascending order.
+   */
+  public static class Builder {
+
+    private final ResultBuilder result = new ResultBuilder(4);
+    private char[] chunk = new char[16];
+    private int chunkSize;
+    private int currentKey = -1;
+    private int lastValue = -1;
+
+    private Builder() {
+    }
+
+    public Builder add(int value) {
+      if (value <= lastValue) {
+        throw new IllegalArgumentException("Values must be added in ascending order: " + value);
+      }
+      lastValue = value;
+      if (highBits(value) != currentKey) {
+        flush();
+        currentKey = highBits(value);
+      }
+      if (chunkSize == chunk.length) {
+        chunk = Arrays.copyOf(chunk, chunk.length * 2);
+      }
+      chunk[chunkSize++] = lowBits(value);
+      return this;
+    }
+
+    public CompressedBitmap build() {
+      flush();
+      currentKey = -1;
+      return result.build();
+    }
+
+    private void flush() {
+      if (chunkSize > 0) {
+        result.add((char) currentKey, Container.fromSorted(Arrays.copyOf(chunk, chunkSize)));
+        chunkSize = 0;
+      }
+    }
+  }
+
+  private static final class ResultBuilder {
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    private ResultBuilder(int capacity) {
+      this.keys = new char[Math.max(capacity, 1)];
+      this.containers = new Container[Math.max(capacity, 1)];
+    }
+
+    private void add(char key, Container container) {
+      if (container.cardinality() == 0) {
+        return;
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        containers = Arrays.copyOf(containers, size * 2);
+      }
+      keys[size] = key;
+      containers[size++] = container;
+    }
+
+    private CompressedBitmap build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      return new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size));
+    }
+  }
+
+  private abstract static class Container {
+
+    // above this many values a bitmap is smaller than a sorted array of chars
+    static final int MAX_ARRAY_SIZE = 4096;
+
+    static Container fromSorted(char[] values) {
+      if (values.length <= MAX_ARRAY_SIZE) {
+        return new ArrayContainer(values);
+      }
+      long[] words = new long[BitmapContainer.WORDS];
+      for (char value : values) {
+        words[value >>> 6] |= 1L << value;
+      }
+      return new BitmapContainer(words, values.length);
+    }
+
+    abstract int cardinality();
+
+    abstract boolean contains(char value);
+
+    abstract char first();
+
+    abstract void forEach(int high, IntConsumer action);
+
+    abstract Container and(Container other);
+
+    abstract Container or(Container other);
+
+    abstract Container andNot(Container other);
+
+    abstract long[] toWords();
+  }
+
+  private static final class ArrayContainer extends Container {
+
+    private final char[] values;
+
+    private ArrayContainer(char[] values) {
+      this.values = values;
+    }
+
+    @Override
+    int cardinality() {
+      return values.length;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    @Override
+    char first() {
+      return values[0];
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+      for (char value : values) {
+        action.accept(high | value);
+      }
+    }
+
+    @Override
+    Container and(Container other) {
+      return filter(other, true);
+    }
+
+    @Override
+    Container andNot(Container other) {
+      return filter(other, false);
+    }
+
+    private Container filter(Container other, boolean keepContained) {
+      char[] result = new char[values.length];
+      int size = 0;
+      for (char value : values) {
+        if (other.contains(value) == keepContained) {
+          result[size++] = value;
+        }
+      }
+      return new ArrayContainer(Arrays.copyOf(result, size));
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer) {
+        return other.or(this);
+      }
+      char[] otherValues = ((ArrayContainer) other).values;
+      char[] merged = new char[values.length + otherValues.length];
+      int size = 0;
+      int i = 0;
+      int j = 0;
+      while (i < values.length || j < otherValues.length) {
+        if (j == otherValues.length || i < values.length && values[i] < otherValues[j]) {
+          merged[size++] = values[i++];
+        } else if (i == values.length || values[i] > otherValues[j]) {
+          merged[size++] = otherValues[j++];
+        } else {
+          merged[size++] = values[i++];
+          j++;
+        }
+      }
+      return Container.fromSorted(Arrays.copyOf(merged, size));
+    }
+
+    @Override
+    long[] toWords() {
+      long[] words = new long[BitmapContainer.WORDS];
+      for (char value : values) {
+        words[value >>> 6] |= 1L << value;
+      }
+      return words;
+    }
+  }
+
+  private static final class BitmapContainer extends Container {
+
+    static final int WORDS = 1 << 10;
+
+    private final long[] words;
+    private final int cardinality;
+
+    private BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    private static Container fromWords(long[] words) {
+      int cardinality = 0;
+      for (long word : words) {
+        cardinality += Long.bitCount(word);
+      }
+      if (cardinality > MAX_ARRAY_SIZE) {
+        return new BitmapContainer(words, cardinality);
+      }
+      char[] values = new char[cardinality];
+      int size = 0;
+      for (int i = 0; i < words.length; i++) {
+        long word = words[i];
+        while (word != 0) {
+          values[size++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return new ArrayContainer(values);
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    char first() {
+      int word = 0;
+      while (words[word] == 0) {
+        word++;
+      }
+      return (char) ((word << 6) + Long.numberOfTrailingZeros(words[word]));
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+      for (int i = 0; i < words.length; i++) {
+        long word = words[i];
+        while (word != 0) {
+          action.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof ArrayContainer) {
+        return other.and(this);
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      long[] result = new long[WORDS];
+      for (int i = 0; i < WORDS; i++) {
+        result[i] = words[i] & otherWords[i];
+      }
+      return fromWords(result);
+    }
+
+    @Override
+    Container or(Container other) {
+      long[] result = other.toWords();
+      for (int i = 0; i < WORDS; i++) {
+        result[i] |= words[i];
+      }
+      return fromWords(result);
+    }
+
+    @Override
+    Container andNot(Container other) {
+      long[] result = other.toWords();
+      for (int i = 0; i < WORDS; i++) {
+        result[i] = words[i] & ~result[i];
+      }
+      return fromWords(result);
+    }
+
+    @Override
+    long[] toWords() {
+      return words.clone();
+    }
+  }
+}
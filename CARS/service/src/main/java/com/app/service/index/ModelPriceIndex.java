@@ -0,0 +1,115 @@
+package com.app.service.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.service.enums.SortType;
+import com.app.service.store.CarStore;
+
+/**
+ * Composite index on (model, price, row): the rows of every model are listed by price, then row, and a price
+ * range query binary searches the listing of each model in lexicographic order of the models, so its result
+ * comes out ordered by model without comparing any strings. The next version of the store only updates the
+ * listings of the models of changed rows.
+ * <p>
+ * Within a model the listing keeps the load order of the stable sort by model it replaces, which no price
+ * ordered layout can hold as well. Each matched slice is therefore sorted by row number, which costs
+ * O(k log k) for the {@code k} matched rows of a model but never touches the rows outside the range.
+ */
+public class ModelPriceIndex {
+
+  private static final SortedRows NO_ROWS = SortedRows.of(new long[0], new int[0]);
+
+  private final CarStore cars;
+  private final SortedRows[] rowsByModel;
+
+  private ModelPriceIndex(CarStore cars, SortedRows[] rowsByModel) {
+    this.cars = cars;
+    this.rowsByModel = rowsByModel;
+  }
+
+  public ModelPriceIndex(CarStore cars, SortIndex sortIndex) {
+    this.cars = cars;
+    SortedRows sortedRows = sortIndex.ascendingRows(SortType.PRICE);
+    int[] rowsByPrice = sortedRows.rows(0, sortedRows.size());
+    int[] counts = new int[cars.getModelDictionary().size()];
+    for (int row : rowsByPrice) {
+      counts[cars.getModelId(row)]++;
+    }
+    long[][] prices = new long[counts.length][];
+    int[][] rows = new int[counts.length][];
+    for (int modelId = 0; modelId < counts.length; modelId++) {
+      prices[modelId] = new long[counts[modelId]];
+      rows[modelId] = new int[counts[modelId]];
+    }
+
+    // distributing the price listing keeps every model in price and row order
+    int[] sizes = new int[counts.length];
+    for (int row : rowsByPrice) {
+      int modelId = cars.getModelId(row);
+      prices[modelId][sizes[modelId]] = cars.getScaledPrice(row);
+      rows[modelId][sizes[modelId]++] = row;
+    }
+    this.rowsByModel = new SortedRows[counts.length];
+    for (int modelId = 0; modelId < counts.length; modelId++) {
+      rowsByModel[modelId] = SortedRows.of(prices[modelId], rows[modelId]);
+    }
+  }
+
+  /**
+   * Returns the rows with a price between {@code min} and {@code max} (both inclusive), ordered by model and,
+   * within a model, by row number.
+   */
+  public int[] rows(long min, long max) {
+    int[] modelsByRank = new int[rowsByModel.length];
+    for (int modelId = 0; modelId < rowsByModel.length; modelId++) {
+      modelsByRank[cars.getModelRank(modelId)] = modelId;
+    }
+
+    IntArrayList result = new IntArrayList();
+    for (int modelId : modelsByRank) {
+      SortedRows modelRows = rowsByModel[modelId];
+      int from = modelRows.lowerBound(min);
+      int to = modelRows.upperBound(max);
+      if (from < to) {
+        // the slice is in price order, the listing wants load order
+        int[] groupRows = modelRows.rows(from, to);
+        Arrays.sort(groupRows);
+        result.addAll(groupRows);
+      }
+    }
+    return result.toArray();
+  }
+
+  /**
+   * Returns the index of the next version of the store, in which only the given rows changed, sorted
+   * ascending.
+   */
+  public ModelPriceIndex update(CarStore nextCars, int[] changedRows) {
+    Map<Integer, SortedRows.Changes> changesByModel = new HashMap<>();
+    for (int row : changedRows) {
+      boolean present = cars.contains(row);
+      boolean nextPresent = nextCars.contains(row);
+      if (present && nextPresent && cars.getModelId(row) == nextCars.getModelId(row)
+          && cars.getScaledPrice(row) == nextCars.getScaledPrice(row)) {
+        continue;
+      }
+      if (present) {
+        changesByModel.computeIfAbsent(cars.getModelId(row), modelId -> new SortedRows.Changes())
+            .remove(cars.getScaledPrice(row), row);
+      }
+      if (nextPresent) {
+        changesByModel.computeIfAbsent(nextCars.getModelId(row), modelId -> new SortedRows.Changes())
+            .insert(nextCars.getScaledPrice(row), row);
+      }
+    }
+
+    SortedRows[] nextRowsByModel = Arrays.copyOf(rowsByModel, nextCars.getModelDictionary().size());
+    Arrays.fill(nextRowsByModel, rowsByModel.length, nextRowsByModel.length, NO_ROWS);
+    changesByModel.forEach((modelId, changes) -> nextRowsByModel[modelId] = nextRowsByModel[modelId].update(changes));
+    return new ModelPriceIndex(nextCars, nextRowsByModel);
+  }
+}
@@ -0,0 +1,38 @@
+package com.app.service.index;
+
+import com.app.service.enums.SortType;
+
+/**
+ * Rows of a {@link com.app.service.store.CarStore} ordered by a numeric column, so that the rows whose value
+ * lies in a closed range form one slice found with two binary searches. It shares the listing of the
+ * {@link SortIndex}, including its updates for later versions of the store.
+ */
+public class RangeIndex {
+
+  private final SortedRows sortedRows;
+
+  private RangeIndex(SortedRows sortedRows) {
+    this.sortedRows = sortedRows;
+  }
+
+  public static RangeIndex byPrice(SortIndex sortIndex) {
+    return new RangeIndex(sortIndex.ascendingRows(SortType.PRICE));
+  }
+
+  public static RangeIndex byMileage(SortIndex sortIndex) {
+    return new RangeIndex(sortIndex.ascendingRows(SortType.MILEAGE));
+  }
+
+  public int count(long min, long max) {
+    return Math.max(0, sortedRows.upperBound(max) - sortedRows.lowerBound(min));
+  }
+
+  /**
+   * Returns the rows with a value between {@code min} and {@code max} (both inclusive) ordered by that value.
+   */
+  public int[] rows(long min, long max) {
+    int from = sortedRows.lowerBound(min);
+    int to = sortedRows.upperBound(max);
+    return from >= to ? new int[0] : sortedRows.rows(from, to);
+  }
+}
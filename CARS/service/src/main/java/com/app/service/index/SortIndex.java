@@ -0,0 +1,149 @@
+package com.app.service.index;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.SortType;
+import com.app.service.store.CarStore;
+import com.app.service.store.RowSorter;
+
+/**
+ * Sorted listings of the rows of a {@link CarStore}, one per {@link SortType}. Each listing is built the first
+ * time it is needed; ascending listings walk it from the front and descending ones from the back, so a page of
+ * {@code k} rows costs O(k). The index of the next version of the store {@link #update(CarStore, int[])
+ * updates} the listings built so far entry by entry instead of sorting again.
+ */
+public class SortIndex {
+
+  private final CarStore cars;
+  private final Map<SortType, SortedRows> sortedRows;
+
+  public SortIndex(CarStore cars) {
+    this(cars, new ConcurrentHashMap<>());
+  }
+
+  private SortIndex(CarStore cars, Map<SortType, SortedRows> sortedRows) {
+    this.cars = cars;
+    this.sortedRows = sortedRows;
+  }
+
+  public int size() {
+    return cars.size();
+  }
+
+  /**
+   * Returns the row at the given position of the listing. Descending order is the exact reverse of the
+   * ascending one, including the order of rows with equal keys.
+   */
+  public int row(SortType sortType, boolean descending, int position) {
+    SortedRows rows = ascendingRows(sortType);
+    return rows.row(descending ? rows.size() - 1 - position : position);
+  }
+
+  public int[] rows(SortType sortType, boolean descending, int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("Offset and limit must not be negative: " + offset + ", " + limit);
+    }
+    SortedRows rows = ascendingRows(sortType);
+    int from = Math.min(offset, rows.size());
+    int to = (int) Math.min((long) from + limit, rows.size());
+    if (!descending) {
+      return rows.rows(from, to);
+    }
+
+    int[] ascendingPage = rows.rows(rows.size() - to, rows.size() - from);
+    int[] page = new int[ascendingPage.length];
+    for (int i = 0; i < page.length; i++) {
+      page[i] = ascendingPage[page.length - 1 - i];
+    }
+    return page;
+  }
+
+  /**
+   * Returns whether the listing of the sort type has been built already.
+   */
+  public boolean isSorted(SortType sortType) {
+    return sortedRows.containsKey(sortType);
+  }
+
+  /**
+   * Returns the index of the next version of the store, in which only the given rows changed, sorted
+   * ascending. Listings built for this version are updated with the changed rows only; the model listing is
+   * left to be built again when new models moved existing ones in the lexicographic order.
+   */
+  public SortIndex update(CarStore nextCars, int[] changedRows) {
+    Map<SortType, SortedRows> nextSortedRows = new ConcurrentHashMap<>();
+    sortedRows.forEach((sortType, rows) -> {
+      if (sortType != SortType.MODEL || haveSameModelRanks(cars, nextCars)) {
+        nextSortedRows.put(sortType, rows.update(SortedRows.changes(cars, nextCars, changedRows, key(sortType))));
+      }
+    });
+    return new SortIndex(nextCars, nextSortedRows);
+  }
+
+  SortedRows ascendingRows(SortType sortType) {
+    Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+    return sortedRows.computeIfAbsent(sortType, this::sortRows);
+  }
+
+  private SortedRows sortRows(SortType sortType) {
+    int[] rows = cars.rows();
+    long[] keys = new long[rows.length];
+    SortedRows.RowKey key = key(sortType);
+    switch (sortType) {
+      case COLOR:
+      case MODEL: {
+        int domain = sortType == SortType.COLOR ? Color.values().length : cars.getModelDictionary().size();
+        int[] ranks = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+          ranks[i] = (int) key.of(cars, rows[i]);
+        }
+        rows = RowSorter.sortByRank(rows, ranks, domain);
+        for (int i = 0; i < rows.length; i++) {
+          keys[i] = key.of(cars, rows[i]);
+        }
+        break;
+      }
+      case PRICE:
+      case MILEAGE:
+        for (int i = 0; i < rows.length; i++) {
+          keys[i] = key.of(cars, rows[i]);
+        }
+        RowSorter.sortByKey(rows, keys);
+        break;
+      default:
+        throw new IllegalArgumentException("Sort type is not supported: " + sortType);
+    }
+    return SortedRows.of(keys, rows);
+  }
+
+  private static SortedRows.RowKey key(SortType sortType) {
+    switch (sortType) {
+      case COLOR:
+        return CarStore::getColorOrdinal;
+      case MODEL:
+        return (cars, row) -> cars.getModelRank(cars.getModelId(row));
+      case PRICE:
+        return CarStore::getScaledPrice;
+      case MILEAGE:
+        return CarStore::getMileage;
+      default:
+        throw new IllegalArgumentException("Sort type is not supported: " + sortType);
+    }
+  }
+
+  // new models which sort after all existing ones leave the ranks of the existing ones as they are
+  private static boolean haveSameModelRanks(CarStore cars, CarStore nextCars) {
+    if (cars.getModelDictionary() == nextCars.getModelDictionary()) {
+      return true;
+    }
+    for (int modelId = 0; modelId < cars.getModelDictionary().size(); modelId++) {
+      if (cars.getModelRank(modelId) != nextCars.getModelRank(modelId)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
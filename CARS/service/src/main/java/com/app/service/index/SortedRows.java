@@ -0,0 +1,294 @@
+package com.app.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import com.app.service.store.CarStore;
+import com.app.service.store.RowSorter;
+
+/**
+ * Rows ordered by a long key and, for equal keys, by row number, kept in blocks of a few thousand entries. A
+ * listing is never changed: {@link #update(Changes)} copies only the blocks which get or lose entries and
+ * shares all others with the previous version, so changing {@code c} rows costs O(c log c) plus the size of
+ * the touched blocks and one pass over the block table instead of a new sort. A position is found with a
+ * binary search over the block starts.
+ */
+final class SortedRows {
+
+  private static final int BLOCK_SIZE = 2048;
+  private static final int MAX_BLOCK_SIZE = 2 * BLOCK_SIZE;
+
+  private final long[][] keys;
+  private final int[][] rows;
+  // the position of the first entry of every block, followed by the size
+  private final int[] blockStarts;
+
+  private SortedRows(long[][] keys, int[][] rows) {
+    this.keys = keys;
+    this.rows = rows;
+    this.blockStarts = new int[keys.length + 1];
+    for (int block = 0; block < keys.length; block++) {
+      blockStarts[block + 1] = blockStarts[block] + keys[block].length;
+    }
+  }
+
+  /**
+   * Creates the listing of rows which are already ordered by key and row.
+   */
+  static SortedRows of(long[] sortedKeys, int[] sortedRows) {
+    int blocks = (sortedKeys.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    long[][] keys = new long[blocks][];
+    int[][] rows = new int[blocks][];
+    for (int block = 0; block < blocks; block++) {
+      int from = block * BLOCK_SIZE;
+      int to = Math.min(sortedKeys.length, from + BLOCK_SIZE);
+      keys[block] = Arrays.copyOfRange(sortedKeys, from, to);
+      rows[block] = Arrays.copyOfRange(sortedRows, from, to);
+    }
+    return new SortedRows(keys, rows);
+  }
+
+  /**
+   * Collects the keys of the changed rows of one column between two versions of a store; a row whose key did
+   * not change is left out.
+   */
+  static Changes changes(CarStore cars, CarStore nextCars, int[] changedRows, RowKey key) {
+    Changes changes = new Changes();
+    for (int row : changedRows) {
+      boolean present = cars.contains(row);
+      boolean nextPresent = nextCars.contains(row);
+      if (present && nextPresent && key.of(cars, row) == key.of(nextCars, row)) {
+        continue;
+      }
+      if (present) {
+        changes.remove(key.of(cars, row), row);
+      }
+      if (nextPresent) {
+        changes.insert(key.of(nextCars, row), row);
+      }
+    }
+    return changes;
+  }
+
+  int size() {
+    return blockStarts[keys.length];
+  }
+
+  int row(int position) {
+    int block = block(position);
+    return rows[block][position - blockStarts[block]];
+  }
+
+  /**
+   * Returns the rows from position {@code from} (inclusive) to {@code to} (exclusive).
+   */
+  int[] rows(int from, int to) {
+    int[] result = new int[Math.max(0, to - from)];
+    int position = from;
+    while (position < to) {
+      int block = block(position);
+      int start = position - blockStarts[block];
+      int length = Math.min(to, blockStarts[block + 1]) - position;
+      System.arraycopy(rows[block], start, result, position - from, length);
+      position += length;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the position of the first entry with a key not less than the value.
+   */
+  int lowerBound(long value) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (lastKey(middle) < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    if (low == keys.length) {
+      return size();
+    }
+    long[] blockKeys = keys[low];
+    int from = 0;
+    int to = blockKeys.length;
+    while (from < to) {
+      int middle = (from + to) >>> 1;
+      if (blockKeys[middle] < value) {
+        from = middle + 1;
+      } else {
+        to = middle;
+      }
+    }
+    return blockStarts[low] + from;
+  }
+
+  /**
+   * Returns the position of the first entry with a key greater than the value.
+   */
+  int upperBound(long value) {
+    return value == Long.MAX_VALUE ? size() : lowerBound(value + 1);
+  }
+
+  /**
+   * Returns the listing without the removed entries and with the inserted ones. Removed entries have to be
+   * present; a row which only changed its key is removed with the old key and inserted with the new one.
+   */
+  SortedRows update(Changes changes) {
+    if (changes.isEmpty()) {
+      return this;
+    }
+    int[] removedRows = changes.removedRows.toArray();
+    long[] removedKeys = changes.removedKeys.toArray();
+    int[] insertedRows = changes.insertedRows.toArray();
+    long[] insertedKeys = changes.insertedKeys.toArray();
+    // changes are collected in row order, so a stable sort by key orders them by key and row
+    RowSorter.sortByKey(removedRows, removedKeys);
+    RowSorter.sortByKey(insertedRows, insertedKeys);
+
+    List<long[]> nextKeys = new ArrayList<>(keys.length + 1);
+    List<int[]> nextRows = new ArrayList<>(keys.length + 1);
+    int removed = 0;
+    int inserted = 0;
+    for (int block = 0; block < keys.length; block++) {
+      long[] blockKeys = keys[block];
+      int[] blockRows = rows[block];
+      boolean lastBlock = block == keys.length - 1;
+      long lastKey = blockKeys[blockKeys.length - 1];
+      int lastRow = blockRows[blockRows.length - 1];
+
+      int removedEnd = removed;
+      while (removedEnd < removedKeys.length
+          && compare(removedKeys[removedEnd], removedRows[removedEnd], lastKey, lastRow) <= 0) {
+        removedEnd++;
+      }
+      int insertedEnd = inserted;
+      while (insertedEnd < insertedKeys.length
+          && (lastBlock || compare(insertedKeys[insertedEnd], insertedRows[insertedEnd], lastKey, lastRow) <= 0)) {
+        insertedEnd++;
+      }
+      if (removedEnd == removed && insertedEnd == inserted) {
+        nextKeys.add(blockKeys);
+        nextRows.add(blockRows);
+        continue;
+      }
+
+      int size = blockKeys.length - (removedEnd - removed) + (insertedEnd - inserted);
+      long[] mergedKeys = new long[size];
+      int[] mergedRows = new int[size];
+      int merged = 0;
+      int entry = 0;
+      while (entry < blockKeys.length || inserted < insertedEnd) {
+        if (inserted < insertedEnd && (entry == blockKeys.length
+            || compare(insertedKeys[inserted], insertedRows[inserted], blockKeys[entry], blockRows[entry]) < 0)) {
+          mergedKeys[merged] = insertedKeys[inserted];
+          mergedRows[merged++] = insertedRows[inserted++];
+        } else if (removed < removedEnd
+            && compare(removedKeys[removed], removedRows[removed], blockKeys[entry], blockRows[entry]) <= 0) {
+          if (removedKeys[removed] != blockKeys[entry] || removedRows[removed] != blockRows[entry]) {
+            throw new IllegalArgumentException("Removed row is not listed: " + removedRows[removed]);
+          }
+          removed++;
+          entry++;
+        } else {
+          mergedKeys[merged] = blockKeys[entry];
+          mergedRows[merged++] = blockRows[entry++];
+        }
+      }
+      if (removed != removedEnd) {
+        throw new IllegalArgumentException("Removed row is not listed: " + removedRows[removed]);
+      }
+      addBlocks(nextKeys, nextRows, mergedKeys, mergedRows);
+    }
+    if (removed != removedKeys.length) {
+      throw new IllegalArgumentException("Removed row is not listed: " + removedRows[removed]);
+    }
+    if (keys.length == 0) {
+      addBlocks(nextKeys, nextRows, insertedKeys, insertedRows);
+    }
+    return new SortedRows(nextKeys.toArray(new long[0][]), nextRows.toArray(new int[0][]));
+  }
+
+  // adds the merged entries of a block, split when it grew too large and left out when it became empty
+  private static void addBlocks(List<long[]> nextKeys, List<int[]> nextRows, long[] mergedKeys, int[] mergedRows) {
+    if (mergedKeys.length <= MAX_BLOCK_SIZE) {
+      if (mergedKeys.length > 0) {
+        nextKeys.add(mergedKeys);
+        nextRows.add(mergedRows);
+      }
+      return;
+    }
+    for (int from = 0; from < mergedKeys.length; from += BLOCK_SIZE) {
+      int to = Math.min(mergedKeys.length, from + BLOCK_SIZE);
+      nextKeys.add(Arrays.copyOfRange(mergedKeys, from, to));
+      nextRows.add(Arrays.copyOfRange(mergedRows, from, to));
+    }
+  }
+
+  private static int compare(long key, int row, long otherKey, int otherRow) {
+    int byKey = Long.compare(key, otherKey);
+    return byKey != 0 ? byKey : Integer.compare(row, otherRow);
+  }
+
+  private long lastKey(int block) {
+    return keys[block][keys[block].length - 1];
+  }
+
+  // the last block starting at or before the position
+  private int block(int position) {
+    if (position < 0 || position >= size()) {
+      throw new IndexOutOfBoundsException("Position is out of range: " + position);
+    }
+    int low = 0;
+    int high = keys.length - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (blockStarts[middle] <= position) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * The value a listing orders a row of a store by.
+   */
+  interface RowKey {
+
+    long of(CarStore cars, int row);
+  }
+
+  /**
+   * Entries to remove from and insert into a listing, added in ascending row order.
+   */
+  static final class Changes {
+
+    private final LongArrayList removedKeys = new LongArrayList();
+    private final IntArrayList removedRows = new IntArrayList();
+    private final LongArrayList insertedKeys = new LongArrayList();
+    private final IntArrayList insertedRows = new IntArrayList();
+
+    void remove(long key, int row) {
+      removedKeys.add(key);
+      removedRows.add(row);
+    }
+
+    void insert(long key, int row) {
+      insertedKeys.add(key);
+      insertedRows.add(row);
+    }
+
+    boolean isEmpty() {
+      return removedKeys.isEmpty() && insertedKeys.isEmpty();
+    }
+  }
+}
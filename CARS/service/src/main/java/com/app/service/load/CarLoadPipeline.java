@@ -0,0 +1,234 @@
+package com.app.service.load;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.app.model.Car;
+import com.app.service.enums.LoadStage;
+
+/**
+ * Loads cars in three concurrent stages: a single parser thread pulling from the source stream, a pool of
+ * validator workers, and the index stage running on the calling thread. The number of records in flight is
+ * bounded by the queue capacity, and the index stage receives valid cars in the original source order.
+ */
+public class CarLoadPipeline {
+
+  private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private final int validatorThreads;
+  private final int queueCapacity;
+
+  public CarLoadPipeline() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 2), DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public CarLoadPipeline(int validatorThreads, int queueCapacity) {
+    if (validatorThreads < 1) {
+      throw new IllegalArgumentException("Number of validator threads must be positive: " + validatorThreads);
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+    }
+    this.validatorThreads = validatorThreads;
+    this.queueCapacity = queueCapacity;
+  }
+
+  public LoadStatistics load(Supplier<Stream<Car>> source, Predicate<Car> validator, Consumer<Car> sink) {
+    return new Run(source, validator, sink).execute();
+  }
+
+  private static final class Record {
+
+    private static final Record END = new Record(-1, null);
+
+    private final long sequence;
+    private final Car car;
+    private boolean valid;
+    private Throwable failure;
+
+    private Record(long sequence, Car car) {
+      this.sequence = sequence;
+      this.car = car;
+    }
+
+    private static Record failure(Throwable failure) {
+      Record record = new Record(-1, null);
+      record.failure = failure;
+      return record;
+    }
+  }
+
+  private final class Run {
+
+    private final Supplier<Stream<Car>> source;
+    private final Predicate<Car> validator;
+    private final Consumer<Car> sink;
+
+    private final Semaphore inFlight = new Semaphore(queueCapacity);
+    private final BlockingQueue<Record> parsed = new ArrayBlockingQueue<>(queueCapacity + validatorThreads);
+    // in-flight records are capped by the semaphore, so putting into this queue never blocks a worker
+    private final BlockingQueue<Record> validated = new ArrayBlockingQueue<>(queueCapacity + validatorThreads + 1);
+    private final Record[] reorderWindow = new Record[queueCapacity];
+
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong validateNanos = new AtomicLong();
+    private long parsedRecords;
+    private long indexNanos;
+    private long loaded;
+    private long rejected;
+
+    private Run(Supplier<Stream<Car>> source, Predicate<Car> validator, Consumer<Car> sink) {
+      this.source = source;
+      this.validator = validator;
+      this.sink = sink;
+    }
+
+    private LoadStatistics execute() {
+      long start = System.nanoTime();
+      ExecutorService executor = Executors.newFixedThreadPool(validatorThreads + 1, new StageThreadFactory());
+      try {
+        executor.execute(this::parse);
+        for (int i = 0; i < validatorThreads; i++) {
+          executor.execute(this::validate);
+        }
+        index();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Loading cars was interrupted", e);
+      } finally {
+        executor.shutdownNow();
+      }
+      return createStatistics(System.nanoTime() - start);
+    }
+
+    private void parse() {
+      try (Stream<Car> cars = source.get()) {
+        Iterator<Car> iterator = cars.iterator();
+        long sequence = 0;
+        while (true) {
+          long parseStart = System.nanoTime();
+          if (!iterator.hasNext()) {
+            parseNanos.addAndGet(System.nanoTime() - parseStart);
+            break;
+          }
+          Car car = iterator.next();
+          parseNanos.addAndGet(System.nanoTime() - parseStart);
+
+          inFlight.acquire();
+          parsed.put(new Record(sequence++, car));
+        }
+        parsedRecords = sequence;
+        for (int i = 0; i < validatorThreads; i++) {
+          parsed.put(Record.END);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable e) {
+        validated.offer(Record.failure(e));
+      }
+    }
+
+    private void validate() {
+      try {
+        while (true) {
+          Record record = parsed.take();
+          if (record == Record.END) {
+            validated.put(Record.END);
+            return;
+          }
+          long validateStart = System.nanoTime();
+          record.valid = validator.test(record.car);
+          validateNanos.addAndGet(System.nanoTime() - validateStart);
+          validated.put(record);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable e) {
+        validated.offer(Record.failure(e));
+      }
+    }
+
+    private void index() throws InterruptedException {
+      long nextSequence = 0;
+      int finishedWorkers = 0;
+      while (finishedWorkers < validatorThreads) {
+        Record record = validated.take();
+        if (record.failure != null) {
+          throw asRuntimeException(record.failure);
+        }
+        if (record == Record.END) {
+          finishedWorkers++;
+          continue;
+        }
+
+        reorderWindow[slot(record.sequence)] = record;
+        Record next;
+        while ((next = reorderWindow[slot(nextSequence)]) != null && next.sequence == nextSequence) {
+          reorderWindow[slot(nextSequence)] = null;
+          insert(next);
+          nextSequence++;
+          inFlight.release();
+        }
+      }
+    }
+
+    private void insert(Record record) {
+      if (!record.valid) {
+        rejected++;
+        return;
+      }
+      long indexStart = System.nanoTime();
+      sink.accept(record.car);
+      indexNanos += System.nanoTime() - indexStart;
+      loaded++;
+    }
+
+    private int slot(long sequence) {
+      return (int) (sequence % queueCapacity);
+    }
+
+    private LoadStatistics createStatistics(long elapsedNanos) {
+      Map<LoadStage, StageStatistics> stages = new EnumMap<>(LoadStage.class);
+      stages.put(LoadStage.PARSE, new StageStatistics(LoadStage.PARSE, 1, parsedRecords, parseNanos.get()));
+      stages.put(LoadStage.VALIDATE,
+          new StageStatistics(LoadStage.VALIDATE, validatorThreads, parsedRecords, validateNanos.get()));
+      stages.put(LoadStage.INDEX, new StageStatistics(LoadStage.INDEX, 1, loaded, indexNanos));
+      return new LoadStatistics(stages, loaded, rejected, elapsedNanos);
+    }
+  }
+
+  private static RuntimeException asRuntimeException(Throwable failure) {
+    if (failure instanceof RuntimeException) {
+      return (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    return new IllegalStateException("Failed to load cars", failure);
+  }
+
+  private static final class StageThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "car-load-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.app.service.load;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.app.converter.CarsJsonConverter;
+import com.app.model.Car;
+import com.app.service.enums.LoadStage;
+
+/**
+ * Loads the JSON files of a directory, or the files matching a glob such as {@code inventory/dealer-*.json},
+ * as partitions of one set of cars. Every partition is named after its file and parsed and validated by its
+ * own task on a fork-join pool, while the sink receives the valid cars of one partition after another on the
+ * calling thread, in the order the partitions were given.
+ */
+public class CarPartitionLoader {
+
+  private static final String JSON_FILES = "*.json";
+
+  private final Path directory;
+  private final PathMatcher matcher;
+  private final ForkJoinPool pool;
+
+  /**
+   * Creates a loader parsing on the given pool, which is not shut down by the loader. The common pool is a poor
+   * choice, as its threads are blocked reading the files.
+   */
+  public CarPartitionLoader(String directoryOrGlob, ForkJoinPool pool) {
+    Optional.ofNullable(directoryOrGlob).orElseThrow(() -> new NullPointerException("Directory is null"));
+    this.pool = Optional.ofNullable(pool).orElseThrow(() -> new NullPointerException("Pool is null"));
+    Path path = Path.of(directoryOrGlob);
+    // a directory stands for all of its JSON files, anything else for a glob on file names
+    boolean isDirectory = Files.isDirectory(path);
+    this.directory = isDirectory ? path : Optional.ofNullable(path.getParent()).orElse(Path.of(""));
+    String glob = isDirectory ? JSON_FILES : path.getFileName().toString();
+    this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    if (!Files.isDirectory(directory)) {
+      throw new IllegalArgumentException("Directory does not exist: " + directory);
+    }
+  }
+
+  /**
+   * Returns the names of the partition files present now, sorted.
+   */
+  public List<String> listPartitions() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(Files::isRegularFile)
+          .map(Path::getFileName)
+          .filter(matcher::matches)
+          .map(Path::toString)
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to list " + directory, e);
+    }
+  }
+
+  /**
+   * Returns whether the name matches the partition files, whether or not the file exists.
+   */
+  public boolean isPartition(String partition) {
+    Path file = Path.of(partition);
+    return file.getNameCount() == 1 && matcher.matches(file);
+  }
+
+  public LoadStatistics load(Collection<String> partitions, Predicate<Car> validator,
+      BiConsumer<String, List<Car>> sink) {
+    long start = System.nanoTime();
+    LongAdder rejected = new LongAdder();
+    LongAdder parseNanos = new LongAdder();
+    List<String> names = new ArrayList<>(partitions);
+    List<Path> files = names.stream().map(this::resolve).collect(Collectors.toList());
+    List<ForkJoinTask<List<Car>>> tasks = new ArrayList<>(names.size());
+    for (int i = 0; i < names.size(); i++) {
+      String partition = names.get(i);
+      Path file = files.get(i);
+      tasks.add(pool.submit(() -> parse(partition, file, validator, rejected, parseNanos)));
+    }
+
+    long loaded = 0;
+    long indexNanos = 0;
+    try {
+      for (int i = 0; i < tasks.size(); i++) {
+        List<Car> cars = tasks.get(i).join();
+        // the partition is dropped once the sink took it, while later ones may still be parsed
+        tasks.set(i, null);
+        long indexStart = System.nanoTime();
+        sink.accept(names.get(i), cars);
+        indexNanos += System.nanoTime() - indexStart;
+        loaded += cars.size();
+      }
+    } catch (RuntimeException e) {
+      tasks.stream().filter(task -> task != null).forEach(task -> task.cancel(false));
+      throw e;
+    }
+
+    Map<LoadStage, StageStatistics> stages = new EnumMap<>(LoadStage.class);
+    // validation runs inside the parse tasks, so it is part of the parse stage
+    stages.put(LoadStage.PARSE, new StageStatistics(LoadStage.PARSE,
+        Math.max(1, Math.min(pool.getParallelism(), names.size())), loaded + rejected.sum(), parseNanos.sum()));
+    stages.put(LoadStage.INDEX, new StageStatistics(LoadStage.INDEX, 1, loaded, indexNanos));
+    return new LoadStatistics(stages, loaded, rejected.sum(), System.nanoTime() - start);
+  }
+
+  private static List<Car> parse(String partition, Path file, Predicate<Car> validator, LongAdder rejected,
+      LongAdder parseNanos) {
+    long start = System.nanoTime();
+    List<Car> cars = new ArrayList<>();
+    Predicate<Car> accepted = car -> {
+      if (validator.test(car)) {
+        return true;
+      }
+      rejected.increment();
+      return false;
+    };
+    // only accepted cars are interned, so names of rejected ones are dropped with them
+    try (Stream<Car> acceptedCars = new CarsJsonConverter(file.toString()).fromJsonStream(accepted)) {
+      acceptedCars.forEach(cars::add);
+    } catch (IllegalStateException e) {
+      throw new IllegalStateException("Failed to load partition " + partition, e);
+    }
+    parseNanos.add(System.nanoTime() - start);
+    return cars;
+  }
+
+  private Path resolve(String partition) {
+    if (!isPartition(partition)) {
+      throw new IllegalArgumentException("Partition is not valid: " + partition);
+    }
+    return directory.resolve(partition);
+  }
+}
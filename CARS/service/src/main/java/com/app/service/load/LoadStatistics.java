@@ -0,0 +1,66 @@
+package com.app.service.load;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.app.service.enums.LoadStage;
+
+public class LoadStatistics {
+
+  private final Map<LoadStage, StageStatistics> stages;
+  private final long loaded;
+  private final long rejected;
+  private final long elapsedNanos;
+
+  LoadStatistics(Map<LoadStage, StageStatistics> stages, long loaded, long rejected, long elapsedNanos) {
+    this.stages = Collections.unmodifiableMap(new EnumMap<>(stages));
+    this.loaded = loaded;
+    this.rejected = rejected;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns statistics of a load which did not go through the pipeline stages, such as opening a snapshot.
+   */
+  public static LoadStatistics of(long loaded, long elapsedNanos) {
+    return new LoadStatistics(new EnumMap<>(LoadStage.class), loaded, 0, elapsedNanos);
+  }
+
+  public StageStatistics getStage(LoadStage stage) {
+    return stages.get(stage);
+  }
+
+  public Collection<StageStatistics> getStages() {
+    return stages.values();
+  }
+
+  public long getLoaded() {
+    return loaded;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getRecordsPerSecond() {
+    if (elapsedNanos == 0) {
+      return 0;
+    }
+    return (loaded + rejected) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Loaded %d cars, rejected %d in %d ms (%.0f records/s)%n",
+        loaded, rejected, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getRecordsPerSecond()) +
+        stages.values().stream().map(StageStatistics::toString).collect(Collectors.joining("\n"));
+  }
+}
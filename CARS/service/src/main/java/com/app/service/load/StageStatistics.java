@@ -0,0 +1,54 @@
+package com.app.service.load;
+
+import java.util.concurrent.TimeUnit;
+
+import com.app.service.enums.LoadStage;
+
+public class StageStatistics {
+
+  private final LoadStage stage;
+  private final int threads;
+  private final long records;
+  private final long busyNanos;
+
+  StageStatistics(LoadStage stage, int threads, long records, long busyNanos) {
+    this.stage = stage;
+    this.threads = threads;
+    this.records = records;
+    this.busyNanos = busyNanos;
+  }
+
+  public LoadStage getStage() {
+    return stage;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  public long getBusyNanos() {
+    return busyNanos;
+  }
+
+  /**
+   * Records per second the stage processed while it was actually working, i.e. excluding the time its
+   * threads were blocked on the neighbouring queues. The lowest value points at the bottleneck stage.
+   */
+  public double getRecordsPerSecond() {
+    long stageNanos = busyNanos / threads;
+    if (stageNanos == 0) {
+      return 0;
+    }
+    return records * (double) TimeUnit.SECONDS.toNanos(1) / stageNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d records, %d thread(s), %.0f records/s",
+        stage, records, threads, getRecordsPerSecond());
+  }
+}
@@ -0,0 +1,209 @@
+package com.app.service.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.app.service.cache.ResultCache;
+import com.app.service.enums.Operation;
+import com.app.service.load.LoadStatistics;
+import com.app.service.load.StageStatistics;
+import com.app.validator.enums.ValidationRule;
+
+/**
+ * Call counts and latency histograms of every operation of one {@link com.app.service.CarService}, the
+ * statistics of its last load and the number of cars rejected per validation rule. All counters are striped
+ * or atomic, so recording never blocks and is cheap enough to stay enabled. The metrics can be read directly,
+ * as a plain-text {@link #dump()} or through JMX once {@link #registerMBeans(String)} was called.
+ */
+public class CarServiceMetrics implements CarServiceMetricsMBean {
+
+  private static final String DOMAIN = "com.app.service";
+
+  private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+  private final Map<ValidationRule, LongAdder> rejections = new EnumMap<>(ValidationRule.class);
+  private final IntSupplier cars;
+  private final LongSupplier version;
+  private final ResultCache resultCache;
+  private final List<ObjectName> registeredNames = new ArrayList<>();
+  private volatile LoadStatistics lastLoad;
+  private volatile boolean enabled = true;
+
+  public CarServiceMetrics(IntSupplier cars, LongSupplier version, ResultCache resultCache) {
+    this.cars = cars;
+    this.version = version;
+    this.resultCache = resultCache;
+    for (Operation operation : Operation.values()) {
+      operations.put(operation, new OperationMetrics(operation));
+    }
+    for (ValidationRule rule : ValidationRule.values()) {
+      rejections.put(rule, new LongAdder());
+    }
+  }
+
+  public void record(Operation operation, long nanos, boolean failed) {
+    operations.get(operation).record(nanos, failed);
+  }
+
+  /**
+   * Counts a rejected car once for every rule in the {@link ValidationRule#getMask() mask} of failed rules.
+   */
+  public void recordRejection(int failedRules) {
+    for (ValidationRule rule : ValidationRule.values()) {
+      if ((failedRules & rule.getMask()) != 0) {
+        rejections.get(rule).increment();
+      }
+    }
+  }
+
+  public void recordLoad(LoadStatistics loadStatistics) {
+    this.lastLoad = loadStatistics;
+  }
+
+  public OperationMetrics getOperation(Operation operation) {
+    return operations.get(operation);
+  }
+
+  public Collection<OperationMetrics> getOperations() {
+    return Collections.unmodifiableCollection(operations.values());
+  }
+
+  public long getRejections(ValidationRule rule) {
+    return rejections.get(rule).sum();
+  }
+
+  @Override
+  public int getCars() {
+    return cars.getAsInt();
+  }
+
+  @Override
+  public long getVersion() {
+    return version.getAsLong();
+  }
+
+  @Override
+  public long getLoadedCars() {
+    LoadStatistics load = lastLoad;
+    return load == null ? 0 : load.getLoaded();
+  }
+
+  @Override
+  public long getRejectedCars() {
+    LoadStatistics load = lastLoad;
+    return load == null ? 0 : load.getRejected();
+  }
+
+  @Override
+  public long getLoadMillis() {
+    LoadStatistics load = lastLoad;
+    return load == null ? 0 : TimeUnit.NANOSECONDS.toMillis(load.getElapsedNanos());
+  }
+
+  @Override
+  public Map<String, Long> getLoadStageMillis() {
+    Map<String, Long> stageMillis = new LinkedHashMap<>();
+    LoadStatistics load = lastLoad;
+    if (load != null) {
+      for (StageStatistics stage : load.getStages()) {
+        stageMillis.put(stage.getStage().name(), TimeUnit.NANOSECONDS.toMillis(stage.getBusyNanos()));
+      }
+    }
+    return stageMillis;
+  }
+
+  @Override
+  public Map<String, Long> getRejectionsByRule() {
+    Map<String, Long> rejectionsByRule = new LinkedHashMap<>();
+    rejections.forEach((rule, count) -> rejectionsByRule.put(rule.name(), count.sum()));
+    return rejectionsByRule;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public String dump() {
+    StringBuilder dump = new StringBuilder()
+        .append("cars=").append(getCars()).append(" version=").append(getVersion()).append('\n');
+    LoadStatistics load = lastLoad;
+    if (load != null) {
+      dump.append(load).append('\n');
+    }
+    dump.append("rejections=").append(getRejectionsByRule()).append('\n');
+    dump.append(resultCache).append('\n');
+    for (OperationMetrics operation : operations.values()) {
+      if (operation.getCount() > 0) {
+        dump.append(operation).append('\n');
+      }
+    }
+    return dump.toString();
+  }
+
+  @Override
+  public void reset() {
+    operations.values().forEach(OperationMetrics::reset);
+    rejections.values().forEach(LongAdder::reset);
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server as {@code com.app.service:type=CarService,name=<name>},
+   * with one MBean per operation and one for the result cache next to it.
+   */
+  public synchronized void registerMBeans(String name) {
+    if (!registeredNames.isEmpty()) {
+      throw new IllegalStateException("Metrics are registered already");
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName serviceName = new ObjectName(DOMAIN + ":type=CarService,name=" + ObjectName.quote(name));
+      server.registerMBean(this, serviceName);
+      registeredNames.add(serviceName);
+      for (OperationMetrics operation : operations.values()) {
+        ObjectName operationName = new ObjectName(DOMAIN + ":type=CarService,name=" + ObjectName.quote(name)
+            + ",operation=" + operation.getName());
+        server.registerMBean(operation, operationName);
+        registeredNames.add(operationName);
+      }
+      ObjectName cacheName = new ObjectName(DOMAIN + ":type=CarService,name=" + ObjectName.quote(name)
+          + ",component=resultCache");
+      server.registerMBean(resultCache, cacheName);
+      registeredNames.add(cacheName);
+    } catch (JMException e) {
+      unregisterMBeans();
+      throw new IllegalStateException("Failed to register metrics " + name, e);
+    }
+  }
+
+  public synchronized void unregisterMBeans() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName registeredName : registeredNames) {
+      try {
+        server.unregisterMBean(registeredName);
+      } catch (JMException e) {
+        // already gone, nothing left to clean up
+      }
+    }
+    registeredNames.clear();
+  }
+}
@@ -0,0 +1,38 @@
+package com.app.service.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link com.app.service.CarService}: its size, the last load and the rejected cars. The calls
+ * of every operation are registered as {@link OperationMetricsMBean}s next to it.
+ */
+public interface CarServiceMetricsMBean {
+
+  int getCars();
+
+  long getVersion();
+
+  long getLoadedCars();
+
+  long getRejectedCars();
+
+  long getLoadMillis();
+
+  /**
+   * Returns the busy time of every stage of the last load, e.g. PARSE, in milliseconds.
+   */
+  Map<String, Long> getLoadStageMillis();
+
+  /**
+   * Returns how many cars broke each validation rule, both when loaded and when added or updated.
+   */
+  Map<String, Long> getRejectionsByRule();
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  String dump();
+
+  void reset();
+}
@@ -0,0 +1,106 @@
+package com.app.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with log-linear buckets in the style of HdrHistogram: every
+ * power of two is split into 16 buckets, so a recorded value is reported with at most 1/16 relative error while
+ * the whole range of a long fits into 960 counters. Recording is one atomic increment plus striped counters for
+ * the total and the maximum, so concurrent callers hardly contend.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    totalNanos.add(value);
+    maxNanos.accumulate(value);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  public double getMeanNanos() {
+    long recorded = count.sum();
+    return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded;
+  }
+
+  /**
+   * Returns the highest value of the bucket holding the given percentile (0 to 100) of the recorded values, or
+   * 0 when nothing was recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long recorded = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      recorded += snapshot[bucket];
+    }
+    if (recorded == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * recorded));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+      if (seen >= rank) {
+        return Math.min(highestValue(bucket), getMaxNanos());
+      }
+    }
+    return getMaxNanos();
+  }
+
+  /**
+   * Clears the histogram; values recorded while it is being cleared may be partly kept.
+   */
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+    count.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+  }
+
+  // values below 16 get a bucket each, larger ones are bucketed by their 5 highest bits
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
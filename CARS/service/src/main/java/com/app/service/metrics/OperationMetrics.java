@@ -0,0 +1,93 @@
+package com.app.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.app.service.enums.Operation;
+
+public class OperationMetrics implements OperationMetricsMBean {
+
+  private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+  private final Operation operation;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder failures = new LongAdder();
+
+  OperationMetrics(Operation operation) {
+    this.operation = operation;
+  }
+
+  void record(long nanos, boolean failed) {
+    latencies.record(nanos);
+    if (failed) {
+      failures.increment();
+    }
+  }
+
+  public Operation getOperation() {
+    return operation;
+  }
+
+  public LatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+  @Override
+  public long getCount() {
+    return latencies.getCount();
+  }
+
+  @Override
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    return latencies.getMeanNanos() / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getMedianMicros() {
+    return latencies.getValueAtPercentile(50) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double get99thPercentileMicros() {
+    return latencies.getValueAtPercentile(99) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double get999thPercentileMicros() {
+    return latencies.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return latencies.getMaxNanos() / NANOS_PER_MICRO;
+  }
+
+  @Override
+  public void reset() {
+    latencies.reset();
+    failures.reset();
+  }
+
+  /**
+   * Returns the name of the {@link com.app.service.CarService} method, e.g. sortCarsByArgument.
+   */
+  public String getName() {
+    StringBuilder name = new StringBuilder();
+    for (String word : operation.name().toLowerCase().split("_")) {
+      name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+    }
+    return name.toString();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: count=%d failures=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+        getName(), getCount(), getFailures(), getMeanMicros(), getMedianMicros(), get99thPercentileMicros(),
+        get999thPercentileMicros(), getMaxMicros());
+  }
+}
@@ -0,0 +1,23 @@
+package com.app.service.metrics;
+
+/**
+ * JMX view of the calls of one {@link com.app.service.CarService} operation; durations are in microseconds.
+ */
+public interface OperationMetricsMBean {
+
+  long getCount();
+
+  long getFailures();
+
+  double getMeanMicros();
+
+  double getMedianMicros();
+
+  double get99thPercentileMicros();
+
+  double get999thPercentileMicros();
+
+  double getMaxMicros();
+
+  void reset();
+}
@@ -0,0 +1,149 @@
+package com.app.service.query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.app.model.Car;
+import com.app.service.store.CarStore;
+
+/**
+ * Lazily produces the cars of a query result from the dataset version it was opened on. Candidate rows are
+ * only filtered and materialized while the consumer pulls, so reading the first page of a large result costs
+ * about one page of work. {@link #getContinuationToken()} marks the point reached; a cursor opened later with
+ * that token continues from there, as long as the cars did not change in between.
+ */
+public class CarCursor implements Iterator<Car> {
+
+  private static final int TOKEN_BYTES = 2 * Long.BYTES + 3 * Integer.BYTES;
+
+  private final CarStore cars;
+  private final IntUnaryOperator rowAt;
+  private final int length;
+  private final IntPredicate filter;
+  private final long version;
+  private final long fingerprint;
+  // next candidate position to look at, matches still to skip for the offset and rows still allowed by the limit
+  private int position;
+  private int skip;
+  private int remaining;
+  // a row found by hasNext which was not returned yet, and the position it was found at
+  private int nextRow = -1;
+  private int nextRowPosition;
+
+  CarCursor(CarStore cars, IntUnaryOperator rowAt, int length, IntPredicate filter, long version, CarQuery query,
+      String continuationToken) {
+    this.cars = cars;
+    this.rowAt = rowAt;
+    this.length = length;
+    this.filter = filter;
+    this.version = version;
+    this.fingerprint = query.fingerprint();
+    if (continuationToken == null) {
+      this.skip = query.getOffset();
+      this.remaining = query.getLimit();
+    } else {
+      resume(continuationToken);
+    }
+  }
+
+  private void resume(String continuationToken) {
+    ByteBuffer token;
+    try {
+      token = ByteBuffer.wrap(Base64.getUrlDecoder().decode(continuationToken));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Continuation token is not valid: " + continuationToken, e);
+    }
+    if (token.remaining() != TOKEN_BYTES) {
+      throw new IllegalArgumentException("Continuation token is not valid: " + continuationToken);
+    }
+    long tokenVersion = token.getLong();
+    long tokenFingerprint = token.getLong();
+    position = token.getInt();
+    skip = token.getInt();
+    remaining = token.getInt();
+    if (tokenFingerprint != fingerprint || position < 0 || position > length || skip < 0 || remaining < 0) {
+      throw new IllegalArgumentException("Continuation token does not belong to this query: " + continuationToken);
+    }
+    if (tokenVersion != version) {
+      throw new StaleContinuationTokenException("Cars changed since the continuation token was issued");
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextRow != -1) {
+      return true;
+    }
+    if (remaining == 0) {
+      return false;
+    }
+    while (position < length) {
+      int candidatePosition = position++;
+      int row = rowAt.applyAsInt(candidatePosition);
+      if (filter.test(row)) {
+        if (skip > 0) {
+          skip--;
+        } else {
+          nextRow = row;
+          nextRowPosition = candidatePosition;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Car next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("Cursor has no more cars");
+    }
+    Car car = cars.getCar(nextRow);
+    nextRow = -1;
+    remaining--;
+    return car;
+  }
+
+  /**
+   * Returns up to {@code pageSize} of the following cars and the token of the page after them, if there is one.
+   */
+  public CarPage nextPage(int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+    }
+    List<Car> page = new ArrayList<>(Math.min(pageSize, 1024));
+    while (page.size() < pageSize && hasNext()) {
+      page.add(next());
+    }
+    return new CarPage(page, hasNext() ? getContinuationToken() : null);
+  }
+
+  /**
+   * Returns the remaining cars as a stream which pulls from this cursor, so short-circuiting operations such as
+   * {@code limit} or {@code findFirst} stop the cursor as well.
+   */
+  public Stream<Car> stream() {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  public String getContinuationToken() {
+    ByteBuffer token = ByteBuffer.allocate(TOKEN_BYTES)
+        .putLong(version)
+        .putLong(fingerprint)
+        .putInt(nextRow == -1 ? position : nextRowPosition)
+        .putInt(skip)
+        .putInt(remaining);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+  }
+}
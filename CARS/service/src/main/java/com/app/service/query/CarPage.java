@@ -0,0 +1,40 @@
+package com.app.service.query;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.app.model.Car;
+
+/**
+ * One page of a query result and the continuation token of the page after it.
+ */
+public class CarPage {
+
+  private final List<Car> cars;
+  private final String continuationToken;
+
+  CarPage(List<Car> cars, String continuationToken) {
+    this.cars = Collections.unmodifiableList(cars);
+    this.continuationToken = continuationToken;
+  }
+
+  public List<Car> getCars() {
+    return cars;
+  }
+
+  /**
+   * Returns the token to request the next page with, or null when this is the last page.
+   */
+  public String getContinuationToken() {
+    return continuationToken;
+  }
+
+  public boolean hasNextPage() {
+    return continuationToken != null;
+  }
+
+  @Override
+  public String toString() {
+    return cars.size() + " cars" + (hasNextPage() ? ", next page " + continuationToken : "");
+  }
+}
@@ -0,0 +1,329 @@
+package com.app.service.query;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.SortType;
+
+/**
+ * Immutable description of a search over the cars: any combination of filters, sort keys and a page. Filters
+ * which are not set do not restrict the result; a car has to pass all filters which are set. Without sort
+ * keys cars come in the order they were loaded. Queries are equal when they select the same cars in the same
+ * order; prices are compared by value, so 100 and 100.00 are the same bound.
+ */
+public class CarQuery {
+
+  private final Set<String> models;
+  private final Set<Color> colors;
+  private final BigDecimal minPrice;
+  private final BigDecimal maxPrice;
+  private final Long minMileage;
+  private final Long maxMileage;
+  private final Set<String> requiredComponents;
+  private final Set<String> wantedComponents;
+  private final Set<String> excludedComponents;
+  private final List<SortKey> sortKeys;
+  private final int offset;
+  private final int limit;
+
+  private CarQuery(CarQueryBuilder builder) {
+    this.models = Collections.unmodifiableSet(builder.models);
+    this.colors = Collections.unmodifiableSet(builder.colors);
+    this.minPrice = builder.minPrice;
+    this.maxPrice = builder.maxPrice;
+    this.minMileage = builder.minMileage;
+    this.maxMileage = builder.maxMileage;
+    this.requiredComponents = Collections.unmodifiableSet(builder.requiredComponents);
+    this.wantedComponents = Collections.unmodifiableSet(builder.wantedComponents);
+    this.excludedComponents = Collections.unmodifiableSet(builder.excludedComponents);
+    this.sortKeys = Collections.unmodifiableList(builder.sortKeys);
+    this.offset = builder.offset;
+    this.limit = builder.limit;
+  }
+
+  public static CarQueryBuilder builder() {
+    return new CarQueryBuilder();
+  }
+
+  /**
+   * Returns the models a car may have; empty when the model is not filtered.
+   */
+  public Set<String> getModels() {
+    return models;
+  }
+
+  /**
+   * Returns the colors a car may have; empty when the color is not filtered.
+   */
+  public Set<Color> getColors() {
+    return colors;
+  }
+
+  /**
+   * Returns the inclusive lower bound of the price or null when there is none.
+   */
+  public BigDecimal getMinPrice() {
+    return minPrice;
+  }
+
+  public BigDecimal getMaxPrice() {
+    return maxPrice;
+  }
+
+  public Long getMinMileage() {
+    return minMileage;
+  }
+
+  public Long getMaxMileage() {
+    return maxMileage;
+  }
+
+  /**
+   * Returns the components a car must all have.
+   */
+  public Set<String> getRequiredComponents() {
+    return requiredComponents;
+  }
+
+  /**
+   * Returns the components of which a car must have at least one; empty when not filtered.
+   */
+  public Set<String> getWantedComponents() {
+    return wantedComponents;
+  }
+
+  public Set<String> getExcludedComponents() {
+    return excludedComponents;
+  }
+
+  /**
+   * Returns the sort keys in order of significance; ties left by all keys are ordered as loaded.
+   */
+  public List<SortKey> getSortKeys() {
+    return sortKeys;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public boolean hasPriceRange() {
+    return minPrice != null || maxPrice != null;
+  }
+
+  public boolean hasMileageRange() {
+    return minMileage != null || maxMileage != null;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof CarQuery)) {
+      return false;
+    }
+    CarQuery query = (CarQuery) other;
+    return offset == query.offset && limit == query.limit
+        && models.equals(query.models)
+        && colors.equals(query.colors)
+        && samePrice(minPrice, query.minPrice)
+        && samePrice(maxPrice, query.maxPrice)
+        && Objects.equals(minMileage, query.minMileage)
+        && Objects.equals(maxMileage, query.maxMileage)
+        && requiredComponents.equals(query.requiredComponents)
+        && wantedComponents.equals(query.wantedComponents)
+        && excludedComponents.equals(query.excludedComponents)
+        && sortKeys.equals(query.sortKeys);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(models, colors, priceHash(minPrice), priceHash(maxPrice), minMileage, maxMileage,
+        requiredComponents, wantedComponents, excludedComponents, sortKeys, offset, limit);
+  }
+
+  /**
+   * Returns the first 64 bits of a SHA-256 digest of all fields, the same for equal queries in every JVM. A
+   * continuation token carries it to tell the query it belongs to.
+   */
+  long fingerprint() {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Failed to create query digest", e);
+    }
+    update(digest, models);
+    update(digest, colors.stream().map(Color::name).collect(Collectors.toList()));
+    update(digest, String.valueOf(minPrice == null ? null : minPrice.stripTrailingZeros()));
+    update(digest, String.valueOf(maxPrice == null ? null : maxPrice.stripTrailingZeros()));
+    update(digest, String.valueOf(minMileage));
+    update(digest, String.valueOf(maxMileage));
+    update(digest, requiredComponents);
+    update(digest, wantedComponents);
+    update(digest, excludedComponents);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(sortKeys.size()).array());
+    sortKeys.forEach(sortKey -> update(digest, sortKey.toString()));
+    digest.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(offset).putInt(limit).array());
+    return ByteBuffer.wrap(digest.digest()).getLong();
+  }
+
+  // sets are digested in sorted order, as their equality does not depend on the order
+  private static void update(MessageDigest digest, Collection<String> values) {
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(values.size()).array());
+    values.stream().sorted().forEach(value -> update(digest, value));
+  }
+
+  // every value is preceded by its length, so neighbouring values can not run into each other
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+
+  private static boolean samePrice(BigDecimal price, BigDecimal otherPrice) {
+    return price == null ? otherPrice == null : otherPrice != null && price.compareTo(otherPrice) == 0;
+  }
+
+  private static int priceHash(BigDecimal price) {
+    return price == null ? 0 : price.stripTrailingZeros().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder("CarQuery");
+    if (!models.isEmpty()) {
+      text.append(" models=").append(models);
+    }
+    if (!colors.isEmpty()) {
+      text.append(" colors=").append(colors);
+    }
+    if (hasPriceRange()) {
+      text.append(" price=[").append(minPrice).append(", ").append(maxPrice).append(']');
+    }
+    if (hasMileageRange()) {
+      text.append(" mileage=[").append(minMileage).append(", ").append(maxMileage).append(']');
+    }
+    if (!requiredComponents.isEmpty()) {
+      text.append(" all=").append(requiredComponents);
+    }
+    if (!wantedComponents.isEmpty()) {
+      text.append(" any=").append(wantedComponents);
+    }
+    if (!excludedComponents.isEmpty()) {
+      text.append(" none=").append(excludedComponents);
+    }
+    if (!sortKeys.isEmpty()) {
+      text.append(" sort=").append(sortKeys);
+    }
+    return text.append(" offset=").append(offset).append(" limit=").append(limit).toString();
+  }
+
+  public static class CarQueryBuilder {
+
+    private final Set<String> models = new LinkedHashSet<>();
+    private final Set<Color> colors = EnumSet.noneOf(Color.class);
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Long minMileage;
+    private Long maxMileage;
+    private final Set<String> requiredComponents = new LinkedHashSet<>();
+    private final Set<String> wantedComponents = new LinkedHashSet<>();
+    private final Set<String> excludedComponents = new LinkedHashSet<>();
+    private final List<SortKey> sortKeys = new ArrayList<>();
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    public CarQuery build() {
+      if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+        throw new IllegalArgumentException("Min price is greater than max price");
+      }
+      if (minMileage != null && maxMileage != null && minMileage > maxMileage) {
+        throw new IllegalArgumentException("Min mileage is greater than max mileage");
+      }
+      return new CarQuery(this);
+    }
+
+    public CarQueryBuilder models(String... models) {
+      this.models.addAll(List.of(models));
+      return this;
+    }
+
+    public CarQueryBuilder colors(Color... colors) {
+      this.colors.addAll(List.of(colors));
+      return this;
+    }
+
+    /**
+     * Restricts the price to the closed range; a null bound leaves that side open.
+     */
+    public CarQueryBuilder price(BigDecimal minPrice, BigDecimal maxPrice) {
+      this.minPrice = minPrice;
+      this.maxPrice = maxPrice;
+      return this;
+    }
+
+    public CarQueryBuilder mileage(Long minMileage, Long maxMileage) {
+      this.minMileage = minMileage;
+      this.maxMileage = maxMileage;
+      return this;
+    }
+
+    public CarQueryBuilder withAllComponents(String... components) {
+      requiredComponents.addAll(List.of(components));
+      return this;
+    }
+
+    public CarQueryBuilder withAnyComponent(String... components) {
+      wantedComponents.addAll(List.of(components));
+      return this;
+    }
+
+    public CarQueryBuilder withoutComponents(String... components) {
+      excludedComponents.addAll(List.of(components));
+      return this;
+    }
+
+    /**
+     * Adds a sort key, less significant than the keys added before.
+     */
+    public CarQueryBuilder sortBy(SortType sortType, boolean descending) {
+      sortKeys.add(new SortKey(sortType, descending));
+      return this;
+    }
+
+    public CarQueryBuilder offset(int offset) {
+      if (offset < 0) {
+        throw new IllegalArgumentException("Offset must not be negative: " + offset);
+      }
+      this.offset = offset;
+      return this;
+    }
+
+    public CarQueryBuilder limit(int limit) {
+      if (limit < 0) {
+        throw new IllegalArgumentException("Limit must not be negative: " + limit);
+      }
+      this.limit = limit;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.app.service.query;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.SortType;
+
+/**
+ * Reads a {@link CarQuery} from textual name=value parameters, as they come from a URL query string or a line
+ * of a script. Lists are comma separated and names of enums are case insensitive:
+ * {@code models=BMW,MAZDA colors=black minPrice=100 maxMileage=5000 withAll=ABS withAny=ESP,RADIO
+ * without=SUNROOF sort=price:desc,model offset=20 limit=10}.
+ */
+public final class CarQueryParameters {
+
+  private CarQueryParameters() {
+  }
+
+  public static CarQuery toQuery(Map<String, String> parameters) {
+    Optional.ofNullable(parameters).orElseThrow(() -> new NullPointerException("Parameters are null"));
+    CarQuery.CarQueryBuilder builder = CarQuery.builder();
+    BigDecimal minPrice = null;
+    BigDecimal maxPrice = null;
+    Long minMileage = null;
+    Long maxMileage = null;
+    for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+      String value = parameter.getValue().strip();
+      switch (parameter.getKey()) {
+        case "models":
+          builder.models(split(value));
+          break;
+        case "colors":
+          builder.colors(Arrays.stream(split(value)).map(color -> toEnum(Color.class, color)).toArray(Color[]::new));
+          break;
+        case "minPrice":
+          minPrice = toNumber(parameter.getKey(), value, BigDecimal::new);
+          break;
+        case "maxPrice":
+          maxPrice = toNumber(parameter.getKey(), value, BigDecimal::new);
+          break;
+        case "minMileage":
+          minMileage = toNumber(parameter.getKey(), value, Long::valueOf);
+          break;
+        case "maxMileage":
+          maxMileage = toNumber(parameter.getKey(), value, Long::valueOf);
+          break;
+        case "withAll":
+          builder.withAllComponents(split(value));
+          break;
+        case "withAny":
+          builder.withAnyComponent(split(value));
+          break;
+        case "without":
+          builder.withoutComponents(split(value));
+          break;
+        case "sort":
+          for (String sortKey : split(value)) {
+            String[] parts = sortKey.split(":", 2);
+            if (parts.length == 2 && !parts[1].equalsIgnoreCase("asc") && !parts[1].equalsIgnoreCase("desc")) {
+              throw new IllegalArgumentException("Sort direction is not valid: " + sortKey);
+            }
+            builder.sortBy(toEnum(SortType.class, parts[0]), parts.length == 2 && parts[1].equalsIgnoreCase("desc"));
+          }
+          break;
+        case "offset":
+          builder.offset(toNumber(parameter.getKey(), value, Integer::valueOf));
+          break;
+        case "limit":
+          builder.limit(toNumber(parameter.getKey(), value, Integer::valueOf));
+          break;
+        default:
+          throw new IllegalArgumentException("Parameter is not supported: " + parameter.getKey());
+      }
+    }
+    return builder.price(minPrice, maxPrice).mileage(minMileage, maxMileage).build();
+  }
+
+  private static String[] split(String value) {
+    return Arrays.stream(value.split(",")).map(String::strip).filter(item -> !item.isEmpty()).toArray(String[]::new);
+  }
+
+  private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+    try {
+      return Enum.valueOf(type, name.strip().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(type.getSimpleName() + " is not valid: " + name, e);
+    }
+  }
+
+  private static <N> N toNumber(String name, String value, Function<String, N> parser) {
+    try {
+      return parser.apply(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value, e);
+    }
+  }
+}
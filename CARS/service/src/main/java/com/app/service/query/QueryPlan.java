@@ -0,0 +1,31 @@
+package com.app.service.query;
+
+import com.app.service.enums.AccessPath;
+
+/**
+ * The access path a {@link QueryPlanner} chose for a query and the number of rows it expects to read from it.
+ * All filters are checked on those rows in a single pass.
+ */
+public class QueryPlan {
+
+  private final AccessPath accessPath;
+  private final int estimatedRows;
+
+  QueryPlan(AccessPath accessPath, int estimatedRows) {
+    this.accessPath = accessPath;
+    this.estimatedRows = estimatedRows;
+  }
+
+  public AccessPath getAccessPath() {
+    return accessPath;
+  }
+
+  public int getEstimatedRows() {
+    return estimatedRows;
+  }
+
+  @Override
+  public String toString() {
+    return accessPath + " (" + estimatedRows + " rows)";
+  }
+}
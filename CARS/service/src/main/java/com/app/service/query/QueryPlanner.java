@@ -0,0 +1,380 @@
+package com.app.service.query;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntUnaryOperator;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.AccessPath;
+import com.app.service.enums.SortType;
+import com.app.service.index.AttributeIndex;
+import com.app.service.index.ComponentIndex;
+import com.app.service.index.CompressedBitmap;
+import com.app.service.index.RangeIndex;
+import com.app.service.index.SortIndex;
+import com.app.service.store.CarStore;
+import com.app.service.store.PriceRange;
+import com.app.service.store.RowSorter;
+
+/**
+ * Executes {@link CarQuery}s over one {@link CarStore}. The planner estimates how many rows each index usable
+ * for the query would return and reads the smallest candidate set; every filter is then checked on the
+ * columns of those rows in a single pass. Matching rows are sorted by all sort keys at once with stable
+ * primitive sorts, starting from the least significant key. {@link #cursor} produces the same result lazily.
+ */
+public class QueryPlanner {
+
+  private static final int COLORS = Color.values().length;
+
+  private final CarStore cars;
+  private final AttributeIndex modelIndex;
+  private final AttributeIndex colorIndex;
+  private final ComponentIndex componentIndex;
+  private final RangeIndex priceIndex;
+  private final RangeIndex mileageIndex;
+  private final SortIndex sortIndex;
+
+  public QueryPlanner(CarStore cars, AttributeIndex modelIndex, AttributeIndex colorIndex,
+      ComponentIndex componentIndex, RangeIndex priceIndex, RangeIndex mileageIndex, SortIndex sortIndex) {
+    this.cars = cars;
+    this.modelIndex = modelIndex;
+    this.colorIndex = colorIndex;
+    this.componentIndex = componentIndex;
+    this.priceIndex = priceIndex;
+    this.mileageIndex = mileageIndex;
+    this.sortIndex = sortIndex;
+  }
+
+  public QueryPlan plan(CarQuery query) {
+    QueryPlan plan = new QueryPlan(AccessPath.FULL_SCAN, cars.size());
+    if (!query.getModels().isEmpty()) {
+      int rows = 0;
+      for (String model : query.getModels()) {
+        int modelId = cars.getModelDictionary().find(model);
+        rows += modelId == -1 ? 0 : modelIndex.count(modelId);
+      }
+      plan = cheaper(plan, AccessPath.MODEL_INDEX, rows);
+    }
+    if (!query.getColors().isEmpty()) {
+      int rows = 0;
+      for (Color color : query.getColors()) {
+        rows += colorIndex.count(color.ordinal());
+      }
+      plan = cheaper(plan, AccessPath.COLOR_INDEX, rows);
+    }
+    if (!query.getRequiredComponents().isEmpty()) {
+      int rows = cars.size();
+      for (String component : query.getRequiredComponents()) {
+        rows = Math.min(rows, componentIndex.rowsWith(component).cardinality());
+      }
+      plan = cheaper(plan, AccessPath.COMPONENT_INDEX, rows);
+    }
+    if (query.hasPriceRange()) {
+      PriceRange priceRange = priceRange(query);
+      plan = cheaper(plan, AccessPath.PRICE_INDEX,
+          priceIndex.count(priceRange.getMinScaledPrice(), priceRange.getMaxScaledPrice()));
+    }
+    if (query.hasMileageRange()) {
+      plan = cheaper(plan, AccessPath.MILEAGE_INDEX, mileageIndex.count(minMileage(query), maxMileage(query)));
+    }
+    return plan;
+  }
+
+  private static QueryPlan cheaper(QueryPlan plan, AccessPath accessPath, int rows) {
+    return rows < plan.getEstimatedRows() ? new QueryPlan(accessPath, rows) : plan;
+  }
+
+  /**
+   * Returns the rows of the requested page of the query result.
+   */
+  public int[] execute(CarQuery query) {
+    // unsorted results read in row order are complete once the requested page is filled
+    int[] rows = matchingRows(query, (long) query.getOffset() + query.getLimit());
+    int from = Math.min(query.getOffset(), rows.length);
+    int to = (int) Math.min((long) from + query.getLimit(), rows.length);
+    return Arrays.copyOfRange(rows, from, to);
+  }
+
+  /**
+   * Opens a cursor over the query result of the given dataset version, from the start of the page the query
+   * asks for or from where an earlier cursor's continuation token left off. Without sort keys or with a
+   * single one, candidate rows are filtered only while the cursor is pulled; several sort keys need all
+   * matching rows up front, but cars are still only materialized when pulled.
+   */
+  public CarCursor cursor(CarQuery query, long version, String continuationToken) {
+    RowFilter filter = new RowFilter(query);
+    if (filter.isEmpty()) {
+      return new CarCursor(cars, position -> -1, 0, row -> false, version, query, continuationToken);
+    }
+    if (query.getSortKeys().size() > 1) {
+      int[] rows = matchingRows(query, Long.MAX_VALUE);
+      return new CarCursor(cars, position -> rows[position], rows.length, row -> true, version, query,
+          continuationToken);
+    }
+    if (query.getSortKeys().size() == 1) {
+      SortKey sortKey = query.getSortKeys().get(0);
+      IntUnaryOperator rowAt = sortKey.isDescending()
+          ? new DescendingRows(sortKey.getSortType())
+          : position -> sortIndex.row(sortKey.getSortType(), false, position);
+      return new CarCursor(cars, rowAt, cars.size(), filter::test, version, query, continuationToken);
+    }
+
+    AccessPath accessPath = plan(query).getAccessPath();
+    if (accessPath == AccessPath.FULL_SCAN) {
+      return new CarCursor(cars, position -> position, cars.getRowCount(), filter::test, version, query,
+          continuationToken);
+    }
+    int[] rows = candidateRowsInRowOrder(accessPath, query);
+    return new CarCursor(cars, position -> rows[position], rows.length, filter::test, version, query,
+        continuationToken);
+  }
+
+  // all matching rows in result order, stopping after wantedRows matches if no sorting is needed
+  private int[] matchingRows(CarQuery query, long wantedRows) {
+    RowFilter filter = new RowFilter(query);
+    if (filter.isEmpty()) {
+      return new int[0];
+    }
+    QueryPlan plan = plan(query);
+    long limit = query.getSortKeys().isEmpty() ? wantedRows : Long.MAX_VALUE;
+    IntArrayList matchingRows = new IntArrayList();
+    if (plan.getAccessPath() == AccessPath.FULL_SCAN) {
+      for (int row = 0; row < cars.getRowCount() && matchingRows.size() < limit; row++) {
+        if (filter.test(row)) {
+          matchingRows.add(row);
+        }
+      }
+    } else {
+      for (int row : candidateRowsInRowOrder(plan.getAccessPath(), query)) {
+        if (matchingRows.size() >= limit) {
+          break;
+        }
+        if (filter.test(row)) {
+          matchingRows.add(row);
+        }
+      }
+    }
+
+    int[] rows = matchingRows.toArray();
+    for (int i = query.getSortKeys().size() - 1; i >= 0; i--) {
+      rows = sortRows(rows, query.getSortKeys().get(i));
+    }
+    return rows;
+  }
+
+  private int[] candidateRowsInRowOrder(AccessPath accessPath, CarQuery query) {
+    int[] rows = candidateRows(accessPath, query);
+    boolean inRowOrder = accessPath != AccessPath.PRICE_INDEX && accessPath != AccessPath.MILEAGE_INDEX;
+    return inRowOrder ? rows : RowSorter.sortRows(rows, cars.getRowCount());
+  }
+
+  private int[] candidateRows(AccessPath accessPath, CarQuery query) {
+    switch (accessPath) {
+      case MODEL_INDEX: {
+        CompressedBitmap rows = CompressedBitmap.empty();
+        for (String model : query.getModels()) {
+          int modelId = cars.getModelDictionary().find(model);
+          if (modelId != -1) {
+            rows = rows.or(modelIndex.rowsWith(modelId));
+          }
+        }
+        return rows.toArray();
+      }
+      case COLOR_INDEX: {
+        CompressedBitmap rows = CompressedBitmap.empty();
+        for (Color color : query.getColors()) {
+          rows = rows.or(colorIndex.rowsWith(color.ordinal()));
+        }
+        return rows.toArray();
+      }
+      case COMPONENT_INDEX:
+        return componentIndex.rowsWithAll(query.getRequiredComponents()).toArray();
+      case PRICE_INDEX: {
+        PriceRange priceRange = priceRange(query);
+        return priceIndex.rows(priceRange.getMinScaledPrice(), priceRange.getMaxScaledPrice());
+      }
+      case MILEAGE_INDEX:
+        return mileageIndex.rows(minMileage(query), maxMileage(query));
+      default:
+        throw new IllegalArgumentException("Access path is not supported: " + accessPath);
+    }
+  }
+
+  private int[] sortRows(int[] rows, SortKey sortKey) {
+    switch (sortKey.getSortType()) {
+      case MODEL: {
+        int models = cars.getModelDictionary().size();
+        int[] ranks = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+          int rank = cars.getModelRank(cars.getModelId(rows[i]));
+          ranks[i] = sortKey.isDescending() ? models - 1 - rank : rank;
+        }
+        return RowSorter.sortByRank(rows, ranks, models);
+      }
+      case COLOR: {
+        int[] ranks = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+          int rank = cars.getColorOrdinal(rows[i]);
+          ranks[i] = sortKey.isDescending() ? COLORS - 1 - rank : rank;
+        }
+        return RowSorter.sortByRank(rows, ranks, COLORS);
+      }
+      case PRICE:
+      case MILEAGE: {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+          long key = sortKey.getSortType() == SortType.PRICE
+              ? cars.getScaledPrice(rows[i])
+              : cars.getMileage(rows[i]);
+          // bitwise complement reverses the order without overflowing
+          keys[i] = sortKey.isDescending() ? ~key : key;
+        }
+        RowSorter.sortByKey(rows, keys);
+        return rows;
+      }
+      default:
+        throw new IllegalArgumentException("Sort type is not supported: " + sortKey.getSortType());
+    }
+  }
+
+  private static PriceRange priceRange(CarQuery query) {
+    return PriceRange.of(query.getMinPrice(), query.getMaxPrice());
+  }
+
+  private static long minMileage(CarQuery query) {
+    return query.getMinMileage() == null ? Long.MIN_VALUE : query.getMinMileage();
+  }
+
+  private static long maxMileage(CarQuery query) {
+    return query.getMaxMileage() == null ? Long.MAX_VALUE : query.getMaxMileage();
+  }
+
+  private boolean sameKey(SortType sortType, int row, int otherRow) {
+    switch (sortType) {
+      case MODEL:
+        return cars.getModelId(row) == cars.getModelId(otherRow);
+      case COLOR:
+        return cars.getColorOrdinal(row) == cars.getColorOrdinal(otherRow);
+      case PRICE:
+        return cars.getScaledPrice(row) == cars.getScaledPrice(otherRow);
+      case MILEAGE:
+        return cars.getMileage(row) == cars.getMileage(otherRow);
+      default:
+        throw new IllegalArgumentException("Sort type is not supported: " + sortType);
+    }
+  }
+
+  /*
+   * Walks the ascending permutation of the sort index backwards, but keeps rows with equal keys in row order
+   * as the stable sort of execute does. The run of equal keys around the current position is looked up once
+   * and reused while the walk stays inside it.
+   */
+  private class DescendingRows implements IntUnaryOperator {
+
+    private final SortType sortType;
+    private int runStart = 0;
+    private int runEnd = -1;
+
+    DescendingRows(SortType sortType) {
+      this.sortType = sortType;
+    }
+
+    @Override
+    public int applyAsInt(int position) {
+      int last = cars.size() - 1;
+      int ascendingPosition = last - position;
+      if (ascendingPosition < runStart || ascendingPosition > runEnd) {
+        int row = ascendingRow(ascendingPosition);
+        runStart = ascendingPosition;
+        while (runStart > 0 && sameKey(sortType, ascendingRow(runStart - 1), row)) {
+          runStart--;
+        }
+        runEnd = ascendingPosition;
+        while (runEnd < last && sameKey(sortType, ascendingRow(runEnd + 1), row)) {
+          runEnd++;
+        }
+      }
+      return ascendingRow(runStart + position - (last - runEnd));
+    }
+
+    private int ascendingRow(int ascendingPosition) {
+      return sortIndex.row(sortType, false, ascendingPosition);
+    }
+  }
+
+  // all filters of a query compiled against the columns of the store
+  private class RowFilter {
+
+    private final boolean[] models;
+    private final int colors;
+    // null when the price is not filtered
+    private final PriceRange priceRange;
+    private final long minMileage;
+    private final long maxMileage;
+    private final int[] requiredComponents;
+    private final int[] wantedComponents;
+    private final int[] excludedComponents;
+    private final boolean empty;
+
+    RowFilter(CarQuery query) {
+      boolean anyModel = false;
+      if (query.getModels().isEmpty()) {
+        this.models = null;
+      } else {
+        this.models = new boolean[cars.getModelDictionary().size()];
+        for (String model : query.getModels()) {
+          int modelId = cars.getModelDictionary().find(model);
+          if (modelId != -1) {
+            models[modelId] = true;
+            anyModel = true;
+          }
+        }
+      }
+      int colorMask = 0;
+      for (Color color : query.getColors()) {
+        colorMask |= 1 << color.ordinal();
+      }
+      this.colors = colorMask;
+      this.priceRange = query.hasPriceRange() ? priceRange(query) : null;
+      this.minMileage = QueryPlanner.minMileage(query);
+      this.maxMileage = QueryPlanner.maxMileage(query);
+      this.requiredComponents = componentIds(query.getRequiredComponents());
+      this.wantedComponents = componentIds(query.getWantedComponents());
+      this.excludedComponents = componentIds(query.getExcludedComponents());
+
+      // filters on values no car has can not match anything
+      this.empty = models != null && !anyModel
+          || requiredComponents != null && !allKnown(query.getRequiredComponents())
+          || wantedComponents != null && wantedComponents.length == 0
+          || priceRange != null && priceRange.isEmpty() || minMileage > maxMileage;
+    }
+
+    private int[] componentIds(Collection<String> components) {
+      return components.isEmpty() ? null : cars.toComponentIds(components);
+    }
+
+    private boolean allKnown(Collection<String> components) {
+      return components.stream().allMatch(component -> cars.getComponentDictionary().find(component) != -1);
+    }
+
+    boolean isEmpty() {
+      return empty;
+    }
+
+    boolean test(int row) {
+      if (cars.isRemoved(row)) {
+        return false;
+      }
+      long mileage = cars.getMileage(row);
+      return (models == null || models[cars.getModelId(row)])
+          && (colors == 0 || (colors & 1 << cars.getColorOrdinal(row)) != 0)
+          && (priceRange == null || priceRange.contains(cars, row))
+          && mileage >= minMileage && mileage <= maxMileage
+          && (requiredComponents == null || cars.hasAllComponents(row, requiredComponents))
+          && (wantedComponents == null || cars.hasAnyComponent(row, wantedComponents))
+          && (excludedComponents == null || !cars.hasAnyComponent(row, excludedComponents));
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.app.service.query;
+
+import java.util.Optional;
+
+import com.app.service.enums.SortType;
+
+public class SortKey {
+
+  private final SortType sortType;
+  private final boolean descending;
+
+  public SortKey(SortType sortType, boolean descending) {
+    this.sortType = Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+    this.descending = descending;
+  }
+
+  public SortType getSortType() {
+    return sortType;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof SortKey)) {
+      return false;
+    }
+    SortKey key = (SortKey) other;
+    return sortType == key.sortType && descending == key.descending;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * sortType.hashCode() + Boolean.hashCode(descending);
+  }
+
+  @Override
+  public String toString() {
+    return sortType + (descending ? " DESC" : " ASC");
+  }
+}
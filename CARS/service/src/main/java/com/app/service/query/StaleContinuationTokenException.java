@@ -0,0 +1,14 @@
+package com.app.service.query;
+
+/**
+ * Thrown when a continuation token is used after the cars it was issued on changed, so the cursor can not
+ * continue where it stopped and the query has to be started again.
+ */
+public class StaleContinuationTokenException extends IllegalStateException {
+
+  private static final long serialVersionUID = 1L;
+
+  public StaleContinuationTokenException(String message) {
+    super(message);
+  }
+}
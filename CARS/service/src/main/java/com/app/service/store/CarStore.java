@@ -0,0 +1,754 @@
+package com.app.service.store;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+
+import com.app.converter.CarSnapshot;
+import com.app.model.Car;
+import com.app.model.dictionary.StringDictionary;
+import com.app.model.enums.Color;
+
+/**
+ * Column oriented, read-only storage of cars. Every car is a row number, and each attribute is kept in its own
+ * primitive column: prices as longs scaled by {@link #PRICE_SCALE} digits, colors as {@link Color} ordinals,
+ * and models and components as ids of a {@link StringDictionary}. The components of a row are kept once, as
+ * the list of their ids in load order, so a row costs an int per component whatever the number of distinct
+ * components; membership tests scan these few ids and the lexicographic order comes from the dictionary ranks.
+ * {@link Car} objects are only created when a row is {@link #getCar(int) materialized}.
+ * <p>
+ * A price with more fraction digits than {@link #PRICE_SCALE}, or too large for a long once scaled, is held
+ * rounded down and clamped in the price column and kept as it is in a side column of its chunk, so every car
+ * comes back with the price it was added with. Sort orders and sums take the price column as it is, while
+ * {@link PriceRange price ranges} check such a price exactly.
+ * <p>
+ * Rows are stored in chunks of 4096. A store is never changed: {@link #toBuilder()} creates the next version,
+ * which shares every chunk without a changed row and the dictionaries as long as no new string is added.
+ * Updated rows keep their number, inserted rows are appended and removed rows stay as gaps skipped by every
+ * reader, until {@link #compact()} renumbers the remaining rows. A store {@link #of(CarSnapshot) opened} from a
+ * snapshot reads its chunks straight from the mapped file.
+ * <p>
+ * Every row also belongs to a partition, the file it was loaded from, which keeps its id when the row is
+ * updated or the store compacted. Rows added without one are in partition 0, and chunks whose rows all are
+ * keep no partition column at all.
+ */
+public class CarStore {
+
+  public static final int PRICE_SCALE = 4;
+
+  private static final Color[] COLORS = Color.values();
+
+  private final StoreChunk[] chunks;
+  // the chunks not held in the array yet when the store was opened from a snapshot, otherwise null
+  private final SnapshotChunks snapshotChunks;
+  private final int rowCount;
+  private final int removedCount;
+  private final StringDictionary modelDictionary;
+  private final StringDictionary componentDictionary;
+  private final int[] modelRanks;
+  private final int[] componentRanks;
+  private final String[] componentsByRank;
+
+  private CarStore(StoreChunk[] chunks, SnapshotChunks snapshotChunks, int rowCount, int removedCount,
+      StringDictionary modelDictionary, StringDictionary componentDictionary, CarStore previous) {
+    this.chunks = chunks;
+    this.snapshotChunks = snapshotChunks;
+    this.rowCount = rowCount;
+    this.removedCount = removedCount;
+    this.modelDictionary = modelDictionary;
+    this.componentDictionary = componentDictionary;
+
+    // ranks only change when a dictionary got new strings
+    if (previous != null && previous.modelDictionary == modelDictionary) {
+      this.modelRanks = previous.modelRanks;
+    } else {
+      this.modelRanks = modelDictionary.ranks();
+    }
+    if (previous != null && previous.componentDictionary == componentDictionary) {
+      this.componentRanks = previous.componentRanks;
+      this.componentsByRank = previous.componentsByRank;
+    } else {
+      this.componentRanks = componentDictionary.ranks();
+      this.componentsByRank = new String[componentRanks.length];
+      for (int component = 0; component < componentRanks.length; component++) {
+        componentsByRank[componentRanks[component]] = componentDictionary.decode(component);
+      }
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder(new StringDictionary(), new StringDictionary());
+  }
+
+  /**
+   * Creates a store over the columns of a binary snapshot without reading its rows. The cars are not validated
+   * again; each section of the file is verified against its checksum when one of its rows is first read.
+   */
+  public static CarStore of(CarSnapshot snapshot) {
+    if (snapshot.getPriceScale() != PRICE_SCALE) {
+      throw new IllegalStateException("Snapshot prices have " + snapshot.getPriceScale()
+          + " fraction digits instead of " + PRICE_SCALE);
+    }
+    SnapshotChunks snapshotChunks = new SnapshotChunks(snapshot);
+    return new CarStore(new StoreChunk[snapshotChunks.size()], snapshotChunks, snapshot.size(), 0,
+        StringDictionary.of(snapshot.getModelDictionary()), StringDictionary.of(snapshot.getComponentDictionary()),
+        null);
+  }
+
+  /**
+   * Returns the number of cars, which leaves out removed rows.
+   */
+  public int size() {
+    return rowCount - removedCount;
+  }
+
+  /**
+   * Returns the number of rows including removed ones; every row number is below it.
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getRemovedCount() {
+    return removedCount;
+  }
+
+  /**
+   * Tells whether the row number exists in this version and is not removed.
+   */
+  public boolean contains(int row) {
+    return row >= 0 && row < rowCount && !isRemoved(row);
+  }
+
+  public boolean isRemoved(int row) {
+    return chunk(row).isRemoved(row & StoreChunk.MASK);
+  }
+
+  /**
+   * Returns the numbers of all rows which are not removed, in ascending order.
+   */
+  public int[] rows() {
+    int[] rows = new int[size()];
+    int size = 0;
+    for (int row = 0; row < rowCount; row++) {
+      if (!isRemoved(row)) {
+        rows[size++] = row;
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the numbers of the rows of the partition which are not removed, in ascending order.
+   */
+  public int[] rows(int partition) {
+    IntArrayList rows = new IntArrayList();
+    for (int row = 0; row < rowCount; row++) {
+      if (!isRemoved(row) && getPartition(row) == partition) {
+        rows.add(row);
+      }
+    }
+    return rows.toArray();
+  }
+
+  public int getPartition(int row) {
+    StoreChunk chunk = chunk(row);
+    return chunk.partitions == null ? 0 : chunk.partitions.get(row & StoreChunk.MASK);
+  }
+
+  public long getScaledPrice(int row) {
+    return chunk(row).prices.get(row & StoreChunk.MASK);
+  }
+
+  /**
+   * Returns the price of the row as it was added, including any digits the price column does not hold.
+   */
+  public BigDecimal getPrice(int row) {
+    BigDecimal exactPrice = getExactPrice(row);
+    if (exactPrice != null) {
+      return exactPrice;
+    }
+    return BigDecimal.valueOf(getScaledPrice(row), PRICE_SCALE)
+        .setScale(chunk(row).priceScales.get(row & StoreChunk.MASK), RoundingMode.UNNECESSARY);
+  }
+
+  // the price of the row if the price column does not hold it exactly, otherwise null
+  private BigDecimal getExactPrice(int row) {
+    BigDecimal[] exactPrices = chunk(row).exactPrices;
+    return exactPrices == null ? null : exactPrices[row & StoreChunk.MASK];
+  }
+
+  public long getMileage(int row) {
+    return chunk(row).mileages.get(row & StoreChunk.MASK);
+  }
+
+  public int getColorOrdinal(int row) {
+    return chunk(row).colors.get(row & StoreChunk.MASK);
+  }
+
+  public Color getColor(int row) {
+    return COLORS[getColorOrdinal(row)];
+  }
+
+  public int getModelId(int row) {
+    return chunk(row).models.get(row & StoreChunk.MASK);
+  }
+
+  public String getModel(int row) {
+    return modelDictionary.decode(getModelId(row));
+  }
+
+  /**
+   * Returns the lexicographic position of the model among all models of the dictionary.
+   */
+  public int getModelRank(int modelId) {
+    return modelRanks[modelId];
+  }
+
+  public int getComponentCount(int row) {
+    StoreChunk chunk = chunk(row);
+    int index = row & StoreChunk.MASK;
+    return chunk.componentOffsets.get(index + 1) - chunk.componentOffsets.get(index);
+  }
+
+  /**
+   * Returns the id of the n-th component of the row, in the order the components were loaded.
+   */
+  public int getComponentId(int row, int n) {
+    StoreChunk chunk = chunk(row);
+    return chunk.components.get(chunk.componentOffsets.get(row & StoreChunk.MASK) + n);
+  }
+
+  /**
+   * Returns where the component comes among the components of the row, or -1 if the row does not have it.
+   */
+  public int getComponentPosition(int row, int componentId) {
+    for (int n = 0; n < getComponentCount(row); n++) {
+      if (getComponentId(row, n) == componentId) {
+        return n;
+      }
+    }
+    return -1;
+  }
+
+  public boolean hasComponent(int row, int componentId) {
+    StoreChunk chunk = chunk(row);
+    int index = row & StoreChunk.MASK;
+    for (int i = chunk.componentOffsets.get(index); i < chunk.componentOffsets.get(index + 1); i++) {
+      if (chunk.components.get(i) == componentId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the sorted ids of the given components; components which no car has are ignored.
+   */
+  public int[] toComponentIds(Collection<String> wantedComponents) {
+    return wantedComponents.stream()
+        .mapToInt(componentDictionary::find)
+        .filter(componentId -> componentId != -1)
+        .sorted()
+        .distinct()
+        .toArray();
+  }
+
+  /**
+   * Tells whether the row has all components of the given ids, which a car with fewer components can not.
+   */
+  public boolean hasAllComponents(int row, int[] componentIds) {
+    if (getComponentCount(row) < componentIds.length) {
+      return false;
+    }
+    for (int componentId : componentIds) {
+      if (!hasComponent(row, componentId)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tells whether the row has any component of the given sorted ids.
+   */
+  public boolean hasAnyComponent(int row, int[] sortedComponentIds) {
+    for (int n = 0; n < getComponentCount(row); n++) {
+      if (Arrays.binarySearch(sortedComponentIds, getComponentId(row, n)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int countCommonComponents(int row, int otherRow) {
+    int count = 0;
+    for (int n = 0; n < getComponentCount(row); n++) {
+      if (hasComponent(otherRow, getComponentId(row, n))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the components of the row in lexicographic order by sorting the ranks of its few ids.
+   */
+  public Set<String> getSortedComponents(int row) {
+    int[] ranks = new int[getComponentCount(row)];
+    for (int n = 0; n < ranks.length; n++) {
+      ranks[n] = componentRanks[getComponentId(row, n)];
+    }
+    Arrays.sort(ranks);
+    Set<String> sortedComponents = new LinkedHashSet<>();
+    for (int rank : ranks) {
+      sortedComponents.add(componentsByRank[rank]);
+    }
+    return sortedComponents;
+  }
+
+  public StringDictionary getModelDictionary() {
+    return modelDictionary;
+  }
+
+  public StringDictionary getComponentDictionary() {
+    return componentDictionary;
+  }
+
+  public Car getCar(int row) {
+    return Car.builder()
+        .model(getModel(row))
+        .price(getPrice(row))
+        .color(getColor(row))
+        .mileage(getMileage(row))
+        .components(getComponents(row))
+        .build();
+  }
+
+  /**
+   * Materializes the row like {@link #getCar(int)} but with components in lexicographic order.
+   */
+  public Car getCarWithSortedComponents(int row) {
+    return Car.builder()
+        .model(getModel(row))
+        .price(getPrice(row))
+        .color(getColor(row))
+        .mileage(getMileage(row))
+        .components(getSortedComponents(row))
+        .build();
+  }
+
+  /**
+   * Tells whether the row holds a car with the same model, price, color, mileage and components. Prices are
+   * compared by value, so 100 matches 100.00.
+   */
+  public boolean matches(int row, Car car) {
+    if (getMileage(row) != car.getMileage() || getColorOrdinal(row) != car.getColor().ordinal()
+        || !getModel(row).equals(car.getModel()) || getComponentCount(row) != car.getComponents().size()) {
+      return false;
+    }
+    for (String component : car.getComponents()) {
+      int componentId = componentDictionary.find(component);
+      if (componentId == -1 || !hasComponent(row, componentId)) {
+        return false;
+      }
+    }
+    return getPrice(row).compareTo(car.getPrice()) == 0;
+  }
+
+  /**
+   * Returns a builder for the next version of this store, which starts with all of its rows and shares every
+   * chunk the builder does not change.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns a store with the rows which are not removed, numbered without gaps in the same order. Its
+   * dictionaries only hold the strings of these rows, in order of first appearance.
+   */
+  public CarStore compact() {
+    Builder builder = builder();
+    int[] modelIds = new int[modelDictionary.size()];
+    int[] componentIds = new int[componentDictionary.size()];
+    Arrays.fill(modelIds, -1);
+    Arrays.fill(componentIds, -1);
+    for (int row = 0; row < rowCount; row++) {
+      if (isRemoved(row)) {
+        continue;
+      }
+      int[] rowComponentIds = new int[getComponentCount(row)];
+      for (int n = 0; n < rowComponentIds.length; n++) {
+        rowComponentIds[n] = translate(componentIds, getComponentId(row, n), componentDictionary,
+            builder.componentDictionary);
+      }
+      builder.addRow(getScaledPrice(row), chunk(row).priceScales.get(row & StoreChunk.MASK), getExactPrice(row),
+          getMileage(row), (byte) getColorOrdinal(row),
+          translate(modelIds, getModelId(row), modelDictionary, builder.modelDictionary), rowComponentIds,
+          getPartition(row));
+    }
+    return builder.build();
+  }
+
+  // maps an id of the source dictionary to the id of the same string in the new one
+  private static int translate(int[] ids, int sourceId, StringDictionary sourceDictionary,
+      StringDictionary dictionary) {
+    if (ids[sourceId] == -1) {
+      ids[sourceId] = dictionary.encode(sourceDictionary.decode(sourceId));
+    }
+    return ids[sourceId];
+  }
+
+  private StoreChunk chunk(int row) {
+    StoreChunk chunk = chunks[row >>> StoreChunk.SHIFT];
+    return chunk != null ? chunk : snapshotChunks.get(row >>> StoreChunk.SHIFT);
+  }
+
+  private Set<String> getComponents(int row) {
+    Set<String> carComponents = new LinkedHashSet<>();
+    for (int n = 0; n < getComponentCount(row); n++) {
+      carComponents.add(componentDictionary.decode(getComponentId(row, n)));
+    }
+    return carComponents;
+  }
+
+  /**
+   * Converts a price into the scaled representation used by the store, rounding in the given direction when
+   * the price has more fraction digits than {@link #PRICE_SCALE} and clamping it to the range of a long.
+   */
+  public static long toScaledPrice(BigDecimal price, RoundingMode roundingMode) {
+    BigInteger scaled = price.setScale(PRICE_SCALE, roundingMode).unscaledValue();
+    if (scaled.bitLength() > Long.SIZE - 1) {
+      return scaled.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+    return scaled.longValue();
+  }
+
+  /**
+   * Converts a price into the value the price column holds for it: scaled by {@link #PRICE_SCALE} digits,
+   * rounded down and clamped to the range of a long.
+   */
+  public static long toScaledPrice(BigDecimal price) {
+    return toScaledPrice(price, RoundingMode.FLOOR);
+  }
+
+  /**
+   * Collects the rows of a new store, either from scratch or as the {@link CarStore#toBuilder() next version}
+   * of an existing one. Only the chunks holding changed or appended rows are copied.
+   */
+  public static class Builder {
+
+    private final CarStore source;
+    private final SnapshotChunks snapshotChunks;
+    private StoreChunk[] chunks;
+    private ChunkBuilder[] openChunks;
+    private int rowCount;
+    private int removedCount;
+    private StringDictionary modelDictionary;
+    private StringDictionary componentDictionary;
+    // dictionaries shared with a store are copied before they get a new string
+    private boolean ownsModelDictionary;
+    private boolean ownsComponentDictionary;
+
+    private Builder(StringDictionary modelDictionary, StringDictionary componentDictionary) {
+      this.source = null;
+      this.snapshotChunks = null;
+      this.chunks = new StoreChunk[1];
+      this.openChunks = new ChunkBuilder[1];
+      this.modelDictionary = modelDictionary;
+      this.componentDictionary = componentDictionary;
+      this.ownsModelDictionary = true;
+      this.ownsComponentDictionary = true;
+    }
+
+    private Builder(CarStore source) {
+      this.source = source;
+      this.snapshotChunks = source.snapshotChunks;
+      this.chunks = Arrays.copyOf(source.chunks, source.chunks.length + 1);
+      this.openChunks = new ChunkBuilder[chunks.length];
+      this.rowCount = source.rowCount;
+      this.removedCount = source.removedCount;
+      this.modelDictionary = source.modelDictionary;
+      this.componentDictionary = source.componentDictionary;
+    }
+
+    public Builder add(Car car) {
+      return add(car, 0);
+    }
+
+    public Builder add(Car car, int partition) {
+      if (partition < 0) {
+        throw new IllegalArgumentException("Partition is not valid: " + partition);
+      }
+      BigDecimal price = car.getPrice();
+      long scaledPrice = toScaledPrice(price);
+      BigDecimal exactPrice = toExactPrice(price, scaledPrice);
+      return addRow(scaledPrice, toPriceScale(price, exactPrice), exactPrice, car.getMileage(),
+          (byte) car.getColor().ordinal(), encodeModel(car.getModel()), encodeComponents(car), partition);
+    }
+
+    /**
+     * Replaces the car of a row which is not removed; the row keeps its number and partition.
+     */
+    public Builder set(int row, Car car) {
+      requirePresent(row);
+      BigDecimal price = car.getPrice();
+      long scaledPrice = toScaledPrice(price);
+      BigDecimal exactPrice = toExactPrice(price, scaledPrice);
+      openChunk(row >>> StoreChunk.SHIFT).set(row & StoreChunk.MASK, scaledPrice, toPriceScale(price, exactPrice),
+          exactPrice, car.getMileage(), (byte) car.getColor().ordinal(), encodeModel(car.getModel()),
+          encodeComponents(car));
+      return this;
+    }
+
+    /**
+     * Removes a row. Its number is not given to another car until the store is {@link CarStore#compact()
+     * compacted}.
+     */
+    public Builder remove(int row) {
+      requirePresent(row);
+      openChunk(row >>> StoreChunk.SHIFT).remove(row & StoreChunk.MASK);
+      removedCount++;
+      return this;
+    }
+
+    /**
+     * Returns the number of rows so far, which is the number the next added car gets.
+     */
+    public int getRowCount() {
+      return rowCount;
+    }
+
+    public CarStore build() {
+      StoreChunk[] builtChunks = new StoreChunk[(rowCount + StoreChunk.MASK) >>> StoreChunk.SHIFT];
+      for (int chunk = 0; chunk < builtChunks.length; chunk++) {
+        if (openChunks[chunk] != null) {
+          chunks[chunk] = openChunks[chunk].build();
+          openChunks[chunk] = null;
+        }
+        builtChunks[chunk] = chunks[chunk];
+      }
+      // the dictionaries now belong to the store as well
+      ownsModelDictionary = false;
+      ownsComponentDictionary = false;
+      return new CarStore(builtChunks, snapshotChunks, rowCount, removedCount, modelDictionary, componentDictionary,
+          source);
+    }
+
+    private Builder addRow(long price, byte priceScale, BigDecimal exactPrice, long mileage, byte color, int model,
+        int[] componentIds, int partition) {
+      int chunk = rowCount >>> StoreChunk.SHIFT;
+      if (chunk == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        openChunks = Arrays.copyOf(openChunks, chunks.length);
+      }
+      ChunkBuilder chunkBuilder = openChunk(chunk);
+      chunkBuilder.set(rowCount & StoreChunk.MASK, price, priceScale, exactPrice, mileage, color, model,
+          componentIds);
+      chunkBuilder.setPartition(rowCount & StoreChunk.MASK, partition);
+      rowCount++;
+      // a full chunk is frozen right away, so loading holds at most one chunk twice
+      if (chunkBuilder.size == StoreChunk.CAPACITY) {
+        chunks[chunk] = chunkBuilder.build();
+        openChunks[chunk] = null;
+      }
+      return this;
+    }
+
+    private ChunkBuilder openChunk(int chunk) {
+      if (openChunks[chunk] == null) {
+        StoreChunk storeChunk = storeChunk(chunk);
+        openChunks[chunk] = storeChunk == null ? new ChunkBuilder() : new ChunkBuilder(storeChunk);
+      }
+      return openChunks[chunk];
+    }
+
+    // the built chunk, made from the snapshot when the store has not read it yet, or null for a new chunk
+    private StoreChunk storeChunk(int chunk) {
+      if (chunks[chunk] == null && snapshotChunks != null && chunk < snapshotChunks.size()) {
+        return snapshotChunks.get(chunk);
+      }
+      return chunks[chunk];
+    }
+
+    private void requirePresent(int row) {
+      if (row < 0 || row >= rowCount) {
+        throw new IllegalArgumentException("Row is not present: " + row);
+      }
+      int chunk = row >>> StoreChunk.SHIFT;
+      boolean removed = openChunks[chunk] != null
+          ? openChunks[chunk].isRemoved(row & StoreChunk.MASK)
+          : storeChunk(chunk).isRemoved(row & StoreChunk.MASK);
+      if (removed) {
+        throw new IllegalArgumentException("Row is removed: " + row);
+      }
+    }
+
+    private int encodeModel(String model) {
+      int modelId = modelDictionary.find(model);
+      if (modelId != -1) {
+        return modelId;
+      }
+      if (!ownsModelDictionary) {
+        modelDictionary = modelDictionary.copy();
+        ownsModelDictionary = true;
+      }
+      return modelDictionary.encode(model);
+    }
+
+    private int[] encodeComponents(Car car) {
+      int[] componentIds = new int[car.getComponents().size()];
+      int n = 0;
+      for (String component : car.getComponents()) {
+        int componentId = componentDictionary.find(component);
+        if (componentId == -1) {
+          if (!ownsComponentDictionary) {
+            componentDictionary = componentDictionary.copy();
+            ownsComponentDictionary = true;
+          }
+          componentId = componentDictionary.encode(component);
+        }
+        componentIds[n++] = componentId;
+      }
+      return componentIds;
+    }
+
+    // the price itself when the price column can not hold it exactly with its scale, otherwise null
+    private static BigDecimal toExactPrice(BigDecimal price, long scaledPrice) {
+      boolean exact = price.scale() >= Byte.MIN_VALUE && price.scale() <= Byte.MAX_VALUE
+          && price.compareTo(BigDecimal.valueOf(scaledPrice, PRICE_SCALE)) == 0;
+      return exact ? null : price;
+    }
+
+    private static byte toPriceScale(BigDecimal price, BigDecimal exactPrice) {
+      return exactPrice == null ? (byte) price.scale() : 0;
+    }
+  }
+
+  // the columns of one chunk while a builder changes them
+  private static final class ChunkBuilder {
+
+    private final long[] prices = new long[StoreChunk.CAPACITY];
+    private final byte[] priceScales = new byte[StoreChunk.CAPACITY];
+    // made when the first price the price column can not hold exactly is set
+    private BigDecimal[] exactPrices;
+    private final long[] mileages = new long[StoreChunk.CAPACITY];
+    private final byte[] colors = new byte[StoreChunk.CAPACITY];
+    private final int[] models = new int[StoreChunk.CAPACITY];
+    private final int[] componentOffsets = new int[StoreChunk.CAPACITY + 1];
+    private int[] components;
+    // made when the first row outside partition 0 is added
+    private int[] partitions;
+    private long[] removedRows;
+    private int removedCount;
+    private int size;
+
+    private ChunkBuilder() {
+      this.components = new int[StoreChunk.CAPACITY];
+    }
+
+    private ChunkBuilder(StoreChunk chunk) {
+      this.size = chunk.size;
+      chunk.prices.get(0, prices, 0, size);
+      chunk.priceScales.get(0, priceScales, 0, size);
+      if (chunk.exactPrices != null) {
+        this.exactPrices = Arrays.copyOf(chunk.exactPrices, StoreChunk.CAPACITY);
+      }
+      chunk.mileages.get(0, mileages, 0, size);
+      chunk.colors.get(0, colors, 0, size);
+      chunk.models.get(0, models, 0, size);
+      int first = chunk.componentOffsets.get(0);
+      for (int index = 0; index <= size; index++) {
+        componentOffsets[index] = chunk.componentOffsets.get(index) - first;
+      }
+      this.components = new int[Math.max(componentOffsets[size], StoreChunk.CAPACITY)];
+      chunk.components.get(first, components, 0, componentOffsets[size]);
+      if (chunk.partitions != null) {
+        this.partitions = new int[StoreChunk.CAPACITY];
+        chunk.partitions.get(0, partitions, 0, size);
+      }
+      this.removedRows = chunk.removedRows == null ? null : chunk.removedRows.clone();
+      this.removedCount = chunk.removedCount;
+    }
+
+    // overwrites the row at the index, or appends it when the index is the size
+    private void set(int index, long price, byte priceScale, BigDecimal exactPrice, long mileage, byte color,
+        int model, int[] componentIds) {
+      prices[index] = price;
+      priceScales[index] = priceScale;
+      if (exactPrices == null && exactPrice != null) {
+        exactPrices = new BigDecimal[StoreChunk.CAPACITY];
+      }
+      if (exactPrices != null) {
+        exactPrices[index] = exactPrice;
+      }
+      mileages[index] = mileage;
+      colors[index] = color;
+      models[index] = model;
+
+      int start = componentOffsets[index];
+      int end = index < size ? componentOffsets[index + 1] : start;
+      int shift = componentIds.length - (end - start);
+      if (shift != 0) {
+        int total = componentOffsets[size];
+        if (total + shift > components.length) {
+          components = Arrays.copyOf(components, Math.max(components.length * 2, total + shift));
+        }
+        System.arraycopy(components, end, components, end + shift, total - end);
+        for (int next = index + 1; next <= size; next++) {
+          componentOffsets[next] += shift;
+        }
+      }
+      System.arraycopy(componentIds, 0, components, start, componentIds.length);
+      if (index == size) {
+        componentOffsets[++size] = start + componentIds.length;
+      }
+    }
+
+    private void setPartition(int index, int partition) {
+      if (partitions == null && partition != 0) {
+        partitions = new int[StoreChunk.CAPACITY];
+      }
+      if (partitions != null) {
+        partitions[index] = partition;
+      }
+    }
+
+    private void remove(int index) {
+      if (removedRows == null) {
+        removedRows = new long[StoreChunk.CAPACITY >>> 6];
+      }
+      removedRows[index >>> 6] |= 1L << index;
+      removedCount++;
+    }
+
+    private boolean isRemoved(int index) {
+      return removedRows != null && (removedRows[index >>> 6] & 1L << index) != 0;
+    }
+
+    private StoreChunk build() {
+      return new StoreChunk(size,
+          LongBuffer.wrap(Arrays.copyOf(prices, size)),
+          ByteBuffer.wrap(Arrays.copyOf(priceScales, size)),
+          exactPrices == null ? null : Arrays.copyOf(exactPrices, size),
+          LongBuffer.wrap(Arrays.copyOf(mileages, size)),
+          ByteBuffer.wrap(Arrays.copyOf(colors, size)),
+          IntBuffer.wrap(Arrays.copyOf(models, size)),
+          IntBuffer.wrap(Arrays.copyOf(componentOffsets, size + 1)),
+          IntBuffer.wrap(Arrays.copyOf(components, componentOffsets[size])),
+          partitions == null ? null : IntBuffer.wrap(Arrays.copyOf(partitions, size)),
+          removedRows == null ? null : removedRows.clone(),
+          removedCount);
+    }
+  }
+}
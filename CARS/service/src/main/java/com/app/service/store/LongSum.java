@@ -0,0 +1,35 @@
+package com.app.service.store;
+
+import java.math.BigInteger;
+
+/**
+ * Exact sum of longs kept as a 128-bit two's complement number, so that summing scaled prices of a large
+ * catalogue neither overflows nor needs a {@link BigInteger} per addition.
+ */
+public class LongSum {
+
+  private long low;
+  private long high;
+
+  public void add(long value) {
+    long sum = low + value;
+    high += (value >> 63) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+    low = sum;
+  }
+
+  public void subtract(long value) {
+    long difference = low - value;
+    high -= (value >> 63) + (Long.compareUnsigned(low, value) < 0 ? 1 : 0);
+    low = difference;
+  }
+
+  public void add(LongSum other) {
+    long sum = low + other.low;
+    high += other.high + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+    low = sum;
+  }
+
+  public BigInteger toBigInteger() {
+    return BigInteger.valueOf(high).shiftLeft(Long.SIZE).add(new BigInteger(Long.toUnsignedString(low)));
+  }
+}
@@ -0,0 +1,62 @@
+package com.app.service.store;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A closed range of prices, either bound of which may be open, checked against the rows of a {@link CarStore}.
+ * Its scaled bounds select every row which may be in the range from the price column or a price index, since
+ * the column holds prices rounded down. Only a row whose scaled price equals one of these bounds can be outside
+ * the range nonetheless, so only such a row is checked on its exact price.
+ */
+public final class PriceRange {
+
+  private final BigDecimal minPrice;
+  private final BigDecimal maxPrice;
+  private final long minScaledPrice;
+  private final long maxScaledPrice;
+
+  private PriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+    this.minPrice = minPrice;
+    this.maxPrice = maxPrice;
+    this.minScaledPrice = minPrice == null ? Long.MIN_VALUE : CarStore.toScaledPrice(minPrice, RoundingMode.FLOOR);
+    this.maxScaledPrice = maxPrice == null ? Long.MAX_VALUE : CarStore.toScaledPrice(maxPrice, RoundingMode.FLOOR);
+  }
+
+  /**
+   * Creates the range between the given prices; a null bound leaves that side open.
+   */
+  public static PriceRange of(BigDecimal minPrice, BigDecimal maxPrice) {
+    return new PriceRange(minPrice, maxPrice);
+  }
+
+  /**
+   * Returns the lowest scaled price a row in the range can have.
+   */
+  public long getMinScaledPrice() {
+    return minScaledPrice;
+  }
+
+  /**
+   * Returns the highest scaled price a row in the range can have.
+   */
+  public long getMaxScaledPrice() {
+    return maxScaledPrice;
+  }
+
+  public boolean isEmpty() {
+    return minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0;
+  }
+
+  public boolean contains(CarStore cars, int row) {
+    long scaledPrice = cars.getScaledPrice(row);
+    if (scaledPrice < minScaledPrice || scaledPrice > maxScaledPrice) {
+      return false;
+    }
+    if (scaledPrice != minScaledPrice && scaledPrice != maxScaledPrice) {
+      return true;
+    }
+    BigDecimal price = cars.getPrice(row);
+    return (minPrice == null || price.compareTo(minPrice) >= 0) && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+  }
+}
@@ -0,0 +1,113 @@
+package com.app.service.store;
+
+import java.util.Arrays;
+
+/**
+ * Stable sorts of row numbers by primitive keys, used instead of comparator based sorting of {@code Car}s.
+ */
+public final class RowSorter {
+
+  private RowSorter() {
+  }
+
+  /**
+   * Sorts rows by keys from a small domain {@code [0, domain)} with a counting sort. {@code keys[i]} is the key
+   * of {@code rows[i]}. Rows with equal keys keep their relative order.
+   */
+  public static int[] sortByRank(int[] rows, int[] keys, int domain) {
+    int[] starts = new int[domain + 1];
+    for (int key : keys) {
+      starts[key + 1]++;
+    }
+    for (int i = 0; i < domain; i++) {
+      starts[i + 1] += starts[i];
+    }
+
+    int[] sorted = new int[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      sorted[starts[keys[i]]++] = rows[i];
+    }
+    return sorted;
+  }
+
+  /**
+   * Puts distinct rows of a store with {@code rowCount} rows back into ascending row order. Large selections
+   * are marked in a bitmap and read back in O(rowCount / 64 + k) instead of being sorted.
+   */
+  public static int[] sortRows(int[] rows, int rowCount) {
+    if (rows.length < rowCount >>> 6) {
+      int[] sorted = rows.clone();
+      Arrays.sort(sorted);
+      return sorted;
+    }
+
+    long[] words = new long[(rowCount + 63) >>> 6];
+    for (int row : rows) {
+      words[row >>> 6] |= 1L << row;
+    }
+    int[] sorted = new int[rows.length];
+    int size = 0;
+    for (int i = 0; i < words.length; i++) {
+      long word = words[i];
+      while (word != 0) {
+        sorted[size++] = (i << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+    return sorted;
+  }
+
+  /**
+   * Sorts rows by long keys with a merge sort. {@code keys[i]} is the key of {@code rows[i]}; both arrays are
+   * sorted in place so that afterwards the keys are ascending. Rows with equal keys keep their relative order.
+   */
+  public static void sortByKey(int[] rows, long[] keys) {
+    int[] rowBuffer = rows.clone();
+    long[] keyBuffer = keys.clone();
+    mergeSort(rowBuffer, keyBuffer, rows, keys, 0, rows.length);
+  }
+
+  // sorts source[from, to) into target[from, to); both pairs of arrays start with the same content
+  private static void mergeSort(int[] sourceRows, long[] sourceKeys, int[] targetRows, long[] targetKeys,
+      int from, int to) {
+    if (to - from < 16) {
+      insertionSort(targetRows, targetKeys, from, to);
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+    mergeSort(targetRows, targetKeys, sourceRows, sourceKeys, from, middle);
+    mergeSort(targetRows, targetKeys, sourceRows, sourceKeys, middle, to);
+
+    if (sourceKeys[middle - 1] <= sourceKeys[middle]) {
+      System.arraycopy(sourceRows, from, targetRows, from, to - from);
+      System.arraycopy(sourceKeys, from, targetKeys, from, to - from);
+      return;
+    }
+
+    for (int i = from, left = from, right = middle; i < to; i++) {
+      if (right >= to || left < middle && sourceKeys[left] <= sourceKeys[right]) {
+        targetRows[i] = sourceRows[left];
+        targetKeys[i] = sourceKeys[left++];
+      } else {
+        targetRows[i] = sourceRows[right];
+        targetKeys[i] = sourceKeys[right++];
+      }
+    }
+  }
+
+  private static void insertionSort(int[] rows, long[] keys, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      int row = rows[i];
+      long key = keys[i];
+      int j = i - 1;
+      while (j >= from && keys[j] > key) {
+        rows[j + 1] = rows[j];
+        keys[j + 1] = keys[j];
+        j--;
+      }
+      rows[j + 1] = row;
+      keys[j + 1] = key;
+    }
+  }
+}
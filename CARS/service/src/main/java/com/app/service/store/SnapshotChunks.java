@@ -0,0 +1,42 @@
+package com.app.service.store;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.app.converter.CarSnapshot;
+
+/**
+ * The chunks of a store opened from a {@link CarSnapshot}, one per section of the file. A chunk is made when
+ * one of its rows is first read; the checksum of its section is verified then and its columns stay buffers
+ * over the mapped file. All versions of the store share the chunks made so far.
+ */
+final class SnapshotChunks {
+
+  private final CarSnapshot snapshot;
+  private final AtomicReferenceArray<StoreChunk> chunks;
+
+  SnapshotChunks(CarSnapshot snapshot) {
+    if (snapshot.getSectionRows() != StoreChunk.CAPACITY) {
+      throw new IllegalStateException("Snapshot sections hold " + snapshot.getSectionRows() + " rows instead of "
+          + StoreChunk.CAPACITY);
+    }
+    this.snapshot = snapshot;
+    this.chunks = new AtomicReferenceArray<>(snapshot.getSectionCount());
+  }
+
+  int size() {
+    return chunks.length();
+  }
+
+  StoreChunk get(int chunk) {
+    StoreChunk storeChunk = chunks.get(chunk);
+    if (storeChunk == null) {
+      CarSnapshot.Section section = snapshot.getSection(chunk);
+      storeChunk = new StoreChunk(section.size(), section.getPrices(), section.getPriceScales(),
+          section.getExactPrices(), section.getMileages(), section.getColors(), section.getModels(),
+          section.getComponentOffsets(), section.getComponents(), null, null, 0);
+      // a chunk made twice by racing readers holds the same columns, so either one may stay
+      chunks.compareAndSet(chunk, null, storeChunk);
+    }
+    return storeChunk;
+  }
+}
@@ -0,0 +1,55 @@
+package com.app.service.store;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * The columns of {@link #CAPACITY} consecutive rows of a {@link CarStore}. A chunk is never changed once built:
+ * a new version of the store replaces the chunks holding changed rows and shares all others with the old one.
+ * Component offsets point into the component column, which does not have to start with the chunk.
+ */
+final class StoreChunk {
+
+  static final int SHIFT = 12;
+  static final int CAPACITY = 1 << SHIFT;
+  static final int MASK = CAPACITY - 1;
+
+  final int size;
+  final LongBuffer prices;
+  final ByteBuffer priceScales;
+  // the prices the price column does not hold exactly, or null when it holds all of them
+  final BigDecimal[] exactPrices;
+  final LongBuffer mileages;
+  final ByteBuffer colors;
+  final IntBuffer models;
+  final IntBuffer componentOffsets;
+  final IntBuffer components;
+  // the partition of every row, or null when all rows are in partition 0
+  final IntBuffer partitions;
+  // one bit per removed row, or null when no row of the chunk is removed
+  final long[] removedRows;
+  final int removedCount;
+
+  StoreChunk(int size, LongBuffer prices, ByteBuffer priceScales, BigDecimal[] exactPrices, LongBuffer mileages,
+      ByteBuffer colors, IntBuffer models, IntBuffer componentOffsets, IntBuffer components, IntBuffer partitions,
+      long[] removedRows, int removedCount) {
+    this.size = size;
+    this.prices = prices;
+    this.priceScales = priceScales;
+    this.exactPrices = exactPrices;
+    this.mileages = mileages;
+    this.colors = colors;
+    this.models = models;
+    this.componentOffsets = componentOffsets;
+    this.components = components;
+    this.partitions = partitions;
+    this.removedRows = removedRows;
+    this.removedCount = removedCount;
+  }
+
+  boolean isRemoved(int index) {
+    return removedRows != null && (removedRows[index >>> 6] & 1L << index) != 0;
+  }
+}
@@ -0,0 +1,132 @@
+package com.app.service.topk;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the best {@code capacity} rows seen so far in a binary heap whose root is the worst row kept. Rows are
+ * ordered by key and then by row number, ascending or, when {@code descending}, the other way round, which
+ * matches reading a stable ascending sort from the front or from the back. The arrays grow with the rows
+ * kept, so the many heaps of small groups cost no more than the rows offered to them.
+ */
+public class BoundedRowHeap {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final int capacity;
+  private final boolean descending;
+  private int[] rows;
+  private long[] keys;
+  private int size;
+
+  public BoundedRowHeap(int capacity, boolean descending) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+    }
+    this.capacity = capacity;
+    this.descending = descending;
+    this.rows = new int[Math.min(capacity, INITIAL_CAPACITY)];
+    this.keys = new long[rows.length];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void offer(int row, long key) {
+    if (size < capacity) {
+      if (size == rows.length) {
+        grow();
+      }
+      rows[size] = row;
+      keys[size] = key;
+      siftUp(size++);
+    } else if (capacity > 0 && isBetter(row, key, rows[0], keys[0])) {
+      rows[0] = row;
+      keys[0] = key;
+      siftDown(0);
+    }
+  }
+
+  /**
+   * Offers all rows kept by another heap, e.g. one filled from a different partition of the rows.
+   */
+  public void merge(BoundedRowHeap other) {
+    for (int i = 0; i < other.size; i++) {
+      offer(other.rows[i], other.keys[i]);
+    }
+  }
+
+  /**
+   * Returns the rows kept, best first.
+   */
+  public int[] toSortedRows() {
+    BoundedRowHeap copy = new BoundedRowHeap(capacity, descending);
+    copy.merge(this);
+
+    int[] sortedRows = new int[size];
+    for (int i = size - 1; i >= 0; i--) {
+      sortedRows[i] = copy.rows[0];
+      copy.removeRoot();
+    }
+    return sortedRows;
+  }
+
+  private void grow() {
+    int length = (int) Math.min(capacity, 2L * rows.length);
+    rows = Arrays.copyOf(rows, length);
+    keys = Arrays.copyOf(keys, length);
+  }
+
+  private void removeRoot() {
+    size--;
+    rows[0] = rows[size];
+    keys[0] = keys[size];
+    if (size > 0) {
+      siftDown(0);
+    }
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!isBetter(rows[parent], keys[parent], rows[index], keys[index])) {
+        return;
+      }
+      swap(parent, index);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index) {
+    while (true) {
+      int worst = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if (left < size && isBetter(rows[worst], keys[worst], rows[left], keys[left])) {
+        worst = left;
+      }
+      if (right < size && isBetter(rows[worst], keys[worst], rows[right], keys[right])) {
+        worst = right;
+      }
+      if (worst == index) {
+        return;
+      }
+      swap(index, worst);
+      index = worst;
+    }
+  }
+
+  private boolean isBetter(int row, long key, int otherRow, long otherKey) {
+    int comparison = key != otherKey ? Long.compare(key, otherKey) : Integer.compare(row, otherRow);
+    return descending ? comparison > 0 : comparison < 0;
+  }
+
+  private void swap(int first, int second) {
+    int row = rows[first];
+    rows[first] = rows[second];
+    rows[second] = row;
+    long key = keys[first];
+    keys[first] = keys[second];
+    keys[second] = key;
+  }
+}
@@ -0,0 +1,180 @@
+package com.app.service.topk;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.SortType;
+import com.app.service.store.CarStore;
+
+/**
+ * Finds the first {@code k} rows of a listing sorted by a {@link SortType} in one pass with bounded heaps,
+ * without sorting the whole store. The result is the same as the first {@code k} rows of the full sort.
+ */
+public class TopKFinder {
+
+  private static final int PARTITION_SIZE = 1 << 16;
+
+  private final CarStore cars;
+
+  public TopKFinder(CarStore cars) {
+    this.cars = cars;
+  }
+
+  public int[] findTop(SortType sortType, boolean descending, int k, boolean parallel) {
+    validate(sortType, k);
+    IntToLongFunction key = sortKey(sortType);
+    int limit = Math.min(k, cars.size());
+
+    if (!parallel || cars.getRowCount() <= PARTITION_SIZE) {
+      return collectRows(key, descending, limit, 0, cars.getRowCount()).toSortedRows();
+    }
+    return IntStream
+        .range(0, partitionCount())
+        .parallel()
+        .mapToObj(partition -> collectRows(key, descending, limit, partitionStart(partition), partitionEnd(partition)))
+        .reduce((first, second) -> {
+          first.merge(second);
+          return first;
+        })
+        .orElseGet(() -> new BoundedRowHeap(limit, descending))
+        .toSortedRows();
+  }
+
+  /**
+   * Returns the top rows of every non-empty group, with groups ordered as in
+   * {@link com.app.service.aggregate.CarAggregator}.
+   */
+  public Map<String, int[]> findTopPerGroup(SortType sortType, boolean descending, int k, GroupBy groupBy) {
+    validate(sortType, k);
+    Optional.ofNullable(groupBy).orElseThrow(() -> new NullPointerException("Group by is not valid"));
+    IntToLongFunction key = sortKey(sortType);
+    int limit = Math.min(k, cars.size());
+
+    Map<String, int[]> topRows = new LinkedHashMap<>();
+    switch (groupBy) {
+      case MODEL: {
+        BoundedRowHeap[] heaps = createHeaps(cars.getModelDictionary().size(), descending, limit);
+        int[] firstRows = createFirstRows(heaps.length);
+        for (int row = 0; row < cars.getRowCount(); row++) {
+          if (!cars.isRemoved(row)) {
+            offer(heaps, firstRows, cars.getModelId(row), row, key);
+          }
+        }
+        putNonEmpty(topRows, heaps, firstRows, cars.getModelDictionary()::decode, (group, firstRow) -> 0);
+        break;
+      }
+      case COLOR: {
+        BoundedRowHeap[] heaps = createHeaps(Color.values().length, descending, limit);
+        int[] firstRows = createFirstRows(heaps.length);
+        for (int row = 0; row < cars.getRowCount(); row++) {
+          if (!cars.isRemoved(row)) {
+            offer(heaps, firstRows, cars.getColorOrdinal(row), row, key);
+          }
+        }
+        putNonEmpty(topRows, heaps, firstRows, color -> Color.values()[color].name(), (group, firstRow) -> 0);
+        break;
+      }
+      case COMPONENT: {
+        BoundedRowHeap[] heaps = createHeaps(cars.getComponentDictionary().size(), descending, limit);
+        int[] firstRows = createFirstRows(heaps.length);
+        for (int row = 0; row < cars.getRowCount(); row++) {
+          for (int n = 0; !cars.isRemoved(row) && n < cars.getComponentCount(row); n++) {
+            offer(heaps, firstRows, cars.getComponentId(row, n), row, key);
+          }
+        }
+        putNonEmpty(topRows, heaps, firstRows, cars.getComponentDictionary()::decode,
+            (component, firstRow) -> cars.getComponentPosition(firstRow, component));
+        break;
+      }
+      default:
+        throw new IllegalArgumentException("Group by is not supported: " + groupBy);
+    }
+    return topRows;
+  }
+
+  private BoundedRowHeap collectRows(IntToLongFunction key, boolean descending, int k, int fromRow, int toRow) {
+    BoundedRowHeap heap = new BoundedRowHeap(k, descending);
+    for (int row = fromRow; row < toRow; row++) {
+      if (!cars.isRemoved(row)) {
+        heap.offer(row, key.applyAsLong(row));
+      }
+    }
+    return heap;
+  }
+
+  private IntToLongFunction sortKey(SortType sortType) {
+    switch (sortType) {
+      case MODEL:
+        return row -> cars.getModelRank(cars.getModelId(row));
+      case PRICE:
+        return cars::getScaledPrice;
+      case COLOR:
+        return cars::getColorOrdinal;
+      case MILEAGE:
+        return cars::getMileage;
+      default:
+        throw new IllegalArgumentException("Sort type is not supported: " + sortType);
+    }
+  }
+
+  private static BoundedRowHeap[] createHeaps(int count, boolean descending, int k) {
+    BoundedRowHeap[] heaps = new BoundedRowHeap[count];
+    for (int i = 0; i < count; i++) {
+      heaps[i] = new BoundedRowHeap(k, descending);
+    }
+    return heaps;
+  }
+
+  private static int[] createFirstRows(int count) {
+    int[] firstRows = new int[count];
+    Arrays.fill(firstRows, -1);
+    return firstRows;
+  }
+
+  private static void offer(BoundedRowHeap[] heaps, int[] firstRows, int group, int row, IntToLongFunction key) {
+    if (firstRows[group] < 0) {
+      firstRows[group] = row;
+    }
+    heaps[group].offer(row, key.applyAsLong(row));
+  }
+
+  // groups are ordered by their first row and their position in it, as ids follow the first appearance of a
+  // possibly removed row
+  private static void putNonEmpty(Map<String, int[]> topRows, BoundedRowHeap[] heaps, int[] firstRows,
+      IntFunction<String> groupName, IntBinaryOperator positionInRow) {
+    IntStream.range(0, heaps.length)
+        .filter(group -> firstRows[group] >= 0)
+        .boxed()
+        .sorted(Comparator.comparingLong(group -> (long) firstRows[group] << 32
+            | positionInRow.applyAsInt(group, firstRows[group])))
+        .forEach(group -> topRows.put(groupName.apply(group), heaps[group].toSortedRows()));
+  }
+
+  private static void validate(SortType sortType, int k) {
+    Optional.ofNullable(sortType).orElseThrow(() -> new NullPointerException("Sort type is not valid"));
+    if (k < 0) {
+      throw new IllegalArgumentException("Number of cars must not be negative: " + k);
+    }
+  }
+
+  private int partitionCount() {
+    return (cars.getRowCount() + PARTITION_SIZE - 1) / PARTITION_SIZE;
+  }
+
+  private static int partitionStart(int partition) {
+    return partition * PARTITION_SIZE;
+  }
+
+  private int partitionEnd(int partition) {
+    return Math.min(cars.getRowCount(), (partition + 1) * PARTITION_SIZE);
+  }
+}
@@ -1,10 +1,17 @@
 module service {
   exports com.app.service to validators, model, application;
-  exports com.app.service.enums to model;
+  exports com.app.service.enums to model, application;
+  exports com.app.service.aggregate to application;
+  exports com.app.service.load to application;
+  exports com.app.service.query to application;
+  exports com.app.service.metrics to application, java.management;
+  exports com.app.service.cache to application, java.management;
 
   requires converter;
   requires model;
   requires validators;
+  requires gson;
+  requires java.management;
   requires org.eclipse.collections.impl;
   requires org.eclipse.collections.api;
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.app.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.service.enums.BatchFormat;
+import com.app.service.enums.SortType;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchServiceTest {
+
+  private static final String SCRIPT = String.join("\n",
+      "# nightly report",
+      "cars models=MAZDA sort=price:desc",
+      "",
+      "colors",
+      "statistics",
+      "cars withAny=AIR CONDITIONING,ESP limit=1",
+      "aggregates groupBy=color",
+      "cars colors=PINK",
+      "unknown");
+
+  private final CarService carService = new CarService("CarsTest.json");
+
+  @Test
+  void should_write_every_command_with_its_result_as_text() throws IOException {
+    // given
+    StringWriter output = new StringWriter();
+
+    // when
+    int failures = new BatchService(carService, BatchFormat.TEXT).run(new StringReader(SCRIPT), output);
+
+    // then
+    String mazdas = carService.sortCarsByArgument(SortType.PRICE, true).stream()
+        .filter(car -> car.getModel().equals(CarServiceTest.MAZDA))
+        .map(String::valueOf)
+        .collect(Collectors.joining("\n"));
+    String text = output.toString();
+    assertEquals(2, failures);
+    assertTrue(text.startsWith("> cars models=MAZDA sort=price:desc\n" + mazdas + "\n(2 cars)\n"));
+    assertTrue(text.contains("> colors\n"));
+    assertTrue(text.contains("> cars withAny=AIR CONDITIONING,ESP limit=1\n"));
+    assertTrue(text.contains("(1 cars)"));
+    assertTrue(text.contains("> cars colors=PINK\n! Color is not valid: PINK\n"));
+    assertTrue(text.contains("> unknown\n! Command is not supported: unknown\n"));
+  }
+
+  @Test
+  void should_write_one_json_object_per_command() throws IOException {
+    // given
+    StringWriter output = new StringWriter();
+
+    // when
+    new BatchService(carService, BatchFormat.JSON).run(new StringReader(SCRIPT), output);
+
+    // then
+    JsonArray results = new JsonParser().parse(output.toString()).getAsJsonArray();
+    assertEquals(7, results.size());
+    JsonObject mazdas = results.get(0).getAsJsonObject();
+    assertEquals("cars models=MAZDA sort=price:desc", mazdas.get("command").getAsString());
+    assertEquals(2, mazdas.getAsJsonArray("result").size());
+    assertEquals(carService.getCarCountsByColor().size(), results.get(1).getAsJsonObject()
+        .getAsJsonObject("result").size());
+    assertEquals(3, results.get(2).getAsJsonObject().getAsJsonObject("result").get("count").getAsLong());
+    assertEquals(1, results.get(3).getAsJsonObject().getAsJsonArray("result").size());
+    assertTrue(results.get(4).getAsJsonObject().getAsJsonObject("result").has("BLACK"));
+    assertEquals("Color is not valid: PINK", results.get(5).getAsJsonObject().get("error").getAsString());
+    assertTrue(results.get(6).getAsJsonObject().has("error"));
+  }
+
+  @Test
+  void should_report_the_most_expensive_cars_of_no_cars_as_failed_command(@TempDir Path directory)
+      throws IOException {
+    // given
+    Path carsFile = directory.resolve("Cars.json");
+    Files.writeString(carsFile, "[]");
+    CarService emptyService = new CarService(carsFile.toString());
+    StringWriter output = new StringWriter();
+
+    // when
+    int failures = new BatchService(emptyService, BatchFormat.TEXT)
+        .run(new StringReader("colors\nmost-expensive\ncars"), output);
+
+    // then
+    assertEquals(1, failures);
+    assertTrue(output.toString().contains("> most-expensive\n! Missing car with the biggest price\n"));
+    assertTrue(output.toString().contains("(0 cars)"));
+  }
+}
@@ -0,0 +1,158 @@
+package com.app.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.converter.CarGenerator;
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.SortType;
+import com.app.service.query.CarQuery;
+import com.app.service.store.CarStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarDatasetTest {
+
+  private final CarGenerator generator = CarGenerator.builder().seed(11).invalidShare(0).build();
+
+  @Test
+  void should_answer_like_a_dataset_built_from_scratch_after_changes() {
+    // given
+    List<Car> cars = generator.generate(10_000).collect(Collectors.toList());
+    CarDataset dataset = buildAllIndexes(new CarDataset(toStore(cars)));
+    Random random = new Random(3);
+
+    for (int batch = 0; batch < 5; batch++) {
+      // when
+      CarChanges.CarChangesBuilder changes = CarChanges.builder();
+      List<Car> expected = new ArrayList<>(cars);
+      List<Car> newCars = CarGenerator.builder().seed(100 + batch).invalidShare(0).build().generate(500)
+          .collect(Collectors.toList());
+      for (int i = 0; i < 200; i++) {
+        // changes are matched against the previous version, so every car is changed at most once per batch
+        int index = random.nextInt(expected.size());
+        while (newCars.contains(expected.get(index))) {
+          index = random.nextInt(expected.size());
+        }
+        if (i % 3 == 0) {
+          changes.remove(expected.remove(index));
+        } else {
+          Car replacement = newCars.get(i);
+          changes.update(expected.get(index), replacement);
+          expected.set(index, replacement);
+        }
+      }
+      List<Car> insertedCars = newCars.subList(200, newCars.size());
+      insertedCars.forEach(changes::insert);
+      expected.addAll(insertedCars);
+      dataset = buildAllIndexes(dataset.apply(changes.build()));
+      cars = expected;
+
+      // then
+      assertEquals(toStrings(cars), toStrings(dataset.getCars(), dataset.getCars().rows()));
+      assertSameAnswers(new CarDataset(toStore(cars)), dataset);
+    }
+    assertTrue(dataset.getCars().getRemovedCount() > 0);
+  }
+
+  @Test
+  void should_compact_the_store_once_a_quarter_of_the_rows_is_removed() {
+    // given
+    List<Car> cars = generator.generate(8_000).collect(Collectors.toList());
+    CarDataset dataset = buildAllIndexes(new CarDataset(toStore(cars)));
+    CarChanges.CarChangesBuilder changes = CarChanges.builder();
+    cars.subList(0, 2_500).forEach(changes::remove);
+
+    // when
+    CarDataset nextDataset = dataset.apply(changes.build());
+
+    // then
+    assertEquals(5_500, nextDataset.getCars().size());
+    assertEquals(5_500, nextDataset.getCars().getRowCount());
+    assertEquals(8_000, dataset.getCars().size());
+    assertSameAnswers(new CarDataset(toStore(cars.subList(2_500, cars.size()))), nextDataset);
+  }
+
+  private static void assertSameAnswers(CarDataset expected, CarDataset actual) {
+    for (SortType sortType : SortType.values()) {
+      for (boolean descending : new boolean[]{false, true}) {
+        assertEquals(sortedCars(expected, sortType, descending), sortedCars(actual, sortType, descending),
+            sortType + (descending ? " descending" : ""));
+      }
+    }
+    for (GroupBy groupBy : GroupBy.values()) {
+      assertEquals(String.valueOf(expected.getAggregator().aggregate(groupBy, false)),
+          String.valueOf(actual.getAggregator().aggregate(groupBy, false)));
+      assertEquals(String.valueOf(topCars(expected, groupBy)), String.valueOf(topCars(actual, groupBy)));
+    }
+    assertEquals(String.valueOf(expected.getStatistics()), String.valueOf(actual.getStatistics()));
+
+    long minPrice = CarStore.toScaledPrice(new BigDecimal("20000"));
+    long maxPrice = CarStore.toScaledPrice(new BigDecimal("60000"));
+    assertEquals(toStrings(expected.getCars(), expected.getModelPriceIndex().rows(minPrice, maxPrice)),
+        toStrings(actual.getCars(), actual.getModelPriceIndex().rows(minPrice, maxPrice)));
+
+    String component = actual.getCars().getComponentDictionary().decode(0);
+    CarQuery query = CarQuery.builder()
+        .colors(Color.RED, Color.BLACK)
+        .withAllComponents(component)
+        .mileage(1_000L, 150_000L)
+        .build();
+    assertEquals(toStrings(expected.getCars(), expected.getQueryPlanner().execute(query)),
+        toStrings(actual.getCars(), actual.getQueryPlanner().execute(query)));
+  }
+
+  // touches every index, so that the next version updates them instead of building them
+  private static CarDataset buildAllIndexes(CarDataset dataset) {
+    dataset.getStatistics();
+    dataset.getComponentIndex();
+    dataset.getModelPriceIndex();
+    dataset.getQueryPlanner();
+    for (SortType sortType : SortType.values()) {
+      dataset.getSortIndex().rows(sortType, false, 0, 1);
+    }
+    return dataset;
+  }
+
+  private static List<String> sortedCars(CarDataset dataset, SortType sortType, boolean descending) {
+    return toStrings(dataset.getCars(), dataset.getSortIndex().rows(sortType, descending, 0, Integer.MAX_VALUE));
+  }
+
+  private static Map<String, List<String>> topCars(CarDataset dataset, GroupBy groupBy) {
+    Map<String, List<String>> topCars = new LinkedHashMap<>();
+    dataset.getTopKFinder().findTopPerGroup(SortType.PRICE, true, 3, groupBy)
+        .forEach((group, rows) -> topCars.put(group, toStrings(dataset.getCars(), rows)));
+    return topCars;
+  }
+
+  private static CarStore toStore(List<Car> cars) {
+    CarStore.Builder builder = CarStore.builder();
+    cars.forEach(builder::add);
+    return builder.build();
+  }
+
+  private static List<Car> toCars(CarStore cars, int[] rows) {
+    List<Car> result = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      result.add(cars.getCar(row));
+    }
+    return result;
+  }
+
+  private static List<String> toStrings(CarStore cars, int[] rows) {
+    return toStrings(toCars(cars, rows));
+  }
+
+  private static List<String> toStrings(List<Car> cars) {
+    return cars.stream().map(Car::toString).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,48 @@
+package com.app.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarFileWatcherTest {
+
+  private static final String CARS =
+      "[{\"model\": \"BMW\", \"price\": 160, \"color\": \"BLACK\", \"mileage\": 1500, \"components\": [\"ABS\"]}]";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void should_reload_cars_when_file_changes() throws IOException, InterruptedException {
+    // given
+    Path file = directory.resolve("Cars.json");
+    Files.writeString(file, CARS);
+    CarService carService = new CarService(file.toString());
+    BlockingQueue<String> log = new LinkedBlockingQueue<>();
+
+    CarFileWatcher watcher = new CarFileWatcher(carService, file.toString(), log::add).start();
+    try (watcher) {
+      // when
+      Path update = directory.resolve("Cars.json.tmp");
+      Files.writeString(update, CARS.substring(0, CARS.length() - 1) + ", {\"model\": \"MAZDA\", \"price\": 120, " +
+          "\"color\": \"GREEN\", \"mileage\": 2000, \"components\": [\"ESP\"]}]");
+      Files.move(update, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      // then
+      String message = log.poll(10, TimeUnit.SECONDS);
+      assertNotNull(message);
+      assertTrue(message.endsWith("inserted=1, updated=0, removed=0"), message);
+      assertEquals(2, carService.countCarsByColor().values().stream().mapToLong(Long::longValue).sum());
+      assertEquals(1, carService.getVersion());
+    }
+  }
+}
@@ -1,16 +1,38 @@
 package com.app.service;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.app.converter.CarsJsonConverter;
+import com.app.converter.enums.ExportFormat;
 import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.Operation;
+import com.app.service.enums.SortType;
+import com.app.service.metrics.CarServiceMetrics;
+import com.app.service.query.CarPage;
+import com.app.service.query.CarQuery;
+import com.app.service.query.StaleContinuationTokenException;
+import com.app.validator.enums.ValidationRule;
 
 import static com.app.model.enums.Color.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -138,4 +160,595 @@ public class CarServiceTest {
     assertNotNull(cars);
     assertEquals(cars.size(), 2);
   }
+
+  @Test
+  public void should_find_cars_with_all_components() {
+    // given + when
+    List<Car> cars = carService.getCarsWithAllComponents(Set.of(BLUETOOTH, ESP));
+
+    // then
+    assertNotNull(cars);
+    assertEquals(1, cars.size());
+    assertEquals(BigDecimal.valueOf(120), cars.get(0).getPrice());
+  }
+
+  @Test
+  public void should_find_cars_with_any_component() {
+    // given + when
+    List<Car> cars = carService.getCarsWithAnyComponent(Set.of(ABS, ESP, "UNKNOWN"));
+
+    // then
+    assertNotNull(cars);
+    assertEquals(2, cars.size());
+    assertEquals(BMW, cars.get(0).getModel());
+    assertEquals(MAZDA, cars.get(1).getModel());
+  }
+
+  @Test
+  public void should_find_cars_without_components() {
+    // given + when
+    List<Car> cars = carService.getCarsWithoutComponents(Set.of(SUNROOF, ESP));
+
+    // then
+    assertNotNull(cars);
+    assertEquals(1, cars.size());
+    assertEquals(2500L, cars.get(0).getMileage());
+  }
+
+  @Test
+  public void should_find_the_cheapest_car_of_every_model() {
+    // given + when
+    Map<String, List<Car>> cars = carService.findTopCars(SortType.PRICE, false, 1, GroupBy.MODEL);
+
+    // then
+    assertNotNull(cars);
+    assertEquals(2, cars.size());
+    assertEquals(BigDecimal.valueOf(160), cars.get(BMW).get(0).getPrice());
+    assertEquals(BigDecimal.valueOf(120), cars.get(MAZDA).get(0).getPrice());
+  }
+
+  @Test
+  public void should_find_cars_with_the_lowest_mileage() {
+    // given + when
+    List<Car> cars = carService.findTopCars(SortType.MILEAGE, false, 2);
+
+    // then
+    assertNotNull(cars);
+    assertEquals(2, cars.size());
+    assertEquals(1500L, cars.get(0).getMileage());
+    assertEquals(2000L, cars.get(1).getMileage());
+  }
+
+  @Test
+  public void should_find_the_same_top_cars_with_and_without_sorted_listing() {
+    for (SortType sortType : SortType.values()) {
+      for (boolean descending : new boolean[]{false, true}) {
+        // given
+        CarService unsortedService = new CarService("CarsTest.json");
+
+        // when
+        List<Car> topCars = unsortedService.findTopCars(sortType, descending, 2);
+        List<Car> sortedCars = unsortedService.sortCarsByArgument(sortType, descending);
+        List<Car> topSortedCars = unsortedService.findTopCars(sortType, descending, 5);
+
+        // then
+        assertEquals(sortedCars.subList(0, 2).toString(), topCars.toString(), sortType + " " + descending);
+        assertEquals(sortedCars.toString(), topSortedCars.toString(), sortType + " " + descending);
+      }
+    }
+  }
+
+  @Test
+  public void should_return_page_of_cars_sorted_descending() {
+    // given
+    List<Car> allCars = carService.sortCarsByArgument(SortType.MILEAGE, true);
+
+    // when
+    List<Car> cars = carService.sortCarsByArgument(SortType.MILEAGE, true, 1, 5);
+
+    // then
+    assertNotNull(cars);
+    assertEquals(2, cars.size());
+    assertEquals(allCars.get(1).toString(), cars.get(0).toString());
+    assertEquals(2000L, cars.get(0).getMileage());
+    assertEquals(1500L, cars.get(1).getMileage());
+  }
+
+  @Test
+  void should_throw_exception_when_page_offset_is_negative() {
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> carService.sortCarsByArgument(SortType.PRICE, false, -1, 1));
+  }
+
+  @Test
+  public void should_find_cars_within_price_and_mileage_ranges() {
+    // given + when
+    List<Car> cars = carService.getCarsFromGivenRanges(BigDecimal.valueOf(100), BigDecimal.valueOf(160), 1500L, 2000L);
+
+    // then
+    assertNotNull(cars);
+    assertEquals(2, cars.size());
+    assertEquals(BMW, cars.get(0).getModel());
+    assertEquals(1500L, cars.get(0).getMileage());
+    assertEquals(MAZDA, cars.get(1).getModel());
+    assertEquals(2000L, cars.get(1).getMileage());
+  }
+
+  @Test
+  public void should_find_cars_from_price_range_ordered_by_model() {
+    // given + when
+    List<Car> cars = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(200));
+
+    // then
+    assertNotNull(cars);
+    assertEquals(3, cars.size());
+    assertEquals(BMW, cars.get(0).getModel());
+    assertEquals(MAZDA, cars.get(1).getModel());
+    assertEquals(2500L, cars.get(1).getMileage());
+    assertEquals(MAZDA, cars.get(2).getModel());
+    assertEquals(2000L, cars.get(2).getMileage());
+  }
+
+  @Test
+  void should_throw_exception_when_min_mileage_is_greater_than_max_mileage() {
+    // when + then
+    assertThrows(IllegalArgumentException.class,
+        () -> carService.getCarsFromGivenRanges(BigDecimal.ONE, BigDecimal.TEN, 10L, 1L));
+  }
+
+  @Test
+  void should_add_update_and_remove_cars() {
+    // given
+    Car car = createCar(MAZDA, 300, WHITE, 500L);
+    Car updatedCar = createCar(MAZDA, 350, WHITE, 600L);
+
+    // when
+    carService.addCar(car);
+    boolean updated = carService.updateCar(car, updatedCar);
+
+    // then
+    assertTrue(updated);
+    assertEquals(2, carService.getVersion());
+    assertEquals(1L, carService.countCarsByColor().get("WHITE"));
+    assertEquals(BigDecimal.valueOf(350), carService.getMaxPricesByModel().get(MAZDA));
+    assertEquals(600L, carService.findTopCars(SortType.PRICE, true, 1).get(0).getMileage());
+    assertTrue(carService.removeCar(createCar(MAZDA, 350, WHITE, 600L)));
+    assertFalse(carService.removeCar(updatedCar));
+    assertEquals(3, carService.sortCarsByArgument(SortType.PRICE, false).size());
+    assertFalse(carService.countCarsByColor().containsKey("WHITE"));
+  }
+
+  @Test
+  void should_throw_exception_when_added_car_is_not_valid() {
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> carService.addCar(createCar("mazda", 300, WHITE, 500L)));
+    assertEquals(0, carService.getVersion());
+  }
+
+  @Test
+  void should_read_consistent_versions_while_cars_change() throws InterruptedException {
+    // given
+    Car car = createCar(BMW, 500, WHITE, 100L);
+    List<Throwable> failures = new ArrayList<>();
+    Thread reader = new Thread(() -> {
+      try {
+        for (int i = 0; i < 2_000; i++) {
+          List<Car> cars = carService.sortCarsByArgument(SortType.PRICE, false);
+          assertTrue(cars.size() == 3 || cars.size() == 4);
+          for (int n = 1; n < cars.size(); n++) {
+            assertTrue(cars.get(n - 1).getPrice().compareTo(cars.get(n).getPrice()) <= 0);
+          }
+        }
+      } catch (Throwable e) {
+        failures.add(e);
+      }
+    });
+
+    // when
+    reader.start();
+    for (int i = 0; i < 200; i++) {
+      carService.addCar(car);
+      carService.removeCar(car);
+    }
+    reader.join();
+
+    // then
+    assertEquals(List.of(), failures);
+    assertEquals(400, carService.getVersion());
+  }
+
+  @Test
+  void should_apply_only_differences_when_cars_are_replaced() {
+    // given
+    List<Car> newCars = new ArrayList<>(carService.sortCarsByArgument(SortType.MILEAGE, false));
+    Car removedCar = newCars.remove(2);
+    newCars.add(createCar(BMW, 500, WHITE, 100L));
+    newCars.add(createCar(BMW, 600, RED, 200L));
+
+    // when
+    CarChanges changes = carService.replaceCars(newCars);
+
+    // then
+    assertEquals(1, changes.getUpdatedCars().size());
+    assertEquals(removedCar.toString(), changes.getUpdatedCars().get(0).toString());
+    assertEquals(1, changes.getInsertedCars().size());
+    assertEquals(0, changes.getRemovedCars().size());
+    assertEquals(4, carService.sortCarsByArgument(SortType.PRICE, false).size());
+    assertEquals(0, carService.replaceCars(newCars).size());
+  }
+
+  @Test
+  void should_load_the_same_cars_from_written_snapshot(@TempDir Path directory) {
+    // given
+    String snapshotFilename = directory.resolve("Cars.snapshot").toString();
+    carService.addCar(createCar(BMW, 500, WHITE, 100L));
+
+    // when
+    carService.writeSnapshot(snapshotFilename);
+    CarService snapshotService = CarService.fromSnapshot(snapshotFilename, "CarsTest.json");
+
+    // then
+    assertEquals(carService.toString(), snapshotService.toString());
+    assertEquals(carService.getCarsStatistics(), snapshotService.getCarsStatistics());
+    assertEquals(4, snapshotService.getLoadStatistics().getLoaded());
+  }
+
+  @Test
+  void should_reject_corrupted_snapshot_index_when_opened(@TempDir Path directory) throws IOException {
+    // given
+    Path snapshot = directory.resolve("Cars.snapshot");
+    carService.writeSnapshot(snapshot.toString());
+    byte[] bytes = Files.readAllBytes(snapshot);
+    // the last string of the index ends right before its checksum and the trailer
+    bytes[bytes.length - 21] ^= 1;
+    Files.write(snapshot, bytes);
+
+    // when + then
+    assertThrows(IllegalStateException.class, () -> CarService.fromSnapshot(snapshot.toString(), "CarsTest.json"));
+  }
+
+  @Test
+  void should_reject_corrupted_snapshot_section_when_first_read(@TempDir Path directory) throws IOException {
+    // given
+    Path snapshot = directory.resolve("Cars.snapshot");
+    carService.writeSnapshot(snapshot.toString());
+    byte[] bytes = Files.readAllBytes(snapshot);
+    // the first section starts with the price of the first car, right after the magic and the format version
+    bytes[8] ^= 1;
+    Files.write(snapshot, bytes);
+
+    // when
+    CarService snapshotService = CarService.fromSnapshot(snapshot.toString(), "CarsTest.json");
+
+    // then
+    assertEquals(3, snapshotService.getLoadStatistics().getLoaded());
+    assertThrows(IllegalStateException.class, () -> snapshotService.sortCarsByArgument(SortType.PRICE, false));
+  }
+
+  @Test
+  void should_read_cars_lazily_page_by_page() {
+    // given
+    CarQuery query = CarQuery.builder().sortBy(SortType.PRICE, false).build();
+    List<Car> allCars = carService.query(query);
+
+    // when
+    CarPage firstPage = carService.getPage(query, 2, null);
+    CarPage secondPage = carService.getPage(query, 2, firstPage.getContinuationToken());
+
+    // then
+    assertEquals(2, firstPage.getCars().size());
+    assertTrue(firstPage.hasNextPage());
+    assertEquals(allCars.size() - 2, secondPage.getCars().size());
+    assertFalse(secondPage.hasNextPage());
+    assertEquals(allCars.get(2).getPrice(), secondPage.getCars().get(0).getPrice());
+    assertEquals(allCars.get(0).getPrice(), carService.openCursor(query).stream().findFirst().get().getPrice());
+  }
+
+  @Test
+  void should_reject_continuation_token_after_cars_changed() {
+    // given
+    CarQuery query = CarQuery.builder().build();
+    String token = carService.getPage(query, 1, null).getContinuationToken();
+
+    // when
+    carService.addCar(createCar(BMW, 500, WHITE, 100L));
+
+    // then
+    assertThrows(StaleContinuationTokenException.class, () -> carService.openCursor(query, token));
+  }
+
+  @Test
+  void should_export_query_result_as_json_and_ndjson_in_order(@TempDir Path directory) throws IOException {
+    // given
+    CarQuery query = CarQuery.builder().sortBy(SortType.MILEAGE, true).build();
+    List<Car> expected = carService.query(query);
+    String jsonFilename = directory.resolve("cars.json").toString();
+    String ndjsonFilename = directory.resolve("cars.ndjson").toString();
+
+    // when
+    long jsonCount = carService.exportCars(query, ExportFormat.JSON, jsonFilename);
+    long ndjsonCount = carService.exportCars(query, ExportFormat.NDJSON, ndjsonFilename);
+
+    // then
+    List<Car> exported = new CarsJsonConverter(jsonFilename).fromJson().orElseThrow();
+    List<String> lines = Files.readAllLines(Path.of(ndjsonFilename));
+    assertEquals(expected.size(), jsonCount);
+    assertEquals(expected.size(), ndjsonCount);
+    assertEquals(expected.size(), exported.size());
+    assertEquals(expected.size(), lines.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).toString(), exported.get(i).toString());
+      assertTrue(lines.get(i).contains("\"mileage\":" + expected.get(i).getMileage()));
+    }
+  }
+
+  @Test
+  void should_record_latencies_failures_and_rejected_rules_per_operation() {
+    // given
+    Car invalidCar = createCar(BMW, -1, BLACK, 100);
+
+    // when
+    carService.sortCarsByArgument(SortType.PRICE, true);
+    carService.sortCarsByArgument(SortType.MILEAGE, false, 0, 2);
+    carService.countCarsByColor();
+    assertThrows(IllegalArgumentException.class, () -> carService.addCar(invalidCar));
+
+    // then
+    CarServiceMetrics metrics = carService.getMetrics();
+    assertEquals(2, metrics.getOperation(Operation.SORT_CARS_BY_ARGUMENT).getCount());
+    assertEquals(1, metrics.getOperation(Operation.COUNT_CARS_BY_COLOR).getCount());
+    assertEquals(0, metrics.getOperation(Operation.GET_CAR_COUNTS_BY_COLOR).getCount());
+    assertEquals(1, metrics.getOperation(Operation.APPLY_CHANGES).getFailures());
+    assertEquals(1, metrics.getRejections(ValidationRule.PRICE));
+    assertEquals(0, metrics.getRejections(ValidationRule.MODEL));
+    assertEquals(3, metrics.getLoadedCars());
+    assertTrue(metrics.getOperation(Operation.SORT_CARS_BY_ARGUMENT).getMaxMicros() > 0);
+    assertTrue(metrics.dump().contains("sortCarsByArgument"));
+  }
+
+  @Test
+  void should_keep_cars_whose_price_has_more_fraction_digits_than_the_store(@TempDir Path directory)
+      throws IOException {
+    // given
+    Car preciseCar = createCar(MAZDA, 120, GREEN, 2000L);
+    preciseCar.setPrice(new BigDecimal("160.12345"));
+    Path file = directory.resolve("cars.json");
+    Files.writeString(file, toJson(createCar(BMW, 160, BLACK, 1500L), preciseCar));
+
+    // when
+    CarService preciseService = new CarService(file.toString());
+    preciseService.addCar(preciseCar);
+
+    // then
+    List<Car> cars = preciseService.sortCarsByArgument(SortType.PRICE, false);
+    assertEquals(3, cars.size());
+    assertEquals(new BigDecimal("160.12345"), cars.get(2).getPrice());
+    assertEquals(0, preciseService.getMetrics().getRejections(ValidationRule.PRICE));
+    assertEquals(1, preciseService.getCarsFromGivenPriceRange(new BigDecimal("160"), new BigDecimal("160.12344"))
+        .size());
+    assertEquals(2, preciseService.getCarsFromGivenRanges(new BigDecimal("160.12345"), BigDecimal.valueOf(200),
+        0L, 5000L).size());
+    assertEquals(2, preciseService.query(CarQuery.builder().price(new BigDecimal("160.12341"), null).build()).size());
+    assertTrue(preciseService.removeCar(preciseCar));
+  }
+
+  @Test
+  void should_expose_metrics_through_jmx() throws JMException {
+    // given
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    carService.getMetrics().registerMBeans("CarServiceTest");
+    carService.query(CarQuery.builder().models(MAZDA).build());
+
+    try {
+      // when
+      ObjectName serviceName = new ObjectName("com.app.service:type=CarService,name=\"CarServiceTest\"");
+      ObjectName queryName = new ObjectName("com.app.service:type=CarService,name=\"CarServiceTest\",operation=query");
+
+      // then
+      assertEquals(3, server.getAttribute(serviceName, "Cars"));
+      assertEquals(1L, server.getAttribute(queryName, "Count"));
+    } finally {
+      carService.getMetrics().unregisterMBeans();
+    }
+    assertTrue(server.queryNames(new ObjectName("com.app.service:name=\"CarServiceTest\",*"), null).isEmpty());
+  }
+
+  @Test
+  void should_serve_repeated_calls_from_cache_until_cars_change() {
+    // given
+    List<Car> first = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+    first.clear();
+
+    // when
+    List<Car> second = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+    carService.addCar(createCar(BMW, 200, WHITE, 100L));
+    List<Car> afterChange = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+
+    // then
+    assertEquals(3, second.size());
+    assertEquals(4, afterChange.size());
+    assertEquals(1, carService.getResultCache().getHits());
+    assertEquals(2, carService.getResultCache().getMisses());
+    assertEquals(1, carService.getResultCache().getInvalidations());
+  }
+
+  @Test
+  void should_not_share_cached_results_between_queries_with_the_same_text() {
+    // given
+    CarQuery twoModels = CarQuery.builder().models(BMW, MAZDA).build();
+    CarQuery oneModel = CarQuery.builder().models(BMW + ", " + MAZDA).build();
+    carService.query(twoModels);
+
+    // when
+    List<Car> cars = carService.query(oneModel);
+    List<Car> sameCars = carService.query(CarQuery.builder().models(BMW, MAZDA).build());
+
+    // then
+    assertEquals(twoModels.toString(), oneModel.toString());
+    assertTrue(cars.isEmpty());
+    assertEquals(3, sameCars.size());
+    assertEquals(1, carService.getResultCache().getHits());
+  }
+
+  @Test
+  void should_drop_cached_results_as_soon_as_cars_change() {
+    // given
+    carService.query(CarQuery.builder().models(MAZDA).build());
+    carService.getCarCountsByColor();
+
+    // when
+    carService.addCar(createCar(BMW, 200, WHITE, 100L));
+
+    // then
+    assertEquals(0, carService.getResultCache().getSize());
+    assertEquals(0, carService.getResultCache().getWeight());
+    assertEquals(2, carService.getResultCache().getInvalidations());
+  }
+
+  @Test
+  void should_give_every_caller_cars_of_its_own_from_the_cache() {
+    // given
+    List<Car> first = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+    Map<String, Set<Car>> firstGroups = carService.getCarsWithParticularComponent();
+    String expected = String.valueOf(first);
+    String expectedGroups = String.valueOf(firstGroups);
+
+    // when
+    first.forEach(car -> car.setMileage(0L));
+    firstGroups.values().forEach(cars -> cars.forEach(car -> car.setModel("CHANGED")));
+    List<Car> second = carService.getCarsFromGivenPriceRange(BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+    Map<String, Set<Car>> secondGroups = carService.getCarsWithParticularComponent();
+
+    // then
+    assertEquals(expected, String.valueOf(second));
+    assertEquals(expectedGroups, String.valueOf(secondGroups));
+    assertEquals(2, carService.getResultCache().getHits());
+  }
+
+  @Test
+  void should_reload_and_drop_one_partition_without_touching_the_others(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("dealer-a.json"), toJson(createCar(BMW, 160, BLACK, 1500L),
+        createCar(MAZDA, 120, GREEN, 2000L)));
+    Files.writeString(directory.resolve("dealer-b.json"), toJson(createCar(BMW, 300, WHITE, 500L)));
+    CarService partitionedService = CarService.fromPartitions(directory.toString());
+
+    // when
+    Files.writeString(directory.resolve("dealer-b.json"), toJson(createCar(BMW, 280, WHITE, 500L),
+        createCar(MAZDA, 200, RED, 100L)));
+    CarChanges reloaded = partitionedService.reloadPartition("dealer-b.json");
+    CarChanges dropped = partitionedService.dropPartition("dealer-a.json");
+
+    // then
+    assertEquals(3, partitionedService.getLoadStatistics().getLoaded());
+    assertEquals("inserted=1, updated=1, removed=0", reloaded.toString());
+    assertEquals("inserted=0, updated=0, removed=2", dropped.toString());
+    assertEquals(Map.of("dealer-b.json", 2), partitionedService.getPartitions());
+    assertEquals(List.of(BigDecimal.valueOf(200), BigDecimal.valueOf(280)),
+        partitionedService.sortCarsByArgument(SortType.PRICE, false).stream().map(Car::getPrice)
+            .collect(Collectors.toList()));
+    assertEquals(2, partitionedService.getVersion());
+    assertThrows(IllegalArgumentException.class, () -> partitionedService.dropPartition("dealer-a.json"));
+  }
+
+  @Test
+  void should_reload_all_partitions_as_one_version(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("dealer-a.json"), toJson(createCar(BMW, 160, BLACK, 1500L)));
+    Files.writeString(directory.resolve("dealer-b.json"), toJson(createCar(MAZDA, 120, GREEN, 2000L)));
+    CarService partitionedService = CarService.fromPartitions(directory.resolve("dealer-*.json").toString());
+
+    // when
+    Files.delete(directory.resolve("dealer-a.json"));
+    Files.writeString(directory.resolve("dealer-c.json"), toJson(createCar(BMW, 160, BLACK, 1500L),
+        createCar(BMW, 500, WHITE, 100L)));
+    CarChanges changes = partitionedService.reload();
+
+    // then
+    assertEquals("inserted=2, updated=0, removed=1", changes.toString());
+    assertEquals(Map.of("dealer-b.json", 1, "dealer-c.json", 2), partitionedService.getPartitions());
+    assertEquals(3, partitionedService.countCarsByColor().values().stream().mapToLong(Long::longValue).sum());
+    assertEquals(1, partitionedService.getVersion());
+    assertThrows(IllegalStateException.class, () -> carService.reloadPartition("dealer-a.json"));
+  }
+
+  @Test
+  void should_change_only_the_rows_of_a_partition_when_another_one_holds_equal_cars(@TempDir Path directory)
+      throws IOException {
+    // given
+    Car sharedCar = createCar(BMW, 160, BLACK, 1500L);
+    Car mazda = createCar(MAZDA, 120, GREEN, 2000L);
+    Files.writeString(directory.resolve("dealer-a.json"), toJson(sharedCar));
+    Files.writeString(directory.resolve("dealer-b.json"), toJson(mazda, sharedCar));
+    CarService partitionedService = CarService.fromPartitions(directory.toString());
+
+    // when
+    Files.writeString(directory.resolve("dealer-b.json"), toJson(mazda));
+    partitionedService.reloadPartition("dealer-b.json");
+    Map<String, Integer> afterReload = partitionedService.getPartitions();
+    partitionedService.dropPartition("dealer-a.json");
+
+    // then
+    assertEquals(Map.of("dealer-a.json", 1, "dealer-b.json", 1), afterReload);
+    assertEquals(Map.of("dealer-b.json", 1), partitionedService.getPartitions());
+    assertEquals(List.of(MAZDA), partitionedService.sortCarsByArgument(SortType.PRICE, false).stream()
+        .map(Car::getModel).collect(Collectors.toList()));
+  }
+
+  @Test
+  void should_reject_direct_changes_of_cars_loaded_from_partitions(@TempDir Path directory) throws IOException {
+    // given
+    Car car = createCar(BMW, 160, BLACK, 1500L);
+    Files.writeString(directory.resolve("dealer-a.json"), toJson(car));
+    CarService partitionedService = CarService.fromPartitions(directory.toString());
+
+    // when
+    assertThrows(IllegalStateException.class, () -> partitionedService.removeCar(car));
+    assertThrows(IllegalStateException.class, () -> partitionedService.addCar(car));
+    assertThrows(IllegalStateException.class, () -> partitionedService.updateCar(car, car));
+    assertThrows(IllegalStateException.class, () -> partitionedService.replaceCars(List.of()));
+    CarChanges reloaded = partitionedService.reloadPartition("dealer-a.json");
+
+    // then
+    assertTrue(reloaded.isEmpty());
+    assertEquals(Map.of("dealer-a.json", 1), partitionedService.getPartitions());
+    assertEquals(0, partitionedService.getVersion());
+  }
+
+  @Test
+  void should_shut_down_the_pool_of_its_partitions_when_closed(@TempDir Path directory) throws IOException {
+    // given
+    Files.writeString(directory.resolve("dealer-a.json"), toJson(createCar(BMW, 160, BLACK, 1500L)));
+    CarService partitionedService = CarService.fromPartitions(directory.toString());
+
+    // when
+    partitionedService.close();
+
+    // then
+    assertThrows(RejectedExecutionException.class, () -> partitionedService.reloadPartition("dealer-a.json"));
+    assertEquals(Map.of("dealer-a.json", 1), partitionedService.getPartitions());
+  }
+
+  private static Car createCar(String model, long price, Color color, long mileage) {
+    return Car.builder()
+        .model(model)
+        .price(BigDecimal.valueOf(price))
+        .color(color)
+        .mileage(mileage)
+        .components(Set.of(ABS))
+        .build();
+  }
+
+  private static String toJson(Car... cars) {
+    StringBuilder json = new StringBuilder("[");
+    for (Car car : cars) {
+      json.append(json.length() == 1 ? "" : ",")
+          .append("{\"model\": \"").append(car.getModel())
+          .append("\", \"price\": ").append(car.getPrice())
+          .append(", \"color\": \"").append(car.getColor())
+          .append("\", \"mileage\": ").append(car.getMileage())
+          .append(", \"components\": [\"ABS\"]}");
+    }
+    return json.append("]").toString();
+  }
 }
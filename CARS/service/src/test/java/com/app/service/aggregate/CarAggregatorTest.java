@@ -0,0 +1,84 @@
+package com.app.service.aggregate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.store.CarStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarAggregatorTest {
+
+  private static final String[] MODELS = {"MAZDA", "BMW", "AUDI"};
+  private static final String[] COMPONENTS = {"ABS", "ESP", "SUNROOF"};
+
+  @Test
+  void should_aggregate_cars_grouped_by_model() {
+    // given
+    CarAggregator aggregator = new CarAggregator(CarStore.builder()
+        .add(createCar("MAZDA", 160, 2500, "ABS"))
+        .add(createCar("BMW", 120, 1500, "ABS"))
+        .add(createCar("MAZDA", 200, 1000, "ESP"))
+        .add(createCar("MAZDA", 200, 3000, "ESP"))
+        .build());
+
+    // when
+    Map<String, CarAggregate> aggregates = aggregator.aggregate(GroupBy.MODEL);
+
+    // then
+    assertEquals(2, aggregates.size());
+    CarAggregate mazda = aggregates.get("MAZDA");
+    assertEquals(3, mazda.getCount());
+    assertEquals(0, BigDecimal.valueOf(560).compareTo(mazda.getPriceSum()));
+    assertEquals(BigDecimal.valueOf(160), mazda.getMinPrice());
+    assertEquals(BigDecimal.valueOf(200), mazda.getMaxPrice());
+    assertEquals(1000L, mazda.getMostExpensiveCar().getMileage());
+    assertEquals(6500L, mazda.getMileageSum());
+    assertEquals(1000L, mazda.getMinMileage());
+    assertEquals(3000L, mazda.getMaxMileage());
+    assertEquals(1, aggregates.get("BMW").getCount());
+  }
+
+  @Test
+  void should_return_the_same_aggregates_in_parallel_mode() {
+    // given
+    Random random = new Random(7);
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 300_000; i++) {
+      builder.add(createCar(MODELS[random.nextInt(MODELS.length)], 1 + random.nextInt(50),
+          1 + random.nextInt(10_000), COMPONENTS[random.nextInt(COMPONENTS.length)]));
+    }
+    CarAggregator aggregator = new CarAggregator(builder.build());
+
+    for (GroupBy groupBy : GroupBy.values()) {
+      // when
+      Map<String, CarAggregate> sequential = aggregator.aggregate(groupBy, false);
+      Map<String, CarAggregate> parallel = aggregator.aggregate(groupBy, true);
+
+      // then
+      assertEquals(sequential.keySet(), parallel.keySet());
+      sequential.forEach((group, aggregate) -> {
+        assertEquals(aggregate.toString(), parallel.get(group).toString());
+        assertEquals(aggregate.getMostExpensiveCar().toString(), parallel.get(group).getMostExpensiveCar().toString());
+        assertEquals(aggregate.getCheapestCar().toString(), parallel.get(group).getCheapestCar().toString());
+      });
+    }
+  }
+
+  private static Car createCar(String model, long price, long mileage, String component) {
+    return Car.builder()
+        .model(model)
+        .price(BigDecimal.valueOf(price))
+        .color(Color.values()[(int) (mileage % Color.values().length)])
+        .mileage(mileage)
+        .components(Set.of(component))
+        .build();
+  }
+}
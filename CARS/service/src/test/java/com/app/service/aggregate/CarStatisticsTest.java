@@ -0,0 +1,116 @@
+package com.app.service.aggregate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.store.CarStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarStatisticsTest {
+
+  private static final String[] MODELS = {"MAZDA", "BMW", "AUDI"};
+
+  @Test
+  void should_keep_minimum_and_maximum_after_removing_extremes() {
+    // given
+    Car cheapest = createCar("MAZDA", 100, 500, Color.RED);
+    Car mostExpensive = createCar("BMW", 300, 3000, Color.BLUE);
+    CarStatistics statistics = new CarStatistics();
+    statistics.add(cheapest);
+    statistics.add(createCar("MAZDA", 200, 1000, Color.RED));
+    statistics.add(createCar("MAZDA", 200, 1500, Color.BLACK));
+    statistics.add(mostExpensive);
+
+    // when
+    statistics.remove(cheapest);
+    statistics.remove(mostExpensive);
+
+    // then
+    assertEquals(2, statistics.getCount());
+    assertEquals(BigDecimal.valueOf(200), statistics.getMinPrice());
+    assertEquals(BigDecimal.valueOf(200), statistics.getMaxPrice());
+    assertEquals(0, BigDecimal.valueOf(200).compareTo(statistics.getAveragePrice()));
+    assertEquals(1000L, statistics.getMinMileage());
+    assertEquals(1500L, statistics.getMaxMileage());
+    assertEquals(Map.of(Color.RED, 1L, Color.BLACK, 1L), statistics.getCountsByColor());
+    assertEquals(Map.of("MAZDA", BigDecimal.valueOf(200)), statistics.getMaxPricesByModel());
+  }
+
+  @Test
+  void should_update_color_counts_and_model_prices() {
+    // given
+    Car car = createCar("MAZDA", 100, 500, Color.RED);
+    CarStatistics statistics = new CarStatistics();
+    statistics.add(car);
+
+    // when
+    statistics.update(car, createCar("MAZDA", 150, 700, Color.WHITE));
+
+    // then
+    assertEquals(0, statistics.getCount(Color.RED));
+    assertEquals(1, statistics.getCount(Color.WHITE));
+    assertEquals(new BigDecimal("150"), statistics.getMaxPrice("MAZDA"));
+    assertEquals(700L, statistics.getMinMileage());
+  }
+
+  @Test
+  void should_match_full_aggregation_after_random_changes() {
+    // given
+    Random random = new Random(11);
+    List<Car> cars = new ArrayList<>();
+    CarStatistics statistics = new CarStatistics();
+    for (int i = 0; i < 20_000; i++) {
+      if (!cars.isEmpty() && random.nextInt(3) == 0) {
+        statistics.remove(cars.remove(random.nextInt(cars.size())));
+      } else {
+        Car car = createCar(MODELS[random.nextInt(MODELS.length)], 1 + random.nextInt(1_000),
+            1 + random.nextInt(10_000), Color.values()[random.nextInt(Color.values().length)]);
+        cars.add(car);
+        statistics.add(car);
+      }
+    }
+
+    // when
+    CarStore.Builder builder = CarStore.builder();
+    cars.forEach(builder::add);
+    CarAggregate expected = new CarAggregator(builder.build()).aggregateAll();
+
+    // then
+    assertEquals(expected.getCount(), statistics.getCount());
+    assertEquals(expected.getAveragePrice(), statistics.getAveragePrice());
+    assertEquals(expected.getMinPrice(), statistics.getMinPrice());
+    assertEquals(expected.getMaxPrice(), statistics.getMaxPrice());
+    assertEquals(expected.getAverageMileage(), statistics.getAverageMileage());
+    assertEquals(expected.getMinMileage(), statistics.getMinMileage());
+    assertEquals(expected.getMaxMileage(), statistics.getMaxMileage());
+  }
+
+  @Test
+  void should_throw_exception_when_removing_unknown_car() {
+    // given
+    CarStatistics statistics = new CarStatistics();
+    statistics.add(createCar("MAZDA", 100, 500, Color.RED));
+
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> statistics.remove(createCar("BMW", 100, 500, Color.RED)));
+  }
+
+  private static Car createCar(String model, long price, long mileage, Color color) {
+    return Car.builder()
+        .model(model)
+        .price(BigDecimal.valueOf(price))
+        .color(color)
+        .mileage(mileage)
+        .components(Set.of("ABS"))
+        .build();
+  }
+}
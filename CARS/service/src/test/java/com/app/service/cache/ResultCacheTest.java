@@ -0,0 +1,145 @@
+package com.app.service.cache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.service.enums.Operation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+  private final AtomicInteger computations = new AtomicInteger();
+
+  @Test
+  void should_compute_a_result_once_per_operation_arguments_and_version() {
+    // given
+    ResultCache cache = new ResultCache(100);
+
+    // when
+    Object first = cache.get(Operation.QUERY, 1, this::compute, "models=BMW");
+    Object second = cache.get(Operation.QUERY, 1, this::compute, "models=BMW");
+    cache.get(Operation.QUERY, 1, this::compute, "models=MAZDA");
+    cache.get(Operation.AGGREGATE, 1, this::compute, "models=BMW");
+
+    // then
+    assertSame(first, second);
+    assertEquals(3, computations.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+    assertEquals(0.25, cache.getHitRate());
+  }
+
+  @Test
+  void should_drop_all_results_of_older_versions_and_never_cache_them_again() {
+    // given
+    ResultCache cache = new ResultCache(100);
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+    cache.get(Operation.QUERY, 1, this::compute, "b");
+
+    // when
+    cache.get(Operation.QUERY, 2, this::compute, "a");
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+
+    // then
+    assertEquals(5, computations.get());
+    assertEquals(2, cache.getInvalidations());
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void should_drop_results_of_older_versions_when_a_newer_one_is_published() {
+    // given
+    ResultCache cache = new ResultCache(100);
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+    cache.get(Operation.QUERY, 1, this::compute, "b");
+
+    // when
+    cache.invalidate(2);
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+
+    // then
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getWeight());
+    assertEquals(2, cache.getInvalidations());
+    assertEquals(3, computations.get());
+  }
+
+  @Test
+  void should_evict_the_least_recently_used_results_by_weight() {
+    // given
+    ResultCache cache = new ResultCache(10);
+    cache.get(Operation.QUERY, 1, () -> List.of(1, 2, 3, 4), "a");
+    cache.get(Operation.QUERY, 1, () -> List.of(1, 2, 3, 4), "b");
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+
+    // when
+    cache.get(Operation.QUERY, 1, () -> List.of(1, 2, 3, 4), "c");
+    cache.get(Operation.QUERY, 1, () -> Collections.nCopies(11, 0), "too heavy");
+
+    // then
+    assertEquals(1, cache.getEvictions());
+    assertEquals(8, cache.getWeight());
+    assertEquals(0, computations.get());
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+    cache.get(Operation.QUERY, 1, this::compute, "b");
+    assertEquals(1, computations.get());
+  }
+
+  @Test
+  void should_copy_set_arguments_into_the_key() {
+    // given
+    ResultCache cache = new ResultCache(100);
+    Set<String> components = new HashSet<>(Set.of("ABS"));
+    cache.get(Operation.GET_CARS_WITH_ALL_COMPONENTS, 1, this::compute, components);
+
+    // when
+    components.add("ESP");
+    cache.get(Operation.GET_CARS_WITH_ALL_COMPONENTS, 1, this::compute, Set.of("ABS"));
+
+    // then
+    assertEquals(1, computations.get());
+  }
+
+  @Test
+  void should_weigh_rows_and_groups_of_rows_by_their_row_count() {
+    // given
+    ResultCache cache = new ResultCache(100);
+
+    // when
+    cache.get(Operation.QUERY, 1, () -> new int[]{1, 2, 3}, "rows");
+    cache.get(Operation.FIND_TOP_CARS, 1, () -> Map.of("BMW", new int[]{4, 5}, "AUDI", new int[]{6}), "groups");
+    cache.get(Operation.QUERY, 1, () -> new int[0], "no rows");
+
+    // then
+    assertEquals(3 + 4 + 1, cache.getWeight());
+  }
+
+  @Test
+  void should_not_cache_when_max_weight_is_zero() {
+    // given
+    ResultCache cache = new ResultCache(100);
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+
+    // when
+    cache.setMaxWeight(0);
+    cache.get(Operation.QUERY, 1, this::compute, "a");
+
+    // then
+    assertEquals(2, computations.get());
+    assertEquals(0, cache.getSize());
+    assertThrows(IllegalArgumentException.class, () -> cache.setMaxWeight(-1));
+  }
+
+  private Object compute() {
+    computations.incrementAndGet();
+    return new Object();
+  }
+}
@@ -0,0 +1,103 @@
+package com.app.service.index;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  void should_combine_sparse_and_dense_bitmaps_like_bit_set() {
+    // given
+    BitSet sparse = randomBits(300_000, 0.01);
+    BitSet dense = randomBits(300_000, 0.6);
+    CompressedBitmap sparseBitmap = toBitmap(sparse);
+    CompressedBitmap denseBitmap = toBitmap(dense);
+
+    // when + then
+    assertBits(and(sparse, dense), sparseBitmap.and(denseBitmap));
+    assertBits(and(dense, sparse), denseBitmap.and(sparseBitmap));
+    assertBits(and(dense, dense), denseBitmap.and(denseBitmap));
+    assertBits(or(sparse, dense), sparseBitmap.or(denseBitmap));
+    assertBits(or(sparse, sparse), sparseBitmap.or(sparseBitmap));
+    assertBits(andNot(sparse, dense), sparseBitmap.andNot(denseBitmap));
+    assertBits(andNot(dense, sparse), denseBitmap.andNot(sparseBitmap));
+    assertBits(andNot(dense, dense), denseBitmap.andNot(denseBitmap));
+  }
+
+  @Test
+  void should_check_if_value_is_contained() {
+    // given
+    CompressedBitmap bitmap = CompressedBitmap.of(1, 70_000, 1_000_000);
+
+    // when + then
+    assertTrue(bitmap.contains(70_000));
+    assertFalse(bitmap.contains(70_001));
+    assertFalse(bitmap.contains(2));
+    assertEquals(3, bitmap.cardinality());
+    assertArrayEquals(new int[]{1, 70_000, 1_000_000}, bitmap.toArray());
+  }
+
+  @Test
+  void should_create_range_of_values() {
+    // given + when
+    CompressedBitmap bitmap = CompressedBitmap.range(100_000);
+
+    // then
+    assertEquals(100_000, bitmap.cardinality());
+    assertTrue(bitmap.contains(99_999));
+    assertFalse(bitmap.contains(100_000));
+    assertTrue(CompressedBitmap.range(0).isEmpty());
+  }
+
+  @Test
+  void should_throw_exception_when_values_are_not_ascending() {
+    // given
+    CompressedBitmap.Builder builder = CompressedBitmap.builder().add(5);
+
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> builder.add(5));
+  }
+
+  private BitSet randomBits(int size, double density) {
+    BitSet bits = new BitSet(size);
+    for (int i = 0; i < size; i++) {
+      if (random.nextDouble() < density) {
+        bits.set(i);
+      }
+    }
+    return bits;
+  }
+
+  private static CompressedBitmap toBitmap(BitSet bits) {
+    return CompressedBitmap.of(bits.stream().toArray());
+  }
+
+  private static BitSet and(BitSet first, BitSet second) {
+    BitSet result = (BitSet) first.clone();
+    result.and(second);
+    return result;
+  }
+
+  private static BitSet or(BitSet first, BitSet second) {
+    BitSet result = (BitSet) first.clone();
+    result.or(second);
+    return result;
+  }
+
+  private static BitSet andNot(BitSet first, BitSet second) {
+    BitSet result = (BitSet) first.clone();
+    result.andNot(second);
+    return result;
+  }
+
+  private static void assertBits(BitSet expected, CompressedBitmap actual) {
+    assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    assertEquals(expected.cardinality(), actual.cardinality());
+  }
+}
@@ -0,0 +1,112 @@
+package com.app.service.load;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.service.enums.LoadStage;
+
+import static com.app.model.enums.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarLoadPipelineTest {
+
+  private static final int CARS = 5_000;
+
+  private final CarLoadPipeline pipeline = new CarLoadPipeline(4, 16);
+
+  @Test
+  void should_keep_source_order_of_valid_cars() {
+    // given
+    List<Car> loaded = new ArrayList<>();
+
+    // when
+    LoadStatistics statistics = pipeline.load(
+        () -> createCars(CARS),
+        car -> {
+          LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(1_000));
+          return car.getMileage() % 3 != 0;
+        },
+        loaded::add
+    );
+
+    // then
+    List<Long> expected = LongStream.range(0, CARS).filter(mileage -> mileage % 3 != 0).boxed()
+        .collect(Collectors.toList());
+    assertEquals(expected, loaded.stream().map(Car::getMileage).collect(Collectors.toList()));
+    assertEquals(expected.size(), statistics.getLoaded());
+    assertEquals(CARS - expected.size(), statistics.getRejected());
+    assertEquals(CARS, statistics.getStage(LoadStage.PARSE).getRecords());
+    assertEquals(CARS, statistics.getStage(LoadStage.VALIDATE).getRecords());
+    assertEquals(expected.size(), statistics.getStage(LoadStage.INDEX).getRecords());
+  }
+
+  @Test
+  void should_load_empty_source() {
+    // given
+    List<Car> loaded = new ArrayList<>();
+
+    // when
+    LoadStatistics statistics = pipeline.load(Stream::empty, car -> true, loaded::add);
+
+    // then
+    assertTrue(loaded.isEmpty());
+    assertEquals(0, statistics.getLoaded());
+  }
+
+  @Test
+  void should_rethrow_exception_from_validator() {
+    // when + then
+    assertThrows(NullPointerException.class, () -> pipeline.load(
+        () -> createCars(CARS),
+        car -> {
+          if (car.getMileage() == 100) {
+            throw new NullPointerException("Model is null");
+          }
+          return true;
+        },
+        car -> {
+        }
+    ));
+  }
+
+  @Test
+  void should_rethrow_exception_from_parser() {
+    // when + then
+    assertThrows(IllegalStateException.class, () -> pipeline.load(
+        () -> createCars(CARS).peek(car -> {
+          if (car.getMileage() == 100) {
+            throw new IllegalStateException("Failed to JSON");
+          }
+        }),
+        car -> true,
+        car -> {
+        }
+    ));
+  }
+
+  @Test
+  void should_throw_exception_when_number_of_validator_threads_is_not_positive() {
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> new CarLoadPipeline(0, 16));
+  }
+
+  private static Stream<Car> createCars(int count) {
+    return LongStream.range(0, count).mapToObj(mileage -> Car.builder()
+        .model("MAZDA")
+        .price(BigDecimal.TEN)
+        .color(BLACK)
+        .mileage(mileage)
+        .components(Set.of("ABS"))
+        .build());
+  }
+}
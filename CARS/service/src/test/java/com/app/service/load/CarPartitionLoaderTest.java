@@ -0,0 +1,94 @@
+package com.app.service.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.model.Car;
+import com.app.service.enums.LoadStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarPartitionLoaderTest {
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void should_load_matching_files_as_partitions_in_order_of_their_names() throws IOException {
+    // given
+    for (int dealer = 9; dealer >= 0; dealer--) {
+      writeCars("dealer-" + dealer + ".json", dealer, 100);
+    }
+    Files.writeString(directory.resolve("notes.txt"), "not cars");
+    Map<String, List<Car>> loaded = new LinkedHashMap<>();
+
+    // when
+    CarPartitionLoader loader = new CarPartitionLoader(directory.toString(), pool);
+    LoadStatistics statistics = loader.load(loader.listPartitions(), car -> car.getMileage() % 10 != 0,
+        loaded::put);
+
+    // then
+    assertEquals(List.of("dealer-0.json", "dealer-1.json", "dealer-2.json", "dealer-3.json", "dealer-4.json",
+        "dealer-5.json", "dealer-6.json", "dealer-7.json", "dealer-8.json", "dealer-9.json"),
+        new ArrayList<>(loaded.keySet()));
+    assertEquals(90, loaded.get("dealer-3.json").size());
+    assertEquals(3 * 100 + 1, loaded.get("dealer-3.json").get(0).getMileage());
+    assertEquals(900, statistics.getLoaded());
+    assertEquals(100, statistics.getRejected());
+    assertEquals(1000, statistics.getStage(LoadStage.PARSE).getRecords());
+    assertEquals(900, statistics.getStage(LoadStage.INDEX).getRecords());
+  }
+
+  @Test
+  void should_select_partitions_with_glob() throws IOException {
+    // given
+    writeCars("dealer-1.json", 1, 1);
+    writeCars("dealer-2.json", 2, 1);
+    writeCars("auction-1.json", 3, 1);
+
+    // when
+    CarPartitionLoader loader = new CarPartitionLoader(directory.resolve("dealer-*.json").toString(), pool);
+
+    // then
+    assertEquals(List.of("dealer-1.json", "dealer-2.json"), loader.listPartitions());
+    assertTrue(loader.isPartition("dealer-3.json"));
+    assertFalse(loader.isPartition("auction-1.json"));
+    assertThrows(IllegalArgumentException.class, () -> loader.load(List.of("../dealer-1.json"), car -> true,
+        (partition, cars) -> { }));
+  }
+
+  @Test
+  void should_reject_missing_directory() {
+    // when + then
+    assertThrows(IllegalArgumentException.class,
+        () -> new CarPartitionLoader(directory.resolve("missing").resolve("*.json").toString(), pool));
+  }
+
+  private void writeCars(String filename, int dealer, int count) throws IOException {
+    StringBuilder json = new StringBuilder("[");
+    for (int n = 0; n < count; n++) {
+      json.append(n == 0 ? "" : ",")
+          .append("{\"model\": \"BMW\", \"price\": ").append(100 + n)
+          .append(", \"color\": \"BLACK\", \"mileage\": ").append(dealer * 100 + n)
+          .append(", \"components\": [\"ABS\"]}");
+    }
+    Files.writeString(directory.resolve(filename), json.append("]"));
+  }
+}
@@ -0,0 +1,69 @@
+package com.app.service.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+  @Test
+  void should_report_percentiles_within_bucket_precision() {
+    // given
+    Random random = new Random(42);
+    long[] values = new long[100_000];
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(8 + random.nextGaussian() * 2);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    // when + then
+    for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long reported = histogram.getValueAtPercentile(percentile);
+      assertTrue(reported >= exact, percentile + "th percentile " + reported + " is below " + exact);
+      assertTrue(reported <= exact + exact / 16 + 1, percentile + "th percentile " + reported + " exceeds " + exact);
+    }
+    assertEquals(values.length, histogram.getCount());
+    assertEquals(values[values.length - 1], histogram.getMaxNanos());
+    assertEquals(Arrays.stream(values).sum(), histogram.getTotalNanos());
+  }
+
+  @Test
+  void should_map_every_value_into_the_bucket_covering_it() {
+    // given
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+
+    // when + then
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertTrue(LatencyHistogram.highestValue(bucket) >= value);
+      assertTrue(bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value);
+    }
+  }
+
+  @Test
+  void should_count_concurrent_records_and_reset() {
+    // given
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    // when
+    IntStream.range(0, 200_000).parallel().forEach(histogram::record);
+
+    // then
+    assertEquals(200_000, histogram.getCount());
+    assertEquals(199_999, histogram.getMaxNanos());
+
+    // when
+    histogram.reset();
+
+    // then
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+}
@@ -0,0 +1,64 @@
+package com.app.service.query;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.service.enums.SortType;
+
+import static com.app.model.enums.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarQueryParametersTest {
+
+  @Test
+  void should_read_every_parameter_into_the_query() {
+    // given
+    Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("models", "BMW, MAZDA");
+    parameters.put("colors", "black,White");
+    parameters.put("minPrice", "100.50");
+    parameters.put("maxMileage", "5000");
+    parameters.put("withAll", "ABS");
+    parameters.put("withAny", "ESP,AIR CONDITIONING");
+    parameters.put("without", "SUNROOF");
+    parameters.put("sort", "price:desc,model");
+    parameters.put("offset", "20");
+    parameters.put("limit", "10");
+
+    // when
+    CarQuery query = CarQueryParameters.toQuery(parameters);
+
+    // then
+    assertEquals(Set.of("BMW", "MAZDA"), query.getModels());
+    assertEquals(Set.of(BLACK, WHITE), query.getColors());
+    assertEquals(new BigDecimal("100.50"), query.getMinPrice());
+    assertNull(query.getMaxPrice());
+    assertNull(query.getMinMileage());
+    assertEquals(5000L, query.getMaxMileage());
+    assertEquals(Set.of("ABS"), query.getRequiredComponents());
+    assertEquals(Set.of("ESP", "AIR CONDITIONING"), query.getWantedComponents());
+    assertEquals(Set.of("SUNROOF"), query.getExcludedComponents());
+    assertEquals(List.of(SortType.PRICE, SortType.MODEL),
+        List.of(query.getSortKeys().get(0).getSortType(), query.getSortKeys().get(1).getSortType()));
+    assertTrue(query.getSortKeys().get(0).isDescending());
+    assertFalse(query.getSortKeys().get(1).isDescending());
+    assertEquals(20, query.getOffset());
+    assertEquals(10, query.getLimit());
+  }
+
+  @Test
+  void should_throw_exception_when_parameter_is_not_valid() {
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> CarQueryParameters.toQuery(Map.of("make", "BMW")));
+    assertThrows(IllegalArgumentException.class, () -> CarQueryParameters.toQuery(Map.of("colors", "PINK")));
+    assertThrows(IllegalArgumentException.class, () -> CarQueryParameters.toQuery(Map.of("limit", "ten")));
+    assertThrows(IllegalArgumentException.class, () -> CarQueryParameters.toQuery(Map.of("sort", "price:up")));
+    assertThrows(IllegalArgumentException.class,
+        () -> CarQueryParameters.toQuery(Map.of("minPrice", "300", "maxPrice", "100")));
+  }
+}
@@ -0,0 +1,241 @@
+package com.app.service.query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.enums.AccessPath;
+import com.app.service.enums.SortType;
+import com.app.service.index.AttributeIndex;
+import com.app.service.index.ComponentIndex;
+import com.app.service.index.RangeIndex;
+import com.app.service.index.SortIndex;
+import com.app.service.store.CarStore;
+
+import static com.app.model.enums.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlannerTest {
+
+  private static final List<String> MODELS = List.of("AUDI", "BMW", "MAZDA", "OPEL", "SKODA");
+  private static final List<String> COMPONENTS = List.of("ABS", "AIR CONDITIONING", "BLUETOOTH", "ESP", "RADIO");
+
+  @Test
+  void should_read_the_most_selective_index() {
+    // given
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add(createCar(i == 0 ? "FERRARI" : "BMW", 100 + i, BLACK, i, Set.of("ABS")));
+    }
+    QueryPlanner planner = createPlanner(builder.build());
+
+    // when
+    QueryPlan modelPlan = planner.plan(CarQuery.builder().models("FERRARI").colors(BLACK).build());
+    QueryPlan mileagePlan = planner.plan(CarQuery.builder().models("BMW").mileage(10L, 12L).build());
+    QueryPlan fullScan = planner.plan(CarQuery.builder().colors(BLACK).withAllComponents("ABS").build());
+
+    // then
+    assertEquals(AccessPath.MODEL_INDEX, modelPlan.getAccessPath());
+    assertEquals(1, modelPlan.getEstimatedRows());
+    assertEquals(AccessPath.MILEAGE_INDEX, mileagePlan.getAccessPath());
+    assertEquals(3, mileagePlan.getEstimatedRows());
+    assertEquals(AccessPath.FULL_SCAN, fullScan.getAccessPath());
+  }
+
+  @Test
+  void should_return_the_same_rows_as_checking_every_car() {
+    // given
+    Random random = new Random(7);
+    List<Car> cars = new ArrayList<>();
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 2000; i++) {
+      Set<String> components = COMPONENTS
+          .stream()
+          .filter(component -> random.nextInt(3) == 0)
+          .collect(Collectors.toSet());
+      Car car = createCar(MODELS.get(random.nextInt(MODELS.size())), random.nextInt(1000),
+          Color.values()[random.nextInt(Color.values().length)], random.nextInt(500), components);
+      cars.add(car);
+      builder.add(car);
+    }
+    QueryPlanner planner = createPlanner(builder.build());
+    List<CarQuery> queries = List.of(
+        CarQuery.builder().models("BMW", "OPEL").price(new BigDecimal("100.5"), new BigDecimal("600")).build(),
+        CarQuery.builder().colors(RED).mileage(10L, 200L).withoutComponents("ESP").build(),
+        CarQuery.builder().withAllComponents("ABS", "RADIO").withAnyComponent("ESP", "BLUETOOTH").build(),
+        CarQuery.builder().price(null, new BigDecimal("10")).models("AUDI").build(),
+        CarQuery.builder().mileage(480L, null).colors(BLUE, WHITE).build(),
+        CarQuery.builder().models("TESLA").build(),
+        CarQuery.builder().withAllComponents("ABS", "ROOF").build());
+
+    for (CarQuery query : queries) {
+      // when
+      int[] rows = planner.execute(query);
+
+      // then
+      int[] expected = IntStream.range(0, cars.size()).filter(row -> matches(query, cars.get(row))).toArray();
+      assertArrayEquals(expected, rows, query.toString());
+    }
+  }
+
+  @Test
+  void should_sort_by_all_keys_and_cut_the_page() {
+    // given
+    CarStore cars = CarStore.builder()
+        .add(createCar("BMW", 300, BLACK, 10, Set.of()))
+        .add(createCar("AUDI", 200, RED, 20, Set.of()))
+        .add(createCar("BMW", 100, WHITE, 30, Set.of()))
+        .add(createCar("AUDI", 200, BLACK, 40, Set.of()))
+        .add(createCar("BMW", 300, RED, 50, Set.of()))
+        .build();
+    QueryPlanner planner = createPlanner(cars);
+    CarQuery query = CarQuery.builder()
+        .sortBy(SortType.MODEL, false)
+        .sortBy(SortType.PRICE, true)
+        .offset(1)
+        .limit(3)
+        .build();
+
+    // when
+    int[] rows = planner.execute(query);
+
+    // then
+    assertArrayEquals(new int[]{3, 0, 4}, rows);
+  }
+
+  @Test
+  void should_stop_an_unsorted_query_once_the_page_is_full() {
+    // given
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 50; i++) {
+      builder.add(createCar("BMW", 100, i % 2 == 0 ? BLACK : RED, i, Set.of()));
+    }
+    QueryPlanner planner = createPlanner(builder.build());
+
+    // when
+    int[] rows = planner.execute(CarQuery.builder().colors(RED).offset(2).limit(2).build());
+
+    // then
+    assertArrayEquals(new int[]{5, 7}, rows);
+  }
+
+  @Test
+  void should_produce_the_same_cars_with_a_cursor_page_by_page() {
+    // given
+    Random random = new Random(11);
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 500; i++) {
+      builder.add(createCar(MODELS.get(random.nextInt(MODELS.size())), random.nextInt(20),
+          Color.values()[random.nextInt(Color.values().length)], random.nextInt(50), Set.of()));
+    }
+    CarStore cars = builder.build();
+    QueryPlanner planner = createPlanner(cars);
+    List<CarQuery> queries = List.of(
+        CarQuery.builder().build(),
+        CarQuery.builder().sortBy(SortType.PRICE, true).build(),
+        CarQuery.builder().sortBy(SortType.MODEL, true).colors(RED, BLACK).offset(7).build(),
+        CarQuery.builder().sortBy(SortType.MILEAGE, false).price(new BigDecimal("5"), null).limit(60).build(),
+        CarQuery.builder().sortBy(SortType.COLOR, false).sortBy(SortType.PRICE, true).limit(90).build(),
+        CarQuery.builder().mileage(10L, 20L).offset(3).limit(45).build(),
+        CarQuery.builder().models("OPEL").offset(10).build());
+
+    for (CarQuery query : queries) {
+      // when
+      List<String> actual = new ArrayList<>();
+      CarPage page = planner.cursor(query, 1, null).nextPage(16);
+      page.getCars().forEach(car -> actual.add(describe(car)));
+      while (page.hasNextPage()) {
+        page = planner.cursor(query, 1, page.getContinuationToken()).nextPage(16);
+        page.getCars().forEach(car -> actual.add(describe(car)));
+      }
+
+      // then
+      List<String> expected = IntStream.of(planner.execute(query))
+          .mapToObj(row -> describe(cars.getCar(row)))
+          .collect(Collectors.toList());
+      assertEquals(expected, actual, query.toString());
+    }
+  }
+
+  @Test
+  void should_reject_continuation_token_of_another_query_or_version() {
+    // given
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 10; i++) {
+      builder.add(createCar("BMW", 100, BLACK, i, Set.of()));
+    }
+    QueryPlanner planner = createPlanner(builder.build());
+    CarQuery query = CarQuery.builder().build();
+    String token = planner.cursor(query, 1, null).nextPage(3).getContinuationToken();
+
+    // when + then
+    assertThrows(IllegalArgumentException.class,
+        () -> planner.cursor(CarQuery.builder().models("BMW").build(), 1, token));
+    assertThrows(IllegalArgumentException.class, () -> planner.cursor(query, 1, "not a token"));
+    assertThrows(StaleContinuationTokenException.class, () -> planner.cursor(query, 2, token));
+  }
+
+  @Test
+  void should_tell_queries_apart_by_their_fields_rather_than_their_text() {
+    // given
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 10; i++) {
+      builder.add(createCar(i % 2 == 0 ? "BMW" : "MAZDA", 100, BLACK, i, Set.of()));
+    }
+    QueryPlanner planner = createPlanner(builder.build());
+    CarQuery twoModels = CarQuery.builder().models("BMW", "MAZDA").build();
+    CarQuery oneModel = CarQuery.builder().models("BMW, MAZDA").build();
+    String token = planner.cursor(twoModels, 1, null).nextPage(3).getContinuationToken();
+
+    // when
+    CarPage samePage = planner.cursor(CarQuery.builder().models("MAZDA", "BMW").build(), 1, token).nextPage(3);
+
+    // then
+    assertEquals(twoModels.toString(), oneModel.toString());
+    assertNotEquals(twoModels, oneModel);
+    assertThrows(IllegalArgumentException.class, () -> planner.cursor(oneModel, 1, token));
+    assertEquals(3, samePage.getCars().size());
+  }
+
+  private static boolean matches(CarQuery query, Car car) {
+    return (query.getModels().isEmpty() || query.getModels().contains(car.getModel()))
+        && (query.getColors().isEmpty() || query.getColors().contains(car.getColor()))
+        && (query.getMinPrice() == null || car.getPrice().compareTo(query.getMinPrice()) >= 0)
+        && (query.getMaxPrice() == null || car.getPrice().compareTo(query.getMaxPrice()) <= 0)
+        && (query.getMinMileage() == null || car.getMileage() >= query.getMinMileage())
+        && (query.getMaxMileage() == null || car.getMileage() <= query.getMaxMileage())
+        && car.getComponents().containsAll(query.getRequiredComponents())
+        && (query.getWantedComponents().isEmpty()
+            || query.getWantedComponents().stream().anyMatch(car.getComponents()::contains))
+        && query.getExcludedComponents().stream().noneMatch(car.getComponents()::contains);
+  }
+
+  private static String describe(Car car) {
+    return car.getModel() + " " + car.getPrice() + " " + car.getColor() + " " + car.getMileage();
+  }
+
+  private static QueryPlanner createPlanner(CarStore cars) {
+    SortIndex sortIndex = new SortIndex(cars);
+    return new QueryPlanner(cars, AttributeIndex.byModel(cars), AttributeIndex.byColor(cars),
+        new ComponentIndex(cars), RangeIndex.byPrice(sortIndex), RangeIndex.byMileage(sortIndex),
+        sortIndex);
+  }
+
+  private static Car createCar(String model, long price, Color color, long mileage, Set<String> components) {
+    return Car.builder()
+        .model(model)
+        .price(BigDecimal.valueOf(price))
+        .color(color)
+        .mileage(mileage)
+        .components(components)
+        .build();
+  }
+}
@@ -0,0 +1,356 @@
+package com.app.service.store;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.app.converter.CarSnapshot;
+import com.app.converter.CarSnapshotWriter;
+import com.app.model.Car;
+
+import static com.app.model.enums.Color.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarStoreTest {
+
+  @Test
+  void should_materialize_the_same_car_which_was_added() {
+    // given
+    Car car = Car.builder()
+        .model("MAZDA")
+        .price(new BigDecimal("160.50"))
+        .color(GREEN)
+        .mileage(2000L)
+        .components(Set.of("ESP", "BLUETOOTH"))
+        .build();
+
+    // when
+    CarStore store = CarStore.builder().add(car).build();
+
+    // then
+    Car actual = store.getCar(0);
+    assertEquals(1, store.size());
+    assertEquals(car.getModel(), actual.getModel());
+    assertEquals(car.getPrice(), actual.getPrice());
+    assertEquals(car.getColor(), actual.getColor());
+    assertEquals(car.getMileage(), actual.getMileage());
+    assertEquals(car.getComponents(), actual.getComponents());
+    assertEquals(1_605_000L, store.getScaledPrice(0));
+  }
+
+  @Test
+  void should_keep_scale_of_price() {
+    // given
+    BigDecimal price = BigDecimal.valueOf(160);
+
+    // when
+    CarStore store = CarStore.builder().add(createCar("BMW", price)).build();
+
+    // then
+    assertEquals(price, store.getPrice(0));
+  }
+
+  @Test
+  void should_share_dictionary_ids_of_repeated_models() {
+    // given + when
+    CarStore store = CarStore.builder()
+        .add(createCar("MAZDA", BigDecimal.ONE))
+        .add(createCar("BMW", BigDecimal.ONE))
+        .add(createCar("MAZDA", BigDecimal.ONE))
+        .build();
+
+    // then
+    assertEquals(2, store.getModelDictionary().size());
+    assertEquals(store.getModelId(0), store.getModelId(2));
+    assertArrayEquals(new int[]{1, 0}, store.getModelDictionary().ranks());
+  }
+
+  @Test
+  void should_keep_prices_which_the_price_column_can_not_hold_exactly(@TempDir Path directory) {
+    // given
+    BigDecimal precise = new BigDecimal("160.12345");
+    BigDecimal huge = new BigDecimal("1E+30");
+    CarStore store = CarStore.builder()
+        .add(createCar("BMW", precise))
+        .add(createCar("MAZDA", new BigDecimal("160.1234")))
+        .add(createCar("AUDI", BigDecimal.ONE))
+        .build();
+    String snapshotFilename = directory.resolve("Cars.snapshot").toString();
+
+    // when
+    CarStore changed = store.toBuilder()
+        .set(1, createCar("MAZDA", huge))
+        .set(0, createCar("BMW", BigDecimal.TEN))
+        .set(2, createCar("AUDI", precise))
+        .remove(0)
+        .build()
+        .compact();
+    new CarSnapshotWriter(snapshotFilename).write(List.of(store.getCar(0), store.getCar(1)));
+    CarStore snapshotStore = CarStore.of(CarSnapshot.open(snapshotFilename));
+
+    // then
+    assertEquals(precise, store.getPrice(0));
+    assertEquals(1_601_234L, store.getScaledPrice(0));
+    assertTrue(store.matches(0, createCar("BMW", precise)));
+    assertFalse(store.matches(1, createCar("MAZDA", precise)));
+    assertEquals(huge, changed.getPrice(0));
+    assertEquals(Long.MAX_VALUE, changed.getScaledPrice(0));
+    assertEquals(precise, changed.getPrice(1));
+    assertEquals(precise, snapshotStore.getPrice(0));
+    assertEquals(new BigDecimal("160.1234"), snapshotStore.getPrice(1));
+  }
+
+  @Test
+  void should_check_prices_of_a_range_exactly_at_its_bounds() {
+    // given
+    CarStore store = CarStore.builder()
+        .add(createCar("BMW", new BigDecimal("160.12345")))
+        .add(createCar("MAZDA", new BigDecimal("160.1234")))
+        .add(createCar("AUDI", new BigDecimal("160.1235")))
+        .build();
+
+    // when
+    PriceRange below = PriceRange.of(null, new BigDecimal("160.12344"));
+    PriceRange above = PriceRange.of(new BigDecimal("160.12341"), null);
+    PriceRange exact = PriceRange.of(new BigDecimal("160.12345"), new BigDecimal("160.12345"));
+
+    // then
+    assertEquals(List.of(false, true, false), containedRows(below, store));
+    assertEquals(List.of(true, false, true), containedRows(above, store));
+    assertEquals(List.of(true, false, false), containedRows(exact, store));
+    assertTrue(PriceRange.of(BigDecimal.TEN, BigDecimal.ONE).isEmpty());
+  }
+
+  @Test
+  void should_round_price_bounds_in_given_direction() {
+    // given
+    BigDecimal price = new BigDecimal("10.00005");
+
+    // when + then
+    assertEquals(100_001L, CarStore.toScaledPrice(price, RoundingMode.CEILING));
+    assertEquals(100_000L, CarStore.toScaledPrice(price, RoundingMode.FLOOR));
+    assertEquals(Long.MAX_VALUE, CarStore.toScaledPrice(BigDecimal.valueOf(Long.MAX_VALUE), RoundingMode.FLOOR));
+  }
+
+  @Test
+  void should_change_rows_in_place_without_changing_the_original_store() {
+    // given
+    CarStore store = CarStore.builder()
+        .add(createCar("MAZDA", BigDecimal.ONE))
+        .add(createCar("BMW", new BigDecimal("2.50")))
+        .add(createCar("AUDI", BigDecimal.TEN))
+        .build();
+
+    // when
+    CarStore derived = store.toBuilder()
+        .set(0, createCar("FIAT", BigDecimal.ONE))
+        .remove(1)
+        .add(createCar("BMW", BigDecimal.ONE))
+        .build();
+
+    // then
+    assertEquals(3, derived.size());
+    assertEquals(4, derived.getRowCount());
+    assertTrue(derived.isRemoved(1));
+    assertArrayEquals(new int[]{0, 2, 3}, derived.rows());
+    assertEquals("FIAT", derived.getModel(0));
+    assertEquals(derived.getModelId(3), store.getModelId(1));
+    assertEquals(3, store.size());
+    assertEquals("MAZDA", store.getModel(0));
+    assertFalse(store.isRemoved(1));
+    assertEquals(3, store.getModelDictionary().size());
+  }
+
+  @Test
+  void should_renumber_the_live_rows_into_compacted_dictionaries() {
+    // given
+    CarStore store = CarStore.builder()
+        .add(createCar("MAZDA", BigDecimal.ONE))
+        .add(createCar("BMW", new BigDecimal("2.50")))
+        .add(createCar("AUDI", BigDecimal.TEN))
+        .build()
+        .toBuilder()
+        .remove(0)
+        .build();
+
+    // when
+    CarStore compacted = store.compact();
+
+    // then
+    assertEquals(2, compacted.size());
+    assertEquals(2, compacted.getRowCount());
+    assertEquals(0, compacted.getRemovedCount());
+    assertEquals("BMW", compacted.getModel(0));
+    assertEquals(new BigDecimal("2.50"), compacted.getPrice(0));
+    assertEquals(2, compacted.getModelDictionary().size());
+    assertTrue(compacted.matches(0, createCar("BMW", new BigDecimal("2.5"))));
+    assertFalse(compacted.matches(0, createCar("BMW", BigDecimal.ONE)));
+  }
+
+  @Test
+  void should_keep_the_partition_of_a_row_through_updates_and_compaction() {
+    // given
+    CarStore store = CarStore.builder()
+        .add(createCar("MAZDA", BigDecimal.ONE), 2)
+        .add(createCar("BMW", BigDecimal.ONE))
+        .add(createCar("AUDI", BigDecimal.TEN), 1)
+        .add(createCar("FIAT", BigDecimal.TEN), 2)
+        .build();
+
+    // when
+    CarStore changed = store.toBuilder()
+        .set(0, createCar("MAZDA", BigDecimal.TEN))
+        .remove(1)
+        .build();
+    CarStore compacted = changed.compact();
+
+    // then
+    assertArrayEquals(new int[]{0, 3}, changed.rows(2));
+    assertArrayEquals(new int[0], changed.rows(0));
+    assertArrayEquals(new int[]{0, 2}, compacted.rows(2));
+    assertEquals(1, compacted.getPartition(1));
+    assertThrows(IllegalArgumentException.class, () -> CarStore.builder().add(createCar("BMW", BigDecimal.ONE), -1));
+  }
+
+  @Test
+  void should_change_rows_of_a_store_read_from_a_snapshot(@TempDir Path directory) {
+    // given
+    List<Car> cars = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      cars.add(createCar(i % 2 == 0 ? "MAZDA" : "BMW", BigDecimal.valueOf(i, 2)));
+    }
+    String snapshotFilename = directory.resolve("Cars.snapshot").toString();
+    new CarSnapshotWriter(snapshotFilename).write(cars);
+    CarStore store = CarStore.of(CarSnapshot.open(snapshotFilename));
+
+    // when
+    CarStore changed = store.toBuilder()
+        .set(4_500, createCar("AUDI", BigDecimal.ONE))
+        .remove(10)
+        .build();
+
+    // then
+    assertEquals(5_000, store.size());
+    assertEquals(4_999, changed.size());
+    assertEquals("AUDI", changed.getModel(4_500));
+    assertEquals("MAZDA", store.getModel(4_500));
+    assertTrue(changed.isRemoved(10));
+    assertTrue(changed.matches(4_999, cars.get(4_999)));
+    assertEquals(new BigDecimal("0.11"), changed.getPrice(11));
+  }
+
+  @Test
+  void should_sort_components_of_a_row_lexicographically() {
+    // given
+    CarStore store = CarStore.builder()
+        .add(createCar("MAZDA", BigDecimal.ONE, new LinkedHashSet<>(List.of("SUNROOF", "ABS", "ESP"))))
+        .add(createCar("BMW", BigDecimal.ONE, new LinkedHashSet<>(List.of("ESP", "BLUETOOTH", "SUNROOF"))))
+        .build();
+
+    // when
+    Set<String> sortedComponents = store.getSortedComponents(0);
+
+    // then
+    assertEquals(List.of("ABS", "ESP", "SUNROOF"), new ArrayList<>(sortedComponents));
+    assertEquals(List.of("SUNROOF", "ABS", "ESP"), new ArrayList<>(store.getCar(0).getComponents()));
+    assertEquals(2, store.countCommonComponents(0, 1));
+    assertTrue(store.hasAllComponents(1, store.toComponentIds(Set.of("ESP", "BLUETOOTH"))));
+    assertFalse(store.hasAllComponents(1, store.toComponentIds(Set.of("ESP", "ABS"))));
+    assertTrue(store.hasAnyComponent(1, store.toComponentIds(Set.of("GPS", "BLUETOOTH"))));
+    assertFalse(store.hasAnyComponent(0, store.toComponentIds(Set.of("GPS", "BLUETOOTH"))));
+  }
+
+  @Test
+  void should_keep_only_the_component_ids_of_a_row_whatever_the_number_of_components() {
+    // given
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add(createCar("MAZDA", BigDecimal.ONE, Set.of(String.format("C%03d", i))));
+    }
+
+    // when
+    CarStore store = builder.build();
+
+    // then
+    assertEquals(1, store.getComponentCount(99));
+    assertEquals(Set.of("C099"), store.getSortedComponents(99));
+    assertArrayEquals(new int[]{98, 99}, store.toComponentIds(List.of("C099", "C098", "C099", "X")));
+    assertTrue(store.hasComponent(99, store.getComponentDictionary().find("C099")));
+    assertFalse(store.hasComponent(98, store.getComponentDictionary().find("C099")));
+  }
+
+  @Test
+  void should_sort_rows_stable_by_key() {
+    // given
+    List<Long> values = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      values.add((long) (i * 7919 % 13) - 6);
+    }
+    int[] rows = new int[values.size()];
+    long[] keys = new long[values.size()];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = i;
+      keys[i] = values.get(i);
+    }
+
+    // when
+    RowSorter.sortByKey(rows, keys);
+
+    // then
+    for (int i = 1; i < rows.length; i++) {
+      assertTrue(keys[i - 1] <= keys[i]);
+      assertEquals((long) values.get(rows[i]), keys[i]);
+      if (keys[i - 1] == keys[i]) {
+        assertTrue(rows[i - 1] < rows[i]);
+      }
+    }
+  }
+
+  @Test
+  void should_sum_longs_without_overflow() {
+    // given
+    LongSum sum = new LongSum();
+
+    // when
+    sum.add(Long.MAX_VALUE);
+    sum.add(Long.MAX_VALUE);
+    sum.add(-5);
+    sum.subtract(Long.MIN_VALUE);
+
+    // then
+    BigInteger expected = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TWO)
+        .subtract(BigInteger.valueOf(5))
+        .subtract(BigInteger.valueOf(Long.MIN_VALUE));
+    assertEquals(expected, sum.toBigInteger());
+  }
+
+  private static Car createCar(String model, BigDecimal price) {
+    return createCar(model, price, Set.of("ABS"));
+  }
+
+  private static List<Boolean> containedRows(PriceRange range, CarStore store) {
+    List<Boolean> contained = new ArrayList<>();
+    for (int row = 0; row < store.getRowCount(); row++) {
+      contained.add(range.contains(store, row));
+    }
+    return contained;
+  }
+
+  private static Car createCar(String model, BigDecimal price, Set<String> components) {
+    return Car.builder()
+        .model(model)
+        .price(price)
+        .color(BLACK)
+        .mileage(1L)
+        .components(components)
+        .build();
+  }
+}
@@ -0,0 +1,115 @@
+package com.app.service.topk;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.model.enums.Color;
+import com.app.service.enums.GroupBy;
+import com.app.service.enums.SortType;
+import com.app.service.store.CarStore;
+import com.app.service.store.RowSorter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKFinderTest {
+
+  private static final String[] MODELS = {"MAZDA", "BMW", "AUDI", "FIAT"};
+
+  private final CarStore cars = createCars(200_000);
+  private final TopKFinder finder = new TopKFinder(cars);
+
+  @Test
+  void should_return_prefix_of_full_sort() {
+    for (SortType sortType : new SortType[]{SortType.PRICE, SortType.MILEAGE}) {
+      int[] sortedRows = sortRows(sortType);
+      for (boolean descending : new boolean[]{false, true}) {
+        for (boolean parallel : new boolean[]{false, true}) {
+          // when
+          int[] actual = finder.findTop(sortType, descending, 10, parallel);
+
+          // then
+          assertArrayEquals(prefix(sortedRows, descending, 10), actual, sortType + " " + descending + " " + parallel);
+        }
+      }
+    }
+  }
+
+  @Test
+  void should_return_all_rows_when_limit_is_greater_than_number_of_cars() {
+    // given
+    TopKFinder smallFinder = new TopKFinder(createCars(5));
+
+    // when
+    int[] actual = smallFinder.findTop(SortType.PRICE, true, Integer.MAX_VALUE, false);
+
+    // then
+    assertEquals(5, actual.length);
+  }
+
+  @Test
+  void should_find_top_rows_per_model() {
+    // given + when
+    Map<String, int[]> actual = finder.findTopPerGroup(SortType.PRICE, false, 3, GroupBy.MODEL);
+
+    // then
+    assertEquals(MODELS.length, actual.size());
+    actual.forEach((model, rows) -> {
+      assertEquals(3, rows.length);
+      for (int i = 0; i < rows.length; i++) {
+        assertEquals(model, cars.getModel(rows[i]));
+        if (i > 0) {
+          assertTrue(cars.getScaledPrice(rows[i - 1]) <= cars.getScaledPrice(rows[i]));
+        }
+      }
+    });
+  }
+
+  @Test
+  void should_throw_exception_when_limit_is_negative() {
+    // when + then
+    assertThrows(IllegalArgumentException.class, () -> finder.findTop(SortType.PRICE, false, -1, false));
+  }
+
+  private int[] sortRows(SortType sortType) {
+    int[] rows = new int[cars.size()];
+    long[] keys = new long[cars.size()];
+    for (int row = 0; row < rows.length; row++) {
+      rows[row] = row;
+      keys[row] = sortType == SortType.PRICE ? cars.getScaledPrice(row) : cars.getMileage(row);
+    }
+    RowSorter.sortByKey(rows, keys);
+    return rows;
+  }
+
+  private static int[] prefix(int[] sortedRows, boolean descending, int k) {
+    if (!descending) {
+      return Arrays.copyOf(sortedRows, k);
+    }
+    int[] prefix = new int[k];
+    for (int i = 0; i < k; i++) {
+      prefix[i] = sortedRows[sortedRows.length - 1 - i];
+    }
+    return prefix;
+  }
+
+  private static CarStore createCars(int count) {
+    Random random = new Random(3);
+    CarStore.Builder builder = CarStore.builder();
+    for (int i = 0; i < count; i++) {
+      builder.add(Car.builder()
+          .model(MODELS[random.nextInt(MODELS.length)])
+          .price(BigDecimal.valueOf(1 + random.nextInt(1_000)))
+          .color(Color.values()[random.nextInt(Color.values().length)])
+          .mileage(1L + random.nextInt(1_000))
+          .components(Set.of("ABS"))
+          .build());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,100 @@
+package com.app.validator;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.app.model.Car;
+import com.app.validator.enums.ValidationRule;
+
+/**
+ * Non-throwing counterpart of {@link CarValidator} with a configurable rule set. A missing field is reported
+ * as a failed rule instead of a {@link NullPointerException}, so whole batches can be checked in one go.
+ */
+public class CarValidationEngine {
+
+  private final int enabledRules;
+
+  public CarValidationEngine() {
+    this(EnumSet.allOf(ValidationRule.class));
+  }
+
+  public CarValidationEngine(Set<ValidationRule> rules) {
+    int mask = 0;
+    for (ValidationRule rule : rules) {
+      mask |= rule.getMask();
+    }
+    this.enabledRules = mask;
+  }
+
+  public boolean isValid(Car car) {
+    return validate(car) == 0;
+  }
+
+  /**
+   * Returns the {@link ValidationRule#getMask() masks} of all enabled rules the car breaks, 0 for a valid car.
+   */
+  public int validate(Car car) {
+    if (car == null) {
+      return enabledRules;
+    }
+
+    int failedRules = 0;
+    if (isEnabled(ValidationRule.MODEL) && !isModelValid(car)) {
+      failedRules |= ValidationRule.MODEL.getMask();
+    }
+    if (isEnabled(ValidationRule.PRICE) && !isPriceValid(car)) {
+      failedRules |= ValidationRule.PRICE.getMask();
+    }
+    if (isEnabled(ValidationRule.COLOR) && car.getColor() == null) {
+      failedRules |= ValidationRule.COLOR.getMask();
+    }
+    if (isEnabled(ValidationRule.MILEAGE) && !isMileageValid(car)) {
+      failedRules |= ValidationRule.MILEAGE.getMask();
+    }
+    if (isEnabled(ValidationRule.COMPONENTS) && !areComponentsValid(car)) {
+      failedRules |= ValidationRule.COMPONENTS.getMask();
+    }
+    return failedRules;
+  }
+
+  public ValidationResult validateAll(List<Car> cars) {
+    int[] failedRules = new int[cars.size()];
+    int i = 0;
+    for (Car car : cars) {
+      failedRules[i++] = validate(car);
+    }
+    return new ValidationResult(failedRules);
+  }
+
+  private boolean isEnabled(ValidationRule rule) {
+    return (enabledRules & rule.getMask()) != 0;
+  }
+
+  private static boolean isModelValid(Car car) {
+    String model = car.getModel();
+    return model != null && NamePattern.matches(model);
+  }
+
+  private static boolean isPriceValid(Car car) {
+    return car.getPrice() != null && car.getPrice().signum() > 0;
+  }
+
+  private static boolean isMileageValid(Car car) {
+    Long mileage = car.getMileage();
+    return mileage != null && mileage > 0;
+  }
+
+  private static boolean areComponentsValid(Car car) {
+    Set<String> components = car.getComponents();
+    if (components == null || components.isEmpty()) {
+      return false;
+    }
+    for (String component : components) {
+      if (component == null || !NamePattern.matches(component)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
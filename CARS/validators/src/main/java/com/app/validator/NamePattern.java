@@ -0,0 +1,40 @@
+package com.app.validator;
+
+/**
+ * Hand-rolled equivalent of the {@code [A-Z]+\s{0,1}[A-Z]*} regular expression used for models and
+ * components, checked in a single pass without compiling a pattern or allocating a matcher.
+ */
+final class NamePattern {
+
+  private NamePattern() {
+  }
+
+  static boolean matches(String name) {
+    int length = name.length();
+    int i = skipUpperCaseLetters(name, 0, length);
+    if (i == 0) {
+      return false;
+    }
+    if (i < length && isWhitespace(name.charAt(i))) {
+      i = skipUpperCaseLetters(name, i + 1, length);
+    }
+    return i == length;
+  }
+
+  private static int skipUpperCaseLetters(String name, int from, int length) {
+    int i = from;
+    while (i < length && isUpperCaseLetter(name.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isUpperCaseLetter(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  // same character class as \s in java.util.regex without UNICODE_CHARACTER_CLASS
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
@@ -0,0 +1,69 @@
+package com.app.validator;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.app.validator.enums.ValidationRule;
+
+/**
+ * Outcome of {@link CarValidationEngine#validateAll(java.util.List)}: one bit per record telling whether it is
+ * valid, and one int per record holding the masks of the rules it broke, as wide as
+ * {@link ValidationRule#getMask()}.
+ */
+public class ValidationResult {
+
+  private final int[] failedRules;
+  private final BitSet validRecords;
+
+  ValidationResult(int[] failedRules) {
+    this.failedRules = failedRules;
+    this.validRecords = new BitSet(failedRules.length);
+    for (int i = 0; i < failedRules.length; i++) {
+      if (failedRules[i] == 0) {
+        validRecords.set(i);
+      }
+    }
+  }
+
+  public int size() {
+    return failedRules.length;
+  }
+
+  public boolean isValid(int record) {
+    return validRecords.get(record);
+  }
+
+  public BitSet getValidRecords() {
+    return (BitSet) validRecords.clone();
+  }
+
+  public int countValid() {
+    return validRecords.cardinality();
+  }
+
+  public int countRejected() {
+    return size() - countValid();
+  }
+
+  public int countRejectedBy(ValidationRule rule) {
+    int count = 0;
+    for (int rules : failedRules) {
+      if ((rules & rule.getMask()) != 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public Set<ValidationRule> getRejectionReasons(int record) {
+    int rules = failedRules[record];
+    Set<ValidationRule> reasons = EnumSet.noneOf(ValidationRule.class);
+    for (ValidationRule rule : ValidationRule.values()) {
+      if ((rules & rule.getMask()) != 0) {
+        reasons.add(rule);
+      }
+    }
+    return reasons;
+  }
+}
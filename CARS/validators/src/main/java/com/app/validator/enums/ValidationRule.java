@@ -0,0 +1,15 @@
+package com.app.validator.enums;
+
+public enum ValidationRule {
+  MODEL,
+  PRICE,
+  COLOR,
+  MILEAGE,
+  COMPONENTS;
+
+  private final int mask = 1 << ordinal();
+
+  public int getMask() {
+    return mask;
+  }
+}
@@ -1,5 +1,6 @@
 module validators {
   exports com.app.validator to service;
+  exports com.app.validator.enums to service;
 
   requires model;
   requires org.apache.commons.collections4;
@@ -0,0 +1,120 @@
+package com.app.validator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.model.Car;
+import com.app.validator.data.MockDataForTests;
+import com.app.validator.enums.ValidationRule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarValidationEngineTest {
+
+  private final CarValidationEngine engine = new CarValidationEngine();
+
+  @Test
+  void should_successfully_valid_car() {
+    // given + when
+    boolean actual = engine.isValid(MockDataForTests.createCar());
+
+    // then
+    assertTrue(actual);
+  }
+
+  @Test
+  void should_report_missing_fields_instead_of_throwing_exception() {
+    // given
+    Car car = new Car();
+
+    // when
+    int actual = engine.validate(car);
+
+    // then
+    assertEquals(EnumSet.allOf(ValidationRule.class), toRules(actual));
+  }
+
+  @Test
+  void should_return_result_for_every_car_in_batch() {
+    // given
+    Car valid = MockDataForTests.createCar();
+    Car invalidModel = MockDataForTests.createCar();
+    invalidModel.setModel("Mazda");
+    Car invalidPriceAndMileage = MockDataForTests.createCar();
+    invalidPriceAndMileage.setPrice(BigDecimal.ZERO);
+    invalidPriceAndMileage.setMileage(null);
+
+    // when
+    ValidationResult actual = engine.validateAll(Arrays.asList(valid, invalidModel, null, invalidPriceAndMileage));
+
+    // then
+    assertEquals(4, actual.size());
+    assertEquals(1, actual.countValid());
+    assertEquals(3, actual.countRejected());
+    assertTrue(actual.isValid(0));
+    assertFalse(actual.isValid(1));
+    assertEquals(EnumSet.of(ValidationRule.MODEL), actual.getRejectionReasons(1));
+    assertEquals(EnumSet.allOf(ValidationRule.class), actual.getRejectionReasons(2));
+    assertEquals(EnumSet.of(ValidationRule.PRICE, ValidationRule.MILEAGE), actual.getRejectionReasons(3));
+    assertEquals(2, actual.countRejectedBy(ValidationRule.PRICE));
+    assertEquals(1, actual.getValidRecords().cardinality());
+  }
+
+  @Test
+  void should_skip_rules_which_are_not_enabled() {
+    // given
+    CarValidationEngine priceOnly = new CarValidationEngine(EnumSet.of(ValidationRule.PRICE));
+    Car car = MockDataForTests.createCar();
+    car.setModel(null);
+    car.setComponents(Set.of("Abs"));
+
+    // when
+    boolean actual = priceOnly.isValid(car);
+
+    // then
+    assertTrue(actual);
+  }
+
+  @Test
+  void should_accept_any_positive_price_like_the_legacy_validator() {
+    // given
+    Car fractionDigits = MockDataForTests.createCar();
+    fractionDigits.setPrice(new BigDecimal("160.12345"));
+    Car integerDigits = MockDataForTests.createCar();
+    integerDigits.setPrice(new BigDecimal("100000000000000000000"));
+
+    // when
+    ValidationResult actual = engine.validateAll(Arrays.asList(fractionDigits, integerDigits));
+
+    // then
+    assertTrue(actual.isValid(0));
+    assertTrue(actual.isValid(1));
+    assertTrue(CarValidator.isCarValid(fractionDigits));
+    assertTrue(CarValidator.isCarValid(integerDigits));
+  }
+
+  @Test
+  void should_match_names_like_regular_expression() {
+    // given
+    List<String> names = List.of("MAZDA", "AIR CONDITIONING", "ALLOY\tWHEELS", "MAZDA ", "BMW  X", " BMW", "",
+        "Mazda", "A B C", "ABS1", "AB\u00A0S", "Z", "A\nB");
+
+    // when + then
+    names.forEach(name -> assertEquals(name.matches("[A-Z]+\\s{0,1}[A-Z]*"), NamePattern.matches(name), name));
+  }
+
+  private static Set<ValidationRule> toRules(int mask) {
+    Set<ValidationRule> rules = EnumSet.noneOf(ValidationRule.class);
+    for (ValidationRule rule : ValidationRule.values()) {
+      if ((mask & rule.getMask()) != 0) {
+        rules.add(rule);
+      }
+    }
+    return rules;
+  }
+}